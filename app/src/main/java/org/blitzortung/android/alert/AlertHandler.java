@@ -15,8 +15,12 @@ import org.blitzortung.android.alert.event.AlertCancelEvent;
 import org.blitzortung.android.alert.event.AlertEvent;
 import org.blitzortung.android.alert.factory.AlertObjectFactory;
 import org.blitzortung.android.alert.handler.AlertStatusHandler;
+import org.blitzortung.android.alert.handler.StormCellTracker;
+import org.blitzortung.android.alert.handler.StrikeRateTracker;
 import org.blitzortung.android.alert.object.AlertSector;
 import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.alert.object.AlertTarget;
+import org.blitzortung.android.alert.object.StormCell;
 import org.blitzortung.android.app.Main;
 import org.blitzortung.android.app.R;
 import org.blitzortung.android.data.beans.Strike;
@@ -25,12 +29,23 @@ import org.blitzortung.android.data.provider.result.DataEvent;
 import org.blitzortung.android.data.provider.result.ResultEvent;
 import org.blitzortung.android.location.LocationEvent;
 import org.blitzortung.android.location.LocationHandler;
+import org.blitzortung.android.metrics.Metrics;
+import org.blitzortung.android.metrics.WakeAccounting;
 import org.blitzortung.android.app.controller.NotificationHandler;
 import org.blitzortung.android.app.view.PreferenceKey;
 import org.blitzortung.android.protocol.Consumer;
+import org.blitzortung.android.util.Clock;
+import org.blitzortung.android.util.MainThreadExecutor;
 import org.blitzortung.android.util.MeasurementSystem;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class AlertHandler implements OnSharedPreferenceChangeListener {
 
@@ -44,6 +59,11 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
 
     private final AlertParameters alertParameters;
 
+    // copy of the alert parameters which is never modified, evaluations and published statuses refer to it
+    private AlertParameters parameterSnapshot;
+
+    private MeasurementSystem measurementSystem;
+
     private Location location;
 
     private boolean alertEnabled;
@@ -52,10 +72,22 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
 
     protected Consumer<AlertEvent> alertEventConsumer;
 
-    private final AlertStatus alertStatus;
+    private final AlertObjectFactory alertObjectFactory;
+
+    private AlertStatus alertStatus;
+
+    private List<AlertTarget> alertTargets = Collections.emptyList();
 
     private final AlertStatusHandler alertStatusHandler;
 
+    private final StormCellTracker stormCellTracker;
+
+    private final StrikeRateTracker strikeRateTracker;
+
+    private int dataSequence;
+
+    private List<StormCell> stormCells = Collections.emptyList();
+
     private final LocationHandler locationHandler;
 
     private float notificationDistanceLimit;
@@ -66,15 +98,89 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
 
     private long signalingLastTimestamp;
 
+    private final Executor alertExecutor;
+
+    private final Executor resultExecutor;
+
+    private final AtomicReference<Evaluation> pendingEvaluation = new AtomicReference<Evaluation>();
+
+    private int evaluationGeneration;
+
+    private AlertParameters evaluationParameters;
+
+    private AlertStatusHandler evaluationStatusHandler;
+
+    private volatile WakeAccounting wakeAccounting;
+
+    private static class Evaluation {
+
+        private final Collection<? extends Strike> strikes;
+
+        private final int dataSequence;
+
+        private final Location location;
+
+        private final List<AlertTarget> alertTargets;
+
+        private final AlertParameters alertParameters;
+
+        private final float notificationDistanceLimit;
+
+        private final int generation;
+
+        private Evaluation(Collection<? extends Strike> strikes, int dataSequence, Location location, List<AlertTarget> alertTargets, AlertParameters alertParameters, float notificationDistanceLimit, int generation) {
+            this.strikes = strikes;
+            this.dataSequence = dataSequence;
+            this.location = location;
+            this.alertTargets = alertTargets;
+            this.alertParameters = alertParameters;
+            this.notificationDistanceLimit = notificationDistanceLimit;
+            this.generation = generation;
+        }
+    }
+
+    private static class TargetResult {
+
+        private final AlertTarget alertTarget;
+
+        private final AlertResult alertResult;
+
+        private final long latestTimestamp;
+
+        private final String textMessage;
+
+        private TargetResult(AlertTarget alertTarget, AlertResult alertResult, long latestTimestamp, String textMessage) {
+            this.alertTarget = alertTarget;
+            this.alertResult = alertResult;
+            this.latestTimestamp = latestTimestamp;
+            this.textMessage = textMessage;
+        }
+    }
+
     public AlertHandler(LocationHandler locationHandler, SharedPreferences preferences, Context context, Vibrator vibrator, NotificationHandler notificationHandler, AlertObjectFactory alertObjectFactory, AlertParameters alertParameters) {
+        this(locationHandler, preferences, context, vibrator, notificationHandler, alertObjectFactory, alertParameters,
+                Executors.newSingleThreadExecutor(), new MainThreadExecutor());
+    }
+
+    public AlertHandler(LocationHandler locationHandler, SharedPreferences preferences, Context context, Vibrator vibrator, NotificationHandler notificationHandler, AlertObjectFactory alertObjectFactory, AlertParameters alertParameters,
+                        Executor alertExecutor, Executor resultExecutor) {
+        this.alertExecutor = alertExecutor;
+        this.resultExecutor = resultExecutor;
         this.locationHandler = locationHandler;
         this.context = context;
         this.vibrator = vibrator;
         this.notificationHandler = notificationHandler;
-        this.alertStatus = alertObjectFactory.createAlarmStatus(alertParameters);
-        this.alertStatusHandler = alertObjectFactory.createAlarmStatusHandler(alertParameters);
+        this.alertObjectFactory = alertObjectFactory;
         this.alertParameters = alertParameters;
 
+        onSharedPreferenceChanged(preferences, PreferenceKey.ALERT_SECTOR_COUNT);
+        onSharedPreferenceChanged(preferences, PreferenceKey.ALERT_RANGE_STEPS);
+
+        this.alertStatus = alertObjectFactory.createAlarmStatus(parameterSnapshot);
+        this.alertStatusHandler = alertObjectFactory.createAlarmStatusHandler(alertParameters);
+        this.stormCellTracker = alertObjectFactory.createStormCellTracker();
+        this.strikeRateTracker = alertObjectFactory.createStrikeRateTracker();
+
         preferences.registerOnSharedPreferenceChangeListener(this);
         onSharedPreferenceChanged(preferences, PreferenceKey.ALERT_ENABLED);
         onSharedPreferenceChanged(preferences, PreferenceKey.MEASUREMENT_UNIT);
@@ -82,6 +188,7 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
         onSharedPreferenceChanged(preferences, PreferenceKey.ALERT_SIGNALING_DISTANCE_LIMIT);
         onSharedPreferenceChanged(preferences, PreferenceKey.ALERT_VIBRATION_SIGNAL);
         onSharedPreferenceChanged(preferences, PreferenceKey.ALERT_SOUND_SIGNAL);
+        onSharedPreferenceChanged(preferences, PreferenceKey.ALERT_TARGETS);
 
         alarmValid = false;
     }
@@ -100,7 +207,9 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
             case MEASUREMENT_UNIT:
                 String measurementSystemName = sharedPreferences.getString(key.toString(), MeasurementSystem.METRIC.toString());
 
-                alertParameters.setMeasurementSystem(MeasurementSystem.valueOf(measurementSystemName));
+                measurementSystem = MeasurementSystem.valueOf(measurementSystemName);
+                alertParameters.setMeasurementSystem(measurementSystem);
+                parameterSnapshot = alertParameters.copy();
                 break;
 
             case ALERT_NOTIFICATION_DISTANCE_LIMIT:
@@ -119,6 +228,35 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
                 final String signalUri = sharedPreferences.getString(key.toString(), "");
                 alarmSoundNotificationSignal = !signalUri.isEmpty() ? Uri.parse(signalUri) : null;
                 break;
+
+            case ALERT_TARGETS:
+                for (AlertTarget alertTarget : alertTargets) {
+                    notificationHandler.clearNotification(alertTarget.getName());
+                }
+                alertTargets = parseAlertTargets(sharedPreferences.getString(key.toString(), ""));
+                break;
+
+            case ALERT_SECTOR_COUNT:
+                final String sectorCount = sharedPreferences.getString(key.toString(), "8");
+                try {
+                    alertParameters.setSectorCount(Integer.parseInt(sectorCount));
+                } catch (IllegalArgumentException e) {
+                    Log.w(Main.LOG_TAG, "AlertHandler.onSharedPreferenceChanged() invalid sector count '" + sectorCount + "'");
+                }
+                parameterSnapshot = alertParameters.copy();
+                updateAlertStatus(sharedPreferences);
+                break;
+
+            case ALERT_RANGE_STEPS:
+                final String rangeSteps = sharedPreferences.getString(key.toString(), "10,25,50,100,250,500");
+                try {
+                    alertParameters.setRangeSteps(parseRangeSteps(rangeSteps));
+                } catch (IllegalArgumentException e) {
+                    Log.w(Main.LOG_TAG, "AlertHandler.onSharedPreferenceChanged() invalid range steps '" + rangeSteps + "'");
+                }
+                parameterSnapshot = alertParameters.copy();
+                updateAlertStatus(sharedPreferences);
+                break;
         }
     }
 
@@ -127,6 +265,7 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
             locationHandler.requestUpdates(locationEventConsumer);
         } else {
             locationHandler.removeUpdates(locationEventConsumer);
+            locationHandler.resetAlertDistances();
             location = null;
             broadcastClear();
         }
@@ -135,8 +274,14 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
     private final Consumer<LocationEvent> locationEventConsumer = new Consumer<LocationEvent>() {
         @Override
         public void consume(LocationEvent event) {
-            Log.v(Main.LOG_TAG, "AlertHandler received location " + location);
-            location = event.getLocation();
+            final Location eventLocation = event.getLocation();
+            if (location != null && eventLocation != null && !locationHandler.isSignificantLocationChange(location, eventLocation)) {
+                Log.v(Main.LOG_TAG, "AlertHandler ignored insignificant location " + eventLocation);
+                return;
+            }
+            Log.v(Main.LOG_TAG, "AlertHandler received location " + eventLocation);
+            // the location handler keeps modifying its location instance, keep the last evaluated one
+            location = eventLocation != null ? new Location(eventLocation) : null;
             checkStrikes(lastStrikes);
         }
     };
@@ -150,12 +295,21 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
         public void consume(DataEvent event) {
             if (event instanceof ResultEvent) {
                 ResultEvent resultEvent = (ResultEvent) event;
+                if (resultEvent.containsTiledData()) {
+                    // tiles only cover the visible area, alerts use the region data
+                    return;
+                }
                 if (!resultEvent.hasFailed() && resultEvent.containsRealtimeData()) {
-                    checkStrikes(resultEvent.getStrikes());
+                    updateTrackers(resultEvent);
+                    checkStrikes(resultEvent.getStrikeBuffer());
                 } else {
+                    if (!resultEvent.hasFailed()) {
+                        clearTrackers();
+                    }
                     invalidateAlert();
                 }
             } else if (event instanceof ClearDataEvent) {
+                clearTrackers();
                 invalidateAlert();
             }
         }
@@ -169,19 +323,173 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
         return alertEnabled;
     }
 
+    private void updateTrackers(final ResultEvent resultEvent) {
+        final int sequence = ++dataSequence;
+        alertExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                stormCellTracker.update(resultEvent.getStrikes(), resultEvent.containsIncrementalData(), resultEvent.getReferenceTime());
+                if (resultEvent.containsIncrementalData()) {
+                    strikeRateTracker.add(resultEvent.getStrikes(), sequence);
+                } else {
+                    strikeRateTracker.clear();
+                }
+            }
+        });
+    }
+
+    private void clearTrackers() {
+        alertExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                stormCellTracker.clear();
+                strikeRateTracker.clear();
+            }
+        });
+    }
+
     public void checkStrikes(Collection<? extends Strike> strikes) {
-        boolean currentAlarmIsValid = isAlertEnabled() && location != null && strikes != null;
+        // fixed targets are monitored without a location of the device
+        boolean currentAlarmIsValid = isAlertEnabled() && (location != null || !alertTargets.isEmpty()) && strikes != null;
         lastStrikes = strikes;
 
         if (currentAlarmIsValid) {
-            alarmValid = true;
-            alertStatusHandler.checkStrikes(alertStatus, strikes, location);
-            processResult(getAlarmResult());
+            // a newer input replaces an evaluation which has not been started yet
+            // the location handler keeps modifying its location instance, the worker gets a copy
+            pendingEvaluation.set(new Evaluation(strikes, dataSequence, location != null ? new Location(location) : null,
+                    alertTargets, parameterSnapshot, notificationDistanceLimit, evaluationGeneration));
+            alertExecutor.execute(evaluationRunnable);
         } else {
             invalidateAlert();
         }
     }
 
+    private final Runnable evaluationRunnable = new Runnable() {
+        @Override
+        public void run() {
+            final Evaluation evaluation = pendingEvaluation.getAndSet(null);
+            if (evaluation != null) {
+                evaluate(evaluation);
+            }
+        }
+    };
+
+    private void evaluate(final Evaluation evaluation) {
+        final long startTime = System.nanoTime();
+
+        final AlertParameters parameters = evaluation.alertParameters;
+        if (parameters != evaluationParameters) {
+            evaluationParameters = parameters;
+            evaluationStatusHandler = alertObjectFactory.createAlarmStatusHandler(parameters);
+        }
+
+        // every evaluation fills its own statuses, published ones are never modified again
+        final AlertStatus evaluatedStatus = evaluation.location != null ? alertObjectFactory.createAlarmStatus(parameters) : null;
+        final List<AlertTarget> evaluatedTargets = new ArrayList<AlertTarget>(evaluation.alertTargets.size());
+        for (AlertTarget alertTarget : evaluation.alertTargets) {
+            evaluatedTargets.add(alertObjectFactory.createAlertTarget(parameters, alertTarget.getName(), alertTarget.getLocation()));
+        }
+
+        if (evaluatedTargets.isEmpty()) {
+            evaluationStatusHandler.checkStrikes(evaluatedStatus, evaluation.strikes, evaluation.location);
+        } else {
+            final List<AlertTarget> targets = new ArrayList<AlertTarget>(evaluatedTargets.size() + 1);
+            if (evaluatedStatus != null) {
+                targets.add(new AlertTarget("", evaluation.location, evaluatedStatus));
+            }
+            targets.addAll(evaluatedTargets);
+            evaluationStatusHandler.checkStrikes(targets, evaluation.strikes);
+        }
+
+        if (evaluatedStatus != null) {
+            strikeRateTracker.update(evaluation.location, evaluation.strikes, evaluation.dataSequence, evaluatedStatus.getAlertGrid(),
+                    parameters.getMeasurementSystem(), Clock.now());
+        }
+        final List<StormCell> evaluatedStormCells = evaluatedStatus != null
+                ? stormCellTracker.getStormCells(evaluation.location) : Collections.<StormCell>emptyList();
+        final List<TargetResult> targetResults = evaluateTargets(evaluation, evaluatedTargets);
+
+        final long evaluationTime = System.nanoTime() - startTime;
+        Metrics.getInstance().recordLatency(Metrics.Stage.ALERT_EVALUATION, null, evaluationTime);
+        final WakeAccounting wakeAccounting = this.wakeAccounting;
+        if (wakeAccounting != null) {
+            wakeAccounting.recordAlertEvaluation(evaluationTime);
+        }
+
+        resultExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                publishResult(evaluation, evaluatedStatus, evaluatedStormCells, targetResults);
+            }
+        });
+    }
+
+    private List<TargetResult> evaluateTargets(Evaluation evaluation, List<AlertTarget> evaluatedTargets) {
+        final List<TargetResult> targetResults = new ArrayList<TargetResult>(evaluation.alertTargets.size());
+        for (int index = 0; index < evaluation.alertTargets.size(); index++) {
+            final AlertTarget alertTarget = evaluation.alertTargets.get(index);
+            final AlertStatus targetStatus = evaluatedTargets.get(index).getAlertStatus();
+            final AlertResult targetResult = evaluationStatusHandler.getCurrentActivity(targetStatus);
+
+            if (targetResult != null && targetResult.getClosestStrikeDistance() <= evaluation.notificationDistanceLimit) {
+                targetResults.add(new TargetResult(alertTarget, targetResult,
+                        evaluationStatusHandler.getLatestTimstampWithin(evaluation.notificationDistanceLimit, targetStatus),
+                        evaluationStatusHandler.getTextMessage(targetStatus, evaluation.notificationDistanceLimit)));
+            } else {
+                targetResults.add(new TargetResult(alertTarget, null, 0, ""));
+            }
+        }
+        return targetResults;
+    }
+
+    private void publishResult(Evaluation evaluation, AlertStatus evaluatedStatus, List<StormCell> evaluatedStormCells, List<TargetResult> targetResults) {
+        if (evaluation.generation != evaluationGeneration) {
+            Log.v(Main.LOG_TAG, "AlertHandler.publishResult() drop outdated result");
+            return;
+        }
+
+        if (evaluatedStatus == null) {
+            invalidateDeviceAlert();
+            processTargetResults(targetResults);
+            return;
+        }
+
+        alertStatus = evaluatedStatus;
+        stormCells = evaluatedStormCells;
+        alarmValid = true;
+
+        final AlertResult alertResult = getAlarmResult();
+        processResult(alertResult);
+        processTargetResults(targetResults);
+        updateLocationPolicy(alertResult);
+    }
+
+    private void invalidateDeviceAlert() {
+        stormCells = Collections.emptyList();
+
+        if (alarmValid) {
+            alarmValid = false;
+            alertStatus = alertObjectFactory.createAlarmStatus(parameterSnapshot);
+            notificationHandler.clearNotification();
+            broadcastClear();
+        }
+    }
+
+    public void runAfterEvaluation(final Runnable runnable) {
+        alertExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                resultExecutor.execute(runnable);
+            }
+        });
+    }
+
+    public void shutdown() {
+        if (alertExecutor instanceof ExecutorService) {
+            ((ExecutorService) alertExecutor).shutdownNow();
+        }
+    }
+
     public AlertResult getAlarmResult() {
         return alarmValid ? alertStatusHandler.getCurrentActivity(alertStatus) : null;
     }
@@ -195,6 +503,10 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
         updateLocationHandler();
     }
 
+    public void setWakeAccounting(WakeAccounting wakeAccounting) {
+        this.wakeAccounting = wakeAccounting;
+    }
+
     public void unsetAlertListener() {
         alertEventConsumer = null;
         updateLocationHandler();
@@ -204,6 +516,18 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
         return alertStatus.getSectors();
     }
 
+    public List<StormCell> getStormCells() {
+        return alarmValid ? stormCells : Collections.<StormCell>emptyList();
+    }
+
+    public StormCell getApproachingStormCell() {
+        return alarmValid && !stormCells.isEmpty() && stormCells.get(0).isApproaching() ? stormCells.get(0) : null;
+    }
+
+    public List<AlertTarget> getAlertTargets() {
+        return alertTargets;
+    }
+
     public AlertParameters getAlertParameters() {
         return alertParameters;
     }
@@ -222,8 +546,14 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
         boolean previousAlarmValidState = alarmValid;
         alarmValid = false;
 
+        pendingEvaluation.set(null);
+        evaluationGeneration++;
+
+        stormCells = Collections.emptyList();
+
         if (previousAlarmValidState) {
-            alertStatus.clearResults();
+            // published results stay untouched, consumers might still hold them
+            alertStatus = alertObjectFactory.createAlarmStatus(parameterSnapshot);
             broadcastClear();
         }
     }
@@ -236,15 +566,12 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
 
     private void broadcastResult(AlertResult alertResult) {
         if (alertEventConsumer != null) {
-            alertEventConsumer.consume(new AlertResultEvent(alertStatus, alertResult));
+            alertEventConsumer.consume(new AlertResultEvent(alertStatus, alertResult, stormCells));
         }
     }
 
     private void processResult(AlertResult alertResult) {
         if (alertResult != null) {
-
-            alertParameters.updateSectorLabels(context);
-
             if (alertResult.getClosestStrikeDistance() <= signalingDistanceLimit) {
                 long signalingLatestTimestamp = alertStatusHandler.getLatestTimstampWithin(signalingDistanceLimit, alertStatus);
                 if (signalingLatestTimestamp > signalingLastTimestamp) {
@@ -261,7 +588,8 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
                 long notificationLatestTimestamp = alertStatusHandler.getLatestTimstampWithin(notificationDistanceLimit, alertStatus);
                 if (notificationLatestTimestamp > notificationLastTimestamp) {
                     Log.v(Main.LOG_TAG, "AlertHandler.processResult() perform notification");
-                    notificationHandler.sendNotification(context.getResources().getString(R.string.activity) + ": " + getTextMessage(notificationDistanceLimit));
+                    notificationHandler.sendNotification(context.getResources().getString(R.string.activity) + ": " + getTextMessage(notificationDistanceLimit)
+                            + getTimeOfArrivalMessage());
                     notificationLastTimestamp = notificationLatestTimestamp;
                 } else {
                     Log.d(Main.LOG_TAG, String.format("AlertHandler.processResult() previous signaling event: %d vs %d", notificationLatestTimestamp, signalingLastTimestamp));
@@ -278,6 +606,89 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
         broadcastResult(alertResult);
     }
 
+    private void processTargetResults(List<TargetResult> targetResults) {
+        for (TargetResult targetResult : targetResults) {
+            final AlertTarget alertTarget = targetResult.alertTarget;
+
+            if (targetResult.alertResult != null) {
+                if (targetResult.latestTimestamp > alertTarget.getNotificationLastTimestamp()) {
+                    Log.v(Main.LOG_TAG, "AlertHandler.processTargetResults() perform notification for " + alertTarget.getName());
+                    notificationHandler.sendNotification(alertTarget.getName(), alertTarget.getName() + " - " + context.getResources().getString(R.string.activity)
+                            + ": " + targetResult.textMessage);
+                    alertTarget.setNotificationLastTimestamp(targetResult.latestTimestamp);
+                }
+            } else {
+                notificationHandler.clearNotification(alertTarget.getName());
+            }
+        }
+    }
+
+    private List<AlertTarget> parseAlertTargets(String targetsString) {
+        final List<AlertTarget> targets = new ArrayList<AlertTarget>();
+        if (targetsString == null) {
+            return targets;
+        }
+
+        for (String targetString : targetsString.split("[;\\n]")) {
+            targetString = targetString.trim();
+            if (targetString.isEmpty()) {
+                continue;
+            }
+
+            final int nameSeparator = targetString.lastIndexOf(':');
+            final String name = nameSeparator > 0 ? targetString.substring(0, nameSeparator).trim() : "#" + (targets.size() + 1);
+            final String[] coordinates = targetString.substring(nameSeparator + 1).split(",");
+            try {
+                if (coordinates.length != 2) {
+                    throw new NumberFormatException("two coordinates expected");
+                }
+                final Location targetLocation = new Location("");
+                targetLocation.setLatitude(Double.parseDouble(coordinates[0].trim()));
+                targetLocation.setLongitude(Double.parseDouble(coordinates[1].trim()));
+                targets.add(alertObjectFactory.createAlertTarget(alertParameters, name, targetLocation));
+            } catch (NumberFormatException e) {
+                Log.w(Main.LOG_TAG, "AlertHandler.parseAlertTargets() invalid target '" + targetString + "'");
+            }
+        }
+        return targets;
+    }
+
+    private static float[] parseRangeSteps(String rangeStepsString) {
+        if (rangeStepsString == null) {
+            throw new IllegalArgumentException("no range steps");
+        }
+
+        final String[] values = rangeStepsString.trim().split("\\s*,\\s*");
+        final float[] rangeSteps = new float[values.length];
+        for (int index = 0; index < values.length; index++) {
+            rangeSteps[index] = Float.parseFloat(values[index]);
+        }
+        return rangeSteps;
+    }
+
+    private void updateAlertStatus(SharedPreferences sharedPreferences) {
+        if (alertStatus != null) {
+            invalidateAlert();
+            alertStatus = alertObjectFactory.createAlarmStatus(parameterSnapshot);
+            onSharedPreferenceChanged(sharedPreferences, PreferenceKey.ALERT_TARGETS);
+        }
+    }
+
+    private String getTimeOfArrivalMessage() {
+        final StormCell stormCell = getApproachingStormCell();
+        if (stormCell == null || stormCell.getTimeOfArrival() == 0) {
+            return "";
+        }
+        return ", " + context.getResources().getString(R.string.storm_cell_time_of_arrival, Math.max(1, stormCell.getTimeOfArrival() / 60000));
+    }
+
+    private void updateLocationPolicy(AlertResult alertResult) {
+        final float activityDistance = alertResult != null
+                ? measurementSystem.calculateMeters(alertResult.getClosestStrikeDistance())
+                : Float.POSITIVE_INFINITY;
+        locationHandler.updateAlertDistances(activityDistance, measurementSystem.calculateMeters(signalingDistanceLimit));
+    }
+
     private void vibrateIfEnabled() {
         vibrator.vibrate(vibrationSignalDuration);
     }
@@ -300,7 +711,7 @@ public class AlertHandler implements OnSharedPreferenceChangeListener {
     }
 
     public AlertEvent getAlertEvent() {
-        return alarmValid ? new AlertResultEvent(alertStatus, getAlarmResult()) : ALERT_CANCEL_EVENT;
+        return alarmValid ? new AlertResultEvent(alertStatus, getAlarmResult(), stormCells) : ALERT_CANCEL_EVENT;
     }
 
     public void reconfigureLocationHandler() {
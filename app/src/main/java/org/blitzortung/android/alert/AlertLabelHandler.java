@@ -29,6 +29,9 @@ public class AlertLabelHandler {
                 textColorResource = R.color.Red;
             }
             warningText = String.format("%.0f%s %s", alertResult.getClosestStrikeDistance(), alertResult.getDistanceUnitName(), alertResult.getBearingName());
+            if (alertResult.isActivityRising()) {
+                warningText += " \u2191";
+            }
         }
         int color = resources.getColor(textColorResource);
         alertLabel.setAlarmTextColor(color);
@@ -4,25 +4,75 @@ import android.content.Context;
 import org.blitzortung.android.app.R;
 import org.blitzortung.android.util.MeasurementSystem;
 
-public class AlertParameters {
-    private static String[] SECTOR_LABELS;
+import java.util.Locale;
 
-    private static final float[] RANGE_STEPS = {10, 25, 50, 100, 250, 500};
+public class AlertParameters {
+    public static final float[] DEFAULT_RANGE_STEPS = {10, 25, 50, 100, 250, 500};
 
     private static final long alarmInterval = 10 * 60 * 1000;
 
+    private String[] directionNames;
+
+    private int sectorCount;
+
+    private String[] sectorLabels;
+
+    private float[] rangeSteps = DEFAULT_RANGE_STEPS;
+
     private MeasurementSystem measurementSystem;
-    
+
+    public AlertParameters copy() {
+        // the arrays are replaced but never modified, so they can be shared
+        final AlertParameters copy = new AlertParameters();
+        copy.directionNames = directionNames;
+        copy.sectorCount = sectorCount;
+        copy.sectorLabels = sectorLabels;
+        copy.rangeSteps = rangeSteps;
+        copy.measurementSystem = measurementSystem;
+        return copy;
+    }
+
     public void updateSectorLabels(Context context) {
-        SECTOR_LABELS = context.getResources().getStringArray(R.array.direction_names);
+        directionNames = context.getResources().getStringArray(R.array.direction_names);
+        sectorLabels = createSectorLabels(sectorCount > 0 ? sectorCount : directionNames.length);
+    }
+
+    public void setSectorLabels(String[] sectorLabels) {
+        directionNames = sectorLabels;
+        sectorCount = sectorLabels.length;
+        this.sectorLabels = sectorLabels;
     }
 
     public String[] getSectorLabels() {
-        return SECTOR_LABELS;
+        return sectorLabels;
+    }
+
+    public void setSectorCount(int sectorCount) {
+        if (sectorCount < 1) {
+            throw new IllegalArgumentException("invalid sector count " + sectorCount);
+        }
+        if (sectorCount != this.sectorCount) {
+            this.sectorCount = sectorCount;
+            if (directionNames != null) {
+                sectorLabels = createSectorLabels(sectorCount);
+            }
+        }
     }
 
     public float[] getRangeSteps() {
-        return RANGE_STEPS;
+        return rangeSteps;
+    }
+
+    public void setRangeSteps(float[] rangeSteps) {
+        if (rangeSteps.length == 0 || rangeSteps[0] <= 0f) {
+            throw new IllegalArgumentException("range steps must not be empty and positive");
+        }
+        for (int index = 1; index < rangeSteps.length; index++) {
+            if (rangeSteps[index] <= rangeSteps[index - 1]) {
+                throw new IllegalArgumentException("range steps must be strictly ascending");
+            }
+        }
+        this.rangeSteps = rangeSteps;
     }
 
     public long getAlarmInterval() {
@@ -36,4 +86,20 @@ public class AlertParameters {
     public void setMeasurementSystem(MeasurementSystem measurementSystem) {
         this.measurementSystem = measurementSystem;
     }
+
+    private String[] createSectorLabels(int sectorCount) {
+        final String[] labels = new String[sectorCount];
+        final float sectorWidth = 360f / sectorCount;
+
+        for (int sectorIndex = 0; sectorIndex < sectorCount; sectorIndex++) {
+            if (sectorIndex * directionNames.length % sectorCount == 0) {
+                labels[sectorIndex] = directionNames[sectorIndex * directionNames.length / sectorCount];
+            } else {
+                // direction names start in the south, compass bearings in the north
+                final float bearing = (sectorIndex * sectorWidth + 180f) % 360f;
+                labels[sectorIndex] = String.format(Locale.ENGLISH, "%.0f\u00b0", bearing);
+            }
+        }
+        return labels;
+    }
 }
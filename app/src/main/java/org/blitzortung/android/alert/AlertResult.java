@@ -24,6 +24,10 @@ public class AlertResult {
     public String getBearingName() {
         return sector.getLabel();
     }
+
+    public boolean isActivityRising() {
+        return sector.isActivityRising();
+    }
     
     @Override
     public String toString() {
@@ -2,15 +2,25 @@ package org.blitzortung.android.alert.event;
 
 import org.blitzortung.android.alert.AlertResult;
 import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.alert.object.StormCell;
+
+import java.util.Collections;
+import java.util.List;
 
 public class AlertResultEvent implements AlertEvent {
 
     private final AlertStatus alertStatus;
     private final AlertResult alertResult;
+    private final List<StormCell> stormCells;
 
     public AlertResultEvent(AlertStatus alertStatus, AlertResult alertResult) {
+        this(alertStatus, alertResult, Collections.<StormCell>emptyList());
+    }
+
+    public AlertResultEvent(AlertStatus alertStatus, AlertResult alertResult, List<StormCell> stormCells) {
         this.alertStatus = alertStatus;
         this.alertResult = alertResult;
+        this.stormCells = Collections.unmodifiableList(stormCells);
     }
 
     public AlertStatus getAlertStatus() {
@@ -20,4 +30,12 @@ public class AlertResultEvent implements AlertEvent {
     public AlertResult getAlertResult() {
         return alertResult;
     }
+
+    public List<StormCell> getStormCells() {
+        return stormCells;
+    }
+
+    public StormCell getApproachingStormCell() {
+        return !stormCells.isEmpty() && stormCells.get(0).isApproaching() ? stormCells.get(0) : null;
+    }
 }
@@ -1,11 +1,16 @@
 package org.blitzortung.android.alert.factory;
 
+import android.location.Location;
 import org.blitzortung.android.alert.AlertParameters;
 import org.blitzortung.android.alert.handler.AlertSectorHandler;
 import org.blitzortung.android.alert.handler.AlertStatusHandler;
+import org.blitzortung.android.alert.handler.StormCellTracker;
+import org.blitzortung.android.alert.handler.StrikeRateTracker;
+import org.blitzortung.android.alert.object.AlertGrid;
 import org.blitzortung.android.alert.object.AlertSector;
 import org.blitzortung.android.alert.object.AlertSectorRange;
 import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.alert.object.AlertTarget;
 
 public class AlertObjectFactory {
     
@@ -16,12 +21,12 @@ public class AlertObjectFactory {
         return new AlertStatus(this, alertParameters);
     }
 
-    public AlertSector createAlarmSector(AlertParameters alertParameters, String sectorLabel, float minimumSectorBearing, float maximumSectorBearing) {
-        return new AlertSector(this, alertParameters, sectorLabel, minimumSectorBearing, maximumSectorBearing);
+    public AlertSector createAlarmSector(AlertGrid alertGrid, int sectorIndex, String sectorLabel, float minimumSectorBearing, float maximumSectorBearing) {
+        return new AlertSector(this, alertGrid, sectorIndex, sectorLabel, minimumSectorBearing, maximumSectorBearing);
     }
 
-    public AlertSectorRange createAlarmSectorRange(float rangeMinimum, float rangeMaximum) {
-        return new AlertSectorRange(rangeMinimum, rangeMaximum);
+    public AlertSectorRange createAlarmSectorRange(AlertGrid alertGrid, int sectorIndex, int rangeIndex) {
+        return new AlertSectorRange(alertGrid, sectorIndex, rangeIndex);
     }
 
     public AlertStatusHandler createAlarmStatusHandler(AlertParameters alertParameters) {
@@ -31,4 +36,16 @@ public class AlertObjectFactory {
     public AlertSectorHandler createAlarmSectorHandler(AlertParameters alertParameters) {
         return new AlertSectorHandler(alertParameters);
     }
+
+    public AlertTarget createAlertTarget(AlertParameters alertParameters, String name, Location location) {
+        return new AlertTarget(name, location, createAlarmStatus(alertParameters));
+    }
+
+    public StormCellTracker createStormCellTracker() {
+        return new StormCellTracker();
+    }
+
+    public StrikeRateTracker createStrikeRateTracker() {
+        return new StrikeRateTracker();
+    }
 }
@@ -2,6 +2,7 @@ package org.blitzortung.android.alert.handler;
 
 import android.location.Location;
 import org.blitzortung.android.alert.AlertParameters;
+import org.blitzortung.android.alert.object.AlertGrid;
 import org.blitzortung.android.alert.object.AlertSector;
 import org.blitzortung.android.alert.object.AlertSectorRange;
 import org.blitzortung.android.data.beans.Strike;
@@ -26,20 +27,18 @@ public class AlertSectorHandler {
         this.thresholdTime = thresholdTime;
     }
 
-    protected void checkStrike(AlertSector sector, Strike strike) {
-        if (sector != null) {
-            float distance = calculateDistanceTo(strike);
+    protected void checkStrike(AlertGrid alertGrid, int sectorIndex, Strike strike) {
+        checkStrike(alertGrid, sectorIndex, strike, calculateDistanceTo(strike));
+    }
 
-            for (AlertSectorRange range : sector.getRanges()) {
-                if (distance <= range.getRangeMaximum()) {
-                    range.addStrike(strike);
+    protected void checkStrike(AlertGrid alertGrid, int sectorIndex, Strike strike, float distance) {
+        final int rangeIndex = alertGrid.getRangeIndex(distance);
+        if (rangeIndex >= 0) {
+            final long timestamp = strike.getTimestamp();
+            alertGrid.addStrike(sectorIndex, rangeIndex, timestamp, strike.getMultiplicity());
 
-                    if (strike.getTimestamp() >= thresholdTime) {
-                        sector.updateClosestStrikeDistance(distance);
-                    }
-                    
-                    break;
-                }
+            if (timestamp >= thresholdTime) {
+                alertGrid.updateClosestStrikeDistance(sectorIndex, distance);
             }
         }
     }
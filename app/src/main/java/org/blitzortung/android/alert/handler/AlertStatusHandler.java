@@ -1,16 +1,18 @@
 package org.blitzortung.android.alert.handler;
 
 import android.location.Location;
-import android.util.Log;
 import org.blitzortung.android.alert.AlertParameters;
 import org.blitzortung.android.alert.AlertResult;
+import org.blitzortung.android.alert.object.AlertGrid;
 import org.blitzortung.android.alert.object.AlertSector;
 import org.blitzortung.android.alert.object.AlertStatus;
-import org.blitzortung.android.app.Main;
+import org.blitzortung.android.alert.object.AlertTarget;
 import org.blitzortung.android.data.beans.Strike;
+import org.blitzortung.android.util.Clock;
+import org.blitzortung.android.util.MeasurementSystem;
 
 import java.util.Collection;
-import java.util.Locale;
+import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -18,31 +20,69 @@ public class AlertStatusHandler {
 
     private final AlertSectorHandler alertSectorHandler;
     private final AlertParameters alertParameters;
+    private final Clock clock;
 
     public AlertStatusHandler(AlertSectorHandler alertSectorHandler, AlertParameters alertParameters) {
+        this(alertSectorHandler, alertParameters, Clock.getDefault());
+    }
+
+    public AlertStatusHandler(AlertSectorHandler alertSectorHandler, AlertParameters alertParameters, Clock clock) {
         this.alertSectorHandler = alertSectorHandler;
         this.alertParameters = alertParameters;
+        this.clock = clock;
     }
 
     public AlertStatus checkStrikes(AlertStatus alertStatus, Collection<? extends Strike> strikes, Location location) {
 
         alertStatus.clearResults();
 
-        long thresholdTime = System.currentTimeMillis() - alertParameters.getAlarmInterval();
+        long thresholdTime = clock.currentTimeMillis() - alertParameters.getAlarmInterval();
 
         alertSectorHandler.setCheckStrikeParameters(location, thresholdTime);
 
+        final AlertGrid alertGrid = alertStatus.getAlertGrid();
         Location strikeLocation = new Location("");
 
         for (Strike strike : strikes) {
             float bearingToStrike = location.bearingTo(strike.getLocation(strikeLocation));
 
-            AlertSector alertSector = getSectorForBearing(alertStatus, bearingToStrike);
-            alertSectorHandler.checkStrike(alertSector, strike);
+            alertSectorHandler.checkStrike(alertGrid, alertGrid.getSectorIndex(bearingToStrike), strike);
         }
         return alertStatus;
     }
 
+    public void checkStrikes(List<AlertTarget> alertTargets, Collection<? extends Strike> strikes) {
+        for (AlertTarget alertTarget : alertTargets) {
+            alertTarget.getAlertStatus().clearResults();
+        }
+
+        long thresholdTime = clock.currentTimeMillis() - alertParameters.getAlarmInterval();
+
+        alertSectorHandler.setCheckStrikeParameters(null, thresholdTime);
+
+        final MeasurementSystem measurementSystem = alertParameters.getMeasurementSystem();
+        final float[] rangeSteps = alertParameters.getRangeSteps();
+        final AlertTargetIndex alertTargetIndex = new AlertTargetIndex(alertTargets, measurementSystem.calculateMeters(rangeSteps[rangeSteps.length - 1]));
+
+        Location strikeLocation = new Location("");
+        float[] distanceAndBearing = new float[2];
+
+        for (Strike strike : strikes) {
+            strike.getLocation(strikeLocation);
+            final double longitude = strikeLocation.getLongitude();
+            final double latitude = strikeLocation.getLatitude();
+
+            for (AlertTargetIndex.Entry entry : alertTargetIndex.getCandidates(longitude, latitude)) {
+                if (entry.contains(longitude, latitude)) {
+                    Location.distanceBetween(entry.getLatitude(), entry.getLongitude(), latitude, longitude, distanceAndBearing);
+
+                    final AlertGrid alertGrid = entry.getAlertTarget().getAlertStatus().getAlertGrid();
+                    alertSectorHandler.checkStrike(alertGrid, alertGrid.getSectorIndex(distanceAndBearing[1]), strike, measurementSystem.calculateDistance(distanceAndBearing[0]));
+                }
+            }
+        }
+    }
+
 
     public long getLatestTimstampWithin(float distanceLimit, AlertStatus alertStatus) {
         long latestTimestamp = 0;
@@ -83,6 +123,12 @@ public class AlertStatusHandler {
                 sb.append(sector.getLabel());
                 sb.append(" ");
                 sb.append(String.format("%.0f%s", sector.getClosestStrikeDistance(), alertParameters.getMeasurementSystem().getUnitName()));
+                if (sector.getStrikeRate() >= 0.05f) {
+                    sb.append(String.format(" %.1f/min", sector.getStrikeRate()));
+                    if (sector.isActivityRising()) {
+                        sb.append(" \u2191");
+                    }
+                }
                 sb.append(", ");
             }
             sb.setLength(sb.length() - 2);
@@ -101,25 +147,4 @@ public class AlertStatusHandler {
         }
         return distanceSectors;
     }
-
-    private AlertSector getSectorForBearing(AlertStatus alertStatus, double bearing) {
-        for (AlertSector sector : alertStatus.getSectors()) {
-            if (sectorContainsBearing(sector, bearing)) {
-                return sector;
-            }
-        }
-        Log.w(Main.LOG_TAG, String.format(Locale.ENGLISH, "AlarmStatusHandler.getSectorForBearing(): no sector for bearing %.2f found", bearing));
-        return null;
-    }
-
-    private boolean sectorContainsBearing(AlertSector sector, double bearing) {
-        float minimumSectorBearing = sector.getMinimumSectorBearing();
-        float maximumSectorBearing = sector.getMaximumSectorBearing();
-
-        if (maximumSectorBearing > minimumSectorBearing) {
-            return bearing < maximumSectorBearing && bearing >= minimumSectorBearing;
-        } else {
-            return bearing >= minimumSectorBearing || bearing < maximumSectorBearing;
-        }
-    }
 }
@@ -0,0 +1,119 @@
+package org.blitzortung.android.alert.handler;
+
+import org.blitzortung.android.alert.object.AlertTarget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AlertTargetIndex {
+
+    // lower bound of the ellipsoidal degree length, keeps the boxes conservative
+    private static final double METERS_PER_DEGREE = 110000.0;
+
+    private static final double MINIMUM_CELL_SIZE = 0.1;
+
+    private static final long ROW_FACTOR = 1000000l;
+
+    public static class Entry {
+
+        private final AlertTarget alertTarget;
+
+        private final double longitude;
+
+        private final double latitude;
+
+        private final double west;
+
+        private final double east;
+
+        private final double south;
+
+        private final double north;
+
+        private Entry(AlertTarget alertTarget, double longitude, double latitude, double latitudeDelta) {
+            this.alertTarget = alertTarget;
+            this.longitude = longitude;
+            this.latitude = latitude;
+
+            south = Math.max(-90.0, latitude - latitudeDelta);
+            north = Math.min(90.0, latitude + latitudeDelta);
+
+            final double cosine = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+            final double longitudeDelta = cosine > 0.01 ? latitudeDelta / cosine : 360.0;
+            if (north >= 90.0 || south <= -90.0 || longitude - longitudeDelta < -180.0 || longitude + longitudeDelta > 180.0) {
+                west = -180.0;
+                east = 180.0;
+            } else {
+                west = longitude - longitudeDelta;
+                east = longitude + longitudeDelta;
+            }
+        }
+
+        public AlertTarget getAlertTarget() {
+            return alertTarget;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public boolean contains(double longitude, double latitude) {
+            return latitude >= south && latitude <= north && longitude >= west && longitude <= east;
+        }
+    }
+
+    private final double cellSize;
+
+    private final Map<Long, List<Entry>> cells;
+
+    public AlertTargetIndex(List<AlertTarget> alertTargets, float maximumDistance) {
+        final double latitudeDelta = maximumDistance / METERS_PER_DEGREE;
+        cellSize = Math.max(MINIMUM_CELL_SIZE, 2.0 * latitudeDelta);
+        cells = new HashMap<Long, List<Entry>>();
+
+        for (AlertTarget alertTarget : alertTargets) {
+            if (alertTarget.getLocation() == null) {
+                continue;
+            }
+            final Entry entry = new Entry(alertTarget, alertTarget.getLocation().getLongitude(), alertTarget.getLocation().getLatitude(), latitudeDelta);
+
+            final int maxColumn = getColumn(entry.east);
+            final int maxRow = getRow(entry.north);
+            for (int column = getColumn(entry.west); column <= maxColumn; column++) {
+                for (int row = getRow(entry.south); row <= maxRow; row++) {
+                    final long key = column * ROW_FACTOR + row;
+                    List<Entry> entries = cells.get(key);
+                    if (entries == null) {
+                        entries = new ArrayList<Entry>(1);
+                        cells.put(key, entries);
+                    }
+                    entries.add(entry);
+                }
+            }
+        }
+    }
+
+    public List<Entry> getCandidates(double longitude, double latitude) {
+        final List<Entry> entries = cells.get(getColumn(longitude) * ROW_FACTOR + getRow(latitude));
+        return entries != null ? entries : Collections.<Entry>emptyList();
+    }
+
+    public int getNumberOfCells() {
+        return cells.size();
+    }
+
+    private int getColumn(double longitude) {
+        return (int) Math.floor((Math.max(-180.0, Math.min(180.0, longitude)) + 180.0) / cellSize);
+    }
+
+    private int getRow(double latitude) {
+        return (int) Math.floor((Math.max(-90.0, Math.min(90.0, latitude)) + 90.0) / cellSize);
+    }
+}
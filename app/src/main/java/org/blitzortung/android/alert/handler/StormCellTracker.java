@@ -0,0 +1,486 @@
+package org.blitzortung.android.alert.handler;
+
+import android.location.Location;
+import org.blitzortung.android.alert.object.StormCell;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StormCellTracker {
+
+    public static final float DEFAULT_CLUSTER_DISTANCE = 10f;
+
+    public static final int DEFAULT_MINIMUM_STRIKES = 3;
+
+    public static final long DEFAULT_TRACKING_WINDOW = 30 * 60 * 1000l;
+
+    private static final double KM_PER_DEGREE = 111.195;
+
+    private static final double MILLISECONDS_PER_MINUTE = 60 * 1000.0;
+
+    private static final double MINIMUM_TIME_VARIANCE = 1.0;
+
+    private static final double MINIMUM_SPEED = 5.0 / 60.0;
+
+    private static final double MAXIMUM_SPEED = 150.0 / 60.0;
+
+    private static final double MAXIMUM_TIME_OF_ARRIVAL = 3 * 60.0;
+
+    private static final double VELOCITY_SMOOTHING = 0.5;
+
+    private static final double RADIUS_FACTOR = 1.5;
+
+    private static class Moments {
+        double weight;
+        double sumX;
+        double sumY;
+        double sumT;
+        double sumXX;
+        double sumYY;
+        double sumTT;
+        double sumXT;
+        double sumYT;
+
+        void add(double weight, double x, double y, double t) {
+            this.weight += weight;
+            sumX += weight * x;
+            sumY += weight * y;
+            sumT += weight * t;
+            sumXX += weight * x * x;
+            sumYY += weight * y * y;
+            sumTT += weight * t * t;
+            sumXT += weight * x * t;
+            sumYT += weight * y * t;
+        }
+
+        void add(Moments other) {
+            weight += other.weight;
+            sumX += other.sumX;
+            sumY += other.sumY;
+            sumT += other.sumT;
+            sumXX += other.sumXX;
+            sumYY += other.sumYY;
+            sumTT += other.sumTT;
+            sumXT += other.sumXT;
+            sumYT += other.sumYT;
+        }
+    }
+
+    private static class GridCell extends Moments {
+        final int column;
+        final int row;
+        int label;
+
+        GridCell(int column, int row) {
+            this.column = column;
+            this.row = row;
+        }
+    }
+
+    private static class TrackedStrike {
+        final GridCell cell;
+        final double x;
+        final double y;
+        final double t;
+        final int weight;
+        final long timestamp;
+
+        TrackedStrike(GridCell cell, double x, double y, double t, int weight, long timestamp) {
+            this.cell = cell;
+            this.x = x;
+            this.y = y;
+            this.t = t;
+            this.weight = weight;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class Track {
+        final int id;
+        double x;
+        double y;
+        double t;
+        double velocityX;
+        double velocityY;
+        boolean hasVelocity;
+        double radius;
+        int numberOfStrikes;
+        boolean matched;
+
+        Track(int id) {
+            this.id = id;
+        }
+
+        double getPredictedX(double time) {
+            return hasVelocity ? x + velocityX * (time - t) : x;
+        }
+
+        double getPredictedY(double time) {
+            return hasVelocity ? y + velocityY * (time - t) : y;
+        }
+
+        void update(Moments cluster, double minimumRadius) {
+            final double weight = cluster.weight;
+            x = cluster.sumX / weight;
+            y = cluster.sumY / weight;
+            t = cluster.sumT / weight;
+            numberOfStrikes = (int) Math.round(weight);
+
+            final double varianceT = cluster.sumTT / weight - t * t;
+            final double covarianceXT = cluster.sumXT / weight - x * t;
+            final double covarianceYT = cluster.sumYT / weight - y * t;
+            double varianceX = cluster.sumXX / weight - x * x;
+            double varianceY = cluster.sumYY / weight - y * y;
+
+            if (varianceT >= MINIMUM_TIME_VARIANCE) {
+                double newVelocityX = covarianceXT / varianceT;
+                double newVelocityY = covarianceYT / varianceT;
+                final double speed = Math.hypot(newVelocityX, newVelocityY);
+                if (speed > MAXIMUM_SPEED) {
+                    newVelocityX *= MAXIMUM_SPEED / speed;
+                    newVelocityY *= MAXIMUM_SPEED / speed;
+                }
+
+                if (hasVelocity) {
+                    velocityX += VELOCITY_SMOOTHING * (newVelocityX - velocityX);
+                    velocityY += VELOCITY_SMOOTHING * (newVelocityY - velocityY);
+                } else {
+                    velocityX = newVelocityX;
+                    velocityY = newVelocityY;
+                    hasVelocity = true;
+                }
+
+                varianceX -= covarianceXT * covarianceXT / varianceT;
+                varianceY -= covarianceYT * covarianceYT / varianceT;
+            }
+
+            radius = Math.max(minimumRadius, RADIUS_FACTOR * Math.sqrt(Math.max(0.0, varianceX + varianceY)));
+        }
+    }
+
+    private static final Comparator<Moments> CLUSTER_SIZE_COMPARATOR = new Comparator<Moments>() {
+        @Override
+        public int compare(Moments cluster1, Moments cluster2) {
+            return Double.compare(cluster2.weight, cluster1.weight);
+        }
+    };
+
+    private static final Comparator<StormCell> RELEVANCE_COMPARATOR = new Comparator<StormCell>() {
+        @Override
+        public int compare(StormCell cell1, StormCell cell2) {
+            if (cell1.isApproaching() != cell2.isApproaching()) {
+                return cell1.isApproaching() ? -1 : 1;
+            }
+            if (cell1.isApproaching() && cell1.getTimeOfArrival() != cell2.getTimeOfArrival()) {
+                return cell1.getTimeOfArrival() < cell2.getTimeOfArrival() ? -1 : 1;
+            }
+            return Float.compare(cell1.getDistance(), cell2.getDistance());
+        }
+    };
+
+    private final double clusterDistance;
+
+    private final int minimumStrikes;
+
+    private final long trackingWindow;
+
+    private final ArrayDeque<TrackedStrike> strikes = new ArrayDeque<TrackedStrike>();
+
+    private final Map<Long, GridCell> gridCells = new HashMap<Long, GridCell>();
+
+    private List<Track> tracks = new ArrayList<Track>();
+
+    private int nextTrackId = 1;
+
+    private boolean originSet;
+
+    private double originLongitude;
+
+    private double originLatitude;
+
+    private double kmPerDegreeLongitude;
+
+    private long originTime;
+
+    private long referenceTime;
+
+    private boolean modified;
+
+    public StormCellTracker() {
+        this(DEFAULT_CLUSTER_DISTANCE, DEFAULT_MINIMUM_STRIKES, DEFAULT_TRACKING_WINDOW);
+    }
+
+    public StormCellTracker(float clusterDistance, int minimumStrikes, long trackingWindow) {
+        this.clusterDistance = clusterDistance;
+        this.minimumStrikes = minimumStrikes;
+        this.trackingWindow = trackingWindow;
+    }
+
+    public void update(List<? extends StrikeAbstract> strikes, boolean incremental, long referenceTime) {
+        if (!incremental) {
+            clearStrikes();
+        }
+
+        for (StrikeAbstract strike : strikes) {
+            add(strike);
+        }
+        expire(referenceTime - trackingWindow);
+        this.referenceTime = referenceTime;
+
+        if (modified) {
+            updateTracks(cluster());
+            modified = false;
+        }
+    }
+
+    public void clear() {
+        clearStrikes();
+        tracks = new ArrayList<Track>();
+    }
+
+    public int getNumberOfStrikes() {
+        return strikes.size();
+    }
+
+    public int getNumberOfGridCells() {
+        return gridCells.size();
+    }
+
+    public List<StormCell> getStormCells(Location location) {
+        final List<StormCell> stormCells = new ArrayList<StormCell>(tracks.size());
+        if (!originSet) {
+            return stormCells;
+        }
+
+        final double time = toMinutes(referenceTime);
+        final double locationX = location != null ? toX(location.getLongitude()) : 0.0;
+        final double locationY = location != null ? toY(location.getLatitude()) : 0.0;
+
+        for (Track track : tracks) {
+            final double x = track.getPredictedX(time);
+            final double y = track.getPredictedY(time);
+
+            double speed = track.hasVelocity ? Math.hypot(track.velocityX, track.velocityY) : 0.0;
+            final boolean moving = speed >= MINIMUM_SPEED;
+            if (!moving) {
+                speed = 0.0;
+            }
+            final float direction = moving ? toBearing(track.velocityX, track.velocityY) : 0f;
+
+            float distance = Float.NaN;
+            float bearing = Float.NaN;
+            float closestApproach = Float.NaN;
+            long timeOfArrival = StormCell.NOT_APPROACHING;
+
+            if (location != null) {
+                final double relativeX = x - locationX;
+                final double relativeY = y - locationY;
+                final double currentDistance = Math.hypot(relativeX, relativeY);
+                distance = (float) (currentDistance * 1000.0);
+                bearing = toBearing(relativeX, relativeY);
+                closestApproach = distance;
+
+                if (currentDistance <= track.radius) {
+                    timeOfArrival = 0;
+                } else if (moving) {
+                    final double approachRate = relativeX * track.velocityX + relativeY * track.velocityY;
+                    if (approachRate < 0) {
+                        final double speedSquare = track.velocityX * track.velocityX + track.velocityY * track.velocityY;
+                        final double timeOfClosestApproach = -approachRate / speedSquare;
+                        final double closestDistance = Math.hypot(relativeX + track.velocityX * timeOfClosestApproach,
+                                relativeY + track.velocityY * timeOfClosestApproach);
+                        closestApproach = (float) (closestDistance * 1000.0);
+
+                        if (closestDistance <= track.radius) {
+                            final double discriminant = approachRate * approachRate
+                                    - speedSquare * (currentDistance * currentDistance - track.radius * track.radius);
+                            final double arrival = (-approachRate - Math.sqrt(Math.max(0.0, discriminant))) / speedSquare;
+                            if (arrival <= MAXIMUM_TIME_OF_ARRIVAL) {
+                                timeOfArrival = Math.round(arrival * MILLISECONDS_PER_MINUTE);
+                            }
+                        }
+                    }
+                }
+            }
+
+            stormCells.add(new StormCell(track.id, track.numberOfStrikes, (float) toLongitude(x), (float) toLatitude(y),
+                    (float) (track.radius * 1000.0), (float) (speed * 1000.0 / 60.0), direction, distance, bearing,
+                    timeOfArrival, closestApproach));
+        }
+
+        if (location != null) {
+            Collections.sort(stormCells, RELEVANCE_COMPARATOR);
+        }
+        return stormCells;
+    }
+
+    private void add(StrikeAbstract strike) {
+        if (!originSet) {
+            originLongitude = strike.getLongitude();
+            originLatitude = strike.getLatitude();
+            kmPerDegreeLongitude = KM_PER_DEGREE * Math.cos(Math.toRadians(originLatitude));
+            originTime = strike.getTimestamp();
+            originSet = true;
+        }
+
+        final double x = toX(strike.getLongitude());
+        final double y = toY(strike.getLatitude());
+        final double t = toMinutes(strike.getTimestamp());
+        final int column = (int) Math.floor(x / clusterDistance);
+        final int row = (int) Math.floor(y / clusterDistance);
+        final long key = getKey(column, row);
+
+        GridCell cell = gridCells.get(key);
+        if (cell == null) {
+            cell = new GridCell(column, row);
+            gridCells.put(key, cell);
+        }
+
+        final int weight = strike.getMultiplicity();
+        cell.add(weight, x, y, t);
+        strikes.addLast(new TrackedStrike(cell, x, y, t, weight, strike.getTimestamp()));
+        modified = true;
+    }
+
+    private void expire(long expireTime) {
+        while (!strikes.isEmpty() && strikes.peekFirst().timestamp < expireTime) {
+            final TrackedStrike strike = strikes.removeFirst();
+            final GridCell cell = strike.cell;
+            cell.add(-strike.weight, strike.x, strike.y, strike.t);
+            if (cell.weight < 0.5) {
+                gridCells.remove(getKey(cell.column, cell.row));
+            }
+            modified = true;
+        }
+
+        if (strikes.isEmpty()) {
+            originSet = false;
+        }
+    }
+
+    private void clearStrikes() {
+        strikes.clear();
+        gridCells.clear();
+        modified = true;
+    }
+
+    private List<Moments> cluster() {
+        for (GridCell cell : gridCells.values()) {
+            cell.label = 0;
+        }
+
+        final List<Moments> clusters = new ArrayList<Moments>();
+        final ArrayDeque<GridCell> queue = new ArrayDeque<GridCell>();
+        int label = 0;
+
+        for (GridCell seed : gridCells.values()) {
+            if (seed.label != 0 || seed.weight < minimumStrikes) {
+                continue;
+            }
+
+            label++;
+            final Moments cluster = new Moments();
+            seed.label = label;
+            queue.add(seed);
+
+            while (!queue.isEmpty()) {
+                final GridCell cell = queue.removeFirst();
+                cluster.add(cell);
+
+                for (int column = cell.column - 1; column <= cell.column + 1; column++) {
+                    for (int row = cell.row - 1; row <= cell.row + 1; row++) {
+                        final GridCell neighbour = gridCells.get(getKey(column, row));
+                        if (neighbour != null && neighbour.label == 0) {
+                            neighbour.label = label;
+                            if (neighbour.weight >= minimumStrikes) {
+                                queue.add(neighbour);
+                            } else {
+                                cluster.add(neighbour);
+                            }
+                        }
+                    }
+                }
+            }
+            clusters.add(cluster);
+        }
+
+        return clusters;
+    }
+
+    private void updateTracks(List<Moments> clusters) {
+        Collections.sort(clusters, CLUSTER_SIZE_COMPARATOR);
+
+        for (Track track : tracks) {
+            track.matched = false;
+        }
+
+        final List<Track> updatedTracks = new ArrayList<Track>(clusters.size());
+        for (Moments cluster : clusters) {
+            final double x = cluster.sumX / cluster.weight;
+            final double y = cluster.sumY / cluster.weight;
+            final double t = cluster.sumT / cluster.weight;
+
+            Track bestTrack = null;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (Track track : tracks) {
+                if (!track.matched) {
+                    final double distance = Math.hypot(x - track.getPredictedX(t), y - track.getPredictedY(t));
+                    if (distance <= Math.max(2.0 * clusterDistance, track.radius) && distance < bestDistance) {
+                        bestTrack = track;
+                        bestDistance = distance;
+                    }
+                }
+            }
+
+            if (bestTrack == null) {
+                bestTrack = new Track(nextTrackId++);
+            }
+            bestTrack.matched = true;
+            bestTrack.update(cluster, clusterDistance / 2.0);
+            updatedTracks.add(bestTrack);
+        }
+
+        tracks = updatedTracks;
+    }
+
+    private double toX(double longitude) {
+        double deltaLongitude = longitude - originLongitude;
+        if (deltaLongitude > 180.0) {
+            deltaLongitude -= 360.0;
+        } else if (deltaLongitude < -180.0) {
+            deltaLongitude += 360.0;
+        }
+        return deltaLongitude * kmPerDegreeLongitude;
+    }
+
+    private double toY(double latitude) {
+        return (latitude - originLatitude) * KM_PER_DEGREE;
+    }
+
+    private double toLongitude(double x) {
+        return originLongitude + x / kmPerDegreeLongitude;
+    }
+
+    private double toLatitude(double y) {
+        return originLatitude + y / KM_PER_DEGREE;
+    }
+
+    private double toMinutes(long timestamp) {
+        return (timestamp - originTime) / MILLISECONDS_PER_MINUTE;
+    }
+
+    private static float toBearing(double x, double y) {
+        final double bearing = Math.toDegrees(Math.atan2(x, y));
+        return (float) (bearing < 0 ? bearing + 360.0 : bearing);
+    }
+
+    private static long getKey(int column, int row) {
+        return ((long) column << 32) | (row & 0xffffffffL);
+    }
+}
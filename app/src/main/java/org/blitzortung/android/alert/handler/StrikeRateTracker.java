@@ -0,0 +1,180 @@
+package org.blitzortung.android.alert.handler;
+
+import android.location.Location;
+import org.blitzortung.android.alert.object.AlertGrid;
+import org.blitzortung.android.data.beans.Strike;
+import org.blitzortung.android.util.MeasurementSystem;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+public class StrikeRateTracker {
+
+    public static final int BUCKET_COUNT = 30;
+
+    public static final long BUCKET_DURATION = 60 * 1000l;
+
+    // sum of the squared deviations of the bucket indices from their mean
+    private static final double BUCKET_INDEX_VARIANCE = BUCKET_COUNT * (BUCKET_COUNT * BUCKET_COUNT - 1) / 12.0;
+
+    private final Location strikeLocation = new Location("");
+
+    private final float[] distanceAndBearing = new float[2];
+
+    private AlertGrid geometry;
+
+    private MeasurementSystem measurementSystem;
+
+    private double originLatitude;
+
+    private double originLongitude;
+
+    private int dataSequence;
+
+    private int[] bucketCounts;
+
+    private int[] strikeCounts;
+
+    private long[] weightedStrikeCounts;
+
+    private long firstBucket;
+
+    private long newestBucket;
+
+    public void add(Collection<? extends Strike> strikes, int dataSequence) {
+        // strikes of older data are already part of the strike list the counters were built from
+        if (geometry == null || dataSequence <= this.dataSequence) {
+            return;
+        }
+        this.dataSequence = dataSequence;
+
+        for (Strike strike : strikes) {
+            addStrike(strike);
+        }
+    }
+
+    public void update(Location location, Collection<? extends Strike> strikes, int dataSequence, AlertGrid alertGrid, MeasurementSystem measurementSystem, long referenceTime) {
+        if (matches(location, alertGrid, measurementSystem)) {
+            advance(getBucket(referenceTime));
+        } else {
+            rebuild(location, strikes, dataSequence, alertGrid, measurementSystem, referenceTime);
+        }
+
+        final int rangeCount = geometry.getRangeCount();
+        for (int sectorIndex = 0; sectorIndex < geometry.getSectorCount(); sectorIndex++) {
+            for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++) {
+                alertGrid.setStrikeRate(sectorIndex, rangeIndex, getStrikeRate(sectorIndex, rangeIndex), getStrikeRateSlope(sectorIndex, rangeIndex));
+            }
+        }
+    }
+
+    public void clear() {
+        geometry = null;
+        bucketCounts = null;
+        strikeCounts = null;
+        weightedStrikeCounts = null;
+    }
+
+    public int getStrikeCount(int sectorIndex, int rangeIndex) {
+        return geometry != null ? strikeCounts[getCellIndex(sectorIndex, rangeIndex)] : 0;
+    }
+
+    public float getStrikeRate(int sectorIndex, int rangeIndex) {
+        return (float) getStrikeCount(sectorIndex, rangeIndex) / BUCKET_COUNT;
+    }
+
+    public float getStrikeRateSlope(int sectorIndex, int rangeIndex) {
+        if (geometry == null) {
+            return 0f;
+        }
+
+        final int cellIndex = getCellIndex(sectorIndex, rangeIndex);
+        final double meanBucketIndex = newestBucket - firstBucket - (BUCKET_COUNT - 1) / 2.0;
+        return (float) ((weightedStrikeCounts[cellIndex] - meanBucketIndex * strikeCounts[cellIndex]) / BUCKET_INDEX_VARIANCE);
+    }
+
+    private boolean matches(Location location, AlertGrid alertGrid, MeasurementSystem measurementSystem) {
+        return geometry != null
+                && location.getLatitude() == originLatitude
+                && location.getLongitude() == originLongitude
+                && this.measurementSystem == measurementSystem
+                && geometry.getSectorCount() == alertGrid.getSectorCount()
+                && Arrays.equals(geometry.getRangeSteps(), alertGrid.getRangeSteps());
+    }
+
+    private void rebuild(Location location, Collection<? extends Strike> strikes, int dataSequence, AlertGrid alertGrid, MeasurementSystem measurementSystem, long referenceTime) {
+        geometry = new AlertGrid(alertGrid.getSectorCount(), alertGrid.getRangeSteps());
+        this.measurementSystem = measurementSystem;
+        originLatitude = location.getLatitude();
+        originLongitude = location.getLongitude();
+        this.dataSequence = dataSequence;
+
+        final int cellCount = geometry.getSectorCount() * geometry.getRangeCount();
+        bucketCounts = new int[cellCount * BUCKET_COUNT];
+        strikeCounts = new int[cellCount];
+        weightedStrikeCounts = new long[cellCount];
+        newestBucket = getBucket(referenceTime);
+        firstBucket = newestBucket;
+
+        for (Strike strike : strikes) {
+            addStrike(strike);
+        }
+    }
+
+    private void addStrike(Strike strike) {
+        final long bucket = getBucket(strike.getTimestamp());
+        advance(bucket);
+        if (bucket <= newestBucket - BUCKET_COUNT) {
+            return;
+        }
+
+        strike.getLocation(strikeLocation);
+        Location.distanceBetween(originLatitude, originLongitude, strikeLocation.getLatitude(), strikeLocation.getLongitude(), distanceAndBearing);
+        final int rangeIndex = geometry.getRangeIndex(measurementSystem.calculateDistance(distanceAndBearing[0]));
+        if (rangeIndex < 0) {
+            return;
+        }
+
+        final int cellIndex = getCellIndex(geometry.getSectorIndex(distanceAndBearing[1]), rangeIndex);
+        final int multiplicity = strike.getMultiplicity();
+        bucketCounts[cellIndex * BUCKET_COUNT + getSlot(bucket)] += multiplicity;
+        strikeCounts[cellIndex] += multiplicity;
+        weightedStrikeCounts[cellIndex] += (bucket - firstBucket) * multiplicity;
+    }
+
+    private void advance(long bucket) {
+        if (bucket <= newestBucket) {
+            return;
+        }
+
+        final int cellCount = strikeCounts.length;
+        final long steps = Math.min(bucket - newestBucket, BUCKET_COUNT);
+        for (long step = 1; step <= steps; step++) {
+            final long expiredBucket = newestBucket + step - BUCKET_COUNT;
+            final int slot = getSlot(expiredBucket);
+            for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+                final int bucketIndex = cellIndex * BUCKET_COUNT + slot;
+                final int count = bucketCounts[bucketIndex];
+                if (count != 0) {
+                    strikeCounts[cellIndex] -= count;
+                    weightedStrikeCounts[cellIndex] -= (expiredBucket - firstBucket) * count;
+                    bucketCounts[bucketIndex] = 0;
+                }
+            }
+        }
+        newestBucket = bucket;
+    }
+
+    private int getCellIndex(int sectorIndex, int rangeIndex) {
+        return sectorIndex * geometry.getRangeCount() + rangeIndex;
+    }
+
+    private static long getBucket(long timestamp) {
+        return timestamp / BUCKET_DURATION;
+    }
+
+    private static int getSlot(long bucket) {
+        final int slot = (int) (bucket % BUCKET_COUNT);
+        return slot < 0 ? slot + BUCKET_COUNT : slot;
+    }
+}
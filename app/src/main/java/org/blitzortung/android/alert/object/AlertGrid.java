@@ -0,0 +1,162 @@
+package org.blitzortung.android.alert.object;
+
+import java.util.Arrays;
+
+public class AlertGrid {
+
+    public static final float RISING_MINIMUM_RATE = 0.2f;
+
+    // relative increase of the strike rate per minute
+    public static final float RISING_MINIMUM_SLOPE = 0.03f;
+
+    private final int sectorCount;
+
+    private final float sectorWidth;
+
+    private final float[] rangeSteps;
+
+    private final int[] strikeCounts;
+
+    private final long[] latestStrikeTimestamps;
+
+    private final float[] closestStrikeDistances;
+
+    private final float[] strikeRates;
+
+    private final float[] strikeRateSlopes;
+
+    public AlertGrid(int sectorCount, float[] rangeSteps) {
+        this.sectorCount = sectorCount;
+        this.rangeSteps = rangeSteps;
+        sectorWidth = 360f / sectorCount;
+
+        strikeCounts = new int[sectorCount * rangeSteps.length];
+        latestStrikeTimestamps = new long[sectorCount * rangeSteps.length];
+        closestStrikeDistances = new float[sectorCount];
+        strikeRates = new float[sectorCount * rangeSteps.length];
+        strikeRateSlopes = new float[sectorCount * rangeSteps.length];
+        clear();
+    }
+
+    public int getSectorCount() {
+        return sectorCount;
+    }
+
+    public int getRangeCount() {
+        return rangeSteps.length;
+    }
+
+    public float[] getRangeSteps() {
+        return rangeSteps;
+    }
+
+    public int getSectorIndex(double bearing) {
+        // sector 0 is centered on -180 degrees
+        final int sectorIndex = (int) Math.floor((bearing + 180.0) / sectorWidth + 0.5) % sectorCount;
+        return sectorIndex < 0 ? sectorIndex + sectorCount : sectorIndex;
+    }
+
+    public int getRangeIndex(float distance) {
+        if (!(distance <= rangeSteps[rangeSteps.length - 1])) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = rangeSteps.length - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (rangeSteps[middle] < distance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public void addStrike(int sectorIndex, int rangeIndex, long timestamp, int multiplicity) {
+        final int cellIndex = sectorIndex * rangeSteps.length + rangeIndex;
+        strikeCounts[cellIndex] += multiplicity;
+        if (timestamp > latestStrikeTimestamps[cellIndex]) {
+            latestStrikeTimestamps[cellIndex] = timestamp;
+        }
+    }
+
+    public void updateClosestStrikeDistance(int sectorIndex, float distance) {
+        if (distance < closestStrikeDistances[sectorIndex]) {
+            closestStrikeDistances[sectorIndex] = distance;
+        }
+    }
+
+    public int getStrikeCount(int sectorIndex, int rangeIndex) {
+        return strikeCounts[sectorIndex * rangeSteps.length + rangeIndex];
+    }
+
+    public long getLatestStrikeTimestamp(int sectorIndex, int rangeIndex) {
+        return latestStrikeTimestamps[sectorIndex * rangeSteps.length + rangeIndex];
+    }
+
+    public float getClosestStrikeDistance(int sectorIndex) {
+        return closestStrikeDistances[sectorIndex];
+    }
+
+    public void setStrikeRate(int sectorIndex, int rangeIndex, float strikeRate, float strikeRateSlope) {
+        final int cellIndex = sectorIndex * rangeSteps.length + rangeIndex;
+        strikeRates[cellIndex] = strikeRate;
+        strikeRateSlopes[cellIndex] = strikeRateSlope;
+    }
+
+    public float getStrikeRate(int sectorIndex, int rangeIndex) {
+        return strikeRates[sectorIndex * rangeSteps.length + rangeIndex];
+    }
+
+    public float getStrikeRateSlope(int sectorIndex, int rangeIndex) {
+        return strikeRateSlopes[sectorIndex * rangeSteps.length + rangeIndex];
+    }
+
+    public float getSectorStrikeRate(int sectorIndex) {
+        return sum(strikeRates, sectorIndex * rangeSteps.length);
+    }
+
+    public float getSectorStrikeRateSlope(int sectorIndex) {
+        return sum(strikeRateSlopes, sectorIndex * rangeSteps.length);
+    }
+
+    public boolean isActivityRising(int sectorIndex) {
+        final float strikeRate = getSectorStrikeRate(sectorIndex);
+        return strikeRate >= RISING_MINIMUM_RATE && getSectorStrikeRateSlope(sectorIndex) >= RISING_MINIMUM_SLOPE * strikeRate;
+    }
+
+    private float sum(float[] values, int offset) {
+        float sum = 0f;
+        for (int index = offset; index < offset + rangeSteps.length; index++) {
+            sum += values[index];
+        }
+        return sum;
+    }
+
+    public void clearSector(int sectorIndex) {
+        closestStrikeDistances[sectorIndex] = Float.POSITIVE_INFINITY;
+        clearRange(sectorIndex, 0, rangeSteps.length);
+    }
+
+    public void clearRange(int sectorIndex, int rangeIndex) {
+        clearRange(sectorIndex, rangeIndex, rangeIndex + 1);
+    }
+
+    private void clearRange(int sectorIndex, int fromRangeIndex, int toRangeIndex) {
+        final int offset = sectorIndex * rangeSteps.length;
+        Arrays.fill(strikeCounts, offset + fromRangeIndex, offset + toRangeIndex, 0);
+        Arrays.fill(latestStrikeTimestamps, offset + fromRangeIndex, offset + toRangeIndex, 0l);
+        Arrays.fill(strikeRates, offset + fromRangeIndex, offset + toRangeIndex, 0f);
+        Arrays.fill(strikeRateSlopes, offset + fromRangeIndex, offset + toRangeIndex, 0f);
+    }
+
+    public void clear() {
+        Arrays.fill(strikeCounts, 0);
+        Arrays.fill(latestStrikeTimestamps, 0l);
+        Arrays.fill(closestStrikeDistances, Float.POSITIVE_INFINITY);
+        Arrays.fill(strikeRates, 0f);
+        Arrays.fill(strikeRateSlopes, 0f);
+    }
+}
@@ -1,6 +1,5 @@
 package org.blitzortung.android.alert.object;
 
-import org.blitzortung.android.alert.AlertParameters;
 import org.blitzortung.android.alert.factory.AlertObjectFactory;
 
 import java.util.ArrayList;
@@ -8,6 +7,10 @@ import java.util.List;
 
 public class AlertSector {
 
+    private final AlertGrid alertGrid;
+
+    private final int sectorIndex;
+
     private final List<AlertSectorRange> ranges;
 
     private final float minimumSectorBearing;
@@ -16,36 +19,32 @@ public class AlertSector {
 
     private String label;
 
-    private float closestStrikeDistance;
-
-    public AlertSector(AlertObjectFactory alertObjectFactory, AlertParameters alertParameters, String label, float minimumSectorBearing, float maximumSectorBearing) {
+    public AlertSector(AlertObjectFactory alertObjectFactory, AlertGrid alertGrid, int sectorIndex, String label, float minimumSectorBearing, float maximumSectorBearing) {
+        this.alertGrid = alertGrid;
+        this.sectorIndex = sectorIndex;
         this.label = label;
         this.minimumSectorBearing = minimumSectorBearing;
         this.maximumSectorBearing = maximumSectorBearing;
-        this.closestStrikeDistance = Float.POSITIVE_INFINITY;
-
-        final float[] rangeSteps = alertParameters.getRangeSteps();
-        ranges = new ArrayList<AlertSectorRange>();
-        float rangeMinimum = 0.0f;
-        for (float rangeMaximum : rangeSteps) {
-            AlertSectorRange alertSectorRange = alertObjectFactory.createAlarmSectorRange(rangeMinimum, rangeMaximum);
-            ranges.add(alertSectorRange);
-            rangeMinimum = rangeMaximum;
+
+        final int rangeCount = alertGrid.getRangeCount();
+        ranges = new ArrayList<AlertSectorRange>(rangeCount);
+        for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++) {
+            ranges.add(alertObjectFactory.createAlarmSectorRange(alertGrid, sectorIndex, rangeIndex));
         }
     }
 
     public void clearResults() {
-        closestStrikeDistance = Float.POSITIVE_INFINITY;
-        
-        for (AlertSectorRange range : ranges) {
-            range.clearResults();
-        }
+        alertGrid.clearSector(sectorIndex);
     }
 
     public List<AlertSectorRange> getRanges() {
         return ranges;
     }
 
+    public int getSectorIndex() {
+        return sectorIndex;
+    }
+
     public float getMinimumSectorBearing() {
         return minimumSectorBearing;
     }
@@ -59,10 +58,22 @@ public class AlertSector {
     }
 
     public void updateClosestStrikeDistance(float distance) {
-        closestStrikeDistance = Math.min(distance, closestStrikeDistance);
+        alertGrid.updateClosestStrikeDistance(sectorIndex, distance);
     }
 
     public float getClosestStrikeDistance() {
-        return closestStrikeDistance;
+        return alertGrid.getClosestStrikeDistance(sectorIndex);
+    }
+
+    public float getStrikeRate() {
+        return alertGrid.getSectorStrikeRate(sectorIndex);
+    }
+
+    public float getStrikeRateSlope() {
+        return alertGrid.getSectorStrikeRateSlope(sectorIndex);
+    }
+
+    public boolean isActivityRising() {
+        return alertGrid.isActivityRising(sectorIndex);
     }
 }
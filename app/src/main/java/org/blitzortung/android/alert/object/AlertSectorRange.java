@@ -4,23 +4,35 @@ import org.blitzortung.android.data.beans.Strike;
 
 public class AlertSectorRange {
 
+    private final AlertGrid alertGrid;
+
+    private final int sectorIndex;
+
+    private final int rangeIndex;
+
     private final float rangeMinimum;
     
     private final float rangeMaximum;
-    
-    private int strikeCount;
-    
-    private long latestStrikeTimestamp;
 
     public AlertSectorRange(float rangeMinimum, float rangeMaximum) {
+        this(new AlertGrid(1, new float[]{rangeMaximum}), 0, 0, rangeMinimum);
+    }
+
+    public AlertSectorRange(AlertGrid alertGrid, int sectorIndex, int rangeIndex) {
+        this(alertGrid, sectorIndex, rangeIndex, rangeIndex > 0 ? alertGrid.getRangeSteps()[rangeIndex - 1] : 0.0f);
+    }
+
+    private AlertSectorRange(AlertGrid alertGrid, int sectorIndex, int rangeIndex, float rangeMinimum) {
+        this.alertGrid = alertGrid;
+        this.sectorIndex = sectorIndex;
+        this.rangeIndex = rangeIndex;
         this.rangeMinimum = rangeMinimum;
-        this.rangeMaximum = rangeMaximum;
+        this.rangeMaximum = alertGrid.getRangeSteps()[rangeIndex];
     }
     
     public void clearResults()
     {
-        strikeCount = 0;
-        latestStrikeTimestamp = 0;
+        alertGrid.clearRange(sectorIndex, rangeIndex);
     }
 
     public float getRangeMinimum() {
@@ -32,25 +44,22 @@ public class AlertSectorRange {
     }
 
     public int getStrikeCount() {
-        return strikeCount;
+        return alertGrid.getStrikeCount(sectorIndex, rangeIndex);
     }
 
     public long getLatestStrikeTimestamp() {
-        return latestStrikeTimestamp;
+        return alertGrid.getLatestStrikeTimestamp(sectorIndex, rangeIndex);
     }
 
-    public void addStrike(Strike strike) {
-        updateLatestStrikeTimestamp(strike.getTimestamp());
-        incrementStrikeCountBy(strike.getMultiplicity());
+    public float getStrikeRate() {
+        return alertGrid.getStrikeRate(sectorIndex, rangeIndex);
     }
 
-    private void updateLatestStrikeTimestamp(long latestStrikeTimestamp) {
-        if (latestStrikeTimestamp > this.getLatestStrikeTimestamp()) {
-            this.latestStrikeTimestamp = latestStrikeTimestamp;
-        }
+    public float getStrikeRateSlope() {
+        return alertGrid.getStrikeRateSlope(sectorIndex, rangeIndex);
     }
 
-    private void incrementStrikeCountBy(int increment) {
-        strikeCount += increment;
+    public void addStrike(Strike strike) {
+        alertGrid.addStrike(sectorIndex, rangeIndex, strike.getTimestamp(), strike.getMultiplicity());
     }
 }
@@ -5,25 +5,28 @@ import org.blitzortung.android.alert.factory.AlertObjectFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public class AlertStatus {
 
-    private final Collection<AlertSector> sectors;
+    private final List<AlertSector> sectors;
     private final AlertParameters alertParameters;
+    private final AlertGrid alertGrid;
 
     public AlertStatus(AlertObjectFactory alertObjectFactory, AlertParameters alertParameters) {
         this.alertParameters = alertParameters;
         final String[] sectorLabels = alertParameters.getSectorLabels();
         float sectorWidth = 360f / sectorLabels.length;
-        
-        sectors = new ArrayList<AlertSector>();
+
+        alertGrid = new AlertGrid(sectorLabels.length, alertParameters.getRangeSteps());
+        sectors = new ArrayList<AlertSector>(sectorLabels.length);
 
         float bearing = -180;
-        for (String sectorLabel : sectorLabels) {
+        for (int sectorIndex = 0; sectorIndex < sectorLabels.length; sectorIndex++) {
             float minimumSectorBearing = bearing - sectorWidth / 2.0f;
             minimumSectorBearing += (minimumSectorBearing < -180f ? 360f : 0f);
             final float maximumSectorBearing = bearing + sectorWidth / 2.0f;
-            AlertSector alertSector = alertObjectFactory.createAlarmSector(alertParameters, sectorLabel, minimumSectorBearing, maximumSectorBearing);
+            AlertSector alertSector = alertObjectFactory.createAlarmSector(alertGrid, sectorIndex, sectorLabels[sectorIndex], minimumSectorBearing, maximumSectorBearing);
             sectors.add(alertSector);
             bearing += sectorWidth;
         }
@@ -39,6 +42,14 @@ public class AlertStatus {
         return sectors;
     }
 
+    public AlertSector getSector(int sectorIndex) {
+        return sectors.get(sectorIndex);
+    }
+
+    public AlertGrid getAlertGrid() {
+        return alertGrid;
+    }
+
     public AlertParameters getAlertParameters() {
         return alertParameters;
     }
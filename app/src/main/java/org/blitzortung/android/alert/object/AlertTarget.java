@@ -0,0 +1,49 @@
+package org.blitzortung.android.alert.object;
+
+import android.location.Location;
+
+public class AlertTarget {
+
+    private final String name;
+
+    private final AlertStatus alertStatus;
+
+    private Location location;
+
+    private long notificationLastTimestamp;
+
+    public AlertTarget(String name, Location location, AlertStatus alertStatus) {
+        this.name = name;
+        this.location = location;
+        this.alertStatus = alertStatus;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public void setLocation(Location location) {
+        this.location = location;
+    }
+
+    public AlertStatus getAlertStatus() {
+        return alertStatus;
+    }
+
+    public long getNotificationLastTimestamp() {
+        return notificationLastTimestamp;
+    }
+
+    public void setNotificationLastTimestamp(long notificationLastTimestamp) {
+        this.notificationLastTimestamp = notificationLastTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "AlertTarget(" + name + ", " + (location != null ? location.getLatitude() + "/" + location.getLongitude() : "-") + ")";
+    }
+}
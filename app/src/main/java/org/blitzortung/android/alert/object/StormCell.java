@@ -0,0 +1,101 @@
+package org.blitzortung.android.alert.object;
+
+import java.util.Locale;
+
+public class StormCell {
+
+    public static final long NOT_APPROACHING = -1;
+
+    // distances in meters, speed in meters per second, angles in degrees clockwise from north
+
+    private final int id;
+
+    private final int numberOfStrikes;
+
+    private final float longitude;
+
+    private final float latitude;
+
+    private final float radius;
+
+    private final float speed;
+
+    private final float direction;
+
+    private final float distance;
+
+    private final float bearing;
+
+    private final long timeOfArrival;
+
+    private final float closestApproach;
+
+    public StormCell(int id, int numberOfStrikes, float longitude, float latitude, float radius, float speed, float direction,
+                     float distance, float bearing, long timeOfArrival, float closestApproach) {
+        this.id = id;
+        this.numberOfStrikes = numberOfStrikes;
+        this.longitude = longitude;
+        this.latitude = latitude;
+        this.radius = radius;
+        this.speed = speed;
+        this.direction = direction;
+        this.distance = distance;
+        this.bearing = bearing;
+        this.timeOfArrival = timeOfArrival;
+        this.closestApproach = closestApproach;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getNumberOfStrikes() {
+        return numberOfStrikes;
+    }
+
+    public float getLongitude() {
+        return longitude;
+    }
+
+    public float getLatitude() {
+        return latitude;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public float getDirection() {
+        return direction;
+    }
+
+    public float getDistance() {
+        return distance;
+    }
+
+    public float getBearing() {
+        return bearing;
+    }
+
+    public boolean isApproaching() {
+        return timeOfArrival != NOT_APPROACHING;
+    }
+
+    public long getTimeOfArrival() {
+        return timeOfArrival;
+    }
+
+    public float getClosestApproach() {
+        return closestApproach;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "StormCell(#%d, %d strikes, %.1f km bearing %.0f, %.1f km/h towards %.0f, eta %d s)",
+                id, numberOfStrikes, distance / 1000f, bearing, speed * 3.6f, direction, timeOfArrival / 1000);
+    }
+}
@@ -3,6 +3,7 @@ package org.blitzortung.android.app;
 import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.appwidget.AppWidgetManager;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -12,7 +13,9 @@ import android.os.*;
 import android.preference.PreferenceManager;
 import android.util.Log;
 import org.blitzortung.android.alert.AlertParameters;
+import org.blitzortung.android.alert.AlertResult;
 import org.blitzortung.android.alert.event.AlertEvent;
+import org.blitzortung.android.alert.event.AlertResultEvent;
 import org.blitzortung.android.alert.AlertHandler;
 import org.blitzortung.android.alert.factory.AlertObjectFactory;
 import org.blitzortung.android.data.Parameters;
@@ -21,17 +24,25 @@ import org.blitzortung.android.data.provider.result.ResultEvent;
 import org.blitzortung.android.location.LocationEvent;
 import org.blitzortung.android.location.LocationHandler;
 import org.blitzortung.android.app.controller.NotificationHandler;
+import org.blitzortung.android.app.view.AlertView;
 import org.blitzortung.android.app.view.PreferenceKey;
 import org.blitzortung.android.data.DataChannel;
 import org.blitzortung.android.data.DataHandler;
 import org.blitzortung.android.data.provider.result.DataEvent;
 import org.blitzortung.android.data.provider.result.StatusEvent;
+import org.blitzortung.android.map.overlay.color.StrikeColorHandler;
+import org.blitzortung.android.metrics.Metrics;
+import org.blitzortung.android.metrics.WakeAccounting;
 import org.blitzortung.android.protocol.Consumer;
 import org.blitzortung.android.protocol.ConsumerContainer;
+import org.blitzortung.android.util.AdaptivePeriod;
 import org.blitzortung.android.util.Period;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class AppService extends Service implements Runnable, SharedPreferences.OnSharedPreferenceChangeListener {
 
@@ -46,6 +57,10 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
 
     private final Period updatePeriod;
 
+    private final AdaptivePeriod adaptivePeriod;
+
+    private long lastResultTime;
+
     private Parameters lastParameters;
 
     private boolean updateParticipants;
@@ -65,6 +80,14 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
 
     private PowerManager.WakeLock wakeLock;
 
+    private final WakeAccounting wakeAccounting = new WakeAccounting();
+
+    private long wakeCycleReceivedChars;
+
+    private WidgetRenderer widgetRenderer;
+
+    private ExecutorService widgetExecutor;
+
     ConsumerContainer<DataEvent> dataConsumerContainer = new ConsumerContainer<DataEvent>() {
         @Override
         public void addedFirstConsumer() {
@@ -101,6 +124,7 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
         Log.d(Main.LOG_TAG, "AppService() create");
         this.handler = handler;
         this.updatePeriod = updatePeriod;
+        adaptivePeriod = new AdaptivePeriod();
     }
 
     public int getPeriod() {
@@ -111,6 +135,14 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
         return backgroundPeriod;
     }
 
+    public int getCurrentPeriod() {
+        return adaptivePeriod.getForegroundPeriod(period);
+    }
+
+    public int getCurrentBackgroundPeriod() {
+        return adaptivePeriod.getBackgroundPeriod(backgroundPeriod);
+    }
+
     public long getLastUpdate() {
         return updatePeriod.getLastUpdateTime();
     }
@@ -136,7 +168,8 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
     private final Consumer<DataEvent> dataEventConsumer = new Consumer<DataEvent>() {
         @Override
         public void consume(DataEvent event) {
-            if (!dataConsumerContainer.isEmpty()) {
+            final boolean alertData = event instanceof ResultEvent && ((ResultEvent) event).containsAlertData();
+            if (!dataConsumerContainer.isEmpty() && !alertData) {
                 dataConsumerContainer.storeAndBroadcast(event);
             }
 
@@ -148,18 +181,76 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
                 restart();
             } else if (event instanceof ResultEvent) {
                 ResultEvent resultEvent = (ResultEvent) event;
-                lastParameters = resultEvent.getParameters();
+                recordWakeCycleFetch(resultEvent);
+                updateAdaptivePeriod(resultEvent);
+                if (!alertData) {
+                    lastParameters = resultEvent.getParameters();
+                    if (widgetRenderer != null && lastParameters != null) {
+                        widgetRenderer.setIntervalDuration(lastParameters.getIntervalDuration());
+                    }
+                }
                 configureServiceMode();
+                scheduleAlarm(getCurrentBackgroundPeriod());
             }
 
+            if (alertEnabled) {
+                // keep the device awake until the alert worker has published its result
+                alertHandler.runAfterEvaluation(releaseWakeLockRunnable);
+            } else {
+                releaseWakeLock();
+            }
+        }
+    };
+
+    private final Runnable releaseWakeLockRunnable = new Runnable() {
+        @Override
+        public void run() {
             releaseWakeLock();
         }
     };
 
+    private void updateAdaptivePeriod(ResultEvent resultEvent) {
+        if (resultEvent.hasFailed()) {
+            adaptivePeriod.onFailure();
+            return;
+        }
+        adaptivePeriod.onSuccess();
+        if (resultEvent.containsTiledData()) {
+            // the strike rate and the alert activity are derived from the region data
+            return;
+        }
+
+        long currentTime = Period.getCurrentTime();
+        if (resultEvent.containsIncrementalData() && resultEvent.containsStrikes() && lastResultTime > 0) {
+            adaptivePeriod.updateStrikeRate(resultEvent.getStrikes().size(), currentTime - lastResultTime);
+        } else {
+            adaptivePeriod.resetStrikeRate();
+        }
+        lastResultTime = currentTime;
+
+        Log.v(Main.LOG_TAG, String.format("AppService.updateAdaptivePeriod() period=%d, backgroundPeriod=%d",
+                getCurrentPeriod(), getCurrentBackgroundPeriod()));
+    }
+
+    private void updateAlertActivity(AlertEvent event) {
+        if (!alertEnabled) {
+            return;
+        }
+
+        // the alert worker publishes its result after the data event has been handled
+        final AlertResult alertResult = event instanceof AlertResultEvent ? ((AlertResultEvent) event).getAlertResult() : null;
+        adaptivePeriod.updateActivity(alertResult, alertHandler.getMaxDistance());
+        scheduleAlarm(getCurrentBackgroundPeriod());
+
+        Log.v(Main.LOG_TAG, String.format("AppService.updateAlertActivity() period=%d, backgroundPeriod=%d",
+                getCurrentPeriod(), getCurrentBackgroundPeriod()));
+    }
+
     private final Consumer<AlertEvent> alertEventConsumer = new Consumer<AlertEvent>() {
         @Override
         public void consume(AlertEvent event) {
             alertConsumerContainer.storeAndBroadcast(event);
+            updateAlertActivity(event);
         }
     };
 
@@ -167,6 +258,10 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
         dataConsumerContainer.addConsumer(dataConsumer);
     }
 
+    public void addDataConsumer(Consumer<DataEvent> dataConsumer, Executor executor, int queueCapacity) {
+        dataConsumerContainer.addConsumer(dataConsumer, executor, queueCapacity);
+    }
+
     public void removeDataConsumer(Consumer<DataEvent> dataConsumer) {
         dataConsumerContainer.removeConsumer(dataConsumer);
     }
@@ -175,6 +270,10 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
         alertConsumerContainer.addConsumer(alertConsumer);
     }
 
+    public void addAlertConsumer(Consumer<AlertEvent> alertConsumer, Executor executor, int queueCapacity) {
+        alertConsumerContainer.addConsumer(alertConsumer, executor, queueCapacity);
+    }
+
     public void removeAlertListener(Consumer<AlertEvent> alertConsumer) {
         alertConsumerContainer.removeConsumer(alertConsumer);
     }
@@ -224,6 +323,14 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
                 (Vibrator) this.getSystemService(Context.VIBRATOR_SERVICE),
                 new NotificationHandler(this),
                 new AlertObjectFactory(), alertParameters);
+        alertHandler.setWakeAccounting(wakeAccounting);
+
+        if (widgetRenderer == null) {
+            widgetRenderer = new WidgetRenderer(this, AppWidgetManager.getInstance(this), new AlertView(this), new StrikeColorHandler(preferences));
+            widgetRenderer.setIntervalDuration(dataHandler.getIntervalDuration());
+            widgetExecutor = Executors.newSingleThreadExecutor();
+            alertConsumerContainer.addConsumer(widgetRenderer, widgetExecutor, 1);
+        }
 
         onSharedPreferenceChanged(preferences, PreferenceKey.QUERY_PERIOD);
         onSharedPreferenceChanged(preferences, PreferenceKey.ALERT_ENABLED);
@@ -240,6 +347,8 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
 
             Log.v(Main.LOG_TAG, "AppService.onStartCommand() acquired wake lock " + wakeLock);
 
+            scheduleAlarm(AdaptivePeriod.MAX_BACKOFF_PERIOD);
+
             enabled = false;
             handler.removeCallbacks(this);
             handler.post(this);
@@ -250,6 +359,8 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
 
     private void acquireWakeLock() {
         wakeLock.acquire();
+        wakeAccounting.startCycle(System.currentTimeMillis());
+        wakeCycleReceivedChars = Metrics.getInstance().getCounterTotal("http_received_chars");
     }
 
     public void releaseWakeLock() {
@@ -261,6 +372,22 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
                 Log.v(Main.LOG_TAG, "AppService.releaseWakeLock() failed", e);
             }
         }
+        if (wakeAccounting.isActive()) {
+            wakeAccounting.endCycle(System.currentTimeMillis());
+            Log.v(Main.LOG_TAG, "AppService.releaseWakeLock() " + wakeAccounting.getSummary(System.currentTimeMillis()));
+        }
+    }
+
+    private void recordWakeCycleFetch(ResultEvent resultEvent) {
+        if (wakeAccounting.isActive()) {
+            final long receivedChars = Metrics.getInstance().getCounterTotal("http_received_chars");
+            wakeAccounting.recordFetch(!resultEvent.hasFailed(), receivedChars - wakeCycleReceivedChars);
+            wakeCycleReceivedChars = receivedChars;
+        }
+    }
+
+    public WakeAccounting getWakeAccounting() {
+        return wakeAccounting;
     }
 
     @Override
@@ -288,9 +415,13 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
             if (dataHandler != null) {
                 Set<DataChannel> updateTargets = new HashSet<DataChannel>();
 
-                if (updatePeriod.shouldUpdate(currentTime, period)) {
+                final int currentPeriod = getCurrentPeriod();
+
+                if (updatePeriod.shouldUpdate(currentTime, currentPeriod)) {
                     updatePeriod.setLastUpdateTime(currentTime);
-                    updateTargets.add(DataChannel.STRIKES);
+                    if (!dataHandler.isStreaming()) {
+                        updateTargets.add(DataChannel.STRIKES);
+                    }
 
                     if (updateParticipants && updatePeriod.isNthUpdate(10)) {
                         updateTargets.add(DataChannel.PARTICIPANTS);
@@ -301,7 +432,7 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
                     dataHandler.updateData(updateTargets);
                 }
 
-                final String statusString = "" + updatePeriod.getCurrentUpdatePeriod(currentTime, period) + "/" + period;
+                final String statusString = "" + updatePeriod.getCurrentUpdatePeriod(currentTime, currentPeriod) + "/" + currentPeriod;
                 dataConsumerContainer.broadcast(new StatusEvent(statusString));
             }
             // Schedule the next update
@@ -312,11 +443,24 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
     public void restart() {
         configureServiceMode();
         updatePeriod.restart();
+        adaptivePeriod.restart();
+        lastResultTime = 0;
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
+        if (dataHandler != null) {
+            dataHandler.setStreamingEnabled(false);
+        }
+        if (widgetRenderer != null) {
+            alertConsumerContainer.removeConsumer(widgetRenderer);
+            widgetExecutor.shutdown();
+            widgetRenderer = null;
+        }
+        if (alertHandler != null) {
+            alertHandler.shutdown();
+        }
         Log.v(Main.LOG_TAG, "AppService.onDestroy()");
     }
 
@@ -337,6 +481,7 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
         switch (key) {
             case ALERT_ENABLED:
                 alertEnabled = sharedPreferences.getBoolean(key.toString(), false);
+                dataHandler.setAlertDataRequested(alertEnabled);
 
                 configureServiceMode();
                 break;
@@ -363,6 +508,7 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
         Log.v(Main.LOG_TAG, "AppService.configureServiceMode() entered");
         final boolean backgroundOperation = dataConsumerContainer.isEmpty();
         if (backgroundOperation) {
+            dataHandler.setStreamingEnabled(false);
             if (alertEnabled && backgroundPeriod > 0) {
                 locationHandler.enableBackgroundMode();
                 alertHandler.setAlertEventConsumer(alertEventConsumer);
@@ -376,6 +522,7 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
             discardAlarm();
             if (dataHandler.isRealtime()) {
                 Log.v(Main.LOG_TAG, "AppService.configureServiceMode() realtime data");
+                dataHandler.setStreamingEnabled(true);
                 if (!enabled) {
                     enabled = true;
                     handler.removeCallbacks(this);
@@ -383,6 +530,7 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
                 }
             } else {
                 Log.v(Main.LOG_TAG, "AppService.configureServiceMode() historic data");
+                dataHandler.setStreamingEnabled(false);
                 enabled = false;
                 handler.removeCallbacks(this);
                 if (lastParameters != null && !lastParameters.equals(dataHandler.getParameters())) {
@@ -405,13 +553,20 @@ public class AppService extends Service implements Runnable, SharedPreferences.O
             pendingIntent = PendingIntent.getService(this, 0, intent, 0);
             alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
             if (alarmManager != null) {
-                alarmManager.setRepeating(AlarmManager.RTC_WAKEUP, 0, backgroundPeriod * 1000, pendingIntent);
+                alarmManager.set(AlarmManager.RTC_WAKEUP, 0, pendingIntent);
             } else {
                 Log.e(Main.LOG_TAG, "AppService.createAlarm() failed");
             }
         }
     }
 
+    private void scheduleAlarm(int delay) {
+        if (alarmManager != null) {
+            Log.v(Main.LOG_TAG, String.format("AppService.scheduleAlarm() in %d s", delay));
+            alarmManager.set(AlarmManager.RTC_WAKEUP, System.currentTimeMillis() + delay * 1000l, pendingIntent);
+        }
+    }
+
     private void discardAlarm() {
         if (alarmManager != null) {
             Log.v(Main.LOG_TAG, "AppService.discardAlarm()");
@@ -44,17 +44,23 @@ import org.blitzortung.android.dialogs.*;
 import org.blitzortung.android.map.OwnMapActivity;
 import org.blitzortung.android.map.OwnMapView;
 import org.blitzortung.android.map.overlay.FadeOverlay;
+import org.blitzortung.android.map.overlay.HeatmapOverlay;
 import org.blitzortung.android.map.overlay.OwnLocationOverlay;
 import org.blitzortung.android.map.overlay.ParticipantsOverlay;
 import org.blitzortung.android.map.overlay.StrikesOverlay;
 import org.blitzortung.android.map.overlay.color.ParticipantColorHandler;
 import org.blitzortung.android.map.overlay.color.StrikeColorHandler;
+import org.blitzortung.android.metrics.Metrics;
 import org.blitzortung.android.protocol.Consumer;
+import org.blitzortung.android.util.MainThreadExecutor;
 import org.blitzortung.android.util.optional.Optional;
 
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Main extends OwnMapActivity implements OnSharedPreferenceChangeListener {
 
@@ -64,6 +70,8 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
 
     private FadeOverlay fadeOverlay;
 
+    private HeatmapOverlay heatmapOverlay;
+
     protected StrikesOverlay strikesOverlay;
 
     private ParticipantsOverlay participantsOverlay;
@@ -72,6 +80,10 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
 
     private boolean clearData;
 
+    private final ExecutorService overlayModelExecutor = Executors.newSingleThreadExecutor();
+
+    private final Executor mainThreadExecutor = new MainThreadExecutor();
+
     private final Set<String> androidIdsForExtendedFunctionality = new HashSet<String>(Arrays.asList("e72d101ce1bcdee3", "6d1b9a3da993af2d"));
 
     private ButtonColumnHandler<ImageButton> buttonColumnHandler;
@@ -124,10 +136,27 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
 
         });
 
+        mapView.addViewportListener(new OwnMapView.ViewportListener() {
+
+            @Override
+            public void onViewportChanged(float west, float south, float east, float north) {
+                strikesOverlay.setHistogramArea(west, south, east, north);
+                if (histogramView != null) {
+                    histogramView.invalidate();
+                }
+                if (appService != null) {
+                    appService.getDataHandler().setVisibleArea(west, south, east, north);
+                }
+            }
+
+        });
+
         fadeOverlay = new FadeOverlay(strikesOverlay.getColorHandler());
+        heatmapOverlay = new HeatmapOverlay(this, strikesOverlay.getColorHandler());
         ownLocationOverlay = new OwnLocationOverlay(getBaseContext(), getMapView());
 
         addOverlay(fadeOverlay);
+        addOverlay(heatmapOverlay);
         addOverlay(strikesOverlay);
         addOverlay(participantsOverlay);
         addOverlay(ownLocationOverlay);
@@ -153,7 +182,8 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
         setupCustomViews();
 
         onSharedPreferenceChanged(preferences, PreferenceKey.MAP_TYPE, PreferenceKey.MAP_FADE, PreferenceKey.SHOW_LOCATION,
-                PreferenceKey.ALERT_NOTIFICATION_DISTANCE_LIMIT, PreferenceKey.ALERT_SIGNALING_DISTANCE_LIMIT, PreferenceKey.DO_NOT_SLEEP, PreferenceKey.SHOW_PARTICIPANTS);
+                PreferenceKey.ALERT_NOTIFICATION_DISTANCE_LIMIT, PreferenceKey.ALERT_SIGNALING_DISTANCE_LIMIT, PreferenceKey.DO_NOT_SLEEP, PreferenceKey.SHOW_PARTICIPANTS,
+                PreferenceKey.SHOW_HEATMAP);
 
         createAndBindToDataService();
 
@@ -191,14 +221,15 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
             appService.addDataConsumer(getDataEventConsumer());
 
             appService.addLocationConsumer(ownLocationOverlay.getLocationEventConsumer());
-            appService.addDataConsumer(histogramView.getDataConsumer());
+            appService.addDataConsumer(histogramView.getDataConsumer(), mainThreadExecutor, 1);
 
             appService.addLocationConsumer(alertView.getLocationEventConsumer());
-            appService.addAlertConsumer(alertView.getAlertEventConsumer());
+            appService.addAlertConsumer(alertView.getAlertEventConsumer(), mainThreadExecutor, 1);
 
-            appService.addAlertConsumer(statusComponent.getAlertEventConsumer());
+            appService.addAlertConsumer(statusComponent.getAlertEventConsumer(), mainThreadExecutor, 1);
 
             strikesOverlay.setIntervalDuration(appService.getDataHandler().getIntervalDuration());
+            getMapView().notifyViewportListeners();
         }
     }
 
@@ -332,6 +363,7 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
         super.onCreateOptionsMenu(menu);
         MenuInflater inflater = getMenuInflater();
         inflater.inflate(R.menu.main_menu, menu);
+        menu.findItem(R.id.menu_metrics).setVisible(isDebugBuild());
 
         return true;
     }
@@ -350,6 +382,10 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
             case R.id.menu_preferences:
                 startActivity(new Intent(this, Preferences.class));
                 break;
+
+            case R.id.menu_metrics:
+                showDialog(R.id.metrics_dialog);
+                break;
         }
         return super.onOptionsItemSelected(item);
     }
@@ -360,6 +396,8 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
 
         setupService();
 
+        strikesOverlay.refresh();
+
         Log.d(Main.LOG_TAG, "Main.onStart() service: " + appService);
     }
 
@@ -387,6 +425,8 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
     public void onStop() {
         super.onStop();
 
+        strikesOverlay.cancelAging();
+
         if (appService != null) {
             Log.v(Main.LOG_TAG, "Main.onStop() remove listeners");
 
@@ -412,6 +452,8 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
         Log.i(LOG_TAG, "Main: onDestroy() unbind service");
 
         unbindService(serviceConnection);
+
+        overlayModelExecutor.shutdownNow();
     }
 
     @Override
@@ -441,46 +483,14 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
 
                     Log.d(Main.LOG_TAG, "Main.onDataUpdate() " + result);
 
-                    Parameters resultParameters = result.getParameters();
-
                     clearDataIfRequested();
 
-                    if (result.containsStrikes()) {
-                        strikesOverlay.setRasterParameters(result.getRasterParameters());
-                        strikesOverlay.setRegion(resultParameters.getRegion());
-                        strikesOverlay.setReferenceTime(result.getReferenceTime());
-                        strikesOverlay.setIntervalDuration(resultParameters.getIntervalDuration());
-                        strikesOverlay.setIntervalOffset(resultParameters.getIntervalOffset());
-
-                        if (result.containsIncrementalData()) {
-                            strikesOverlay.expireStrikes();
-                        } else {
-                            strikesOverlay.clear();
-                        }
-                        strikesOverlay.addStrikes(result.getStrikes());
-
-                        alertView.setColorHandler(strikesOverlay.getColorHandler(), strikesOverlay.getIntervalDuration());
-
-                        strikesOverlay.refresh();
-                        legendView.requestLayout();
-                    }
-
-                    if (!result.containsRealtimeData()) {
-                        setHistoricStatusString();
-                    }
-
-                    if (participantsOverlay != null && result.containsParticipants()) {
-                        participantsOverlay.setParticipants(result.getStations());
-                        participantsOverlay.refresh();
-                    }
+                    buildOverlayModels(result);
                 }
 
                 statusComponent.stopProgress();
 
                 buttonColumnHandler.unlockButtonColumn();
-
-                getMapView().invalidate();
-                legendView.invalidate();
             } else if (event instanceof ClearDataEvent) {
                 clearData();
             } else if (event instanceof StatusEvent) {
@@ -494,6 +504,73 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
         return dataEventConsumer;
     }
 
+    private void buildOverlayModels(final ResultEvent result) {
+        final Parameters resultParameters = result.getParameters();
+        final long expireTime = StrikesOverlay.getExpireTime(result.getReferenceTime(),
+                resultParameters.getIntervalDuration(), resultParameters.getIntervalOffset());
+        final boolean updateParticipants = participantsOverlay != null && result.containsParticipants();
+
+        overlayModelExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long startTime = System.nanoTime();
+                final StrikesOverlay.Update strikesUpdate = result.containsStrikes()
+                        ? strikesOverlay.prepareUpdate(result.getStrikes(), result.containsIncrementalData(), expireTime,
+                                result.getRasterParameters(), resultParameters.getIntervalDuration(), resultParameters.getIntervalOffset())
+                        : null;
+                final ParticipantsOverlay.Update participantsUpdate = updateParticipants
+                        ? participantsOverlay.prepareUpdate(result.getStations())
+                        : null;
+                Metrics.getInstance().recordLatency(Metrics.Stage.MODEL_BUILD, null, System.nanoTime() - startTime);
+
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyOverlayModels(result, strikesUpdate, participantsUpdate);
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyOverlayModels(ResultEvent result, StrikesOverlay.Update strikesUpdate, ParticipantsOverlay.Update participantsUpdate) {
+        final long startTime = System.nanoTime();
+
+        if (strikesUpdate != null) {
+            Parameters resultParameters = result.getParameters();
+
+            strikesOverlay.setRasterParameters(result.getRasterParameters());
+            strikesOverlay.setRegion(resultParameters.getRegion());
+            strikesOverlay.setReferenceTime(result.getReferenceTime());
+            strikesOverlay.setIntervalDuration(resultParameters.getIntervalDuration());
+            strikesOverlay.setIntervalOffset(resultParameters.getIntervalOffset());
+
+            strikesOverlay.applyUpdate(strikesUpdate);
+
+            heatmapOverlay.setReferenceTime(result.getReferenceTime());
+            heatmapOverlay.setIntervalOffset(resultParameters.getIntervalOffset());
+            heatmapOverlay.applyUpdate(strikesUpdate, resultParameters.getIntervalDuration());
+
+            alertView.setColorHandler(strikesOverlay.getColorHandler(), strikesOverlay.getIntervalDuration());
+
+            legendView.requestLayout();
+            histogramView.invalidate();
+        }
+
+        if (!result.containsRealtimeData()) {
+            setHistoricStatusString();
+        }
+
+        if (participantsUpdate != null) {
+            participantsOverlay.applyUpdate(participantsUpdate);
+        }
+
+        getMapView().invalidate();
+        legendView.invalidate();
+
+        Metrics.getInstance().recordLatency(Metrics.Stage.OVERLAY_APPLY, null, System.nanoTime() - startTime);
+    }
+
     private void reloadData() {
         appService.reloadData();
     }
@@ -508,6 +585,7 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
         clearData = false;
 
         strikesOverlay.clear();
+        heatmapOverlay.clear();
 
         if (participantsOverlay != null) {
             participantsOverlay.clear();
@@ -521,6 +599,10 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
                 dialog = new InfoDialog(this, versionComponent);
                 break;
 
+            case R.id.metrics_dialog:
+                dialog = new MetricsDialog(this, appService);
+                break;
+
             case R.id.alarm_dialog:
                 if (appService != null) {
                     dialog = new AlertDialog(this, appService, new AlertDialogColorHandler(PreferenceManager.getDefaultSharedPreferences(this)));
@@ -558,6 +640,12 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
                 updateOverlays();
                 break;
 
+            case SHOW_HEATMAP:
+                boolean showHeatmap = sharedPreferences.getBoolean(key.toString(), false);
+                heatmapOverlay.setEnabled(showHeatmap);
+                updateOverlays();
+                break;
+
             case COLOR_SCHEME:
                 strikesOverlay.refresh();
                 if (participantsOverlay != null) {
@@ -593,10 +681,18 @@ public class Main extends OwnMapActivity implements OnSharedPreferenceChangeList
 
     protected void setStatusString(String runStatus) {
         int numberOfStrikes = strikesOverlay.getTotalNumberOfStrikes();
-        String statusText = getResources().getQuantityString(R.plurals.strike, numberOfStrikes, numberOfStrikes);
+        int visibleNumberOfStrikes = strikesOverlay.getVisibleNumberOfStrikes();
+        String statusText = "";
+        if (visibleNumberOfStrikes != numberOfStrikes) {
+            statusText += visibleNumberOfStrikes + "/";
+        }
+        statusText += getResources().getQuantityString(R.plurals.strike, numberOfStrikes, numberOfStrikes);
         statusText += "/";
         int intervalDuration = strikesOverlay.getIntervalDuration();
         statusText += getResources().getQuantityString(R.plurals.minute, intervalDuration, intervalDuration);
+        if (intervalDuration > 0) {
+            statusText += String.format(" (%.1f/min)", (float) visibleNumberOfStrikes / intervalDuration);
+        }
         statusText += " " + runStatus;
 
         statusComponent.setText(statusText);
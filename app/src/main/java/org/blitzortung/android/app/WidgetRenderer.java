@@ -0,0 +1,128 @@
+package org.blitzortung.android.app;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.RemoteViews;
+import org.blitzortung.android.alert.event.AlertEvent;
+import org.blitzortung.android.app.view.AlertView;
+import org.blitzortung.android.map.overlay.color.ColorHandler;
+import org.blitzortung.android.protocol.Consumer;
+
+import java.util.Arrays;
+
+public class WidgetRenderer implements Consumer<AlertEvent> {
+
+    public static final int DEFAULT_WIDGET_WIDTH = 150;
+
+    public static final int DEFAULT_WIDGET_HEIGHT = 120;
+
+    private final Context context;
+
+    private final AppWidgetManager appWidgetManager;
+
+    private final ComponentName widgetComponent;
+
+    private final AlertView alertView;
+
+    private final ColorHandler colorHandler;
+
+    private volatile int intervalDuration;
+
+    private Bitmap bitmap;
+
+    private Canvas canvas;
+
+    private boolean rendered;
+
+    private int lastStateHash;
+
+    public WidgetRenderer(Context context, AppWidgetManager appWidgetManager, AlertView alertView, ColorHandler colorHandler) {
+        this.context = context;
+        this.appWidgetManager = appWidgetManager;
+        this.alertView = alertView;
+        this.colorHandler = colorHandler;
+        widgetComponent = new ComponentName(context, WidgetProvider.class);
+    }
+
+    public void setIntervalDuration(int intervalDuration) {
+        this.intervalDuration = intervalDuration;
+    }
+
+    @Override
+    public void consume(AlertEvent event) {
+        final int[] appWidgetIds = appWidgetManager.getAppWidgetIds(widgetComponent);
+        if (appWidgetIds == null || appWidgetIds.length == 0) {
+            rendered = false;
+            return;
+        }
+
+        alertView.setColorHandler(colorHandler, intervalDuration);
+        alertView.getAlertEventConsumer().consume(event);
+
+        final int size = getWidgetSize(appWidgetIds[0]);
+        final int stateHash = 31 * (31 * alertView.getStateHash() + size) + Arrays.hashCode(appWidgetIds);
+
+        if (rendered && stateHash == lastStateHash) {
+            Log.v(Main.LOG_TAG, "WidgetRenderer.consume() skip unchanged state");
+            return;
+        }
+
+        final RemoteViews remoteViews = createRemoteViews(context);
+        remoteViews.setImageViewBitmap(R.id.alarm_diagram, render(size));
+        appWidgetManager.updateAppWidget(appWidgetIds, remoteViews);
+
+        Log.v(Main.LOG_TAG, "WidgetRenderer.consume() updated " + appWidgetIds.length + " widget(s) with size " + size);
+
+        lastStateHash = stateHash;
+        rendered = true;
+    }
+
+    private Bitmap render(int size) {
+        if (bitmap == null || bitmap.getWidth() != size) {
+            bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            canvas = new Canvas(bitmap);
+        } else {
+            bitmap.eraseColor(Color.TRANSPARENT);
+        }
+
+        alertView.measure(View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY));
+        alertView.layout(0, 0, size, size);
+        alertView.draw(canvas);
+
+        return bitmap;
+    }
+
+    private int getWidgetSize(int appWidgetId) {
+        int width = DEFAULT_WIDGET_WIDTH;
+        int height = DEFAULT_WIDGET_HEIGHT;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            final Bundle options = appWidgetManager.getAppWidgetOptions(appWidgetId);
+            if (options != null) {
+                width = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH, width);
+                height = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_HEIGHT, height);
+            }
+        }
+
+        final float density = context.getResources().getDisplayMetrics().density;
+        return Math.max(1, (int) (Math.min(width, height) * density));
+    }
+
+    static RemoteViews createRemoteViews(Context context) {
+        final RemoteViews remoteViews = new RemoteViews(context.getPackageName(), R.layout.widget);
+        final Intent intent = new Intent(context, Main.class);
+        remoteViews.setOnClickPendingIntent(R.id.alarm_widget, PendingIntent.getActivity(context, 0, intent, 0));
+        return remoteViews;
+    }
+}
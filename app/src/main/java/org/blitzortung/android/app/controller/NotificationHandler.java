@@ -22,17 +22,32 @@ public class NotificationHandler {
 
     public void sendNotification(String notificationText) {
         if (notificationService != null) {
-            Notification notification = new Notification(R.drawable.icon, notificationText, System.currentTimeMillis());
-            PendingIntent contentIntent = PendingIntent.getActivity(context, 0, new Intent(context, Main.class), 0);
-            notification.setLatestEventInfo(context, context.getResources().getText(R.string.app_name), notificationText, contentIntent);
+            notificationService.notify(R.id.alarm_notification_id, createNotification(notificationText));
+        }
+    }
 
-            notificationService.notify(R.id.alarm_notification_id, notification);
+    public void sendNotification(String tag, String notificationText) {
+        if (notificationService != null) {
+            notificationService.notify(tag, R.id.alarm_notification_id, createNotification(notificationText));
         }
     }
 
+    private Notification createNotification(String notificationText) {
+        Notification notification = new Notification(R.drawable.icon, notificationText, System.currentTimeMillis());
+        PendingIntent contentIntent = PendingIntent.getActivity(context, 0, new Intent(context, Main.class), 0);
+        notification.setLatestEventInfo(context, context.getResources().getText(R.string.app_name), notificationText, contentIntent);
+        return notification;
+    }
+
     public void clearNotification() {
         if (notificationService != null) {
             notificationService.cancel(R.id.alarm_notification_id);
         }
     }
-}
+
+    public void clearNotification(String tag) {
+        if (notificationService != null) {
+            notificationService.cancel(tag, R.id.alarm_notification_id);
+        }
+    }
+}
\ No newline at end of file
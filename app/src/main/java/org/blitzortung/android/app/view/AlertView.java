@@ -5,7 +5,10 @@ import android.graphics.*;
 import android.graphics.Paint.Align;
 import android.graphics.Paint.Style;
 import android.location.Location;
+import android.os.Handler;
+import android.os.SystemClock;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.view.View;
 import org.blitzortung.android.alert.AlertParameters;
 import org.blitzortung.android.alert.event.AlertEvent;
@@ -13,12 +16,18 @@ import org.blitzortung.android.alert.event.AlertResultEvent;
 import org.blitzortung.android.alert.object.AlertSector;
 import org.blitzortung.android.alert.object.AlertSectorRange;
 import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.alert.object.StormCell;
+import org.blitzortung.android.app.Main;
 import org.blitzortung.android.app.R;
 import org.blitzortung.android.app.helper.ViewHelper;
 import org.blitzortung.android.location.LocationEvent;
 import org.blitzortung.android.map.overlay.color.ColorHandler;
 import org.blitzortung.android.protocol.Consumer;
+import org.blitzortung.android.util.MeasurementSystem;
+import org.blitzortung.android.util.Clock;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class AlertView extends View {
@@ -26,6 +35,8 @@ public class AlertView extends View {
     private static final int TEXT_MINIMUM_SIZE = 300;
     private static final PorterDuffXfermode XFERMODE_CLEAR = new PorterDuffXfermode(PorterDuff.Mode.CLEAR);
     private static final PorterDuffXfermode XFERMODE_SRC = new PorterDuffXfermode(PorterDuff.Mode.SRC);
+    private static final int[] EMPTY_CELL_COLORS = new int[0];
+    private static final long NO_COLOR_CHANGE = Long.MAX_VALUE;
 
     private ColorHandler colorHandler;
 
@@ -38,13 +49,47 @@ public class AlertView extends View {
     private final Paint textStyle = new Paint(Paint.ANTI_ALIAS_FLAG);
     private final Paint warnText = new Paint(Paint.ANTI_ALIAS_FLAG);
     private final Paint transfer = new Paint();
+    private final Paint stormCellPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
 
     private final String[] alarmNotAvailableTextLines;
 
     private Bitmap temporaryBitmap;
     private Canvas temporaryCanvas;
+    private Bitmap frameBitmap;
+    private Canvas frameCanvas;
+    private Bitmap cellBitmap;
+    private Canvas cellCanvas;
+    private int bitmapSize;
+    private boolean composed;
+
+    private int frameLineColor;
+    private int frameTextColor;
+    private MeasurementSystem frameMeasurementSystem;
+    private String[] frameSectorLabels;
+    private float[] frameRangeSteps;
+
+    private Path[] cellPaths;
+    private int[] cellColors;
+    private int[] drawnCellColors;
+
     private AlertStatus alertStatus;
 
+    private List<StormCell> stormCells = Collections.emptyList();
+    private int stormCellsHash;
+
+    private long nextColorChangeTime = NO_COLOR_CHANGE;
+    private boolean attached;
+
+    private final Handler agingHandler = new Handler();
+
+    private final Runnable agingTask = new Runnable() {
+        @Override
+        public void run() {
+            updateCellColors();
+            invalidate();
+        }
+    };
+
     @SuppressWarnings("unused")
     public AlertView(Context context, AttributeSet attrs) {
         this(context, attrs, 0);
@@ -67,6 +112,8 @@ public class AlertView extends View {
         textStyle.setTextSize(ViewHelper.pxFromSp(this, 10));
 
         background.setColor(0xffb0b0b0);
+
+        sectorPaint.setXfermode(XFERMODE_SRC);
     }
 
     @Override
@@ -81,120 +128,311 @@ public class AlertView extends View {
 
     @Override
     protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        attached = true;
+        updateCellColors();
     }
 
     @Override
     protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        attached = false;
+        agingHandler.removeCallbacks(agingTask);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         int size = Math.max(getWidth(), getHeight());
-        int pad = 4;
+        if (size <= 0) {
+            return;
+        }
+
+        prepareBitmaps(size);
+
+        if (cellColors != null) {
+            prepareFrame(size);
+            updateCells();
+
+            if (!composed) {
+                clear(temporaryCanvas);
+                temporaryCanvas.drawBitmap(cellBitmap, 0, 0, null);
+                temporaryCanvas.drawBitmap(frameBitmap, 0, 0, null);
+                composed = true;
+            }
+        } else if (composed || drawnCellColors == null) {
+            clear(temporaryCanvas);
+            if (size > TEXT_MINIMUM_SIZE) {
+                drawWarning(size / 2.0f);
+            }
+            composed = false;
+            drawnCellColors = EMPTY_CELL_COLORS;
+        }
+        canvas.drawBitmap(temporaryBitmap, 0, 0, transfer);
+
+        if (cellColors != null && !stormCells.isEmpty()) {
+            drawStormCells(canvas, size);
+        }
+    }
 
-        float center = size / 2.0f;
-        float radius = center - pad;
+    private void drawStormCells(Canvas canvas, int size) {
+        final AlertParameters alertParameters = alertStatus.getAlertParameters();
+        final MeasurementSystem measurementSystem = alertParameters.getMeasurementSystem();
+        final float[] rangeSteps = alertParameters.getRangeSteps();
+        final float center = size / 2.0f;
+        final float radiusIncrement = (center - 4) / rangeSteps.length;
+        final float markerRadius = size / 50f;
+        final float arrowLength = size / 10f;
+
+        stormCellPaint.setColor(colorHandler.getLineColor());
+        stormCellPaint.setStrokeWidth(size / 100);
+        stormCellPaint.setAlpha(transfer.getAlpha());
+
+        for (StormCell stormCell : stormCells) {
+            final float distance = measurementSystem.calculateDistance(stormCell.getDistance());
+            if (!(distance <= rangeSteps[rangeSteps.length - 1])) {
+                continue;
+            }
+
+            int rangeIndex = 0;
+            while (distance > rangeSteps[rangeIndex]) {
+                rangeIndex++;
+            }
+            final float rangeMinimum = rangeIndex > 0 ? rangeSteps[rangeIndex - 1] : 0f;
+            final float radius = (rangeIndex + (distance - rangeMinimum) / (rangeSteps[rangeIndex] - rangeMinimum)) * radiusIncrement;
 
-        prepareTemporaryBitmap(size);
+            final double bearing = stormCell.getBearing() / 180.0 * Math.PI;
+            final float x = center + (float) (radius * Math.sin(bearing));
+            final float y = center - (float) (radius * Math.cos(bearing));
 
-        if (alertStatus != null && intervalDuration != 0) {
-            AlertParameters alertParameters = alertStatus.getAlertParameters();
-            final float[] rangeSteps = alertParameters.getRangeSteps();
-            final int rangeStepCount = rangeSteps.length;
-            final float radiusIncrement = radius / rangeStepCount;
-            final float sectorWidth = 360 / alertParameters.getSectorLabels().length;
+            stormCellPaint.setStyle(stormCell.isApproaching() ? Style.FILL_AND_STROKE : Style.STROKE);
+            canvas.drawCircle(x, y, markerRadius, stormCellPaint);
 
-            lines.setColor(colorHandler.getLineColor());
-            lines.setStrokeWidth(size / 150);
+            if (stormCell.getSpeed() > 0) {
+                final double direction = stormCell.getDirection() / 180.0 * Math.PI;
+                canvas.drawLine(x, y, x + (float) (arrowLength * Math.sin(direction)), y - (float) (arrowLength * Math.cos(direction)), stormCellPaint);
+            }
+        }
 
+        final StormCell approachingStormCell = stormCells.get(0);
+        if (size > TEXT_MINIMUM_SIZE && approachingStormCell.isApproaching() && approachingStormCell.getTimeOfArrival() > 0) {
             textStyle.setTextAlign(Align.CENTER);
-            textStyle.setColor(colorHandler.getTextColor());
+            canvas.drawText(getContext().getString(R.string.storm_cell_time_of_arrival, Math.max(1, approachingStormCell.getTimeOfArrival() / 60000)),
+                    center, size - textStyle.getFontMetrics(null) / 2f, textStyle);
+        }
+    }
 
-            long actualTime = System.currentTimeMillis();
+    private void prepareBitmaps(int size) {
+        if (temporaryBitmap == null || bitmapSize != size) {
+            temporaryBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            temporaryCanvas = new Canvas(temporaryBitmap);
+            frameBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            frameCanvas = new Canvas(frameBitmap);
+            cellBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            cellCanvas = new Canvas(cellBitmap);
+            bitmapSize = size;
+            frameSectorLabels = null;
+            drawnCellColors = null;
+            composed = false;
+        }
+    }
 
-            for (AlertSector alertSector : alertStatus.getSectors()) {
+    private void prepareFrame(int size) {
+        final AlertParameters alertParameters = alertStatus.getAlertParameters();
+        final int lineColor = colorHandler.getLineColor();
+        final int textColor = colorHandler.getTextColor();
 
-                float startAngle = alertSector.getMinimumSectorBearing() + 90 + 180;
+        if (frameSectorLabels == alertParameters.getSectorLabels() && frameRangeSteps == alertParameters.getRangeSteps()
+                && frameMeasurementSystem == alertParameters.getMeasurementSystem()
+                && frameLineColor == lineColor && frameTextColor == textColor) {
+            return;
+        }
 
-                final List<AlertSectorRange> ranges = alertSector.getRanges();
-                for (int rangeIndex = ranges.size() - 1; rangeIndex >= 0; rangeIndex--) {
-                    AlertSectorRange alertSectorRange = ranges.get(rangeIndex);
+        frameSectorLabels = alertParameters.getSectorLabels();
+        frameRangeSteps = alertParameters.getRangeSteps();
+        frameMeasurementSystem = alertParameters.getMeasurementSystem();
+        frameLineColor = lineColor;
+        frameTextColor = textColor;
+
+        Log.v(Main.LOG_TAG, "AlertView.prepareFrame() size " + size);
+
+        final int pad = 4;
+        final float center = size / 2.0f;
+        final float radius = center - pad;
+        final float[] rangeSteps = frameRangeSteps;
+        final int rangeStepCount = rangeSteps.length;
+        final float radiusIncrement = radius / rangeStepCount;
+        final float sectorWidth = 360f / frameSectorLabels.length;
+        final int labelStep = Math.max(1, frameSectorLabels.length / 8);
+
+        cellPaths = new Path[alertStatus.getSectors().size() * rangeStepCount];
+        int cellIndex = 0;
+        for (AlertSector alertSector : alertStatus.getSectors()) {
+            final float startAngle = alertSector.getMinimumSectorBearing() + 90 + 180;
+            for (int rangeIndex = 0; rangeIndex < rangeStepCount; rangeIndex++) {
+                cellPaths[cellIndex++] = createCellPath(center, rangeIndex * radiusIncrement, (rangeIndex + 1) * radiusIncrement, startAngle, sectorWidth);
+            }
+        }
+        drawnCellColors = null;
+        composed = false;
 
-                    float sectorRadius = (rangeIndex + 1) * radiusIncrement;
-                    float leftTop = center - sectorRadius;
-                    float bottomRight = center + sectorRadius;
+        clear(frameCanvas);
 
-                    boolean drawColor = alertSectorRange.getStrikeCount() > 0;
-                    if (drawColor) {
-                        final int color = colorHandler.getColor(actualTime, alertSectorRange.getLatestStrikeTimestamp(), intervalDuration);
-                        sectorPaint.setColor(color);
-                    }
-                    arcArea.set(leftTop, leftTop, bottomRight, bottomRight);
-                    temporaryCanvas.drawArc(arcArea, startAngle, sectorWidth, true, drawColor ? sectorPaint : background);
+        lines.setColor(lineColor);
+        lines.setStrokeWidth(size / 150);
+
+        textStyle.setTextAlign(Align.CENTER);
+        textStyle.setColor(textColor);
+
+        for (AlertSector alertSector : alertStatus.getSectors()) {
+            double bearing = alertSector.getMinimumSectorBearing();
+            frameCanvas.drawLine(center, center, center + (float) (radius * Math.sin(bearing / 180.0f * Math.PI)), center
+                    + (float) (radius * -Math.cos(bearing / 180.0f * Math.PI)), lines);
+
+            if (size > TEXT_MINIMUM_SIZE && alertSector.getSectorIndex() % labelStep == 0) {
+                drawSectorLabel(center, radiusIncrement, alertSector, bearing + sectorWidth / 2.0);
+            }
+        }
+
+        textStyle.setTextAlign(Align.RIGHT);
+        float textHeight = textStyle.getFontMetrics(null);
+        for (int radiusIndex = 0; radiusIndex < rangeStepCount; radiusIndex++) {
+            float leftTop = center - (radiusIndex + 1) * radiusIncrement;
+            float bottomRight = center + (radiusIndex + 1) * radiusIncrement;
+            arcArea.set(leftTop, leftTop, bottomRight, bottomRight);
+            frameCanvas.drawArc(arcArea, 0, 360, false, lines);
+
+            if (size > TEXT_MINIMUM_SIZE) {
+                String text = String.format("%.0f", rangeSteps[radiusIndex]);
+                frameCanvas.drawText(text, center + (radiusIndex + 0.85f) * radiusIncrement, center
+                        + textHeight / 3f, textStyle);
+                if (radiusIndex == rangeStepCount - 1) {
+                    frameCanvas.drawText(frameMeasurementSystem.getUnitName(), center + (radiusIndex + 0.85f) * radiusIncrement, center
+                            + textHeight * 1.33f, textStyle);
                 }
             }
+        }
+    }
 
-            for (AlertSector alertSector : alertStatus.getSectors()) {
-                double bearing = alertSector.getMinimumSectorBearing();
-                temporaryCanvas.drawLine(center, center, center + (float) (radius * Math.sin(bearing / 180.0f * Math.PI)), center
-                        + (float) (radius * -Math.cos(bearing / 180.0f * Math.PI)), lines);
+    private Path createCellPath(float center, float innerRadius, float outerRadius, float startAngle, float sweepAngle) {
+        final Path path = new Path();
+        arcArea.set(center - outerRadius, center - outerRadius, center + outerRadius, center + outerRadius);
+        path.arcTo(arcArea, startAngle, sweepAngle, true);
+        if (innerRadius > 0) {
+            arcArea.set(center - innerRadius, center - innerRadius, center + innerRadius, center + innerRadius);
+            path.arcTo(arcArea, startAngle + sweepAngle, -sweepAngle);
+        } else {
+            path.lineTo(center, center);
+        }
+        path.close();
+        return path;
+    }
 
-                if (size > TEXT_MINIMUM_SIZE) {
-                    drawSectorLabel(center, radiusIncrement, alertSector, bearing + sectorWidth / 2.0);
-                }
+    private void updateCells() {
+        if (cellPaths.length != cellColors.length) {
+            return;
+        }
+
+        if (drawnCellColors == null || drawnCellColors.length != cellColors.length) {
+            clear(cellCanvas);
+            drawnCellColors = null;
+        }
+
+        for (int cellIndex = 0; cellIndex < cellColors.length; cellIndex++) {
+            final int color = cellColors[cellIndex];
+            if (drawnCellColors == null || drawnCellColors[cellIndex] != color) {
+                sectorPaint.setColor(color);
+                cellCanvas.drawPath(cellPaths[cellIndex], sectorPaint);
+                composed = false;
             }
+        }
 
-            textStyle.setTextAlign(Align.RIGHT);
-            float textHeight = textStyle.getFontMetrics(null);
-            for (int radiusIndex = 0; radiusIndex < rangeStepCount; radiusIndex++) {
-                float leftTop = center - (radiusIndex + 1) * radiusIncrement;
-                float bottomRight = center + (radiusIndex + 1) * radiusIncrement;
-                arcArea.set(leftTop, leftTop, bottomRight, bottomRight);
-                temporaryCanvas.drawArc(arcArea, 0, 360, false, lines);
-
-                if (size > TEXT_MINIMUM_SIZE) {
-                    String text = String.format("%.0f", rangeSteps[radiusIndex]);
-                    temporaryCanvas.drawText(text, center + (radiusIndex + 0.85f) * radiusIncrement, center
-                            + textHeight / 3f, textStyle);
-                    if (radiusIndex == rangeStepCount - 1) {
-                        temporaryCanvas.drawText(alertParameters.getMeasurementSystem().getUnitName(), center + (radiusIndex + 0.85f) * radiusIncrement, center
-                                + textHeight * 1.33f, textStyle);
+        drawnCellColors = cellColors;
+    }
+
+    private void updateCellColors() {
+        if (alertStatus == null || colorHandler == null || intervalDuration == 0) {
+            cellColors = null;
+            nextColorChangeTime = NO_COLOR_CHANGE;
+            scheduleAging(0);
+            return;
+        }
+
+        final int rangeStepCount = alertStatus.getAlertParameters().getRangeSteps().length;
+        final int[] colors = new int[alertStatus.getSectors().size() * rangeStepCount];
+        final int backgroundColor = background.getColor();
+        final long actualTime = Clock.now();
+        final long colorDuration = colorHandler.getMinutesPerColor(intervalDuration) * 60 * 1000l;
+        final int lastSection = colorHandler.getNumberOfColors() - 1;
+        long nextChangeTime = NO_COLOR_CHANGE;
+
+        int sectorOffset = 0;
+        for (AlertSector alertSector : alertStatus.getSectors()) {
+            final List<AlertSectorRange> ranges = alertSector.getRanges();
+            for (int rangeIndex = 0; rangeIndex < ranges.size() && rangeIndex < rangeStepCount; rangeIndex++) {
+                AlertSectorRange alertSectorRange = ranges.get(rangeIndex);
+                if (alertSectorRange.getStrikeCount() > 0) {
+                    final long timestamp = alertSectorRange.getLatestStrikeTimestamp();
+                    colors[sectorOffset + rangeIndex] = colorHandler.getColor(actualTime, timestamp, intervalDuration);
+                    if (colorDuration > 0) {
+                        final long section = Math.max(0, (actualTime - timestamp) / colorDuration);
+                        if (section < lastSection) {
+                            nextChangeTime = Math.min(nextChangeTime, timestamp + (section + 1) * colorDuration);
+                        }
                     }
+                } else {
+                    colors[sectorOffset + rangeIndex] = backgroundColor;
                 }
             }
+            sectorOffset += rangeStepCount;
+        }
 
-        } else if (size > TEXT_MINIMUM_SIZE) {
+        cellColors = colors;
+        nextColorChangeTime = nextChangeTime;
+        scheduleAging(actualTime);
+    }
 
-            warnText.setColor(0xffa00000);
-            warnText.setTextAlign(Align.CENTER);
-            warnText.setTextSize(20);
+    private void scheduleAging(long now) {
+        agingHandler.removeCallbacks(agingTask);
 
-            for (int line = 0; line < alarmNotAvailableTextLines.length; line++) {
-                temporaryCanvas.drawText(alarmNotAvailableTextLines[line], center, center + (line - 1) * warnText.getFontMetrics(null), warnText);
-            }
+        if (attached && nextColorChangeTime != NO_COLOR_CHANGE) {
+            agingHandler.postAtTime(agingTask, SystemClock.uptimeMillis() + Math.max(0, nextColorChangeTime - now));
+        }
+    }
+
+    private void updateStormCells(List<StormCell> stormCells) {
+        this.stormCells = stormCells;
+
+        int hash = 0;
+        for (StormCell stormCell : stormCells) {
+            hash = 31 * hash + Arrays.hashCode(new long[]{stormCell.getId(), Math.round(stormCell.getDistance() / 1000f),
+                    Math.round(stormCell.getBearing()), Math.round(stormCell.getDirection()), stormCell.getTimeOfArrival() / 60000});
+        }
+        stormCellsHash = hash;
+    }
+
+    private void drawWarning(float center) {
+        warnText.setColor(0xffa00000);
+        warnText.setTextAlign(Align.CENTER);
+        warnText.setTextSize(20);
+
+        for (int line = 0; line < alarmNotAvailableTextLines.length; line++) {
+            temporaryCanvas.drawText(alarmNotAvailableTextLines[line], center, center + (line - 1) * warnText.getFontMetrics(null), warnText);
         }
-        canvas.drawBitmap(temporaryBitmap, 0, 0, transfer);
     }
 
     private void drawSectorLabel(float center, float radiusIncrement, AlertSector sector, double bearing) {
         if (bearing != 90.0) {
             final String text = sector.getLabel();
             float textRadius = (sector.getRanges().size() - 0.5f) * radiusIncrement;
-            temporaryCanvas.drawText(text, center
+            frameCanvas.drawText(text, center
                     + (float) (textRadius * Math.sin(bearing / 180.0 * Math.PI)), center
                     + (float) (textRadius * -Math.cos(bearing / 180.0 * Math.PI)) + textStyle.getFontMetrics(null) / 3f, textStyle);
         }
     }
 
-    private void prepareTemporaryBitmap(int size) {
-        if (temporaryBitmap == null) {
-            temporaryBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
-            temporaryCanvas = new Canvas(temporaryBitmap);
-        }
-        background.setColor(colorHandler.getBackgroundColor());
+    private void clear(Canvas canvas) {
         background.setXfermode(XFERMODE_CLEAR);
-        temporaryCanvas.drawPaint(background);
-
+        canvas.drawPaint(background);
         background.setXfermode(XFERMODE_SRC);
     }
 
@@ -205,9 +443,12 @@ public class AlertView extends View {
                 AlertResultEvent alertResultEvent = (AlertResultEvent) event;
 
                 alertStatus = alertResultEvent.getAlertStatus();
+                updateStormCells(alertResultEvent.getStormCells());
             } else {
                 alertStatus = null;
+                updateStormCells(Collections.<StormCell>emptyList());
             }
+            updateCellColors();
             invalidate();
         }
     };
@@ -231,13 +472,37 @@ public class AlertView extends View {
     }
 
     public void setColorHandler(ColorHandler colorHandler, int intervalDuration) {
-        this.colorHandler = colorHandler;
-        this.intervalDuration = intervalDuration;
+        if (colorHandler != this.colorHandler || intervalDuration != this.intervalDuration) {
+            this.colorHandler = colorHandler;
+            this.intervalDuration = intervalDuration;
+            updateCellColors();
+            invalidate();
+        }
+    }
+
+    int[] getCellColors() {
+        return cellColors;
+    }
+
+    long getNextColorChangeTime() {
+        return nextColorChangeTime;
+    }
+
+    public int getStateHash() {
+        if (cellColors == null) {
+            return 0;
+        }
+        final MeasurementSystem measurementSystem = alertStatus.getAlertParameters().getMeasurementSystem();
+        return 31 * (31 * Arrays.hashCode(cellColors) + stormCellsHash) + (measurementSystem != null ? measurementSystem.hashCode() : 0);
     }
 
     @Override
     public void setBackgroundColor(int backgroundColor) {
-        background.setColor(backgroundColor);
+        if (backgroundColor != background.getColor()) {
+            background.setColor(backgroundColor);
+            updateCellColors();
+            invalidate();
+        }
     }
 
     public void setAlpha(int alpha) {
@@ -8,6 +8,7 @@ import android.util.AttributeSet;
 import android.view.View;
 import org.blitzortung.android.app.R;
 import org.blitzortung.android.app.helper.ViewHelper;
+import org.blitzortung.android.data.HistogramAggregator;
 import org.blitzortung.android.data.provider.result.DataEvent;
 import org.blitzortung.android.data.provider.result.ResultEvent;
 import org.blitzortung.android.map.overlay.StrikesOverlay;
@@ -28,11 +29,14 @@ public class HistogramView extends View {
 
     private StrikesOverlay strikesOverlay;
 
-    private int[] histogram;
-
     private final int defaultForegroundColor;
     private final RectF backgroundRect;
 
+    private int[] histogram;
+
+    private int labelMaximumCount = -1;
+    private String maximumCountLabel;
+
     @SuppressWarnings("unused")
     public HistogramView(Context context, AttributeSet attrs) {
         this(context, attrs, 0);
@@ -76,11 +80,14 @@ public class HistogramView extends View {
 
     @Override
     public void onDraw(Canvas canvas) {
+        if (strikesOverlay != null) {
+            histogram = strikesOverlay.getHistogram(histogram);
+        }
 
-        if (strikesOverlay != null && histogram != null && histogram.length > 0) {
+        if (histogram != null && histogram.length > 1) {
             ColorHandler colorHandler = strikesOverlay.getColorHandler();
-            int minutesPerColor = strikesOverlay.getIntervalDuration() / colorHandler.getNumberOfColors();
-            int minutesPerBin = 5;
+            int minutesPerColor = colorHandler.getMinutesPerColor(strikesOverlay.getIntervalDuration());
+            int minutesPerBin = HistogramAggregator.MINUTES_PER_BIN;
             int ratio = minutesPerColor / minutesPerBin;
             if (ratio == 0) {
                 return;
@@ -96,7 +103,7 @@ public class HistogramView extends View {
                 }
             }
 
-            canvas.drawText(String.format("%.1f/min _", (float) maximumCount / minutesPerBin), width - 2 * padding, padding + textSize / 1.2f, textPaint);
+            canvas.drawText(getMaximumCountLabel(maximumCount, minutesPerBin), width - 2 * padding, padding + textSize / 1.2f, textPaint);
 
             int ymax = maximumCount == 0 ? 1 : maximumCount;
 
@@ -120,6 +127,14 @@ public class HistogramView extends View {
         }
     }
 
+    private String getMaximumCountLabel(int maximumCount, int minutesPerBin) {
+        if (maximumCount != labelMaximumCount) {
+            maximumCountLabel = String.format("%.1f/min _", (float) maximumCount / minutesPerBin);
+            labelMaximumCount = maximumCount;
+        }
+        return maximumCountLabel;
+    }
+
     public void setStrikesOverlay(StrikesOverlay strikesOverlay) {
         this.strikesOverlay = strikesOverlay;
     }
@@ -141,21 +156,12 @@ public class HistogramView extends View {
         if (dataEvent.hasFailed()) {
             setVisibility(View.INVISIBLE);
         } else {
-            histogram = dataEvent.getHistogram();
-
-            boolean viewShouldBeVisible = histogram != null && histogram.length > 0;
-
-            setVisibility(viewShouldBeVisible ? View.VISIBLE : View.INVISIBLE);
-
-            if (viewShouldBeVisible) {
-                invalidate();
-            }
+            setVisibility(View.VISIBLE);
+            invalidate();
         }
     }
 
     public void clearHistogram() {
-        histogram = new int[0];
-
         setVisibility(View.INVISIBLE);
     }
 
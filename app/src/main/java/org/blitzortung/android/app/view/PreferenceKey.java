@@ -13,14 +13,20 @@ public enum PreferenceKey {
     QUERY_PERIOD("query_period"),
     BACKGROUND_QUERY_PERIOD("background_query_period"),
     SHOW_PARTICIPANTS("show_participants"),
+    SHOW_HEATMAP("show_heatmap"),
     SHOW_LOCATION("location"),
     ALERT_ENABLED("alarm_enabled"),
     ALERT_SOUND_SIGNAL("alarm_sound_signal"),
     ALERT_VIBRATION_SIGNAL("alarm_vibration_signal"),
     ALERT_NOTIFICATION_DISTANCE_LIMIT("notification_distance_limit"),
     ALERT_SIGNALING_DISTANCE_LIMIT("signaling_distance_limit"),
+    ALERT_TARGETS("alert_targets"),
+    ALERT_SECTOR_COUNT("alert_sector_count"),
+    ALERT_RANGE_STEPS("alert_range_steps"),
     REGION("region"),
+    TILED_DATA("tiled_data"),
     DATA_SOURCE("data_source"),
+    SERVERS("servers"),
     MEASUREMENT_UNIT("measurement_unit"),
     DO_NOT_SLEEP("do_not_sleep"),
     INTERVAL_DURATION("interval_duration"),
@@ -4,11 +4,15 @@ import android.content.SharedPreferences;
 import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import android.content.pm.PackageInfo;
 import android.os.AsyncTask;
+import android.os.Handler;
 import android.os.PowerManager;
 import android.util.Log;
 import org.blitzortung.android.app.Main;
 import org.blitzortung.android.app.view.PreferenceKey;
+import org.blitzortung.android.data.beans.RasterParameters;
 import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.beans.Tile;
+import org.blitzortung.android.data.beans.TileData;
 import org.blitzortung.android.data.provider.DataProvider;
 import org.blitzortung.android.data.provider.DataProviderFactory;
 import org.blitzortung.android.data.provider.DataProviderType;
@@ -16,12 +20,17 @@ import org.blitzortung.android.data.provider.result.ClearDataEvent;
 import org.blitzortung.android.data.provider.result.DataEvent;
 import org.blitzortung.android.data.provider.result.RequestStartedEvent;
 import org.blitzortung.android.data.provider.result.ResultEvent;
+import org.blitzortung.android.metrics.Metrics;
 import org.blitzortung.android.protocol.Consumer;
 import org.blitzortung.android.util.optional.Optional;
+import org.blitzortung.android.util.Clock;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -34,6 +43,7 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
 
     private String username;
     private String password;
+    private List<String> servers = new ArrayList<String>();
 
     private final Parameters parameters;
 
@@ -45,9 +55,50 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
 
     public static final RequestStartedEvent REQUEST_STARTED_EVENT = new RequestStartedEvent();
     public static final ClearDataEvent CLEAR_DATA_EVENT = new ClearDataEvent();
+    public static final ResultEvent FAILED_RESULT = new ResultEvent.Builder().build();
+
+    private StrikeBuffer strikeBuffer = StrikeBuffer.empty();
+    private Parameters strikeBufferParameters;
 
     private PowerManager.WakeLock wakeLock;
 
+    private final TileCache tileCache = new TileCache();
+
+    private boolean tiledDataEnabled;
+
+    private boolean alertDataRequested;
+
+    private List<Tile> visibleTiles = Collections.emptyList();
+
+    public static final int STREAM_UPDATE_DELAY = 250;
+
+    public static final int ALERT_INTERVAL_DURATION = 10;
+
+    private final Handler handler = new Handler();
+
+    private boolean streamingEnabled;
+
+    private final AtomicBoolean streamUpdatePending = new AtomicBoolean();
+
+    private final Runnable streamUpdate = new Runnable() {
+        @Override
+        public void run() {
+            streamUpdatePending.set(false);
+            if (streamingEnabled && isRealtime()) {
+                fetchData(false);
+            }
+        }
+    };
+
+    private final DataProvider.DataListener dataListener = new DataProvider.DataListener() {
+        @Override
+        public void onDataAvailable() {
+            if (!streamUpdatePending.getAndSet(true)) {
+                handler.postDelayed(streamUpdate, STREAM_UPDATE_DELAY);
+            }
+        }
+    };
+
     public static final Set<DataChannel> DEFAULT_DATA_CHANNELS = new HashSet<DataChannel>();
 
     static {
@@ -70,16 +121,31 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
         onSharedPreferenceChanged(sharedPreferences, PreferenceKey.DATA_SOURCE);
         onSharedPreferenceChanged(sharedPreferences, PreferenceKey.USERNAME);
         onSharedPreferenceChanged(sharedPreferences, PreferenceKey.PASSWORD);
+        onSharedPreferenceChanged(sharedPreferences, PreferenceKey.SERVERS);
         onSharedPreferenceChanged(sharedPreferences, PreferenceKey.RASTER_SIZE);
         onSharedPreferenceChanged(sharedPreferences, PreferenceKey.REGION);
         onSharedPreferenceChanged(sharedPreferences, PreferenceKey.INTERVAL_DURATION);
         onSharedPreferenceChanged(sharedPreferences, PreferenceKey.HISTORIC_TIMESTEP);
+        onSharedPreferenceChanged(sharedPreferences, PreferenceKey.TILED_DATA);
 
         updateProviderSpecifics();
     }
 
     private class FetchDataTask extends AsyncTask<Integer, Integer, Optional<ResultEvent>> {
 
+        private final List<Tile> tiles;
+
+        private final boolean alertData;
+
+        public FetchDataTask() {
+            this(null, false);
+        }
+
+        public FetchDataTask(List<Tile> tiles, boolean alertData) {
+            this.tiles = tiles;
+            this.alertData = alertData;
+        }
+
         protected void onProgressUpdate(Integer... progress) {
         }
 
@@ -101,39 +167,72 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
             ResultEvent result = null;
 
             if (lock.tryLock()) {
-                result = new ResultEvent();
+                result = FAILED_RESULT;
+                final String metricsLabel = dataProvider.getType().toString();
+                final long startTime = System.nanoTime();
                 try {
                     dataProvider.setUp();
                     dataProvider.setCredentials(username, password);
+                    dataProvider.setStationsRequested(updateParticipants);
 
-                    List<StrikeAbstract> strikes;
-                    if (rasterBaselength == 0) {
-                        strikes = dataProvider.getStrikes(intervalDuration, intervalOffset, region);
-                    } else {
-                        strikes = dataProvider.getStrikesRaster(intervalDuration, intervalOffset, rasterBaselength, region);
-                    }
                     Parameters parameters = new Parameters();
                     parameters.setIntervalDuration(intervalDuration);
                     parameters.setIntervalOffset(intervalOffset);
                     parameters.setRegion(region);
                     parameters.setRasterBaselength(rasterBaselength);
 
-                    if (dataProvider.returnsIncrementalData()) {
-                        result.setContainsIncrementalData();
+                    final long referenceTime = Clock.now();
+
+                    List<StrikeAbstract> strikes;
+                    RasterParameters rasterParameters;
+                    int[] histogram;
+                    boolean incrementalData = false;
+                    final boolean tiledData = tiles != null && rasterBaselength != 0;
+                    if (tiledData) {
+                        final List<TileData> tileData = fetchTiles(tiles, parameters, referenceTime, metricsLabel);
+                        strikes = new ArrayList<StrikeAbstract>();
+                        rasterParameters = null;
+                        histogram = null;
+                        for (TileData data : tileData) {
+                            strikes.addAll(data.getStrikes());
+                            rasterParameters = rasterParameters != null ? rasterParameters.union(data.getRasterParameters()) : data.getRasterParameters();
+                            histogram = addHistogram(histogram, data.getHistogram());
+                        }
+                    } else {
+                        if (rasterBaselength == 0) {
+                            strikes = dataProvider.getStrikes(intervalDuration, intervalOffset, region);
+                        } else {
+                            strikes = dataProvider.getStrikesRaster(intervalDuration, intervalOffset, rasterBaselength, region);
+                        }
+                        rasterParameters = dataProvider.getRasterParameters();
+                        histogram = dataProvider.getHistogram();
+                        incrementalData = dataProvider.returnsIncrementalData();
                     }
-                    result.setParameters(parameters);
 
-                    result.setReferenceTime(System.currentTimeMillis());
-                    result.setStrikes(strikes);
-                    result.setRasterParameters(dataProvider.getRasterParameters());
-                    result.setHistogram(dataProvider.getHistogram());
+                    // the strike buffer keeps the region data, tiles only cover the visible area
+                    ResultEvent.Builder resultBuilder = new ResultEvent.Builder()
+                            .parameters(parameters)
+                            .incrementalData(incrementalData)
+                            .tiledData(tiledData)
+                            .alertData(alertData)
+                            .referenceTime(referenceTime)
+                            .strikes(strikes)
+                            .strikeBuffer(tiledData ? null : updateStrikeBuffer(strikes, incrementalData, parameters, referenceTime))
+                            .rasterParameters(rasterParameters)
+                            .histogram(histogram);
 
                     if (updateParticipants) {
-                        result.setStations(dataProvider.getStations(region));
+                        resultBuilder.stations(dataProvider.getStations(region));
                     }
 
+                    result = resultBuilder.build();
+
                     dataProvider.shutDown();
+
+                    Metrics.getInstance().recordLatency(Metrics.Stage.FETCH, metricsLabel, System.nanoTime() - startTime);
+                    Metrics.getInstance().add("fetched_strikes", metricsLabel, strikes != null ? strikes.size() : 0);
                 } catch (RuntimeException e) {
+                    Metrics.getInstance().increment("fetch_failures", metricsLabel);
                     e.printStackTrace();
                 } finally {
                     lock.unlock();
@@ -143,6 +242,43 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
         }
     }
 
+    private List<TileData> fetchTiles(List<Tile> tiles, Parameters parameters, long referenceTime, String metricsLabel) {
+        final List<Tile> missingTiles = tileCache.getMissingTiles(parameters, tiles, referenceTime);
+        if (!missingTiles.isEmpty()) {
+            tileCache.put(parameters, dataProvider.getStrikesRasterTiles(parameters.getIntervalDuration(), parameters.getIntervalOffset(),
+                    parameters.getRasterBaselength(), missingTiles), referenceTime);
+        }
+        Metrics.getInstance().add("fetched_tiles", metricsLabel, missingTiles.size());
+        Metrics.getInstance().add("cached_tiles", metricsLabel, tiles.size() - missingTiles.size());
+
+        return tileCache.get(parameters, tiles, referenceTime);
+    }
+
+    private static int[] addHistogram(int[] histogram, int[] tileHistogram) {
+        if (tileHistogram == null) {
+            return histogram;
+        }
+        if (histogram == null || histogram.length != tileHistogram.length) {
+            // cached histograms must not be modified
+            return tileHistogram.clone();
+        }
+        for (int index = 0; index < histogram.length; index++) {
+            histogram[index] += tileHistogram[index];
+        }
+        return histogram;
+    }
+
+    private StrikeBuffer updateStrikeBuffer(List<StrikeAbstract> strikes, boolean incrementalData, Parameters parameters, long referenceTime) {
+        if (incrementalData && parameters.equals(strikeBufferParameters)) {
+            final long expireTime = referenceTime - (parameters.getIntervalDuration() - parameters.getIntervalOffset()) * 60 * 1000l;
+            strikeBuffer = strikeBuffer.expire(expireTime).append(strikes);
+        } else {
+            strikeBuffer = StrikeBuffer.of(strikes);
+        }
+        strikeBufferParameters = parameters;
+        return strikeBuffer;
+    }
+
     private class FetchBackgroundDataTask extends FetchDataTask {
 
         private PowerManager.WakeLock wakeLock;
@@ -176,7 +312,7 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
     }
 
     public void updateDatainBackground() {
-        new FetchBackgroundDataTask(wakeLock).execute(10, 0, dataProvider.getType() == DataProviderType.HTTP ? 0 : parameters.getRasterBaselength(), parameters.getRegion(), 0);
+        new FetchBackgroundDataTask(wakeLock).execute(ALERT_INTERVAL_DURATION, 0, dataProvider.getType() == DataProviderType.HTTP ? 0 : parameters.getRasterBaselength(), parameters.getRegion(), 0);
     }
 
     public void updateData() {
@@ -194,7 +330,48 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
             }
         }
 
-        new FetchDataTask().execute(parameters.getIntervalDuration(), parameters.getIntervalOffset(), dataProvider.getType() == DataProviderType.HTTP ? 0 : parameters.getRasterBaselength(), parameters.getRegion(), updateParticipants ? 1 : 0, 0);
+        fetchData(updateParticipants);
+    }
+
+    private void fetchData(boolean updateParticipants) {
+        final boolean tiledFetch = isTiledFetch();
+        new FetchDataTask(tiledFetch ? visibleTiles : null, false).execute(parameters.getIntervalDuration(), parameters.getIntervalOffset(), dataProvider.getType() == DataProviderType.HTTP ? 0 : parameters.getRasterBaselength(), parameters.getRegion(), updateParticipants ? 1 : 0, 0);
+
+        if (tiledFetch && alertDataRequested && isRealtime()) {
+            // alerts are evaluated on the whole region, independent of the visible area
+            new FetchDataTask(null, true).execute(ALERT_INTERVAL_DURATION, 0, parameters.getRasterBaselength(), parameters.getRegion(), 0);
+        }
+    }
+
+    public void setAlertDataRequested(boolean alertDataRequested) {
+        this.alertDataRequested = alertDataRequested;
+    }
+
+    public void setVisibleArea(float west, float south, float east, float north) {
+        final List<Tile> tiles = Tile.cover(west, south, east, north);
+        if (!tiles.equals(visibleTiles)) {
+            visibleTiles = tiles;
+            if (isTiledFetch() && !tileCache.getMissingTiles(parameters, tiles, Clock.now()).isEmpty()) {
+                Log.v(Main.LOG_TAG, "DataHandler.setVisibleArea() fetch missing tiles of " + tiles);
+                updateData();
+            }
+        }
+    }
+
+    private boolean isTiledFetch() {
+        return tiledDataEnabled && !visibleTiles.isEmpty() && parameters.getRasterBaselength() > 0 && dataProvider.isCapableOfTiledData();
+    }
+
+    public void setStreamingEnabled(boolean streamingEnabled) {
+        if (streamingEnabled != this.streamingEnabled) {
+            Log.v(Main.LOG_TAG, "DataHandler.setStreamingEnabled() " + streamingEnabled);
+            this.streamingEnabled = streamingEnabled;
+            dataProvider.setDataListener(streamingEnabled ? dataListener : null);
+        }
+    }
+
+    public boolean isStreaming() {
+        return streamingEnabled && dataProvider.isStreaming();
     }
 
     private void sendEvent(DataEvent dataEvent) {
@@ -213,10 +390,17 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
             case DATA_SOURCE:
                 String providerTypeString = sharedPreferences.getString(key.toString(), DataProviderType.RPC.toString());
                 DataProviderType providerType = DataProviderType.valueOf(providerTypeString.toUpperCase());
+                if (dataProvider != null) {
+                    dataProvider.setDataListener(null);
+                }
                 dataProvider = dataProviderFactory.getDataProviderForType(providerType);
                 dataProvider.setPackageInfo(pInfo);
+                if (streamingEnabled) {
+                    dataProvider.setDataListener(dataListener);
+                }
 
                 updateProviderSpecifics();
+                tileCache.clear();
 
                 notifyDataReset();
                 break;
@@ -229,6 +413,15 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
                 password = sharedPreferences.getString(key.toString(), "");
                 break;
 
+            case SERVERS:
+                servers = new ArrayList<String>();
+                for (String server : sharedPreferences.getString(key.toString(), "").split(",")) {
+                    if (server.trim().length() > 0) {
+                        servers.add(server.trim());
+                    }
+                }
+                break;
+
             case RASTER_SIZE:
                 preferencesRasterBaselength = Integer.parseInt(sharedPreferences.getString(key.toString(), "10000"));
                 parameters.setRasterBaselength(preferencesRasterBaselength);
@@ -245,6 +438,11 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
                 parameters.setOffsetIncrement(Integer.parseInt(sharedPreferences.getString(key.toString(), "30")));
                 break;
 
+            case TILED_DATA:
+                tiledDataEnabled = sharedPreferences.getBoolean(key.toString(), false);
+                tileCache.clear();
+                break;
+
             case REGION:
                 preferencesRegion = Integer.parseInt(sharedPreferences.getString(key.toString(), "1"));
                 parameters.setRegion(preferencesRegion);
@@ -255,6 +453,7 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
 
         if (dataProvider != null) {
             dataProvider.setCredentials(username, password);
+            dataProvider.setServers(servers);
         }
     }
 
@@ -268,6 +467,7 @@ public class DataHandler implements OnSharedPreferenceChangeListener {
                 break;
 
             case HTTP:
+            case STREAM:
                 disableRasterMode();
                 break;
         }
@@ -0,0 +1,162 @@
+package org.blitzortung.android.data;
+
+import android.location.Location;
+import org.blitzortung.android.data.beans.Strike;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+public class HistogramAggregator {
+
+    public static final int MINUTES_PER_BIN = 5;
+
+    private static final long BIN_DURATION = MINUTES_PER_BIN * 60 * 1000l;
+
+    private final Location location;
+
+    private int[] counts;
+
+    private long lastBin;
+
+    private boolean hasArea;
+
+    private double west, south, east, north;
+
+    public HistogramAggregator() {
+        location = new Location("");
+        counts = new int[0];
+        lastBin = Long.MIN_VALUE;
+    }
+
+    public void setIntervalDuration(int intervalDuration) {
+        final int numberOfBins = getNumberOfBins(intervalDuration) + 1;
+        if (counts.length != numberOfBins) {
+            counts = new int[numberOfBins];
+            lastBin = Long.MIN_VALUE;
+        }
+    }
+
+    public void setArea(double west, double south, double east, double north) {
+        hasArea = true;
+        this.west = west;
+        this.south = south;
+        this.east = east;
+        this.north = north;
+    }
+
+    public void clearArea() {
+        hasArea = false;
+    }
+
+    public void rebuild(Collection<? extends Strike> strikes) {
+        clear();
+        add(strikes);
+    }
+
+    public void add(Collection<? extends Strike> strikes) {
+        for (Strike strike : strikes) {
+            add(strike);
+        }
+    }
+
+    public void add(Strike strike) {
+        update(strike, strike.getMultiplicity());
+    }
+
+    public void remove(Strike strike) {
+        update(strike, -strike.getMultiplicity());
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        lastBin = Long.MIN_VALUE;
+    }
+
+    public int[] getHistogram(long referenceTime, int intervalDuration, int intervalOffset) {
+        return getHistogram(referenceTime, intervalDuration, intervalOffset, null);
+    }
+
+    public int[] getHistogram(long referenceTime, int intervalDuration, int intervalOffset, int[] histogram) {
+        final int numberOfBins = getNumberOfBins(intervalDuration);
+        if (histogram == null || histogram.length != numberOfBins) {
+            histogram = new int[numberOfBins];
+        }
+
+        final long endBin = getBin(referenceTime + intervalOffset * 60 * 1000l - 1);
+        for (int index = 0; index < histogram.length; index++) {
+            histogram[index] = getCount(endBin - (histogram.length - 1 - index));
+        }
+
+        return histogram;
+    }
+
+    private void update(Strike strike, int delta) {
+        if (counts.length == 0 || !isInArea(strike)) {
+            return;
+        }
+
+        final long bin = getBin(strike.getTimestamp());
+
+        if (bin > lastBin) {
+            advanceTo(bin);
+        }
+
+        if (bin > lastBin - counts.length) {
+            final int index = getIndex(bin);
+            counts[index] = Math.max(0, counts[index] + delta);
+        }
+    }
+
+    private void advanceTo(long bin) {
+        if (lastBin == Long.MIN_VALUE || bin - lastBin >= counts.length) {
+            Arrays.fill(counts, 0);
+        } else {
+            for (long clearedBin = lastBin + 1; clearedBin <= bin; clearedBin++) {
+                counts[getIndex(clearedBin)] = 0;
+            }
+        }
+        lastBin = bin;
+    }
+
+    private int getCount(long bin) {
+        if (lastBin == Long.MIN_VALUE || bin > lastBin || bin <= lastBin - counts.length) {
+            return 0;
+        }
+        return counts[getIndex(bin)];
+    }
+
+    private boolean isInArea(Strike strike) {
+        if (!hasArea) {
+            return true;
+        }
+        strike.getLocation(location);
+        final double latitude = location.getLatitude();
+        if (latitude < south || latitude > north) {
+            return false;
+        }
+        if (east - west >= 360.0) {
+            return true;
+        }
+        // the visible area may extend beyond the antimeridian
+        double longitude = location.getLongitude();
+        while (longitude < west) {
+            longitude += 360.0;
+        }
+        while (longitude > west + 360.0) {
+            longitude -= 360.0;
+        }
+        return longitude <= east;
+    }
+
+    private int getIndex(long bin) {
+        return (int) (((bin % counts.length) + counts.length) % counts.length);
+    }
+
+    private static long getBin(long timestamp) {
+        return timestamp / BIN_DURATION;
+    }
+
+    private static int getNumberOfBins(int intervalDuration) {
+        return intervalDuration / MINUTES_PER_BIN;
+    }
+}
@@ -0,0 +1,109 @@
+package org.blitzortung.android.data;
+
+import org.blitzortung.android.data.beans.StrikeAbstract;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+public class StrikeBuffer extends AbstractList<StrikeAbstract> implements RandomAccess {
+
+    private static final StrikeBuffer EMPTY = new StrikeBuffer(new Storage(0), 0, 0);
+
+    private static class Storage {
+        private StrikeAbstract[] elements;
+        private int size;
+
+        Storage(int capacity) {
+            elements = new StrikeAbstract[capacity];
+        }
+    }
+
+    private final Storage storage;
+
+    private final StrikeAbstract[] elements;
+
+    private final int start;
+
+    private final int end;
+
+    private StrikeBuffer(Storage storage, int start, int end) {
+        this.storage = storage;
+        this.elements = storage.elements;
+        this.start = start;
+        this.end = end;
+    }
+
+    public static StrikeBuffer empty() {
+        return EMPTY;
+    }
+
+    public static StrikeBuffer of(List<? extends StrikeAbstract> strikes) {
+        return EMPTY.append(strikes);
+    }
+
+    @Override
+    public StrikeAbstract get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " size " + size());
+        }
+        return elements[start + index];
+    }
+
+    @Override
+    public int size() {
+        return end - start;
+    }
+
+    public StrikeBuffer append(List<? extends StrikeAbstract> strikes) {
+        if (strikes.isEmpty()) {
+            return this;
+        }
+
+        synchronized (storage) {
+            if (storage.size == end && storage != EMPTY.storage && start <= size()) {
+                ensureCapacity(end + strikes.size());
+                copyInto(storage.elements, end, strikes);
+                storage.size = end + strikes.size();
+                return new StrikeBuffer(storage, start, storage.size);
+            }
+        }
+
+        final Storage copy = new Storage(Math.max(16, (size() + strikes.size()) * 3 / 2));
+        System.arraycopy(elements, start, copy.elements, 0, size());
+        copyInto(copy.elements, size(), strikes);
+        copy.size = size() + strikes.size();
+        return new StrikeBuffer(copy, 0, copy.size);
+    }
+
+    public StrikeBuffer expire(long expireTime) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (elements[middle].getTimestamp() < expireTime) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        if (low == start) {
+            return this;
+        }
+        return low == end ? EMPTY : new StrikeBuffer(storage, low, end);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (storage.elements.length < capacity) {
+            storage.elements = Arrays.copyOf(storage.elements, Math.max(capacity, storage.elements.length * 3 / 2));
+        }
+    }
+
+    private static void copyInto(StrikeAbstract[] target, int offset, List<? extends StrikeAbstract> strikes) {
+        for (StrikeAbstract strike : strikes) {
+            target[offset++] = strike;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.blitzortung.android.data;
+
+import android.location.Location;
+import org.blitzortung.android.data.beans.Strike;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+public class StrikeDensityGrid {
+
+    public static final double DEFAULT_CELL_SIZE = 0.1;
+
+    public static final int TILE_SIZE = 32;
+
+    private static final long ROW_FACTOR = 1000000l;
+
+    private static final int[] KERNEL = {1, 4, 6, 4, 1};
+
+    private static final int KERNEL_RADIUS = KERNEL.length / 2;
+
+    private static final float KERNEL_NORM = 256f;
+
+    private static final double REBASE_LIMIT = 8.0;
+
+    public static class Tile {
+
+        private final int column;
+
+        private final int row;
+
+        private final float[] values = new float[TILE_SIZE * TILE_SIZE];
+
+        private int numberOfContributions;
+
+        private Tile(int column, int row) {
+            this.column = column;
+            this.row = row;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public float getValue(int x, int y) {
+            return values[y * TILE_SIZE + x];
+        }
+    }
+
+    private final double cellSize;
+
+    private final int numberOfColumns;
+
+    private final int numberOfRows;
+
+    private final Map<Long, Tile> tiles;
+
+    private final Location location;
+
+    private long decayTime;
+
+    private long baseTime;
+
+    private int numberOfStrikes;
+
+    public StrikeDensityGrid(long decayTime) {
+        this(DEFAULT_CELL_SIZE, decayTime);
+    }
+
+    public StrikeDensityGrid(double cellSize, long decayTime) {
+        this.cellSize = cellSize;
+        this.decayTime = decayTime;
+        numberOfColumns = (int) Math.ceil(360.0 / cellSize);
+        numberOfRows = (int) Math.ceil(180.0 / cellSize);
+        tiles = new HashMap<Long, Tile>();
+        location = new Location("");
+    }
+
+    public long getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(long decayTime) {
+        if (decayTime != this.decayTime) {
+            this.decayTime = decayTime;
+            clear();
+        }
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public void add(Strike strike) {
+        if (numberOfStrikes == 0) {
+            baseTime = strike.getTimestamp();
+        } else if (strike.getTimestamp() - baseTime > REBASE_LIMIT * decayTime) {
+            rebase(strike.getTimestamp());
+        }
+        splat(strike, 1);
+        numberOfStrikes++;
+    }
+
+    public void remove(Strike strike) {
+        if (numberOfStrikes > 0) {
+            splat(strike, -1);
+            numberOfStrikes--;
+        }
+    }
+
+    public void clear() {
+        tiles.clear();
+        numberOfStrikes = 0;
+    }
+
+    public int getNumberOfStrikes() {
+        return numberOfStrikes;
+    }
+
+    public Collection<Tile> getTiles() {
+        return tiles.values();
+    }
+
+    public float getScale(long time) {
+        return (float) Math.exp((double) (baseTime - time) / decayTime);
+    }
+
+    public float getDensity(double longitude, double latitude, long time) {
+        final int column = getColumn(longitude);
+        final int row = getRow(latitude);
+        final Tile tile = tiles.get(getKey(column / TILE_SIZE, row / TILE_SIZE));
+        return tile != null ? tile.getValue(column % TILE_SIZE, row % TILE_SIZE) * getScale(time) : 0f;
+    }
+
+    public double getTileWest(Tile tile) {
+        return tile.column * TILE_SIZE * cellSize - 180.0;
+    }
+
+    public double getTileSouth(Tile tile) {
+        return tile.row * TILE_SIZE * cellSize - 90.0;
+    }
+
+    public double getTileSize() {
+        return TILE_SIZE * cellSize;
+    }
+
+    private void splat(Strike strike, int sign) {
+        strike.getLocation(location);
+        final int centerColumn = getColumn(location.getLongitude());
+        final int centerRow = getRow(location.getLatitude());
+        final float weight = (float) (strike.getMultiplicity() * Math.exp((double) (strike.getTimestamp() - baseTime) / decayTime)) / KERNEL_NORM;
+
+        Tile tile = null;
+        for (int rowOffset = -KERNEL_RADIUS; rowOffset <= KERNEL_RADIUS; rowOffset++) {
+            final int row = centerRow + rowOffset;
+            if (row < 0 || row >= numberOfRows) {
+                continue;
+            }
+            for (int columnOffset = -KERNEL_RADIUS; columnOffset <= KERNEL_RADIUS; columnOffset++) {
+                final int column = centerColumn + columnOffset;
+                if (column < 0 || column >= numberOfColumns) {
+                    continue;
+                }
+
+                final int tileColumn = column / TILE_SIZE;
+                final int tileRow = row / TILE_SIZE;
+                if (tile == null || tile.column != tileColumn || tile.row != tileRow) {
+                    tile = getTile(tileColumn, tileRow, sign > 0);
+                    if (tile == null) {
+                        continue;
+                    }
+                }
+
+                final int index = (row % TILE_SIZE) * TILE_SIZE + column % TILE_SIZE;
+                final float value = tile.values[index] + sign * weight * KERNEL[rowOffset + KERNEL_RADIUS] * KERNEL[columnOffset + KERNEL_RADIUS];
+                tile.values[index] = Math.max(0f, value);
+                tile.numberOfContributions += sign;
+
+                if (tile.numberOfContributions == 0) {
+                    tiles.remove(getKey(tileColumn, tileRow));
+                    tile = null;
+                }
+            }
+        }
+    }
+
+    private Tile getTile(int tileColumn, int tileRow, boolean create) {
+        final long key = getKey(tileColumn, tileRow);
+        Tile tile = tiles.get(key);
+        if (tile == null && create) {
+            tile = new Tile(tileColumn, tileRow);
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
+
+    private void rebase(long time) {
+        final float factor = (float) Math.exp((double) (baseTime - time) / decayTime);
+        for (Tile tile : tiles.values()) {
+            final float[] values = tile.values;
+            for (int index = 0; index < values.length; index++) {
+                values[index] *= factor;
+            }
+        }
+        baseTime = time;
+    }
+
+    private long getKey(int tileColumn, int tileRow) {
+        return tileColumn * ROW_FACTOR + tileRow;
+    }
+
+    private int getColumn(double longitude) {
+        return Math.min(numberOfColumns - 1, (int) Math.floor((Math.max(-180.0, Math.min(180.0, longitude)) + 180.0) / cellSize));
+    }
+
+    private int getRow(double latitude) {
+        return Math.min(numberOfRows - 1, (int) Math.floor((Math.max(-90.0, Math.min(90.0, latitude)) + 90.0) / cellSize));
+    }
+}
@@ -0,0 +1,175 @@
+package org.blitzortung.android.data;
+
+import android.location.Location;
+import org.blitzortung.android.data.beans.Strike;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+public class StrikeGridIndex {
+
+    public static final double DEFAULT_CELL_SIZE = 1.0;
+
+    private static final long ROW_FACTOR = 1000000l;
+
+    private static class Cell {
+        final ArrayDeque<Strike> strikes = new ArrayDeque<Strike>();
+        int numberOfStrikes;
+    }
+
+    private final double cellSize;
+
+    private final Map<Long, Cell> cells;
+
+    private final Location location;
+
+    private int totalNumberOfStrikes;
+
+    public StrikeGridIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public StrikeGridIndex(double cellSize) {
+        this.cellSize = cellSize;
+        cells = new HashMap<Long, Cell>();
+        location = new Location("");
+    }
+
+    public void add(Strike strike) {
+        final long key = getKey(strike);
+
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell();
+            cells.put(key, cell);
+        }
+
+        cell.strikes.addLast(strike);
+        cell.numberOfStrikes += strike.getMultiplicity();
+        totalNumberOfStrikes += strike.getMultiplicity();
+    }
+
+    public void remove(Strike strike) {
+        final long key = getKey(strike);
+
+        final Cell cell = cells.get(key);
+        if (cell != null && cell.strikes.removeFirstOccurrence(strike)) {
+            cell.numberOfStrikes -= strike.getMultiplicity();
+            totalNumberOfStrikes -= strike.getMultiplicity();
+
+            if (cell.strikes.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+        totalNumberOfStrikes = 0;
+    }
+
+    public int getTotalNumberOfStrikes() {
+        return totalNumberOfStrikes;
+    }
+
+    public int getNumberOfStrikes(double west, double south, double east, double north) {
+        if (west > east || south > north) {
+            return 0;
+        }
+
+        final int minColumn = getColumn(west);
+        final int maxColumn = getColumn(east);
+        final int minRow = getRow(south);
+        final int maxRow = getRow(north);
+
+        int numberOfStrikes = 0;
+
+        if ((long) (maxColumn - minColumn + 1) * (maxRow - minRow + 1) > cells.size()) {
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                final long key = entry.getKey();
+                final int column = (int) (key / ROW_FACTOR);
+                final int row = (int) (key % ROW_FACTOR);
+                if (column >= minColumn && column <= maxColumn && row >= minRow && row <= maxRow) {
+                    numberOfStrikes += countCell(entry.getValue(), column, row, west, south, east, north);
+                }
+            }
+        } else {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int row = minRow; row <= maxRow; row++) {
+                    final Cell cell = cells.get(column * ROW_FACTOR + row);
+                    if (cell != null) {
+                        numberOfStrikes += countCell(cell, column, row, west, south, east, north);
+                    }
+                }
+            }
+        }
+
+        return numberOfStrikes;
+    }
+
+    public void collectStrikes(double west, double south, double east, double north, Collection<? super Strike> strikes) {
+        if (west > east || south > north) {
+            return;
+        }
+
+        final int minColumn = getColumn(west);
+        final int maxColumn = getColumn(east);
+        final int minRow = getRow(south);
+        final int maxRow = getRow(north);
+
+        if ((long) (maxColumn - minColumn + 1) * (maxRow - minRow + 1) > cells.size()) {
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                final long key = entry.getKey();
+                final int column = (int) (key / ROW_FACTOR);
+                final int row = (int) (key % ROW_FACTOR);
+                if (column >= minColumn && column <= maxColumn && row >= minRow && row <= maxRow) {
+                    strikes.addAll(entry.getValue().strikes);
+                }
+            }
+        } else {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int row = minRow; row <= maxRow; row++) {
+                    final Cell cell = cells.get(column * ROW_FACTOR + row);
+                    if (cell != null) {
+                        strikes.addAll(cell.strikes);
+                    }
+                }
+            }
+        }
+    }
+
+    private int countCell(Cell cell, int column, int row, double west, double south, double east, double north) {
+        final double cellWest = column * cellSize - 180.0;
+        final double cellSouth = row * cellSize - 90.0;
+
+        if (cellWest >= west && cellWest + cellSize <= east && cellSouth >= south && cellSouth + cellSize <= north) {
+            return cell.numberOfStrikes;
+        }
+
+        int numberOfStrikes = 0;
+        for (Strike strike : cell.strikes) {
+            strike.getLocation(location);
+            final double longitude = location.getLongitude();
+            final double latitude = location.getLatitude();
+            if (longitude >= west && longitude <= east && latitude >= south && latitude <= north) {
+                numberOfStrikes += strike.getMultiplicity();
+            }
+        }
+        return numberOfStrikes;
+    }
+
+    private long getKey(Strike strike) {
+        strike.getLocation(location);
+        return getColumn(location.getLongitude()) * ROW_FACTOR + getRow(location.getLatitude());
+    }
+
+    private int getColumn(double longitude) {
+        return (int) Math.floor((Math.max(-180.0, Math.min(180.0, longitude)) + 180.0) / cellSize);
+    }
+
+    private int getRow(double latitude) {
+        return (int) Math.floor((Math.max(-90.0, Math.min(90.0, latitude)) + 90.0) / cellSize);
+    }
+}
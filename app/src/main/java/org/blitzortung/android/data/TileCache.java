@@ -0,0 +1,106 @@
+package org.blitzortung.android.data;
+
+import org.blitzortung.android.data.beans.Tile;
+import org.blitzortung.android.data.beans.TileData;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TileCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 64;
+
+    public static final long DEFAULT_VALIDITY = 60 * 1000l;
+
+    private static class Entry {
+        final TileData tileData;
+        final long fetchTime;
+
+        Entry(TileData tileData, long fetchTime) {
+            this.tileData = tileData;
+            this.fetchTime = fetchTime;
+        }
+    }
+
+    private final int maximumSize;
+
+    private final long validity;
+
+    private final Map<Tile, Entry> entries;
+
+    private Parameters parameters;
+
+    public TileCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_VALIDITY);
+    }
+
+    public TileCache(final int maximumSize, long validity) {
+        this.maximumSize = maximumSize;
+        this.validity = validity;
+
+        entries = new LinkedHashMap<Tile, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Tile, Entry> eldest) {
+                return size() > TileCache.this.maximumSize;
+            }
+        };
+    }
+
+    public synchronized List<Tile> getMissingTiles(Parameters parameters, List<Tile> tiles, long now) {
+        if (!parameters.equals(this.parameters)) {
+            return new ArrayList<Tile>(tiles);
+        }
+
+        final List<Tile> missingTiles = new ArrayList<Tile>();
+        for (Tile tile : tiles) {
+            if (getValidEntry(tile, now) == null) {
+                missingTiles.add(tile);
+            }
+        }
+        return missingTiles;
+    }
+
+    public synchronized List<TileData> get(Parameters parameters, List<Tile> tiles, long now) {
+        final List<TileData> tileData = new ArrayList<TileData>(tiles.size());
+        if (parameters.equals(this.parameters)) {
+            for (Tile tile : tiles) {
+                final Entry entry = getValidEntry(tile, now);
+                if (entry != null) {
+                    tileData.add(entry.tileData);
+                }
+            }
+        }
+        return tileData;
+    }
+
+    public synchronized void put(Parameters parameters, List<TileData> tileData, long fetchTime) {
+        if (!parameters.equals(this.parameters)) {
+            entries.clear();
+            this.parameters = parameters;
+        }
+
+        for (TileData data : tileData) {
+            entries.put(data.getTile(), new Entry(data, fetchTime));
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        parameters = null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private Entry getValidEntry(Tile tile, long now) {
+        final Entry entry = entries.get(tile);
+        if (entry != null && now - entry.fetchTime >= validity) {
+            entries.remove(tile);
+            return null;
+        }
+        return entry;
+    }
+}
@@ -29,6 +29,27 @@ public class RasterParameters {
 		lat_count = jsonObject.getInt("yc");
 	}
 
+	public RasterParameters(float lon_start, float lat_start, float lon_delta, float lat_delta, int lon_count, int lat_count) {
+		this.lon_start = lon_start;
+		this.lat_start = lat_start;
+		this.lon_delta = lon_delta;
+		this.lat_delta = lat_delta;
+		this.lon_count = lon_count;
+		this.lat_count = lat_count;
+	}
+
+    public RasterParameters union(RasterParameters other) {
+        final float lonStart = Math.min(lon_start, other.lon_start);
+        final float latStart = Math.max(lat_start, other.lat_start);
+        final float lonEnd = Math.max(lon_start + lon_delta * lon_count, other.lon_start + other.lon_delta * other.lon_count);
+        final float latEnd = Math.min(lat_start - lat_delta * lat_count, other.lat_start - other.lat_delta * other.lat_count);
+
+        final RasterParameters union = new RasterParameters(lonStart, latStart, lon_delta, lat_delta,
+                Math.round((lonEnd - lonStart) / lon_delta), Math.round((latStart - latEnd) / lat_delta));
+        union.setInfo(info);
+        return union;
+    }
+
     public float getRectCenterLongitude() {
         return lon_start + lon_delta * lon_count / 2f;
     }
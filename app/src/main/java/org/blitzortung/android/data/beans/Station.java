@@ -1,5 +1,7 @@
 package org.blitzortung.android.data.beans;
 
+import org.blitzortung.android.util.Clock;
+
 public class Station {
 
     public enum State {
@@ -40,12 +42,14 @@ public class Station {
     }
 
     public State getState() {
+        return getState(Clock.now());
+    }
+
+    public State getState(long now) {
         if (offlineSince == OFFLINE_SINCE_NOT_SET) {
             return State.ON;
         } else {
 
-            long now = System.currentTimeMillis();
-
             long minutesAgo = (now - offlineSince) / 1000 / 60;
 
             if (minutesAgo > 24 * 60) {
@@ -0,0 +1,108 @@
+package org.blitzortung.android.data.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class Tile {
+
+    public static final int MINIMUM_LEVEL = 2;
+
+    public static final int MAXIMUM_LEVEL = 10;
+
+    private final int level;
+
+    private final int x;
+
+    private final int y;
+
+    public Tile(int level, int x, int y) {
+        this.level = level;
+        this.x = x;
+        this.y = y;
+    }
+
+    public static int getLevel(float longitudeSpan) {
+        if (!(longitudeSpan > 0f)) {
+            return MAXIMUM_LEVEL;
+        }
+        // tiles are between half and the full visible width wide
+        final int level = (int) Math.floor(Math.log(360.0 / longitudeSpan) / Math.log(2.0)) + 1;
+        return Math.max(MINIMUM_LEVEL, Math.min(MAXIMUM_LEVEL, level));
+    }
+
+    public static List<Tile> cover(float west, float south, float east, float north) {
+        if (east < west) {
+            east += 360f;
+        }
+
+        final int level = getLevel(east - west);
+        final float size = getSize(level);
+        final int columns = 1 << level;
+        final int rows = columns / 2;
+
+        final int firstColumn = (int) Math.floor((west + 180f) / size);
+        final int columnCount = Math.min(Math.max((int) Math.ceil((east + 180f) / size) - firstColumn, 1), columns);
+        final int firstRow = Math.max((int) Math.floor((90f - north) / size), 0);
+        final int lastRow = Math.min(Math.max((int) Math.ceil((90f - south) / size) - 1, firstRow), rows - 1);
+
+        final List<Tile> tiles = new ArrayList<Tile>(columnCount * (lastRow - firstRow + 1));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column < firstColumn + columnCount; column++) {
+                tiles.add(new Tile(level, (column % columns + columns) % columns, row));
+            }
+        }
+        return tiles;
+    }
+
+    private static float getSize(int level) {
+        return 360f / (1 << level);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public float getWest() {
+        return -180f + x * getSize(level);
+    }
+
+    public float getEast() {
+        return -180f + (x + 1) * getSize(level);
+    }
+
+    public float getNorth() {
+        return 90f - y * getSize(level);
+    }
+
+    public float getSouth() {
+        return 90f - (y + 1) * getSize(level);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof Tile) {
+            final Tile otherTile = (Tile) other;
+            return level == otherTile.level && x == otherTile.x && y == otherTile.y;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return (level * 31 + x) * 31 + y;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "Tile(%d: %d, %d)", level, x, y);
+    }
+}
@@ -0,0 +1,37 @@
+package org.blitzortung.android.data.beans;
+
+import java.util.List;
+
+public class TileData {
+
+    private final Tile tile;
+
+    private final List<StrikeAbstract> strikes;
+
+    private final RasterParameters rasterParameters;
+
+    private final int[] histogram;
+
+    public TileData(Tile tile, List<StrikeAbstract> strikes, RasterParameters rasterParameters, int[] histogram) {
+        this.tile = tile;
+        this.strikes = strikes;
+        this.rasterParameters = rasterParameters;
+        this.histogram = histogram;
+    }
+
+    public Tile getTile() {
+        return tile;
+    }
+
+    public List<StrikeAbstract> getStrikes() {
+        return strikes;
+    }
+
+    public RasterParameters getRasterParameters() {
+        return rasterParameters;
+    }
+
+    public int[] getHistogram() {
+        return histogram;
+    }
+}
@@ -4,10 +4,17 @@ import android.content.pm.PackageInfo;
 import org.blitzortung.android.data.beans.StrikeAbstract;
 import org.blitzortung.android.data.beans.Station;
 import org.blitzortung.android.data.beans.RasterParameters;
+import org.blitzortung.android.data.beans.Tile;
+import org.blitzortung.android.data.beans.TileData;
 
+import java.util.Collections;
 import java.util.List;
 
 public abstract class DataProvider {
+
+    public interface DataListener {
+        void onDataAvailable();
+    }
 	
 	protected String username;
 	
@@ -40,9 +47,30 @@ public abstract class DataProvider {
 		this.password = password;
 	}
 
+    public void setServers(List<String> servers) {
+    }
+
     public void setPackageInfo(PackageInfo pInfo) {
         this.pInfo = pInfo;
     }
 
     public abstract boolean isCapableOfHistoricalData();
+
+    public boolean isCapableOfTiledData() {
+        return false;
+    }
+
+    public List<TileData> getStrikesRasterTiles(int intervalDuration, int intervalOffset, int rasterBaselength, List<Tile> tiles) {
+        return Collections.emptyList();
+    }
+
+    public void setStationsRequested(boolean stationsRequested) {
+    }
+
+    public void setDataListener(DataListener dataListener) {
+    }
+
+    public boolean isStreaming() {
+        return false;
+    }
 }
@@ -1,6 +1,7 @@
 package org.blitzortung.android.data.provider;
 
 import org.blitzortung.android.data.provider.standard.JsonRpcDataProvider;
+import org.blitzortung.android.data.provider.standard.StreamingDataProvider;
 import org.blitzortung.android.data.provider.blitzortung.BlitzortungHttpDataProvider;
 
 public class DataProviderFactory {
@@ -12,6 +13,9 @@ public class DataProviderFactory {
             case HTTP:
                 return new BlitzortungHttpDataProvider();
 
+            case STREAM:
+                return new StreamingDataProvider();
+
             default:
                 throw new IllegalStateException(String.format("unhandled data provider type '%s'", providerType));
         }
@@ -1,5 +1,5 @@
 package org.blitzortung.android.data.provider;
 
 public enum DataProviderType {
-	HTTP, RPC
+	HTTP, RPC, STREAM
 }
\ No newline at end of file
@@ -5,14 +5,18 @@ import org.blitzortung.android.app.Main;
 import org.blitzortung.android.data.beans.StrikeAbstract;
 import org.blitzortung.android.data.beans.Station;
 import org.blitzortung.android.data.beans.RasterParameters;
+import org.blitzortung.android.data.builder.StationBuilder;
 import org.blitzortung.android.data.provider.DataProvider;
 import org.blitzortung.android.data.provider.DataProviderType;
+import org.blitzortung.android.metrics.Metrics;
+import org.blitzortung.android.util.Clock;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.Authenticator;
+import java.net.HttpURLConnection;
 import java.net.PasswordAuthentication;
 import java.net.URL;
 import java.net.URLConnection;
@@ -21,10 +25,12 @@ import java.util.zip.GZIPInputStream;
 
 public class BlitzortungHttpDataProvider extends DataProvider {
 
+    private static final String METRICS_LABEL = DataProviderType.HTTP.toString();
+
     private UrlFormatter urlFormatter;
 
     private MapBuilder<StrikeAbstract> strikeMapBuilder;
-    private MapBuilder<Station> stationMapBuilder;
+    private StationTokenizer stationTokenizer;
 
     public enum Type {STRIKES, STATIONS}
 
@@ -35,8 +41,27 @@ public class BlitzortungHttpDataProvider extends DataProvider {
         }
     }
 
+    private static class ConditionalRequest {
+
+        private final int region;
+
+        private String entityTag;
+
+        private String lastModified;
+
+        private boolean notModified;
+
+        private List<Station> stations;
+
+        private ConditionalRequest(int region) {
+            this.region = region;
+        }
+    }
+
     private long latestTime = 0;
 
+    private ConditionalRequest stationsRequest;
+
     public BlitzortungHttpDataProvider() {
         this(new UrlFormatter(), new MapBuilderFactory());
     }
@@ -44,8 +69,7 @@ public class BlitzortungHttpDataProvider extends DataProvider {
     public BlitzortungHttpDataProvider(UrlFormatter urlFormatter, MapBuilderFactory mapBuilderFactory) {
         this.urlFormatter = urlFormatter;
         strikeMapBuilder = mapBuilderFactory.createAbstractStrikeMapBuilder();
-        stationMapBuilder = mapBuilderFactory.createStationMapBuilder();
-
+        stationTokenizer = new StationTokenizer(new StationBuilder());
     }
 
     @Override
@@ -60,7 +84,7 @@ public class BlitzortungHttpDataProvider extends DataProvider {
 
             try {
                 IntervalTimer intervalTimer = new IntervalTimer(10 * 60 * 1000l);
-                long startTime = System.currentTimeMillis() - timeInterval * 60 * 1000;
+                long startTime = Clock.now() - timeInterval * 60 * 1000;
 
                 intervalTimer.startInterval(Math.max(latestTime, startTime));
 
@@ -72,18 +96,23 @@ public class BlitzortungHttpDataProvider extends DataProvider {
                         continue;
                     }
 
+                    final long readStartTime = System.nanoTime();
+                    long decodeTime = 0;
                     int size = 0;
                     String line;
                     while ((line = reader.readLine()) != null) {
                         size += line.length();
 
+                        final long decodeStartTime = System.nanoTime();
                         StrikeAbstract strike = strikeMapBuilder.buildFromLine(line);
+                        decodeTime += System.nanoTime() - decodeStartTime;
                         long timestamp = strike.getTimestamp();
 
                         if (timestamp > latestTime && timestamp >= startTime) {
                             strikes.add(strike);
                         }
                     }
+                    recordReadMetrics(System.nanoTime() - readStartTime, decodeTime, size);
                     Log.v(Main.LOG_TAG,
                             String.format("BliztortungHttpDataProvider: read %d bytes (%d new strikes) from region %d", size, strikes.size(), region));
 
@@ -109,11 +138,12 @@ public class BlitzortungHttpDataProvider extends DataProvider {
         return latestTime != 0;
     }
 
-    private BufferedReader readFromUrl(Type type, int region) {
-        return readFromUrl(type, region, null);
+    private BufferedReader readFromUrl(Type type, int region, Calendar intervalTime) {
+        final InputStream inputStream = openStream(type, region, intervalTime, null);
+        return inputStream != null ? new BufferedReader(new InputStreamReader(inputStream)) : null;
     }
 
-    private BufferedReader readFromUrl(Type type, int region, Calendar intervalTime) {
+    private InputStream openStream(Type type, int region, Calendar intervalTime, ConditionalRequest conditionalRequest) {
 
         boolean useGzipCompression = false;
 
@@ -123,7 +153,7 @@ public class BlitzortungHttpDataProvider extends DataProvider {
 
         Authenticator.setDefault(new MyAuthenticator());
 
-        BufferedReader reader;
+        InputStream ins;
 
         String urlString = urlFormatter.getUrlFor(type, region, intervalTime, useGzipCompression);
         try {
@@ -133,18 +163,56 @@ public class BlitzortungHttpDataProvider extends DataProvider {
             connection.setConnectTimeout(60000);
             connection.setReadTimeout(60000);
             connection.setAllowUserInteraction(false);
-            InputStream ins = connection.getInputStream();
+            if (conditionalRequest != null) {
+                conditionalRequest.notModified = false;
+                if (conditionalRequest.stations != null) {
+                    if (conditionalRequest.entityTag != null) {
+                        connection.setRequestProperty("If-None-Match", conditionalRequest.entityTag);
+                    }
+                    if (conditionalRequest.lastModified != null) {
+                        connection.setRequestProperty("If-Modified-Since", conditionalRequest.lastModified);
+                    }
+                }
+            }
+
+            final Metrics metrics = Metrics.getInstance();
+            metrics.increment("http_requests", METRICS_LABEL);
+            final long startTime = System.nanoTime();
+            connection.connect();
+            final long connectTime = System.nanoTime();
+            if (conditionalRequest != null && connection instanceof HttpURLConnection
+                    && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                metrics.recordLatency(Metrics.Stage.CONNECT, METRICS_LABEL, connectTime - startTime);
+                metrics.increment("http_not_modified", METRICS_LABEL);
+                ((HttpURLConnection) connection).disconnect();
+                conditionalRequest.notModified = true;
+                return null;
+            }
+            ins = connection.getInputStream();
+            if (conditionalRequest != null) {
+                conditionalRequest.entityTag = connection.getHeaderField("ETag");
+                conditionalRequest.lastModified = connection.getHeaderField("Last-Modified");
+            }
+            metrics.recordLatency(Metrics.Stage.CONNECT, METRICS_LABEL, connectTime - startTime);
+            metrics.recordLatency(Metrics.Stage.FIRST_BYTE, METRICS_LABEL, System.nanoTime() - connectTime);
             if (useGzipCompression) {
                 ins = new GZIPInputStream(ins);
             }
-            reader = new BufferedReader(new InputStreamReader(ins));
         } catch (FileNotFoundException e) {
             Log.w(Main.LOG_TAG, String.format("URL '%s' not found", urlString));
             return null;
         } catch (Exception e) {
+            Metrics.getInstance().increment("http_failures", METRICS_LABEL);
             throw new RuntimeException(e);
         }
-        return reader;
+        return ins;
+    }
+
+    private void recordReadMetrics(long readTime, long decodeTime, int size) {
+        final Metrics metrics = Metrics.getInstance();
+        metrics.recordLatency(Metrics.Stage.DOWNLOAD, METRICS_LABEL, readTime - decodeTime);
+        metrics.recordLatency(Metrics.Stage.DECODE, METRICS_LABEL, decodeTime);
+        metrics.add("http_received_chars", METRICS_LABEL, size);
     }
 
     @Override
@@ -154,24 +222,33 @@ public class BlitzortungHttpDataProvider extends DataProvider {
         if (username != null && username.length() != 0 && password != null && password.length() != 0) {
 
             try {
-                BufferedReader reader = readFromUrl(Type.STATIONS, region);
-
-                int size = 0;
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    size += line.length();
-                    try {
-                        Station station = stationMapBuilder.buildFromLine(line);
-                        stations.add(station);
-                    } catch (NumberFormatException e) {
-                        Log.w(Main.LOG_TAG, String.format("BlitzortungHttpProvider: error parsing '%s'", line));
-                    }
+                if (stationsRequest == null || stationsRequest.region != region) {
+                    stationsRequest = new ConditionalRequest(region);
+                }
+
+                InputStream inputStream = openStream(Type.STATIONS, region, null, stationsRequest);
+                if (stationsRequest.notModified) {
+                    stations.addAll(stationsRequest.stations);
+                    Log.v(Main.LOG_TAG,
+                            String.format("BlitzortungHttpProvider: %d stations from region %d not modified", stations.size(), region));
+                    return stations;
                 }
+                if (inputStream == null) {
+                    return stations;
+                }
+
+                final long readStartTime = System.nanoTime();
+                stationTokenizer.read(inputStream, stations);
+                final int size = stationTokenizer.getNumberOfBytes();
+                recordReadMetrics(System.nanoTime() - readStartTime, stationTokenizer.getDecodeTime(), size);
                 Log.v(Main.LOG_TAG,
                         String.format("BlitzortungHttpProvider: read %d bytes (%d stations) from region %d", size, stations.size(), region));
 
-                reader.close();
+                inputStream.close();
+
+                stationsRequest.stations = new ArrayList<Station>(stations);
             } catch (Exception e) {
+                stationsRequest = null;
                 throw new RuntimeException(e);
             }
 
@@ -1,5 +1,7 @@
 package org.blitzortung.android.data.provider.blitzortung;
 
+import org.blitzortung.android.util.Clock;
+
 public class IntervalTimer {
 
     private final long intervalLength;
@@ -19,7 +21,7 @@ public class IntervalTimer {
     public void startInterval(long startTime)
     {
         currentTime = roundTime(startTime);
-        endTime = roundTime(System.currentTimeMillis());
+        endTime = roundTime(Clock.now());
     }
 
     public boolean hasNext()
@@ -8,11 +8,12 @@ import java.util.regex.Pattern;
 
 public class StationLineSplitter implements LineSplitter {
 
+    private static final Pattern FIELD_PATTERN = Pattern.compile("(\\w+(;(\"[^\"]+?\"|\\S+))+)");
+
     @Override
     public String[] split(String text) {
         ArrayList<String> matchList = new ArrayList<String>();
-        Pattern regex = Pattern.compile("(\\w+(;(\"[^\"]+?\"|\\S+))+)");
-        Matcher regexMatcher = regex.matcher(text);
+        Matcher regexMatcher = FIELD_PATTERN.matcher(text);
         while (regexMatcher.find()) {
             if (regexMatcher.group(0) != null) {
                 matchList.add(regexMatcher.group(1));
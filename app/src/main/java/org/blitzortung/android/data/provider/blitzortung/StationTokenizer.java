@@ -0,0 +1,366 @@
+package org.blitzortung.android.data.provider.blitzortung;
+
+import android.util.Log;
+import org.blitzortung.android.app.Main;
+import org.blitzortung.android.data.beans.Station;
+import org.blitzortung.android.data.builder.StationBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StationTokenizer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int KEY_OTHER = 0;
+    private static final int KEY_CITY = 1;
+    private static final int KEY_POS = 2;
+    private static final int KEY_LAST_SIGNAL = 3;
+
+    private static final byte[][] KEYS = {
+            null,
+            "city".getBytes(UTF_8),
+            "pos".getBytes(UTF_8),
+            "last_signal".getBytes(UTF_8)
+    };
+
+    private static final double[] POWERS_OF_TEN = new double[19];
+
+    private static final String[] LATIN1_ENTITIES = {
+            "nbsp", "iexcl", "cent", "pound", "curren", "yen", "brvbar", "sect", "uml", "copy", "ordf", "laquo",
+            "not", "shy", "reg", "macr", "deg", "plusmn", "sup2", "sup3", "acute", "micro", "para", "middot",
+            "cedil", "sup1", "ordm", "raquo", "frac14", "frac12", "frac34", "iquest", "Agrave", "Aacute", "Acirc",
+            "Atilde", "Auml", "Aring", "AElig", "Ccedil", "Egrave", "Eacute", "Ecirc", "Euml", "Igrave", "Iacute",
+            "Icirc", "Iuml", "ETH", "Ntilde", "Ograve", "Oacute", "Ocirc", "Otilde", "Ouml", "times", "Oslash",
+            "Ugrave", "Uacute", "Ucirc", "Uuml", "Yacute", "THORN", "szlig", "agrave", "aacute", "acirc", "atilde",
+            "auml", "aring", "aelig", "ccedil", "egrave", "eacute", "ecirc", "euml", "igrave", "iacute", "icirc",
+            "iuml", "eth", "ntilde", "ograve", "oacute", "ocirc", "otilde", "ouml", "divide", "oslash", "ugrave",
+            "uacute", "ucirc", "uuml", "yacute", "thorn", "yuml"
+    };
+
+    private static final Map<String, Character> ENTITIES = new HashMap<String, Character>();
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int index = 1; index < POWERS_OF_TEN.length; index++) {
+            POWERS_OF_TEN[index] = POWERS_OF_TEN[index - 1] * 10.0;
+        }
+
+        ENTITIES.put("amp", '&');
+        ENTITIES.put("lt", '<');
+        ENTITIES.put("gt", '>');
+        ENTITIES.put("quot", '"');
+        ENTITIES.put("apos", '\'');
+        for (int index = 0; index < LATIN1_ENTITIES.length; index++) {
+            ENTITIES.put(LATIN1_ENTITIES[index], (char) (160 + index));
+        }
+    }
+
+    private final StationBuilder stationBuilder;
+
+    private final byte[] buffer = new byte[8192];
+
+    private byte[] line = new byte[512];
+
+    private int lineLength;
+
+    private long decodeTime;
+
+    private int numberOfBytes;
+
+    public StationTokenizer(StationBuilder stationBuilder) {
+        this.stationBuilder = stationBuilder;
+    }
+
+    public List<Station> read(InputStream input, List<Station> stations) throws IOException {
+        decodeTime = 0;
+        numberOfBytes = 0;
+        lineLength = 0;
+
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+            numberOfBytes += count;
+
+            int start = 0;
+            for (int index = 0; index < count; index++) {
+                if (buffer[index] == '\n') {
+                    appendToLine(start, index);
+                    parseLine(stations);
+                    lineLength = 0;
+                    start = index + 1;
+                }
+            }
+            appendToLine(start, count);
+        }
+
+        if (lineLength > 0) {
+            parseLine(stations);
+        }
+
+        return stations;
+    }
+
+    public long getDecodeTime() {
+        return decodeTime;
+    }
+
+    public int getNumberOfBytes() {
+        return numberOfBytes;
+    }
+
+    public Station parseLine(String text) {
+        final byte[] bytes = text.getBytes(UTF_8);
+        line = Arrays.copyOf(bytes, Math.max(bytes.length, line.length));
+        lineLength = bytes.length;
+        return parseLine();
+    }
+
+    private void appendToLine(int start, int end) {
+        final int length = end - start;
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(buffer, start, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void parseLine(List<Station> stations) {
+        final long startTime = System.nanoTime();
+        try {
+            final Station station = parseLine();
+            if (station != null) {
+                stations.add(station);
+            }
+        } catch (NumberFormatException e) {
+            Log.w(Main.LOG_TAG, String.format("StationTokenizer: error parsing '%s'", new String(line, 0, lineLength, UTF_8)));
+        }
+        decodeTime += System.nanoTime() - startTime;
+    }
+
+    private Station parseLine() {
+        int end = lineLength;
+        if (end > 0 && line[end - 1] == '\r') {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+
+        stationBuilder.init();
+
+        int position = 0;
+        while (position < end) {
+            while (position < end && line[position] == ' ') {
+                position++;
+            }
+
+            final int keyStart = position;
+            while (position < end && line[position] != ';' && line[position] != ' ') {
+                position++;
+            }
+            if (position >= end || line[position] != ';') {
+                continue;
+            }
+            final int key = identifyKey(keyStart, position);
+            position++;
+
+            final int valueStart = position;
+            boolean quoted = false;
+            while (position < end && (quoted || line[position] != ' ')) {
+                if (line[position] == '"') {
+                    quoted = !quoted;
+                }
+                position++;
+            }
+            final int valueEnd = position;
+
+            switch (key) {
+                case KEY_CITY:
+                    stationBuilder.setName(decodeText(valueStart, findValueEnd(valueStart, valueEnd)));
+                    break;
+
+                case KEY_POS:
+                    final int latitudeEnd = findValueEnd(valueStart, valueEnd);
+                    final int longitudeEnd = findValueEnd(latitudeEnd + 1, valueEnd);
+                    stationBuilder.setLatitude(parseFloat(valueStart, latitudeEnd));
+                    stationBuilder.setLongitude(parseFloat(latitudeEnd + 1, longitudeEnd));
+                    break;
+
+                case KEY_LAST_SIGNAL:
+                    final int timestampEnd = findValueEnd(valueStart, valueEnd);
+                    if (timestampEnd - valueStart > 2) {
+                        stationBuilder.setOfflineSince(parseTimestamp(valueStart, timestampEnd));
+                    }
+                    break;
+            }
+        }
+
+        return stationBuilder.build();
+    }
+
+    private int identifyKey(int start, int end) {
+        for (int key = 1; key < KEYS.length; key++) {
+            final byte[] keyBytes = KEYS[key];
+            if (keyBytes.length == end - start) {
+                int index = 0;
+                while (index < keyBytes.length && keyBytes[index] == line[start + index]) {
+                    index++;
+                }
+                if (index == keyBytes.length) {
+                    return key;
+                }
+            }
+        }
+        return KEY_OTHER;
+    }
+
+    private int findValueEnd(int start, int end) {
+        boolean quoted = false;
+        for (int position = start; position < end; position++) {
+            final byte character = line[position];
+            if (character == '"') {
+                quoted = !quoted;
+            } else if (character == ';' && !quoted) {
+                return position;
+            }
+        }
+        return end;
+    }
+
+    private String decodeText(int start, int end) {
+        boolean needsCleanup = false;
+        for (int position = start; position < end; position++) {
+            if (line[position] == '"' || line[position] == '&') {
+                needsCleanup = true;
+                break;
+            }
+        }
+
+        final String text = new String(line, start, end - start, UTF_8);
+        return needsCleanup ? decodeEntities(text.replace("\"", "")) : text;
+    }
+
+    static String decodeEntities(String text) {
+        int ampersand = text.indexOf('&');
+        if (ampersand < 0) {
+            return text;
+        }
+
+        final StringBuilder result = new StringBuilder(text.length());
+        int position = 0;
+        while (ampersand >= 0) {
+            final int semicolon = text.indexOf(';', ampersand);
+            if (semicolon < 0) {
+                break;
+            }
+
+            final String entity = text.substring(ampersand + 1, semicolon);
+            final int codePoint = decodeEntity(entity);
+            if (codePoint >= 0) {
+                result.append(text, position, ampersand).appendCodePoint(codePoint);
+                position = semicolon + 1;
+            }
+            ampersand = text.indexOf('&', codePoint >= 0 ? position : ampersand + 1);
+        }
+        result.append(text, position, text.length());
+        return result.toString();
+    }
+
+    private static int decodeEntity(String entity) {
+        if (entity.length() > 1 && entity.charAt(0) == '#') {
+            try {
+                final boolean hexadecimal = entity.charAt(1) == 'x' || entity.charAt(1) == 'X';
+                final int codePoint = hexadecimal
+                        ? Integer.parseInt(entity.substring(2), 16)
+                        : Integer.parseInt(entity.substring(1));
+                return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        final Character character = ENTITIES.get(entity);
+        return character != null ? character : -1;
+    }
+
+    private float parseFloat(int start, int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (line[position] == '-' || line[position] == '+')) {
+            negative = line[position] == '-';
+            position++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (; position < end; position++) {
+            final byte character = line[position];
+            if (character >= '0' && character <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (character - '0');
+                    digits++;
+                    if (fraction) {
+                        fractionDigits++;
+                    }
+                } else if (!fraction) {
+                    throw new NumberFormatException("number too long");
+                }
+            } else if (character == '.' && !fraction) {
+                fraction = true;
+            } else {
+                throw new NumberFormatException("invalid character in number");
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("empty number");
+        }
+
+        final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return (float) (negative ? -value : value);
+    }
+
+    private long parseTimestamp(int start, int end) {
+        if (line[start] == '"') {
+            start++;
+        }
+        if (end - start < 19) {
+            throw new NumberFormatException("invalid timestamp");
+        }
+
+        final int year = parseDigits(start, 4);
+        final int month = parseDigits(start + 5, 2);
+        final int day = parseDigits(start + 8, 2);
+        final int hour = parseDigits(start + 11, 2);
+        final int minute = parseDigits(start + 14, 2);
+        final int second = parseDigits(start + 17, 2);
+
+        return ((daysFromCivil(year, month, day) * 24 + hour) * 60 + minute) * 60000L + second * 1000L;
+    }
+
+    private int parseDigits(int start, int count) {
+        int value = 0;
+        for (int position = start; position < start + count; position++) {
+            final byte character = line[position];
+            if (character < '0' || character > '9') {
+                throw new NumberFormatException("invalid digit in timestamp");
+            }
+            value = value * 10 + (character - '0');
+        }
+        return value;
+    }
+
+    static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        final int era = (year >= 0 ? year : year - 399) / 400;
+        final int yearOfEra = year - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
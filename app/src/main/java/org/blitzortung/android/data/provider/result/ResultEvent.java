@@ -1,97 +1,176 @@
 package org.blitzortung.android.data.provider.result;
 
 import org.blitzortung.android.data.Parameters;
+import org.blitzortung.android.data.StrikeBuffer;
 import org.blitzortung.android.data.beans.StrikeAbstract;
 import org.blitzortung.android.data.beans.Station;
 import org.blitzortung.android.data.beans.RasterParameters;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ResultEvent implements DataEvent {
 
-	private final List<List<StrikeAbstract>> strikes;
-  
-	private List<Station> stations;
-  
-	private RasterParameters rasterParameters = null;
-  
-    private int[] histogram;
-
-    private boolean fail;
-	
-	private boolean incrementalData;
-    
-    private long referenceTime;
-
-    private Parameters parameters;
-
-    public ResultEvent() {
-        strikes = new ArrayList<List<StrikeAbstract>>();
-		fail = true;
-		incrementalData = false;
-	}
-	
-	public void setStrikes(List<StrikeAbstract> strikes) {
-        this.strikes.clear();
-		this.strikes.add(strikes);
-		fail = false;
-	}
-	
-	public boolean containsStrikes() {
-		return ! strikes.isEmpty();
-	}
-	
-	public List<StrikeAbstract> getStrikes() {
-		return strikes.get(0);
-	}
-	
-	public void setStations(List<Station> stations) {
-		this.stations = stations;
-	}
-	
-	public boolean containsParticipants() {
-		return stations != null;
-	}
-	
-	public List<Station> getStations() {
-		return stations;
-	}
-	
-	public boolean hasFailed() {
-		return fail;
-	}
-	
-	public boolean hasRasterParameters() {
-		return rasterParameters != null;
-	}
-	
-	public RasterParameters getRasterParameters() {
-		return rasterParameters;
-	}
-	
-	public void setRasterParameters(RasterParameters rasterParameters) {
-		this.rasterParameters = rasterParameters;
-	}
-
-	public boolean containsIncrementalData() {
-		return incrementalData;
-	}
-	
-	public void setContainsIncrementalData() {
-		incrementalData = true;
-	}
-
-    public void setHistogram(int[] histogram) {
-        this.histogram = histogram;
+    public static class Builder {
+
+        private List<StrikeAbstract> strikes;
+
+        private StrikeBuffer strikeBuffer;
+
+        private List<Station> stations;
+
+        private RasterParameters rasterParameters;
+
+        private int[] histogram;
+
+        private boolean incrementalData;
+
+        private boolean tiledData;
+
+        private boolean alertData;
+
+        private long referenceTime;
+
+        private Parameters parameters;
+
+        public Builder strikes(List<StrikeAbstract> strikes) {
+            this.strikes = strikes;
+            return this;
+        }
+
+        public Builder strikeBuffer(StrikeBuffer strikeBuffer) {
+            this.strikeBuffer = strikeBuffer;
+            return this;
+        }
+
+        public Builder stations(List<Station> stations) {
+            this.stations = stations;
+            return this;
+        }
+
+        public Builder rasterParameters(RasterParameters rasterParameters) {
+            this.rasterParameters = rasterParameters;
+            return this;
+        }
+
+        public Builder histogram(int[] histogram) {
+            this.histogram = histogram;
+            return this;
+        }
+
+        public Builder incrementalData(boolean incrementalData) {
+            this.incrementalData = incrementalData;
+            return this;
+        }
+
+        public Builder tiledData(boolean tiledData) {
+            this.tiledData = tiledData;
+            return this;
+        }
+
+        public Builder alertData(boolean alertData) {
+            this.alertData = alertData;
+            return this;
+        }
+
+        public Builder referenceTime(long referenceTime) {
+            this.referenceTime = referenceTime;
+            return this;
+        }
+
+        public Builder parameters(Parameters parameters) {
+            this.parameters = parameters;
+            return this;
+        }
+
+        public ResultEvent build() {
+            return new ResultEvent(this);
+        }
     }
 
-    public int[] getHistogram() {
-        return histogram;
+    private final List<StrikeAbstract> strikes;
+
+    private final StrikeBuffer strikeBuffer;
+
+    private final List<Station> stations;
+
+    private final RasterParameters rasterParameters;
+
+    private final int[] histogram;
+
+    private final boolean fail;
+
+    private final boolean incrementalData;
+
+    private final boolean tiledData;
+
+    private final boolean alertData;
+
+    private final long referenceTime;
+
+    private final Parameters parameters;
+
+    private ResultEvent(Builder builder) {
+        fail = builder.strikes == null;
+        strikes = builder.strikes != null ? Collections.unmodifiableList(new ArrayList<StrikeAbstract>(builder.strikes)) : null;
+        strikeBuffer = builder.strikeBuffer != null || strikes == null ? builder.strikeBuffer : StrikeBuffer.of(strikes);
+        stations = builder.stations != null ? Collections.unmodifiableList(new ArrayList<Station>(builder.stations)) : null;
+        rasterParameters = builder.rasterParameters;
+        histogram = builder.histogram != null ? builder.histogram.clone() : null;
+        incrementalData = builder.incrementalData;
+        tiledData = builder.tiledData;
+        alertData = builder.alertData;
+        referenceTime = builder.referenceTime;
+        parameters = builder.parameters;
     }
 
-    public void setReferenceTime(long referenceTime) {
-        this.referenceTime = referenceTime;
+    public boolean containsStrikes() {
+        return strikes != null;
+    }
+
+    public List<StrikeAbstract> getStrikes() {
+        return strikes;
+    }
+
+    public StrikeBuffer getStrikeBuffer() {
+        return strikeBuffer;
+    }
+
+    public boolean containsParticipants() {
+        return stations != null;
+    }
+
+    public List<Station> getStations() {
+        return stations;
+    }
+
+    public boolean hasFailed() {
+        return fail;
+    }
+
+    public boolean hasRasterParameters() {
+        return rasterParameters != null;
+    }
+
+    public RasterParameters getRasterParameters() {
+        return rasterParameters;
+    }
+
+    public boolean containsIncrementalData() {
+        return incrementalData;
+    }
+
+    public boolean containsTiledData() {
+        return tiledData;
+    }
+
+    public boolean containsAlertData() {
+        return alertData;
+    }
+
+    public int[] getHistogram() {
+        return histogram != null ? histogram.clone() : null;
     }
 
     public long getReferenceTime() {
@@ -102,22 +181,17 @@ public class ResultEvent implements DataEvent {
         return parameters != null && parameters.getIntervalOffset() == 0;
     }
 
-    public void setParameters(Parameters parameters) {
-        this.parameters = parameters;
-    }
-
     public Parameters getParameters() {
         return parameters;
     }
-    
+
     public String toString() {
         StringBuilder sb = new StringBuilder();
         if (fail) {
             sb.append("FailedResult()");
         } else {
             sb.append("Result(");
-            final List<StrikeAbstract> currentStrikes = getStrikes();
-            sb.append(currentStrikes != null ? currentStrikes.size() : 0).append(" strikes, ");
+            sb.append(strikes.size()).append(" strikes, ");
             sb.append(getParameters());
             if (hasRasterParameters()) {
                 sb.append(", ").append(getRasterParameters());
@@ -7,7 +7,11 @@ import org.blitzortung.android.data.builder.DefaultStrikeBuilder;
 import org.blitzortung.android.data.builder.StationBuilder;
 import org.blitzortung.android.data.provider.DataProvider;
 import org.blitzortung.android.data.provider.DataProviderType;
+import org.blitzortung.android.jsonrpc.BatchNotSupportedException;
 import org.blitzortung.android.jsonrpc.JsonRpcClient;
+import org.blitzortung.android.jsonrpc.JsonRpcException;
+import org.blitzortung.android.jsonrpc.JsonRpcRemoteException;
+import org.blitzortung.android.jsonrpc.ServerSelector;
 import org.blitzortung.android.util.TimeFormat;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -15,8 +19,12 @@ import org.json.JSONObject;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class JsonRpcDataProvider extends DataProvider {
 
@@ -27,14 +35,22 @@ public class JsonRpcDataProvider extends DataProvider {
         DATE_TIME_FORMATTER.setTimeZone(tz);
     }
 
-    static private final String[] SERVERS = new String[]{"http://bo1.tryb.de:7080/", "http://bo2.tryb.de/"};
+    static public final String[] DEFAULT_SERVERS = new String[]{"http://bo1.tryb.de:7080/", "http://bo2.tryb.de/"};
 
-    static private int CURRENT_SERVER = 0;
+    static private final ServerSelector SERVER_SELECTOR = new ServerSelector(DEFAULT_SERVERS);
+
+    static private final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+
+    static private final int MAX_ATTEMPTS = 2;
+
+    static private final int TIMEOUT = 40000;
 
     private final DefaultStrikeBuilder defaultStrikeBuilder;
     private final StationBuilder stationBuilder;
 
-    private JsonRpcClient client;
+    private String agentSuffix = "";
+
+    private volatile int lastNumberOfTransferredBytes;
 
     private int nextId = 0;
 
@@ -44,6 +60,14 @@ public class JsonRpcDataProvider extends DataProvider {
 
     private boolean incrementalResult;
 
+    private boolean stationsRequested;
+
+    private boolean batchSupported = true;
+
+    private boolean tilesSupported = true;
+
+    private List<Station> prefetchedStations;
+
     public JsonRpcDataProvider()
     {
         defaultStrikeBuilder = new DefaultStrikeBuilder();
@@ -60,17 +84,16 @@ public class JsonRpcDataProvider extends DataProvider {
         incrementalResult = nextId != 0;
 
         try {
-            JSONObject response = client.call("get_strikes", timeInterval, intervalOffset < 0 ? intervalOffset : nextId);
+            JSONObject response = callWithStations(new JsonRpcClient.Call("get_strikes", timeInterval, intervalOffset < 0 ? intervalOffset : nextId));
 
             readStrikes(response, strikes);
             readHistogramData(response);
         } catch (Exception e) {
-            skipServer();
             throw new RuntimeException(e);
         }
 
         Log.v(Main.LOG_TAG,
-                String.format("JsonRpcDataProvider: read %d bytes (%d new strikes, region %d)", client.getLastNumberOfTransferredBytes(), strikes.size(), region));
+                String.format("JsonRpcDataProvider: read %d bytes (%d new strikes, region %d)", lastNumberOfTransferredBytes, strikes.size(), region));
         return strikes;
     }
     
@@ -86,22 +109,83 @@ public class JsonRpcDataProvider extends DataProvider {
         incrementalResult = false;
 
         try {
-            JSONObject response = client.call("get_strikes_raster", intervalDuration, rasterSize, intervalOffset, region);
+            JSONObject response = callWithStations(new JsonRpcClient.Call("get_strikes_raster", intervalDuration, rasterSize, intervalOffset, region));
 
             readRasterData(response, strikes);
             rasterParameters.setInfo(String.format("%.0f km", rasterSize / 1000f));
             readHistogramData(response);
         } catch (Exception e) {
-            skipServer();
             throw new RuntimeException(e);
         }
 
         Log.v(Main.LOG_TAG,
-                String.format("JsonRpcDataProvider: read %d bytes (%d raster positions, region %d)", client.getLastNumberOfTransferredBytes(), strikes.size(), region));
+                String.format("JsonRpcDataProvider: read %d bytes (%d raster positions, region %d)", lastNumberOfTransferredBytes, strikes.size(), region));
 
         return strikes;
     }
 
+    @Override
+    public boolean isCapableOfTiledData() {
+        return tilesSupported;
+    }
+
+    @Override
+    public List<TileData> getStrikesRasterTiles(int intervalDuration, int intervalOffset, int rasterSize, List<Tile> tiles) {
+        final List<TileData> tileData = new ArrayList<TileData>(tiles.size());
+
+        nextId = 0;
+        incrementalResult = false;
+        rasterParameters = null;
+
+        final JsonRpcClient.Call[] calls = new JsonRpcClient.Call[tiles.size()];
+        for (int index = 0; index < calls.length; index++) {
+            final Tile tile = tiles.get(index);
+            calls[index] = new JsonRpcClient.Call("get_strikes_raster_area", intervalDuration, rasterSize, intervalOffset,
+                    tile.getWest(), tile.getNorth(), tile.getEast(), tile.getSouth());
+        }
+
+        try {
+            final List<JSONObject> responses = callTiles(calls);
+
+            for (int index = 0; index < responses.size(); index++) {
+                final JSONObject response = responses.get(index);
+                final List<StrikeAbstract> strikes = new ArrayList<StrikeAbstract>();
+                readRasterData(response, strikes);
+                rasterParameters.setInfo(String.format("%.0f km", rasterSize / 1000f));
+                tileData.add(new TileData(tiles.get(index), strikes, rasterParameters, readHistogram(response)));
+            }
+        } catch (JsonRpcRemoteException e) {
+            // only a server rejecting the call disables tiles, transport failures are ordinary fetch failures
+            Log.w(Main.LOG_TAG, "JsonRpcDataProvider.getStrikesRasterTiles() failed, fall back to regions: " + e.getMessage());
+            tilesSupported = false;
+            throw e;
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+
+        Log.v(Main.LOG_TAG,
+                String.format("JsonRpcDataProvider: read %d bytes (%d tiles)", lastNumberOfTransferredBytes, tiles.size()));
+
+        return tileData;
+    }
+
+    private List<JSONObject> callTiles(JsonRpcClient.Call... calls) {
+        if (batchSupported && calls.length > 1) {
+            try {
+                return callAll(calls);
+            } catch (BatchNotSupportedException e) {
+                Log.w(Main.LOG_TAG, "JsonRpcDataProvider.callTiles() batch call failed, fall back to single calls: " + e.getMessage());
+                batchSupported = false;
+            }
+        }
+
+        final List<JSONObject> responses = new ArrayList<JSONObject>(calls.length);
+        for (JsonRpcClient.Call call : calls) {
+            responses.add(callAll(call).get(0));
+        }
+        return responses;
+    }
+
     public int[] getHistogram() {
         return histogram;
     }
@@ -112,19 +196,46 @@ public class JsonRpcDataProvider extends DataProvider {
 
     @Override
     public List<Station> getStations(int region) {
-        List<Station> stations = new ArrayList<Station>();
+        if (prefetchedStations != null) {
+            final List<Station> stations = prefetchedStations;
+            prefetchedStations = null;
+            return stations;
+        }
 
         try {
-            JSONObject response = client.call("get_stations");
-            JSONArray stations_array = (JSONArray) response.get("stations");
-
-            for (int i = 0; i < stations_array.length(); i++) {
-                stations.add(stationBuilder.fromJson(stations_array.getJSONArray(i)));
-            }
+            return readStations(call("get_stations"));
         } catch (Exception e) {
-            skipServer();
             throw new RuntimeException(e);
         }
+    }
+
+    @Override
+    public void setStationsRequested(boolean stationsRequested) {
+        this.stationsRequested = stationsRequested;
+        prefetchedStations = null;
+    }
+
+    private JSONObject callWithStations(JsonRpcClient.Call strikesCall) throws JSONException {
+        if (stationsRequested && batchSupported) {
+            try {
+                final List<JSONObject> responses = callAll(strikesCall, new JsonRpcClient.Call("get_stations"));
+                prefetchedStations = readStations(responses.get(1));
+                return responses.get(0);
+            } catch (BatchNotSupportedException e) {
+                Log.w(Main.LOG_TAG, "JsonRpcDataProvider.callWithStations() batch call failed, fall back to single calls: " + e.getMessage());
+                batchSupported = false;
+            }
+        }
+        return callAll(strikesCall).get(0);
+    }
+
+    private List<Station> readStations(JSONObject response) throws JSONException {
+        JSONArray stations_array = (JSONArray) response.get("stations");
+
+        List<Station> stations = new ArrayList<Station>(stations_array.length());
+        for (int i = 0; i < stations_array.length(); i++) {
+            stations.add(stationBuilder.fromJson(stations_array.getJSONArray(i)));
+        }
         return stations;
     }
 
@@ -135,16 +246,17 @@ public class JsonRpcDataProvider extends DataProvider {
 
     @Override
     public void setUp() {
-        String agentSuffix = pInfo != null ? "-" + Integer.toString(pInfo.versionCode) : "";
-        client = new JsonRpcClient(getServer(), agentSuffix);
-        client.setConnectionTimeout(40000);
-        client.setSocketTimeout(40000);
+        agentSuffix = pInfo != null ? "-" + Integer.toString(pInfo.versionCode) : "";
+        probeServers();
     }
 
     @Override
     public void shutDown() {
-        client.shutdown();
-        client = null;
+    }
+
+    @Override
+    public void setServers(List<String> servers) {
+        SERVER_SELECTOR.setServers(servers.isEmpty() ? Arrays.asList(DEFAULT_SERVERS) : servers);
     }
 
     @Override
@@ -157,6 +269,27 @@ public class JsonRpcDataProvider extends DataProvider {
         return true;
     }
 
+    protected int getNextId() {
+        return nextId;
+    }
+
+    protected void setNextId(int nextId) {
+        this.nextId = nextId;
+    }
+
+    protected String getPreferredServer() {
+        return SERVER_SELECTOR.getServersByPreference().get(0);
+    }
+
+    // VisibleForTesting
+    static ServerSelector getServerSelector() {
+        return SERVER_SELECTOR;
+    }
+
+    protected String getAgentSuffix() {
+        return agentSuffix;
+    }
+
     private void readStrikes(JSONObject response, List<StrikeAbstract> strikes) throws JSONException {
         long referenceTimestamp = getReferenceTimestamp(response);
         JSONArray strikes_array = (JSONArray) response.get("s");
@@ -183,25 +316,158 @@ public class JsonRpcDataProvider extends DataProvider {
 
     private void readHistogramData(JSONObject response) throws JSONException {
         if (response.has("h")) {
-            JSONArray histogram_array = (JSONArray) response.get("h");
+            histogram = readHistogram(response);
+        }
+    }
 
-            if (histogram == null || histogram.length != histogram_array.length()) {
-                histogram = new int[histogram_array.length()];
-            }
+    private int[] readHistogram(JSONObject response) throws JSONException {
+        if (!response.has("h")) {
+            return null;
+        }
+
+        JSONArray histogram_array = (JSONArray) response.get("h");
+
+        int[] histogram = new int[histogram_array.length()];
+
+        for (int i = 0; i < histogram_array.length(); i++) {
+            histogram[i] = histogram_array.getInt(i);
+        }
+        return histogram;
+    }
+
+    private JSONObject call(String methodName, Object... parameters) {
+        return callAll(new JsonRpcClient.Call(methodName, parameters)).get(0);
+    }
+
+    private List<JSONObject> callAll(JsonRpcClient.Call... rpcCalls) {
+        final String methodName = rpcCalls.length == 1 ? rpcCalls[0].getMethodName() : Arrays.toString(rpcCalls);
+        final List<String> servers = SERVER_SELECTOR.getServersByPreference();
+        final int maxAttempts = Math.min(MAX_ATTEMPTS, servers.size());
+
+        final CompletionService<List<JSONObject>> completionService = new ExecutorCompletionService<List<JSONObject>>(EXECUTOR);
+        final List<ServerCall> calls = new ArrayList<ServerCall>();
 
-            for (int i = 0; i < histogram_array.length(); i++) {
-                histogram[i] = histogram_array.getInt(i);
+        RuntimeException lastException = new JsonRpcException("no server available");
+
+        try {
+            submit(completionService, calls, new ServerCall(servers.get(0), rpcCalls));
+            final long hedgeDelay = SERVER_SELECTOR.getHedgeDelay(servers.get(0));
+
+            int pendingCalls = 1;
+            while (pendingCalls > 0) {
+                final Future<List<JSONObject>> future = calls.size() < maxAttempts
+                        ? completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS)
+                        : completionService.take();
+
+                if (future == null) {
+                    Log.v(Main.LOG_TAG, String.format("JsonRpcDataProvider.call() hedge %s after %d ms", methodName, hedgeDelay));
+                    submit(completionService, calls, new ServerCall(servers.get(calls.size()), rpcCalls));
+                    pendingCalls++;
+                    continue;
+                }
+
+                pendingCalls--;
+                try {
+                    return future.get();
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (isRejection(cause)) {
+                        // the server rejected the call itself, other servers would answer the same way
+                        throw (RuntimeException) cause;
+                    }
+                    lastException = cause instanceof RuntimeException ? (RuntimeException) cause : new JsonRpcException("call failed", e);
+
+                    if (pendingCalls == 0 && calls.size() < maxAttempts) {
+                        submit(completionService, calls, new ServerCall(servers.get(calls.size()), rpcCalls));
+                        pendingCalls++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastException = new JsonRpcException("call interrupted", e);
+        } finally {
+            for (ServerCall call : calls) {
+                call.cancel();
             }
         }
+
+        throw lastException;
     }
 
-    private static String getServer()
-    {
-        return SERVERS[CURRENT_SERVER];
+    private static boolean isRejection(Throwable throwable) {
+        return throwable instanceof JsonRpcRemoteException || throwable instanceof BatchNotSupportedException;
     }
 
-    private void skipServer()
-    {
-        CURRENT_SERVER = (CURRENT_SERVER + 1) % SERVERS.length;
+    private void submit(CompletionService<List<JSONObject>> completionService, List<ServerCall> calls, ServerCall call) {
+        calls.add(call);
+        completionService.submit(call);
+    }
+
+    private void probeServers() {
+        for (String server : SERVER_SELECTOR.getServersToProbe()) {
+            Log.v(Main.LOG_TAG, "JsonRpcDataProvider.probeServers() " + server);
+            EXECUTOR.submit(new ServerCall(server, new JsonRpcClient.Call("get_strikes", 1, 0)));
+        }
+    }
+
+    private class ServerCall implements Callable<List<JSONObject>> {
+
+        private final String server;
+
+        private final JsonRpcClient.Call[] rpcCalls;
+
+        private final JsonRpcClient client;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private long startTime;
+
+        public ServerCall(String server, JsonRpcClient.Call... rpcCalls) {
+            this.server = server;
+            this.rpcCalls = rpcCalls;
+
+            client = new JsonRpcClient(server, agentSuffix);
+            client.setConnectionTimeout(TIMEOUT);
+            client.setSocketTimeout(TIMEOUT);
+        }
+
+        @Override
+        public List<JSONObject> call() {
+            startTime = System.currentTimeMillis();
+            try {
+                final List<JSONObject> responses;
+                if (rpcCalls.length == 1) {
+                    responses = Collections.singletonList(client.call(rpcCalls[0].getMethodName(), rpcCalls[0].getParameters()));
+                } else {
+                    responses = client.callBatch(Arrays.asList(rpcCalls));
+                }
+                if (finished.compareAndSet(false, true)) {
+                    SERVER_SELECTOR.recordSuccess(server, System.currentTimeMillis() - startTime);
+                }
+                lastNumberOfTransferredBytes = client.getLastNumberOfTransferredBytes();
+                return responses;
+            } catch (RuntimeException e) {
+                if (finished.compareAndSet(false, true)) {
+                    if (isRejection(e)) {
+                        // a rejected call says nothing about the health of the server
+                        Log.v(Main.LOG_TAG, String.format("JsonRpcDataProvider.ServerCall.call() %s rejected by %s", Arrays.toString(rpcCalls), server));
+                    } else {
+                        Log.v(Main.LOG_TAG, String.format("JsonRpcDataProvider.ServerCall.call() %s failed on %s", Arrays.toString(rpcCalls), server));
+                        SERVER_SELECTOR.recordFailure(server);
+                    }
+                }
+                throw e;
+            } finally {
+                client.shutdown();
+            }
+        }
+
+        public void cancel() {
+            // the elapsed time of a cancelled call is no latency sample, it would lower the hedge delay
+            if (finished.compareAndSet(false, true)) {
+                client.shutdown();
+            }
+        }
     }
 }
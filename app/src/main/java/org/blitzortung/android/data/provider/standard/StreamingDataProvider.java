@@ -0,0 +1,115 @@
+package org.blitzortung.android.data.provider.standard;
+
+import android.util.Log;
+import org.blitzortung.android.app.Main;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.provider.DataProviderType;
+
+import java.util.List;
+
+public class StreamingDataProvider extends JsonRpcDataProvider {
+
+    private volatile DataListener dataListener;
+
+    private volatile StrikeStream strikeStream;
+
+    private boolean streamedResult;
+
+    private final StrikeStream.Listener streamListener = new StrikeStream.Listener() {
+        @Override
+        public void onStrikesReceived() {
+            final DataListener dataListener = StreamingDataProvider.this.dataListener;
+            if (dataListener != null) {
+                dataListener.onDataAvailable();
+            }
+        }
+    };
+
+    @Override
+    public synchronized List<StrikeAbstract> getStrikes(int intervalDuration, int intervalOffset, int region) {
+        streamedResult = false;
+
+        if (dataListener == null || intervalOffset != 0) {
+            stopStream();
+            return super.getStrikes(intervalDuration, intervalOffset, region);
+        }
+
+        if (strikeStream != null && strikeStream.getIntervalDuration() == intervalDuration) {
+            final List<StrikeAbstract> strikes = strikeStream.drainStrikes();
+            if (strikeStream.isConnected()) {
+                streamedResult = true;
+                return strikes;
+            }
+
+            Log.v(Main.LOG_TAG, "StreamingDataProvider.getStrikes() stream disconnected, poll from " + strikeStream.getNextId());
+            setNextId(strikeStream.getNextId());
+            stopStream();
+            strikes.addAll(super.getStrikes(intervalDuration, intervalOffset, region));
+            startStream(intervalDuration);
+            return strikes;
+        }
+
+        stopStream();
+        final List<StrikeAbstract> strikes = super.getStrikes(intervalDuration, intervalOffset, region);
+        startStream(intervalDuration);
+        return strikes;
+    }
+
+    @Override
+    public synchronized List<StrikeAbstract> getStrikesRaster(int intervalDuration, int intervalOffset, int rasterSize, int region) {
+        streamedResult = false;
+        stopStream();
+        return super.getStrikesRaster(intervalDuration, intervalOffset, rasterSize, region);
+    }
+
+    @Override
+    public boolean returnsIncrementalData() {
+        return streamedResult || super.returnsIncrementalData();
+    }
+
+    @Override
+    public int[] getHistogram() {
+        final StrikeStream strikeStream = this.strikeStream;
+        if (streamedResult && strikeStream != null && strikeStream.getHistogram() != null) {
+            return strikeStream.getHistogram();
+        }
+        return super.getHistogram();
+    }
+
+    @Override
+    public DataProviderType getType() {
+        return DataProviderType.STREAM;
+    }
+
+    @Override
+    public synchronized void reset() {
+        super.reset();
+        stopStream();
+    }
+
+    @Override
+    public synchronized void setDataListener(DataListener dataListener) {
+        this.dataListener = dataListener;
+        if (dataListener == null) {
+            stopStream();
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        final StrikeStream strikeStream = this.strikeStream;
+        return strikeStream != null && strikeStream.isConnected();
+    }
+
+    private void startStream(int intervalDuration) {
+        strikeStream = new StrikeStream(getPreferredServer(), getAgentSuffix(), intervalDuration, getNextId(), streamListener);
+        strikeStream.start();
+    }
+
+    private void stopStream() {
+        if (strikeStream != null) {
+            strikeStream.stop();
+            strikeStream = null;
+        }
+    }
+}
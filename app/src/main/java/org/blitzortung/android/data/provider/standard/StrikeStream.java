@@ -0,0 +1,251 @@
+package org.blitzortung.android.data.provider.standard;
+
+import android.util.Log;
+import org.blitzortung.android.app.Main;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.builder.DefaultStrikeBuilder;
+import org.blitzortung.android.metrics.Metrics;
+import org.blitzortung.android.util.TimeFormat;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class StrikeStream implements Runnable {
+
+    public interface Listener {
+        void onStrikesReceived();
+    }
+
+    public static final int MIN_RECONNECT_DELAY = 1000;
+
+    public static final int MAX_RECONNECT_DELAY = 60000;
+
+    private static final int CONNECT_TIMEOUT = 20000;
+
+    private static final int READ_TIMEOUT = 90000;
+
+    private static final String METRICS_LABEL = "STREAM";
+
+    private final String server;
+
+    private final String agentSuffix;
+
+    private final int intervalDuration;
+
+    private final Listener listener;
+
+    private final DefaultStrikeBuilder strikeBuilder = new DefaultStrikeBuilder();
+
+    private final Object pendingLock = new Object();
+
+    private List<StrikeAbstract> pendingStrikes = new ArrayList<StrikeAbstract>();
+
+    private int[] histogram;
+
+    private volatile int nextId;
+
+    private volatile boolean running;
+
+    private volatile boolean connected;
+
+    private volatile HttpURLConnection connection;
+
+    private volatile int reconnectDelay = MIN_RECONNECT_DELAY;
+
+    private Thread thread;
+
+    public StrikeStream(String server, String agentSuffix, int intervalDuration, int nextId, Listener listener) {
+        this.server = server;
+        this.agentSuffix = agentSuffix;
+        this.intervalDuration = intervalDuration;
+        this.nextId = nextId;
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (thread == null) {
+            running = true;
+            thread = new Thread(this, "StrikeStream");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public void stop() {
+        final Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = this.thread;
+            this.thread = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            disconnect();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public int getIntervalDuration() {
+        return intervalDuration;
+    }
+
+    public int getNextId() {
+        return nextId;
+    }
+
+    public int[] getHistogram() {
+        synchronized (pendingLock) {
+            return histogram;
+        }
+    }
+
+    public List<StrikeAbstract> drainStrikes() {
+        synchronized (pendingLock) {
+            final List<StrikeAbstract> strikes = pendingStrikes;
+            pendingStrikes = new ArrayList<StrikeAbstract>();
+            return strikes;
+        }
+    }
+
+    static String buildUrl(String server, int intervalDuration, int nextId) {
+        return String.format(Locale.US, "%s%sstream?interval=%d&next=%d",
+                server, server.endsWith("/") ? "" : "/", intervalDuration, nextId);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                readStream();
+            } catch (IOException e) {
+                if (running) {
+                    Log.v(Main.LOG_TAG, "StrikeStream.run() connection failed: " + e);
+                    Metrics.getInstance().increment("stream_failures", METRICS_LABEL);
+                }
+            } finally {
+                connected = false;
+                disconnect();
+            }
+
+            if (!running) {
+                break;
+            }
+
+            try {
+                Thread.sleep(reconnectDelay);
+            } catch (InterruptedException e) {
+                break;
+            }
+            reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY);
+        }
+        Log.v(Main.LOG_TAG, "StrikeStream.run() finished");
+    }
+
+    private void readStream() throws IOException {
+        final int resumeId = nextId;
+        final HttpURLConnection connection = (HttpURLConnection) new URL(buildUrl(server, intervalDuration, resumeId)).openConnection();
+        this.connection = connection;
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        connection.setRequestProperty("Accept", "text/event-stream");
+        connection.setRequestProperty("User-Agent", "bo-android" + agentSuffix);
+        if (resumeId != 0) {
+            connection.setRequestProperty("Last-Event-ID", Integer.toString(resumeId));
+        }
+
+        final int responseCode = connection.getResponseCode();
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            throw new IOException("unexpected response code " + responseCode);
+        }
+
+        connected = true;
+        reconnectDelay = MIN_RECONNECT_DELAY;
+        Metrics.getInstance().increment("stream_connects", METRICS_LABEL);
+        Log.v(Main.LOG_TAG, "StrikeStream.readStream() connected, resume from " + resumeId);
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+        final StringBuilder data = new StringBuilder();
+        String line;
+        while (running && (line = reader.readLine()) != null) {
+            if (line.length() == 0) {
+                if (data.length() > 0) {
+                    dispatch(data.toString());
+                    data.setLength(0);
+                }
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+            }
+        }
+    }
+
+    void dispatch(String data) {
+        final long startTime = System.nanoTime();
+        final List<StrikeAbstract> strikes;
+        int[] histogram = null;
+        int nextId;
+        try {
+            final JSONObject event = new JSONObject(data);
+            final long referenceTimestamp = TimeFormat.parseTime(event.getString("t"));
+            final JSONArray strikesArray = event.getJSONArray("s");
+            strikes = new ArrayList<StrikeAbstract>(strikesArray.length());
+            for (int i = 0; i < strikesArray.length(); i++) {
+                strikes.add(strikeBuilder.fromJson(referenceTimestamp, strikesArray.getJSONArray(i)));
+            }
+            if (event.has("h")) {
+                final JSONArray histogramArray = event.getJSONArray("h");
+                histogram = new int[histogramArray.length()];
+                for (int i = 0; i < histogramArray.length(); i++) {
+                    histogram[i] = histogramArray.getInt(i);
+                }
+            }
+            nextId = event.has("next") ? event.getInt("next") : this.nextId;
+        } catch (JSONException | RuntimeException e) {
+            Metrics.getInstance().increment("stream_decode_failures", METRICS_LABEL);
+            Log.w(Main.LOG_TAG, "StrikeStream.dispatch() invalid event: " + e);
+            return;
+        }
+
+        synchronized (pendingLock) {
+            pendingStrikes.addAll(strikes);
+            if (histogram != null) {
+                this.histogram = histogram;
+            }
+            this.nextId = nextId;
+        }
+
+        final Metrics metrics = Metrics.getInstance();
+        metrics.recordLatency(Metrics.Stage.DECODE, METRICS_LABEL, System.nanoTime() - startTime);
+        metrics.add("stream_strikes", METRICS_LABEL, strikes.size());
+
+        if (!strikes.isEmpty() || histogram != null) {
+            listener.onStrikesReceived();
+        }
+    }
+
+    private void disconnect() {
+        final HttpURLConnection connection = this.connection;
+        if (connection != null) {
+            this.connection = null;
+            connection.disconnect();
+        }
+    }
+}
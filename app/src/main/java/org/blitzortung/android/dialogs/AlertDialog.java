@@ -10,6 +10,7 @@ import org.blitzortung.android.app.Main;
 import org.blitzortung.android.app.R;
 import org.blitzortung.android.app.view.AlertView;
 import org.blitzortung.android.map.overlay.color.ColorHandler;
+import org.blitzortung.android.util.MainThreadExecutor;
 
 public class AlertDialog extends android.app.AlertDialog {
 
@@ -46,7 +47,7 @@ public class AlertDialog extends android.app.AlertDialog {
         if (service != null) {
             alertView.setColorHandler(colorHandler, service.getDataHandler().getIntervalDuration());
             alertView.getAlertEventConsumer().consume(service.getAlertEvent());
-            service.addAlertConsumer(alertView.getAlertEventConsumer());
+            service.addAlertConsumer(alertView.getAlertEventConsumer(), new MainThreadExecutor(), 1);
         }
         colorHandler.updateTarget();
     }
@@ -0,0 +1,59 @@
+package org.blitzortung.android.dialogs;
+
+import android.annotation.SuppressLint;
+import android.app.AlertDialog;
+import android.content.Context;
+import android.content.DialogInterface;
+import android.view.KeyEvent;
+import android.view.View;
+import android.widget.TextView;
+import org.blitzortung.android.app.AppService;
+import org.blitzortung.android.app.R;
+import org.blitzortung.android.metrics.Metrics;
+
+public class MetricsDialog extends AlertDialog {
+
+    private final TextView metricsText;
+
+    private final AppService appService;
+
+    public MetricsDialog(Context context, AppService appService) {
+        super(context);
+        this.appService = appService;
+
+        setTitle(context.getResources().getText(R.string.metrics));
+        @SuppressLint("InflateParams") View metricsDialogView = getLayoutInflater().inflate(R.layout.metrics_dialog, null, false);
+        metricsText = (TextView) metricsDialogView.findViewById(R.id.metrics_text);
+        setView(metricsDialogView);
+
+        setButton(BUTTON_NEUTRAL, context.getResources().getText(R.string.reset), new OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                Metrics.getInstance().reset();
+                if (MetricsDialog.this.appService != null) {
+                    MetricsDialog.this.appService.getWakeAccounting().clear();
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        final StringBuilder text = new StringBuilder();
+        if (appService != null) {
+            text.append(appService.getWakeAccounting().getSummary(System.currentTimeMillis())).append("\n\n");
+        }
+        text.append(Metrics.getInstance().dump());
+        metricsText.setText(text);
+    }
+
+    @Override
+    public boolean onKeyUp(int keyCode, KeyEvent event) {
+        if (keyCode == KeyEvent.KEYCODE_MENU) {
+            dismiss();
+            return true;
+        }
+        return super.onKeyUp(keyCode, event);
+    }
+}
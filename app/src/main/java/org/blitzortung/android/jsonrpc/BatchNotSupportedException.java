@@ -0,0 +1,11 @@
+package org.blitzortung.android.jsonrpc;
+
+
+public class BatchNotSupportedException extends JsonRpcException {
+
+	private static final long serialVersionUID = 4120785312398720913L;
+
+	public BatchNotSupportedException(String msg) {
+		super(msg);
+	}
+}
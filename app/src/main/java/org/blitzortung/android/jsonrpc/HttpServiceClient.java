@@ -11,6 +11,7 @@ import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.params.*;
 import org.apache.http.util.EntityUtils;
 import org.blitzortung.android.app.Main;
+import org.blitzortung.android.metrics.Metrics;
 
 import java.io.IOException;
 
@@ -37,6 +38,10 @@ public class HttpServiceClient {
         httpClient.getConnectionManager().shutdown();
     }
 	
+	public String getServiceUri() {
+		return serviceUri;
+	}
+
 	public int getSocketTimeout() {
 		return socketTimeout;
 	}
@@ -65,14 +70,25 @@ public class HttpServiceClient {
         
         String responseString = "";
         
+        final Metrics metrics = Metrics.getInstance();
+        metrics.increment("http_requests", serviceUri);
+
 		try {
-	        long startTime = System.currentTimeMillis();
+	        long startTime = System.nanoTime();
 	        HttpResponse response = httpClient.execute(request);
+	        long firstByteTime = System.nanoTime();
 	        responseString = EntityUtils.toString(response.getEntity());
-	        Log.d(Main.LOG_TAG, String.format("HttpServiceClient: request time %d ms (%d bytes received)", System.currentTimeMillis() - startTime, responseString.length()));
+	        long endTime = System.nanoTime();
+
+	        metrics.recordLatency(Metrics.Stage.FIRST_BYTE, serviceUri, firstByteTime - startTime);
+	        metrics.recordLatency(Metrics.Stage.DOWNLOAD, serviceUri, endTime - firstByteTime);
+	        metrics.add("http_received_chars", serviceUri, responseString.length());
+	        Log.d(Main.LOG_TAG, String.format("HttpServiceClient: request time %d ms (%d bytes received)", (endTime - startTime) / 1000000, responseString.length()));
 		} catch (ClientProtocolException e) {
+			metrics.increment("http_failures", serviceUri);
 			e.printStackTrace();
 		} catch (IOException e) {
+			metrics.increment("http_failures", serviceUri);
 			e.printStackTrace();
 		}
 
@@ -4,6 +4,7 @@ import org.apache.http.Header;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.protocol.HTTP;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.UnsupportedEncodingException;
@@ -14,6 +15,10 @@ public class JsonRequestEntity extends StringEntity {
 		super(jsonObject.toString());
 	}
 
+	public JsonRequestEntity(JSONArray jsonArray) throws UnsupportedEncodingException {
+		super(jsonArray.toString());
+	}
+
 	@Override
 	public Header getContentType() {
 		return new BasicHeader(HTTP.CONTENT_TYPE, "text/json");
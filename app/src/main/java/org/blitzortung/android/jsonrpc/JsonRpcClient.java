@@ -1,14 +1,43 @@
 package org.blitzortung.android.jsonrpc;
 
+import org.blitzortung.android.metrics.Metrics;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class JsonRpcClient extends HttpServiceClient {
 
-	private final int id=0;
+    public static class Call {
+
+        private final String methodName;
+
+        private final Object[] parameters;
+
+        public Call(String methodName, Object... parameters) {
+            this.methodName = methodName;
+            this.parameters = parameters;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public Object[] getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public String toString() {
+            return methodName + Arrays.toString(parameters);
+        }
+    }
+
+	private int nextRequestId = 0;
     
     private int lastNumberOfTransferredBytes;
 
@@ -23,14 +52,7 @@ public class JsonRpcClient extends HttpServiceClient {
 
     // VisibleForTesting
 	protected JsonRequestEntity buildRequest(String methodName, Object[] parameters) {
-		JSONObject requestObject = new JSONObject();
-		try {
-			requestObject.put("id", id);
-			requestObject.put("method", methodName);
-			requestObject.put("params", buildParameters(parameters));
-		} catch (JSONException e) {
-			throw new JsonRpcException("invalid JSON request", e);
-		}
+		JSONObject requestObject = buildRequestObject(nextRequestId++, methodName, parameters);
 
 		JsonRequestEntity jsonRequestEntity;
 		try {
@@ -41,6 +63,33 @@ public class JsonRpcClient extends HttpServiceClient {
 		return jsonRequestEntity;
 	}
 
+    // VisibleForTesting
+    protected JsonRequestEntity buildBatchRequest(List<Call> calls, int firstId) {
+        JSONArray requestArray = new JSONArray();
+        for (int i = 0; i < calls.size(); i++) {
+            final Call call = calls.get(i);
+            requestArray.put(buildRequestObject(firstId + i, call.getMethodName(), call.getParameters()));
+        }
+
+        try {
+            return new JsonRequestEntity(requestArray);
+        } catch (UnsupportedEncodingException e) {
+            throw new JsonRpcException("unable to create entity", e);
+        }
+    }
+
+    private JSONObject buildRequestObject(int id, String methodName, Object[] parameters) {
+        JSONObject requestObject = new JSONObject();
+        try {
+            requestObject.put("id", id);
+            requestObject.put("method", methodName);
+            requestObject.put("params", buildParameters(parameters));
+        } catch (JSONException e) {
+            throw new JsonRpcException("invalid JSON request", e);
+        }
+        return requestObject;
+    }
+
 	public JsonRpcClient(String uri, String agentSuffix) {
 		super(uri, agentSuffix);
 	}
@@ -49,27 +98,88 @@ public class JsonRpcClient extends HttpServiceClient {
 		String response = doRequest(buildRequest(methodName, parameters));
 
         lastNumberOfTransferredBytes = response.length();
-        
+
+        final long decodeStartTime = System.nanoTime();
 		try {
 			if (response.startsWith("[")) {
 
 				JSONArray responseArray = new JSONArray(response);
+				Metrics.getInstance().recordLatency(Metrics.Stage.DECODE, getServiceUri(), System.nanoTime() - decodeStartTime);
 				return responseArray.getJSONObject(0);
 			} else {
 
 				JSONObject responseObject = new JSONObject(response);
+				Metrics.getInstance().recordLatency(Metrics.Stage.DECODE, getServiceUri(), System.nanoTime() - decodeStartTime);
 
 				if (responseObject.has("fault")) {
-					throw new JsonRpcException(String.format("remote Exception '%s' #%s ", responseObject.get("faultString"),
+					throw new JsonRpcRemoteException(String.format("remote Exception '%s' #%s ", responseObject.get("faultString"),
 							responseObject.get("faultCode")));
 				}
 				return responseObject;
 			}
 		} catch (JSONException e) {
+			Metrics.getInstance().increment("rpc_decode_failures", getServiceUri());
 			throw new JsonRpcException("response not in JSON format", e);
 		}
 	}
 
+    public List<JSONObject> callBatch(List<Call> calls) {
+        final int firstId = nextRequestId;
+        nextRequestId += calls.size();
+
+        String response = doRequest(buildBatchRequest(calls, firstId));
+
+        lastNumberOfTransferredBytes = response.length();
+
+        final long decodeStartTime = System.nanoTime();
+        try {
+            final List<JSONObject> results = parseBatchResponse(response, calls, firstId);
+            Metrics.getInstance().recordLatency(Metrics.Stage.DECODE, getServiceUri(), System.nanoTime() - decodeStartTime);
+            return results;
+        } catch (JSONException e) {
+            Metrics.getInstance().increment("rpc_decode_failures", getServiceUri());
+            throw new JsonRpcException("batch response not in JSON format", e);
+        }
+    }
+
+    // VisibleForTesting
+    protected List<JSONObject> parseBatchResponse(String response, List<Call> calls, int firstId) throws JSONException {
+        // only a well-formed single reply tells that the server does not understand batches,
+        // empty or garbled responses are ordinary failures
+        if (response.startsWith("{")) {
+            new JSONObject(response);
+            throw new BatchNotSupportedException("batch call not supported by server");
+        }
+
+        final JSONArray responseArray = new JSONArray(response);
+        final JSONObject[] results = new JSONObject[calls.size()];
+
+        for (int i = 0; i < responseArray.length(); i++) {
+            final JSONObject element = responseArray.getJSONObject(i);
+            final int index = element.has("id") && !element.isNull("id") ? element.getInt("id") - firstId : i;
+            if (index < 0 || index >= results.length) {
+                throw new JsonRpcException(String.format("unexpected response id %s", element.opt("id")));
+            }
+
+            if (element.has("error") && !element.isNull("error")) {
+                throw new JsonRpcRemoteException(String.format("remote error '%s' for %s", element.get("error"), calls.get(index)));
+            }
+            if (element.has("fault")) {
+                throw new JsonRpcRemoteException(String.format("remote Exception '%s' #%s for %s", element.opt("faultString"),
+                        element.opt("faultCode"), calls.get(index)));
+            }
+            results[index] = element.has("result") ? element.getJSONObject("result") : element;
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                throw new JsonRpcException(String.format("missing response for %s", calls.get(i)));
+            }
+        }
+
+        return new ArrayList<JSONObject>(Arrays.asList(results));
+    }
+
     public int getLastNumberOfTransferredBytes() {
         return lastNumberOfTransferredBytes;
     }
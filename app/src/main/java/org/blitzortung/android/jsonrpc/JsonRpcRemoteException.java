@@ -0,0 +1,11 @@
+package org.blitzortung.android.jsonrpc;
+
+
+public class JsonRpcRemoteException extends JsonRpcException {
+
+	private static final long serialVersionUID = -2863140972360875134L;
+
+	public JsonRpcRemoteException(String msg) {
+		super(msg);
+	}
+}
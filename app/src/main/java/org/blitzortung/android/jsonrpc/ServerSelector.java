@@ -0,0 +1,240 @@
+package org.blitzortung.android.jsonrpc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+public class ServerSelector {
+
+    public static final long DEFAULT_HEDGE_DELAY = 3000;
+
+    public static final long MIN_HEDGE_DELAY = 500;
+
+    public static final long BASE_RETRY_DELAY = 30 * 1000;
+
+    public static final long MAX_RETRY_DELAY = 10 * 60 * 1000;
+
+    private static final float SMOOTHING_FACTOR = 0.3f;
+
+    private static final float ERROR_RATE_PENALTY = 10000f;
+
+    private static final int LATENCY_SAMPLES = 20;
+
+    private static final int MIN_PERCENTILE_SAMPLES = 5;
+
+    private static final float HEDGE_PERCENTILE = 0.9f;
+
+    public static class ServerStatistics {
+
+        private final String server;
+
+        private int position;
+
+        private float latency;
+
+        private float errorRate;
+
+        private long lastFailureTime;
+
+        private int consecutiveFailures;
+
+        private boolean probing;
+
+        private final long[] latencySamples = new long[LATENCY_SAMPLES];
+
+        private int numberOfLatencySamples;
+
+        private ServerStatistics(String server, int position) {
+            this.server = server;
+            this.position = position;
+        }
+
+        public String getServer() {
+            return server;
+        }
+
+        public float getLatency() {
+            return latency;
+        }
+
+        public float getErrorRate() {
+            return errorRate;
+        }
+
+        public long getLastFailureTime() {
+            return lastFailureTime;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        private void addLatency(long latency) {
+            this.latency = numberOfLatencySamples == 0 ? latency : this.latency + SMOOTHING_FACTOR * (latency - this.latency);
+            latencySamples[numberOfLatencySamples % LATENCY_SAMPLES] = latency;
+            numberOfLatencySamples++;
+        }
+
+        private long getLatencyPercentile(float percentile) {
+            final int count = Math.min(numberOfLatencySamples, LATENCY_SAMPLES);
+            final long[] samples = Arrays.copyOf(latencySamples, count);
+            Arrays.sort(samples);
+            return samples[Math.min(count - 1, (int) (percentile * count))];
+        }
+
+        private boolean isHealthy(long now) {
+            return consecutiveFailures == 0 || now >= lastFailureTime + getRetryDelay();
+        }
+
+        private long getRetryDelay() {
+            return Math.min(BASE_RETRY_DELAY << Math.min(consecutiveFailures - 1, 10), MAX_RETRY_DELAY);
+        }
+
+        private float getScore() {
+            return latency + ERROR_RATE_PENALTY * errorRate;
+        }
+    }
+
+    private final List<ServerStatistics> statistics;
+
+    private final Comparator<ServerStatistics> scoreComparator = new Comparator<ServerStatistics>() {
+        @Override
+        public int compare(ServerStatistics first, ServerStatistics second) {
+            final int result = Float.compare(first.getScore(), second.getScore());
+            return result != 0 ? result : first.position - second.position;
+        }
+    };
+
+    private final Comparator<ServerStatistics> failureComparator = new Comparator<ServerStatistics>() {
+        @Override
+        public int compare(ServerStatistics first, ServerStatistics second) {
+            final long result = (first.lastFailureTime + first.getRetryDelay()) - (second.lastFailureTime + second.getRetryDelay());
+            return result < 0 ? -1 : result > 0 ? 1 : first.position - second.position;
+        }
+    };
+
+    public ServerSelector(String... servers) {
+        statistics = new ArrayList<ServerStatistics>();
+        setServers(Arrays.asList(servers));
+    }
+
+    public synchronized void setServers(List<String> servers) {
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("at least one server is required");
+        }
+
+        final List<ServerStatistics> previousStatistics = new ArrayList<ServerStatistics>(statistics);
+        statistics.clear();
+
+        for (String server : servers) {
+            ServerStatistics serverStatistics = new ServerStatistics(server, statistics.size());
+            for (ServerStatistics previous : previousStatistics) {
+                if (previous.server.equals(server)) {
+                    serverStatistics = previous;
+                    serverStatistics.position = statistics.size();
+                    break;
+                }
+            }
+            statistics.add(serverStatistics);
+        }
+    }
+
+    public synchronized List<String> getServers() {
+        final List<String> servers = new ArrayList<String>();
+        for (ServerStatistics serverStatistics : statistics) {
+            servers.add(serverStatistics.server);
+        }
+        return servers;
+    }
+
+    public List<String> getServersByPreference() {
+        return getServersByPreference(System.currentTimeMillis());
+    }
+
+    public synchronized List<String> getServersByPreference(long now) {
+        final List<ServerStatistics> healthy = new ArrayList<ServerStatistics>();
+        final List<ServerStatistics> unhealthy = new ArrayList<ServerStatistics>();
+
+        for (ServerStatistics serverStatistics : statistics) {
+            if (serverStatistics.isHealthy(now) && !serverStatistics.probing) {
+                healthy.add(serverStatistics);
+            } else {
+                unhealthy.add(serverStatistics);
+            }
+        }
+
+        Collections.sort(healthy, scoreComparator);
+        Collections.sort(unhealthy, failureComparator);
+
+        final List<String> servers = new ArrayList<String>();
+        for (ServerStatistics serverStatistics : healthy) {
+            servers.add(serverStatistics.server);
+        }
+        for (ServerStatistics serverStatistics : unhealthy) {
+            servers.add(serverStatistics.server);
+        }
+        return servers;
+    }
+
+    public List<String> getServersToProbe() {
+        return getServersToProbe(System.currentTimeMillis());
+    }
+
+    public synchronized List<String> getServersToProbe(long now) {
+        final List<String> servers = new ArrayList<String>();
+        for (ServerStatistics serverStatistics : statistics) {
+            if (serverStatistics.consecutiveFailures > 0 && !serverStatistics.probing && serverStatistics.isHealthy(now)) {
+                serverStatistics.probing = true;
+                servers.add(serverStatistics.server);
+            }
+        }
+        return servers;
+    }
+
+    public synchronized long getHedgeDelay(String server) {
+        final ServerStatistics serverStatistics = find(server);
+        if (serverStatistics == null || serverStatistics.numberOfLatencySamples < MIN_PERCENTILE_SAMPLES) {
+            return DEFAULT_HEDGE_DELAY;
+        }
+        return Math.max(MIN_HEDGE_DELAY, serverStatistics.getLatencyPercentile(HEDGE_PERCENTILE));
+    }
+
+    public synchronized void recordSuccess(String server, long latency) {
+        final ServerStatistics serverStatistics = find(server);
+        if (serverStatistics != null) {
+            serverStatistics.addLatency(latency);
+            serverStatistics.errorRate *= 1.0f - SMOOTHING_FACTOR;
+            serverStatistics.consecutiveFailures = 0;
+            serverStatistics.probing = false;
+        }
+    }
+
+    public void recordFailure(String server) {
+        recordFailure(server, System.currentTimeMillis());
+    }
+
+    public synchronized void recordFailure(String server, long now) {
+        final ServerStatistics serverStatistics = find(server);
+        if (serverStatistics != null) {
+            serverStatistics.errorRate += SMOOTHING_FACTOR * (1.0f - serverStatistics.errorRate);
+            serverStatistics.lastFailureTime = now;
+            serverStatistics.consecutiveFailures++;
+            serverStatistics.probing = false;
+        }
+    }
+
+    public synchronized ServerStatistics getStatistics(String server) {
+        return find(server);
+    }
+
+    private ServerStatistics find(String server) {
+        for (ServerStatistics serverStatistics : statistics) {
+            if (serverStatistics.server.equals(server)) {
+                return serverStatistics;
+            }
+        }
+        return null;
+    }
+}
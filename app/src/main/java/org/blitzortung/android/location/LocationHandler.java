@@ -15,6 +15,7 @@ import org.blitzortung.android.protocol.Consumer;
 import org.blitzortung.android.protocol.ConsumerContainer;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class LocationHandler implements SharedPreferences.OnSharedPreferenceChangeListener, android.location.LocationListener, GpsStatus.Listener {
@@ -74,8 +75,12 @@ public class LocationHandler implements SharedPreferences.OnSharedPreferenceChan
 
     private Provider provider;
 
+    private Provider activeProvider;
+
     private final Location location;
 
+    private final LocationPolicy locationPolicy = new LocationPolicy();
+
     public LocationHandler(Context context, SharedPreferences sharedPreferences) {
         this.context = context;
         locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
@@ -180,27 +185,46 @@ public class LocationHandler implements SharedPreferences.OnSharedPreferenceChan
 
     private void enableProvider(Provider newProvider) {
         locationManager.removeUpdates(this);
+        activeProvider = null;
         if (newProvider != null && newProvider != Provider.MANUAL) {
-            if (!locationManager.getAllProviders().contains(newProvider.getType())) {
+            final List<String> availableProviders = locationManager.getAllProviders();
+            if (!availableProviders.contains(newProvider.getType())) {
                 Toast toast = Toast.makeText(context, String.format(context.getResources().getText(R.string.location_provider_not_available).toString(), newProvider.toString()), 5000);
                 toast.show();
                 return;
             }
-            final int minTime = backgroundMode
-                    ? 120000
-                    : (
-                    provider == Provider.GPS
-                            ? 1000
-                            : 20000);
-            final int minDistance = backgroundMode
-                    ? 200
-                    : 50;
-            Log.v(Main.LOG_TAG, "LocationHandler.enableProvider() " + newProvider + ", minTime: " + minTime + ", minDist: " + minDistance);
-            locationManager.requestLocationUpdates(newProvider.getType(), minTime, minDistance, this);
+            final Provider requestProvider = locationPolicy.getProvider(newProvider, availableProviders.contains(Provider.NETWORK.getType()), backgroundMode);
+            final int minTime = locationPolicy.getMinTime(requestProvider, backgroundMode);
+            final int minDistance = locationPolicy.getMinDistance(backgroundMode);
+            Log.v(Main.LOG_TAG, "LocationHandler.enableProvider() " + requestProvider + ", minTime: " + minTime + ", minDist: " + minDistance);
+            locationManager.requestLocationUpdates(requestProvider.getType(), minTime, minDistance, this);
+            activeProvider = requestProvider;
         }
         provider = newProvider;
     }
 
+    public void updateAlertDistances(float activityDistance, float signalingDistance) {
+        if (locationPolicy.update(activityDistance, signalingDistance)) {
+            updateProviderIfActive();
+        }
+    }
+
+    public void resetAlertDistances() {
+        if (locationPolicy.reset()) {
+            updateProviderIfActive();
+        }
+    }
+
+    public boolean isSignificantLocationChange(Location previous, Location current) {
+        return locationPolicy.isSignificant(previous, current);
+    }
+
+    private void updateProviderIfActive() {
+        if (!consumerContainer.isEmpty() && provider != Provider.MANUAL) {
+            enableProvider(provider);
+        }
+    }
+
     private void sendLocationUpdate() {
         sendLocationUpdateToListeners(locationIsValid() ? location : null);
     }
@@ -224,7 +248,7 @@ public class LocationHandler implements SharedPreferences.OnSharedPreferenceChan
     @Override
     public void onGpsStatusChanged(int event) {
 
-        if (provider == Provider.GPS) {
+        if (activeProvider == Provider.GPS) {
             switch (event) {
                 case GpsStatus.GPS_EVENT_SATELLITE_STATUS:
                     Location lastKnownGpsLocation = locationManager.getLastKnownLocation(LocationManager.GPS_PROVIDER);
@@ -234,7 +258,7 @@ public class LocationHandler implements SharedPreferences.OnSharedPreferenceChan
                         if (secondsElapsedSinceLastFix < 10) {
                             if (!locationIsValid()) {
                                 location.set(lastKnownGpsLocation);
-                                onLocationChanged(location);
+                                sendLocationUpdate();
                             }
                             break;
                         }
@@ -0,0 +1,118 @@
+package org.blitzortung.android.location;
+
+import android.location.Location;
+
+public class LocationPolicy {
+
+    public static final float[] SIGNIFICANT_DISTANCE_STEPS = {50, 100, 200, 500, 1000, 2000, 5000};
+
+    public static final float SIGNIFICANT_DISTANCE_RATIO = 1 / 80f;
+
+    public static final int FOREGROUND_MIN_TIME = 20000;
+
+    public static final int FOREGROUND_GPS_MIN_TIME = 1000;
+
+    public static final int BACKGROUND_MIN_TIME = 120000;
+
+    public static final int BACKGROUND_CLOSE_MIN_TIME = 30000;
+
+    public static final int BACKGROUND_QUIET_MIN_TIME = 300000;
+
+    private static final int FOREGROUND_MIN_DISTANCE = 50;
+
+    private static final int BACKGROUND_MIN_DISTANCE = 200;
+
+    private boolean active;
+
+    private float activityDistance = Float.POSITIVE_INFINITY;
+
+    private float signalingDistance;
+
+    private float significantDistance;
+
+    public boolean update(float activityDistance, float signalingDistance) {
+        final boolean wasActive = active;
+        final boolean wasClose = isCloseActivity();
+        final boolean wasQuiet = isQuiet();
+        final float previousSignificantDistance = significantDistance;
+
+        this.active = true;
+        this.activityDistance = activityDistance;
+        this.signalingDistance = signalingDistance;
+        significantDistance = calculateSignificantDistance(activityDistance);
+
+        return !wasActive || wasClose != isCloseActivity() || wasQuiet != isQuiet()
+                || previousSignificantDistance != significantDistance;
+    }
+
+    public boolean reset() {
+        final boolean wasActive = active;
+        active = false;
+        activityDistance = Float.POSITIVE_INFINITY;
+        significantDistance = 0;
+        return wasActive;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isCloseActivity() {
+        return active && activityDistance <= signalingDistance;
+    }
+
+    public boolean isQuiet() {
+        return active && Float.isInfinite(activityDistance);
+    }
+
+    public float getSignificantDistance() {
+        return significantDistance;
+    }
+
+    public LocationHandler.Provider getProvider(LocationHandler.Provider provider, boolean networkAvailable, boolean backgroundMode) {
+        if (backgroundMode && active && provider == LocationHandler.Provider.GPS && !isCloseActivity() && networkAvailable) {
+            return LocationHandler.Provider.NETWORK;
+        }
+        return provider;
+    }
+
+    public int getMinTime(LocationHandler.Provider provider, boolean backgroundMode) {
+        if (backgroundMode) {
+            if (isCloseActivity()) {
+                return BACKGROUND_CLOSE_MIN_TIME;
+            }
+            return isQuiet() ? BACKGROUND_QUIET_MIN_TIME : BACKGROUND_MIN_TIME;
+        }
+        return provider == LocationHandler.Provider.GPS ? FOREGROUND_GPS_MIN_TIME : FOREGROUND_MIN_TIME;
+    }
+
+    public int getMinDistance(boolean backgroundMode) {
+        if (!backgroundMode) {
+            return FOREGROUND_MIN_DISTANCE;
+        }
+        return active ? (int) significantDistance : BACKGROUND_MIN_DISTANCE;
+    }
+
+    public boolean isSignificant(Location previous, Location current) {
+        if (!active || previous == null || !previous.getProvider().equals(current.getProvider())) {
+            return true;
+        }
+
+        if (previous.distanceTo(current) >= significantDistance) {
+            return true;
+        }
+
+        return previous.hasAccuracy() && current.hasAccuracy() && current.getAccuracy() < previous.getAccuracy() / 2;
+    }
+
+    private float calculateSignificantDistance(float activityDistance) {
+        final float distance = activityDistance * SIGNIFICANT_DISTANCE_RATIO;
+        float significantDistance = SIGNIFICANT_DISTANCE_STEPS[0];
+        for (float step : SIGNIFICANT_DISTANCE_STEPS) {
+            if (step <= distance) {
+                significantDistance = step;
+            }
+        }
+        return significantDistance;
+    }
+}
@@ -8,6 +8,7 @@ import android.view.GestureDetector;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
+import com.google.android.maps.GeoPoint;
 import com.google.android.maps.MapView;
 import com.google.android.maps.Projection;
 import org.blitzortung.android.app.Main;
@@ -18,16 +19,31 @@ import java.util.Set;
 
 public class OwnMapView extends MapView {
 
+    public static final int VIEWPORT_NOTIFICATION_DELAY = 300;
+
     private final Set<ZoomListener> zoomListeners = new HashSet<ZoomListener>();
 
+    private final Set<ViewportListener> viewportListeners = new HashSet<ViewportListener>();
+
     private View popUp = null;
 
     private GestureDetector gestureDetector;
 
+    private final Runnable viewportNotification = new Runnable() {
+        @Override
+        public void run() {
+            notifyViewportListeners();
+        }
+    };
+
     public interface ZoomListener {
         void onZoom(int zoomLevel);
     }
 
+    public interface ViewportListener {
+        void onViewportChanged(float west, float south, float east, float north);
+    }
+
     public OwnMapView(Context context, AttributeSet attrs) {
         super(context, attrs);
         init();
@@ -60,11 +76,16 @@ public class OwnMapView extends MapView {
 
     private float oldPixelSize = -1;
 
+    private GeoPoint oldMapCenter;
+
+    private int oldLongitudeSpan;
+
     @Override
     public void dispatchDraw(Canvas canvas) {
         super.dispatchDraw(canvas);
 
         detectAndHandleZoomAction();
+        detectAndHandleViewportChange();
     }
 
     @Override
@@ -87,6 +108,39 @@ public class OwnMapView extends MapView {
         }
     }
 
+    protected void detectAndHandleViewportChange() {
+        final GeoPoint mapCenter = getMapCenter();
+        final int longitudeSpan = getLongitudeSpan();
+
+        if (mapCenter != null && longitudeSpan > 0 && (!mapCenter.equals(oldMapCenter) || longitudeSpan != oldLongitudeSpan)) {
+            oldMapCenter = mapCenter;
+            oldLongitudeSpan = longitudeSpan;
+            // the viewport changes on every frame while panning or flinging, notify once the map has come to rest
+            removeCallbacks(viewportNotification);
+            postDelayed(viewportNotification, VIEWPORT_NOTIFICATION_DELAY);
+        }
+    }
+
+    public void addViewportListener(ViewportListener viewportListener) {
+        viewportListeners.add(viewportListener);
+    }
+
+    public void notifyViewportListeners() {
+        final GeoPoint mapCenter = getMapCenter();
+        if (mapCenter == null || getLongitudeSpan() <= 0) {
+            return;
+        }
+
+        final float longitude = mapCenter.getLongitudeE6() / 1e6f;
+        final float latitude = mapCenter.getLatitudeE6() / 1e6f;
+        final float halfWidth = getLongitudeSpan() / 2e6f;
+        final float halfHeight = getLatitudeSpan() / 2e6f;
+
+        for (ViewportListener viewportListener : viewportListeners) {
+            viewportListener.onViewportChanged(longitude - halfWidth, latitude - halfHeight, longitude + halfWidth, latitude + halfHeight);
+        }
+    }
+
     public void addZoomListener(ZoomListener zoomListener) {
         zoomListeners.add(zoomListener);
     }
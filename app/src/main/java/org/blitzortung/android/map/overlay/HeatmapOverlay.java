@@ -0,0 +1,227 @@
+package org.blitzortung.android.map.overlay;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.util.Log;
+import com.google.android.maps.GeoPoint;
+import com.google.android.maps.MapView;
+import com.google.android.maps.Overlay;
+import com.google.android.maps.Projection;
+import org.blitzortung.android.app.Main;
+import org.blitzortung.android.app.R;
+import org.blitzortung.android.data.StrikeDensityGrid;
+import org.blitzortung.android.map.OwnMapActivity;
+import org.blitzortung.android.map.components.LayerOverlayComponent;
+import org.blitzortung.android.map.overlay.color.ColorHandler;
+import org.blitzortung.android.util.Clock;
+
+public class HeatmapOverlay extends Overlay implements LayerOverlay {
+
+    public static final float MINIMUM_DENSITY = 0.05f;
+
+    public static final float LEVEL_FACTOR = 2.0f;
+
+    private static final int MINIMUM_ALPHA = 0x60;
+
+    private static final int MAXIMUM_ALPHA = 0xc0;
+
+    private final LayerOverlayComponent layerOverlayComponent;
+
+    private final ColorHandler colorHandler;
+
+    private final StrikeDensityGrid densityGrid;
+
+    private final Bitmap tileBitmap;
+
+    private final int[] tilePixels;
+
+    private final Paint paint;
+
+    private final Point point;
+
+    private final Rect tileRect;
+
+    private float[] levelThresholds = new float[0];
+
+    private int[] levelColors = new int[0];
+
+    private int intervalDuration;
+
+    private int intervalOffset;
+
+    private long referenceTime;
+
+    public HeatmapOverlay(OwnMapActivity mapActivity, ColorHandler colorHandler) {
+        layerOverlayComponent = new LayerOverlayComponent(mapActivity.getResources().getString(R.string.heatmap_layer));
+        this.colorHandler = colorHandler;
+
+        densityGrid = new StrikeDensityGrid(getDecayTime(60));
+        tileBitmap = Bitmap.createBitmap(StrikeDensityGrid.TILE_SIZE, StrikeDensityGrid.TILE_SIZE, Bitmap.Config.ARGB_8888);
+        tilePixels = new int[StrikeDensityGrid.TILE_SIZE * StrikeDensityGrid.TILE_SIZE];
+        paint = new Paint();
+        paint.setFilterBitmap(true);
+        point = new Point();
+        tileRect = new Rect();
+    }
+
+    public static long getDecayTime(int intervalDuration) {
+        return intervalDuration * 60 * 1000l / 4;
+    }
+
+    public void applyUpdate(StrikesOverlay.Update update, int intervalDuration) {
+        this.intervalDuration = intervalDuration;
+
+        final long decayTime = getDecayTime(intervalDuration);
+        if (update.replacesStrikes() || decayTime != densityGrid.getDecayTime()) {
+            densityGrid.setDecayTime(decayTime);
+            densityGrid.clear();
+            for (StrikeOverlayItem item : update.getStrikes()) {
+                densityGrid.add(item);
+            }
+        } else {
+            for (StrikeOverlayItem item : update.getExpiredStrikes()) {
+                densityGrid.remove(item);
+            }
+            for (StrikeOverlayItem item : update.getAddedStrikes()) {
+                densityGrid.add(item);
+            }
+        }
+
+        Log.v(Main.LOG_TAG, String.format("HeatmapOverlay.applyUpdate() #%d, %d tiles",
+                densityGrid.getNumberOfStrikes(), densityGrid.getTiles().size()));
+    }
+
+    public void clear() {
+        densityGrid.clear();
+    }
+
+    public StrikeDensityGrid getDensityGrid() {
+        return densityGrid;
+    }
+
+    public void setIntervalOffset(int intervalOffset) {
+        this.intervalOffset = intervalOffset;
+    }
+
+    public void setReferenceTime(long referenceTime) {
+        this.referenceTime = referenceTime;
+    }
+
+    public int getIntervalDuration() {
+        return intervalDuration;
+    }
+
+    @Override
+    public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+        if (shadow || densityGrid.getNumberOfStrikes() == 0) {
+            return;
+        }
+
+        updateLevels();
+
+        final Projection projection = mapView.getProjection();
+        final Rect clipBounds = canvas.getClipBounds();
+        final double tileSize = densityGrid.getTileSize();
+        final float scale = densityGrid.getScale(getDisplayTime());
+
+        for (StrikeDensityGrid.Tile tile : densityGrid.getTiles()) {
+            final double west = densityGrid.getTileWest(tile);
+            final double south = densityGrid.getTileSouth(tile);
+
+            projection.toPixels(new GeoPoint((int) ((south + tileSize) * 1e6), (int) (west * 1e6)), point);
+            tileRect.left = point.x;
+            tileRect.top = point.y;
+            projection.toPixels(new GeoPoint((int) (south * 1e6), (int) ((west + tileSize) * 1e6)), point);
+            tileRect.right = point.x;
+            tileRect.bottom = point.y;
+
+            if (clipBounds != null && !Rect.intersects(tileRect, clipBounds)) {
+                continue;
+            }
+
+            if (fillTilePixels(tile, scale)) {
+                tileBitmap.setPixels(tilePixels, 0, StrikeDensityGrid.TILE_SIZE, 0, 0, StrikeDensityGrid.TILE_SIZE, StrikeDensityGrid.TILE_SIZE);
+                canvas.drawBitmap(tileBitmap, null, tileRect, paint);
+            }
+        }
+    }
+
+    private long getDisplayTime() {
+        return intervalOffset == 0 ? Clock.now() : referenceTime + intervalOffset * 60 * 1000l;
+    }
+
+    private boolean fillTilePixels(StrikeDensityGrid.Tile tile, float scale) {
+        final int tileSize = StrikeDensityGrid.TILE_SIZE;
+        boolean visible = false;
+
+        for (int y = 0; y < tileSize; y++) {
+            final int offset = (tileSize - 1 - y) * tileSize;
+            for (int x = 0; x < tileSize; x++) {
+                final int color = getColor(tile.getValue(x, y) * scale);
+                tilePixels[offset + x] = color;
+                visible |= color != Color.TRANSPARENT;
+            }
+        }
+        return visible;
+    }
+
+    // VisibleForTesting
+    protected int getColor(float density) {
+        int level = -1;
+        while (level + 1 < levelThresholds.length && density >= levelThresholds[level + 1]) {
+            level++;
+        }
+        return level >= 0 ? levelColors[level] : Color.TRANSPARENT;
+    }
+
+    // VisibleForTesting
+    protected void updateLevels() {
+        final int[] colors = colorHandler.getColors();
+        final int numberOfLevels = colors.length;
+
+        if (levelThresholds.length != numberOfLevels) {
+            levelThresholds = new float[numberOfLevels];
+            levelColors = new int[numberOfLevels];
+        }
+
+        float threshold = MINIMUM_DENSITY;
+        for (int level = 0; level < numberOfLevels; level++) {
+            final int alpha = numberOfLevels > 1
+                    ? MINIMUM_ALPHA + (MAXIMUM_ALPHA - MINIMUM_ALPHA) * level / (numberOfLevels - 1)
+                    : MAXIMUM_ALPHA;
+            final int color = colors[numberOfLevels - 1 - level];
+            levelThresholds[level] = threshold;
+            levelColors[level] = Color.argb(alpha, Color.red(color), Color.green(color), Color.blue(color));
+            threshold *= LEVEL_FACTOR;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return layerOverlayComponent.getName();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return layerOverlayComponent.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        layerOverlayComponent.setEnabled(enabled);
+    }
+
+    @Override
+    public boolean isVisible() {
+        return layerOverlayComponent.isVisible();
+    }
+
+    @Override
+    public void setVisibility(boolean visible) {
+        layerOverlayComponent.setVisibility(visible);
+    }
+}
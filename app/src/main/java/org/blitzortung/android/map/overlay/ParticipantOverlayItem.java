@@ -7,6 +7,10 @@ import org.blitzortung.android.data.beans.Station.State;
 
 public class ParticipantOverlayItem extends OverlayItem {
 
+	private final float longitude;
+
+	private final float latitude;
+
 	private final long lastDataTime;
 	
 	private final State participantState;
@@ -14,9 +18,18 @@ public class ParticipantOverlayItem extends OverlayItem {
     public ParticipantOverlayItem(Station station) {
 		super(Coordsys.toMapCoords(station.getLongitude(), station.getLatitude()), station.getName(), "");
 
+		longitude = station.getLongitude();
+		latitude = station.getLatitude();
 		lastDataTime = station.getOfflineSince();
 		participantState = station.getState();
     }
+
+	public boolean representsSameState(Station station) {
+		return lastDataTime == station.getOfflineSince()
+				&& longitude == station.getLongitude()
+				&& latitude == station.getLatitude()
+				&& participantState == station.getState();
+	}
 	
 	public long getLastDataTime() {
 		return lastDataTime;
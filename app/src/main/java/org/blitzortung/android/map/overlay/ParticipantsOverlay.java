@@ -12,15 +12,24 @@ import org.blitzortung.android.data.beans.Station.State;
 import org.blitzortung.android.map.OwnMapActivity;
 import org.blitzortung.android.map.components.LayerOverlayComponent;
 import org.blitzortung.android.map.overlay.color.ParticipantColorHandler;
+import org.blitzortung.android.util.Clock;
 
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ParticipantsOverlay extends PopupOverlay<ParticipantOverlayItem> implements LayerOverlay {
 
     // VisibleForTesting
-    protected final ArrayList<ParticipantOverlayItem> participants;
+    protected ArrayList<ParticipantOverlayItem> participants;
+
+    private final Object modelLock = new Object();
+
+    private Map<String, ParticipantOverlayItem> modelItems;
+
+    private int modelGeneration;
 
     private final ParticipantColorHandler colorHandler;
 
@@ -50,6 +59,7 @@ public class ParticipantsOverlay extends PopupOverlay<ParticipantOverlayItem> im
         this.colorHandler = colorHandler;
 
         participants = new ArrayList<ParticipantOverlayItem>();
+        modelItems = new LinkedHashMap<String, ParticipantOverlayItem>();
         populate();
     }
 
@@ -70,27 +80,109 @@ public class ParticipantsOverlay extends PopupOverlay<ParticipantOverlayItem> im
         }
     }
 
+    public static class Update {
+
+        private final ArrayList<ParticipantOverlayItem> participants;
+
+        private final List<ParticipantOverlayItem> changedParticipants;
+
+        private final int removedCount;
+
+        private final int generation;
+
+        private Update(ArrayList<ParticipantOverlayItem> participants, List<ParticipantOverlayItem> changedParticipants,
+                       int removedCount, int generation) {
+            this.participants = participants;
+            this.changedParticipants = changedParticipants;
+            this.removedCount = removedCount;
+            this.generation = generation;
+        }
+
+        public int size() {
+            return participants.size();
+        }
+
+        public boolean hasChanges() {
+            return !changedParticipants.isEmpty() || removedCount > 0;
+        }
+    }
+
     public void setParticipants(List<Station> stations) {
-        Log.v(Main.LOG_TAG, String.format("ParticipantsOverlay.setStations() #%d", stations.size()));
-        updateShapes();
+        applyUpdate(prepareUpdate(stations));
+    }
+
+    public Update prepareUpdate(List<Station> stations) {
+        synchronized (modelLock) {
+            final Map<String, ParticipantOverlayItem> updatedItems = new LinkedHashMap<String, ParticipantOverlayItem>(stations.size() * 4 / 3 + 1);
+            final ArrayList<ParticipantOverlayItem> items = new ArrayList<ParticipantOverlayItem>(stations.size());
+            final List<ParticipantOverlayItem> changedItems = new ArrayList<ParticipantOverlayItem>();
+
+            for (Station station : stations) {
+                final String key = createKey(station, updatedItems);
+                ParticipantOverlayItem item = modelItems.get(key);
+                if (item == null || !item.representsSameState(station)) {
+                    item = new ParticipantOverlayItem(station);
+                    changedItems.add(item);
+                }
+                updatedItems.put(key, item);
+                items.add(item);
+            }
 
-        participants.clear();
-        for (Station station : stations) {
-            final ParticipantOverlayItem item = new ParticipantOverlayItem(station);
+            int removedCount = 0;
+            for (String key : modelItems.keySet()) {
+                if (!updatedItems.containsKey(key)) {
+                    removedCount++;
+                }
+            }
+
+            modelItems = updatedItems;
+            return new Update(items, changedItems, removedCount, modelGeneration);
+        }
+    }
+
+    private static String createKey(Station station, Map<String, ParticipantOverlayItem> items) {
+        final String name = station.getName() != null ? station.getName() : "";
+        String key = name;
+        int occurrence = 1;
+        while (items.containsKey(key)) {
+            key = name + "#" + ++occurrence;
+        }
+        return key;
+    }
+
+    public void applyUpdate(Update update) {
+        synchronized (modelLock) {
+            if (update.generation != modelGeneration) {
+                Log.v(Main.LOG_TAG, "ParticipantsOverlay.applyUpdate() discard outdated update");
+                return;
+            }
+        }
+
+        Log.v(Main.LOG_TAG, String.format("ParticipantsOverlay.applyUpdate() ~%d -%d #%d",
+                update.changedParticipants.size(), update.removedCount, update.participants.size()));
+
+        if (!update.hasChanges()) {
+            return;
+        }
+
+        updateShapes();
+        for (ParticipantOverlayItem item : update.changedParticipants) {
             item.setMarker(shapes.get(item.getParticipantState()));
-            participants.add(item);
         }
-        Log.v(Main.LOG_TAG, String.format("ParticipantsOverlay.setStations() set"));
-        setLastFocusedIndex(-1);
 
+        participants = update.participants;
+        setLastFocusedIndex(-1);
         populate();
-        Log.v(Main.LOG_TAG, String.format("ParticipantsOverlay.setStations() finished"));
     }
 
     public void clear() {
         setLastFocusedIndex(-1);
         clearPopup();
-        participants.clear();
+        synchronized (modelLock) {
+            participants = new ArrayList<ParticipantOverlayItem>();
+            modelItems = new LinkedHashMap<String, ParticipantOverlayItem>();
+            modelGeneration++;
+        }
         populate();
     }
 
@@ -141,7 +233,7 @@ public class ParticipantsOverlay extends PopupOverlay<ParticipantOverlayItem> im
     }
 
     private String buildTimeString(long lastDataTime) {
-        long now = System.currentTimeMillis();
+        long now = Clock.now();
         float time = (now - lastDataTime) / 1000.0f / 60.0f;
 
         if (time < 120) {
@@ -19,12 +19,6 @@ public class StrikeOverlayItem extends OverlayItem implements Strike {
 	
 	private final int multiplicity;
 
-    private static final Point center = new Point();
-
-    private static final Point topLeft = new Point();
-
-    private static final Point bottomRight = new Point();
-
 	public StrikeOverlayItem(StrikeAbstract strike) {
 		super(Coordsys.toMapCoords(strike.getLongitude(), strike.getLatitude()), "", "");
         super.setMarker(new ShapeDrawable());
@@ -79,6 +73,10 @@ public class StrikeOverlayItem extends OverlayItem implements Strike {
             float lon_delta = rasterParameters.getLongitudeDelta() / 2.0f * 1e6f;
             float lat_delta = rasterParameters.getLatitudeDelta() / 2.0f * 1e6f;
             GeoPoint geoPoint = getPoint();
+            // shapes are also updated on the overlay model thread, so the points are not shared
+            final Point center = new Point();
+            final Point topLeft = new Point();
+            final Point bottomRight = new Point();
             projection.toPixels(geoPoint, center);
             projection.toPixels(new GeoPoint(
                     (int) (geoPoint.getLatitudeE6() + lat_delta),
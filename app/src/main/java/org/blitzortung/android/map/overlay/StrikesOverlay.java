@@ -5,12 +5,17 @@ import android.graphics.Paint.Style;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.ShapeDrawable;
 import android.graphics.drawable.shapes.Shape;
+import android.os.Handler;
+import android.os.SystemClock;
 import android.text.format.DateFormat;
 import android.util.Log;
+import com.google.android.maps.GeoPoint;
 import com.google.android.maps.MapView;
 import com.google.android.maps.Projection;
 import org.blitzortung.android.app.Main;
 import org.blitzortung.android.app.R;
+import org.blitzortung.android.data.HistogramAggregator;
+import org.blitzortung.android.data.StrikeGridIndex;
 import org.blitzortung.android.data.TimeIntervalWithOffset;
 import org.blitzortung.android.data.beans.StrikeAbstract;
 import org.blitzortung.android.data.beans.RasterParameters;
@@ -18,7 +23,9 @@ import org.blitzortung.android.data.beans.Strike;
 import org.blitzortung.android.map.OwnMapActivity;
 import org.blitzortung.android.map.components.LayerOverlayComponent;
 import org.blitzortung.android.map.overlay.color.ColorHandler;
+import org.blitzortung.android.map.overlay.color.ColorSectionBoundaries;
 import org.blitzortung.android.map.overlay.color.StrikeColorHandler;
+import org.blitzortung.android.util.Clock;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,7 +34,13 @@ import java.util.List;
 public class StrikesOverlay extends PopupOverlay<StrikeOverlayItem> implements TimeIntervalWithOffset, LayerOverlay {
 
     // VisibleForTesting
-    protected final ArrayList<StrikeOverlayItem> strikes;
+    protected ArrayList<StrikeOverlayItem> strikes;
+
+    private final Object modelLock = new Object();
+
+    private ArrayList<StrikeOverlayItem> modelStrikes;
+
+    private int modelGeneration;
 
     private final StrikeColorHandler colorHandler;
 
@@ -47,6 +60,30 @@ public class StrikesOverlay extends PopupOverlay<StrikeOverlayItem> implements T
 
     private long referenceTime;
 
+    private ColorSectionBoundaries colorSectionBoundaries;
+
+    private final HistogramAggregator histogramAggregator;
+
+    private final StrikeGridIndex strikeGridIndex;
+
+    private volatile Shape[] sectionShapes;
+
+    private final Handler agingHandler;
+
+    private final Runnable agingTask = new Runnable() {
+        @Override
+        public void run() {
+            ageStrikes();
+        }
+    };
+
+    private final ColorSectionBoundaries.SectionChangeListener sectionChangeListener = new ColorSectionBoundaries.SectionChangeListener() {
+        @Override
+        public void onSectionChanged(int index, int section) {
+            applySection(strikes.get(index), section);
+        }
+    };
+
     static {
         StrikeShape shape = new StrikeShape();
         shape.update(1, 0);
@@ -60,6 +97,14 @@ public class StrikesOverlay extends PopupOverlay<StrikeOverlayItem> implements T
         this.colorHandler = colorHandler;
 
         strikes = new ArrayList<StrikeOverlayItem>();
+        modelStrikes = strikes;
+
+        colorSectionBoundaries = new ColorSectionBoundaries();
+        histogramAggregator = new HistogramAggregator();
+        strikeGridIndex = new StrikeGridIndex();
+        sectionShapes = new Shape[0];
+        updateSectionShapes();
+        agingHandler = new Handler();
 
         populate();
     }
@@ -107,36 +152,151 @@ public class StrikesOverlay extends PopupOverlay<StrikeOverlayItem> implements T
         }
     }
 
-    public void addStrikes(List<StrikeAbstract> strikes) {
-        Log.v(Main.LOG_TAG, "StrikesOverlay.addStrikes() #" + strikes.size());
-        for (StrikeAbstract strike : strikes) {
-            this.strikes.add(new StrikeOverlayItem(strike));
+    public static class Update {
+
+        private final ArrayList<StrikeOverlayItem> strikes;
+
+        private final List<StrikeOverlayItem> addedStrikes;
+
+        private final List<StrikeOverlayItem> expiredStrikes;
+
+        private final boolean replacesStrikes;
+
+        private final ColorSectionBoundaries colorSectionBoundaries;
+
+        private final int generation;
+
+        private Update(ArrayList<StrikeOverlayItem> strikes, List<StrikeOverlayItem> addedStrikes,
+                       List<StrikeOverlayItem> expiredStrikes, boolean replacesStrikes,
+                       ColorSectionBoundaries colorSectionBoundaries, int generation) {
+            this.strikes = strikes;
+            this.addedStrikes = addedStrikes;
+            this.expiredStrikes = expiredStrikes;
+            this.replacesStrikes = replacesStrikes;
+            this.colorSectionBoundaries = colorSectionBoundaries;
+            this.generation = generation;
+        }
+
+        public int size() {
+            return strikes.size();
+        }
+
+        public List<StrikeOverlayItem> getStrikes() {
+            return strikes;
+        }
+
+        public List<StrikeOverlayItem> getAddedStrikes() {
+            return addedStrikes;
+        }
+
+        public List<StrikeOverlayItem> getExpiredStrikes() {
+            return expiredStrikes;
+        }
+
+        public boolean replacesStrikes() {
+            return replacesStrikes;
         }
-        setLastFocusedIndex(-1);
-        populate();
     }
 
-    public void expireStrikes() {
-        long expireTime = referenceTime - (intervalDuration - intervalOffset) * 60 * 1000;
-        List<StrikeOverlayItem> toRemove = new ArrayList<StrikeOverlayItem>();
+    public static long getExpireTime(long referenceTime, int intervalDuration, int intervalOffset) {
+        return referenceTime - (intervalDuration - intervalOffset) * 60 * 1000l;
+    }
 
-        for (StrikeOverlayItem item : strikes) {
-            if (item.getTimestamp() < expireTime) {
-                toRemove.add(item);
-            } else {
-                break;
+    public Update prepareUpdate(List<StrikeAbstract> strikes, boolean incremental, long expireTime) {
+        return prepareUpdate(strikes, incremental, expireTime, rasterParameters, intervalDuration, intervalOffset);
+    }
+
+    public Update prepareUpdate(List<StrikeAbstract> strikes, boolean incremental, long expireTime,
+                                RasterParameters rasterParameters, int intervalDuration, int intervalOffset) {
+        synchronized (modelLock) {
+            final List<StrikeOverlayItem> previousStrikes = incremental ? modelStrikes : new ArrayList<StrikeOverlayItem>();
+
+            int firstValidIndex = 0;
+            while (firstValidIndex < previousStrikes.size() && previousStrikes.get(firstValidIndex).getTimestamp() < expireTime) {
+                firstValidIndex++;
+            }
+
+            final List<StrikeOverlayItem> expiredStrikes = new ArrayList<StrikeOverlayItem>(previousStrikes.subList(0, firstValidIndex));
+            final List<StrikeOverlayItem> addedStrikes = new ArrayList<StrikeOverlayItem>(strikes.size());
+            final ArrayList<StrikeOverlayItem> updatedStrikes = new ArrayList<StrikeOverlayItem>(previousStrikes.size() - firstValidIndex + strikes.size());
+
+            updatedStrikes.addAll(previousStrikes.subList(firstValidIndex, previousStrikes.size()));
+            for (StrikeAbstract strike : strikes) {
+                final StrikeOverlayItem item = new StrikeOverlayItem(strike);
+                updatedStrikes.add(item);
+                addedStrikes.add(item);
+            }
+
+            final ColorSectionBoundaries updatedBoundaries = new ColorSectionBoundaries();
+            updatedBoundaries.update(updatedStrikes, Clock.now(), colorHandler.getNumberOfColors(),
+                    colorHandler.getMinutesPerColor(intervalDuration) * 60 * 1000l, intervalOffset * 60 * 1000l);
+
+            // the sections of the previous strikes are kept current by the aging task
+            final int firstAddedIndex = updatedStrikes.size() - addedStrikes.size();
+            for (int index = firstAddedIndex; index < updatedStrikes.size(); index++) {
+                applySection(updatedStrikes.get(index), updatedBoundaries.getSection(index), rasterParameters);
+            }
+
+            modelStrikes = updatedStrikes;
+            return new Update(updatedStrikes, addedStrikes, expiredStrikes, !incremental, updatedBoundaries, modelGeneration);
+        }
+    }
+
+    public void applyUpdate(Update update) {
+        synchronized (modelLock) {
+            if (update.generation != modelGeneration) {
+                Log.v(Main.LOG_TAG, "StrikesOverlay.applyUpdate() discard outdated update");
+                return;
+            }
+        }
+
+        Log.v(Main.LOG_TAG, String.format("StrikesOverlay.applyUpdate() +%d -%d #%d",
+                update.addedStrikes.size(), update.expiredStrikes.size(), update.strikes.size()));
+        cancelAging();
+
+        if (update.replacesStrikes) {
+            clearPopup();
+            histogramAggregator.clear();
+            strikeGridIndex.clear();
+        } else {
+            for (StrikeOverlayItem item : update.expiredStrikes) {
+                histogramAggregator.remove(item);
+                strikeGridIndex.remove(item);
             }
         }
 
-        if (toRemove.size() > 0) {
-            strikes.removeAll(toRemove);
+        for (StrikeOverlayItem item : update.addedStrikes) {
+            histogramAggregator.add(item);
+            strikeGridIndex.add(item);
         }
+
+        strikes = update.strikes;
+        colorSectionBoundaries = update.colorSectionBoundaries;
+        setLastFocusedIndex(-1);
+        populate();
+        scheduleAging(Clock.now());
+    }
+
+    public void addStrikes(List<StrikeAbstract> strikes) {
+        Log.v(Main.LOG_TAG, "StrikesOverlay.addStrikes() #" + strikes.size());
+        applyUpdate(prepareUpdate(strikes, true, Long.MIN_VALUE));
+    }
+
+    public void expireStrikes() {
+        applyUpdate(prepareUpdate(new ArrayList<StrikeAbstract>(), true, getExpireTime(referenceTime, intervalDuration, intervalOffset)));
     }
 
     public void clear() {
+        cancelAging();
         setLastFocusedIndex(-1);
         clearPopup();
-        strikes.clear();
+        synchronized (modelLock) {
+            strikes = new ArrayList<StrikeOverlayItem>();
+            modelStrikes = strikes;
+            modelGeneration++;
+        }
+        histogramAggregator.clear();
+        strikeGridIndex.clear();
         populate();
     }
 
@@ -152,32 +312,94 @@ public class StrikesOverlay extends PopupOverlay<StrikeOverlayItem> implements T
     }
 
     public void refresh() {
-        long now = System.currentTimeMillis();
+        cancelAging();
 
-        int current_section = -1;
+        long now = Clock.now();
 
         colorHandler.updateTarget();
 
-        Shape drawable = null;
+        updateSectionShapes();
 
         for (StrikeOverlayItem item : strikes) {
             int section = colorHandler.getColorSection(now, item.getTimestamp(), this);
+            applySection(item, section);
+        }
+
+        colorSectionBoundaries.update(strikes, now, colorHandler.getNumberOfColors(),
+                colorHandler.getMinutesPerColor(intervalDuration) * 60 * 1000l, intervalOffset * 60 * 1000l);
+        scheduleAging(now);
+    }
+
+    public void cancelAging() {
+        agingHandler.removeCallbacks(agingTask);
+    }
+
+    private void ageStrikes() {
+        long now = Clock.now();
+
+        int changedStrikes = colorSectionBoundaries.advance(now, sectionChangeListener);
+
+        if (changedStrikes > 0) {
+            Log.v(Main.LOG_TAG, "StrikesOverlay.ageStrikes() #" + changedStrikes);
+            getActivity().getMapView().invalidate();
+        }
+
+        scheduleAging(now);
+    }
+
+    private void scheduleAging(long now) {
+        long nextCrossingTime = colorSectionBoundaries.getNextCrossingTime();
+
+        if (nextCrossingTime != ColorSectionBoundaries.NO_CROSSING) {
+            agingHandler.postAtTime(agingTask, SystemClock.uptimeMillis() + Math.max(0, nextCrossingTime - now));
+        }
+    }
+
+    private void applySection(StrikeOverlayItem item, int section) {
+        if (hasRasterParameters()) {
+            updateAndReturnDrawable(item, section, colorHandler);
+        } else {
+            item.setShape(sectionShapes[section]);
+        }
+    }
+
+    private void applySection(StrikeOverlayItem item, int section, RasterParameters rasterParameters) {
+        if (rasterParameters != null) {
+            updateAndReturnDrawable(item, section, colorHandler, rasterParameters);
+        } else {
+            final Shape[] shapes = sectionShapes;
+            if (section < shapes.length) {
+                item.setShape(shapes[section]);
+            }
+        }
+    }
+
+    private void updateSectionShapes() {
+        final int numberOfColors = colorHandler.getNumberOfColors();
+        final Shape[] shapes = sectionShapes.length == numberOfColors ? sectionShapes : new Shape[numberOfColors];
 
-            if (hasRasterParameters() || current_section != section) {
-                drawable = updateAndReturnDrawable(item, section, colorHandler);
-            } else {
-                item.setShape(drawable);
+        for (int section = 0; section < numberOfColors; section++) {
+            StrikeShape shape = (StrikeShape) shapes[section];
+            if (shape == null) {
+                shape = new StrikeShape();
+                shapes[section] = shape;
             }
+            shape.update(zoomLevel + 1, colorHandler.getColor(section));
         }
+        sectionShapes = shapes;
     }
 
     // VisibleForTesting
     protected Shape updateAndReturnDrawable(StrikeOverlayItem item, int section, ColorHandler colorHandler) {
+        return updateAndReturnDrawable(item, section, colorHandler, getRasterParameters());
+    }
+
+    private Shape updateAndReturnDrawable(StrikeOverlayItem item, int section, ColorHandler colorHandler, RasterParameters rasterParameters) {
         final Projection projection = getActivity().getMapView().getProjection();
         final int color = colorHandler.getColor(section);
         final int textColor = colorHandler.getTextColor();
 
-        item.updateShape(getRasterParameters(), projection, color, textColor, zoomLevel);
+        item.updateShape(rasterParameters, projection, color, textColor, zoomLevel);
 
         return item.getShape();
     }
@@ -214,14 +436,82 @@ public class StrikesOverlay extends PopupOverlay<StrikeOverlayItem> implements T
     }
 
     public int getTotalNumberOfStrikes() {
+        return strikeGridIndex.getTotalNumberOfStrikes();
+    }
 
-        int totalNumberOfStrikes = 0;
+    public int getVisibleNumberOfStrikes() {
+        final MapView mapView = getActivity().getMapView();
+        final GeoPoint center = mapView != null ? mapView.getMapCenter() : null;
 
-        for (StrikeOverlayItem item : strikes) {
-            totalNumberOfStrikes += item.getMultiplicity();
+        if (center == null || mapView.getLongitudeSpan() <= 0 || mapView.getLatitudeSpan() <= 0) {
+            return getTotalNumberOfStrikes();
         }
 
-        return totalNumberOfStrikes;
+        final double longitudeSpan = mapView.getLongitudeSpan() / 1e6;
+        final double latitudeSpan = mapView.getLatitudeSpan() / 1e6;
+
+        if (longitudeSpan >= 360.0) {
+            return getNumberOfStrikes(-180.0, center.getLatitudeE6() / 1e6, 360.0, latitudeSpan);
+        }
+
+        double west = center.getLongitudeE6() / 1e6 - longitudeSpan / 2;
+        if (west < -180.0) {
+            west += 360.0;
+        }
+        return getNumberOfStrikes(west, center.getLatitudeE6() / 1e6, longitudeSpan, latitudeSpan);
+    }
+
+    private int getNumberOfStrikes(double west, double centerLatitude, double longitudeSpan, double latitudeSpan) {
+        final double south = centerLatitude - latitudeSpan / 2;
+        final double north = centerLatitude + latitudeSpan / 2;
+        final double east = west + longitudeSpan;
+
+        if (east > 180.0) {
+            return strikeGridIndex.getNumberOfStrikes(west, south, 180.0, north)
+                    + strikeGridIndex.getNumberOfStrikes(-180.0, south, east - 360.0, north);
+        }
+        return strikeGridIndex.getNumberOfStrikes(west, south, east, north);
+    }
+
+    public int[] getHistogram() {
+        return histogramAggregator.getHistogram(referenceTime, intervalDuration, intervalOffset);
+    }
+
+    public int[] getHistogram(int[] histogram) {
+        return histogramAggregator.getHistogram(referenceTime, intervalDuration, intervalOffset, histogram);
+    }
+
+    public void setHistogramArea(double west, double south, double east, double north) {
+        histogramAggregator.setArea(west, south, east, north);
+        histogramAggregator.rebuild(getStrikesInCells(west, south, east, north));
+    }
+
+    private Collection<? extends Strike> getStrikesInCells(double west, double south, double east, double north) {
+        if (east - west >= 360.0) {
+            return strikes;
+        }
+
+        while (west < -180.0) {
+            west += 360.0;
+            east += 360.0;
+        }
+        while (west >= 180.0) {
+            west -= 360.0;
+            east -= 360.0;
+        }
+
+        // only the cells touching the area are visited, the aggregator filters the strikes exactly
+        final List<Strike> strikesInCells = new ArrayList<Strike>();
+        strikeGridIndex.collectStrikes(west, south, Math.min(east, 180.0), north, strikesInCells);
+        if (east > 180.0) {
+            strikeGridIndex.collectStrikes(-180.0, south, east - 360.0, north, strikesInCells);
+        }
+        return strikesInCells;
+    }
+
+    public void clearHistogramArea() {
+        histogramAggregator.clearArea();
+        histogramAggregator.rebuild(strikes);
     }
 
     public Collection<? extends Strike> getStrikes() {
@@ -233,7 +523,11 @@ public class StrikesOverlay extends PopupOverlay<StrikeOverlayItem> implements T
     }
 
     public void setIntervalDuration(int intervalDuration) {
-        this.intervalDuration = intervalDuration;
+        if (intervalDuration != this.intervalDuration) {
+            this.intervalDuration = intervalDuration;
+            histogramAggregator.setIntervalDuration(intervalDuration);
+            histogramAggregator.rebuild(strikes);
+        }
     }
 
     public int getIntervalOffset() {
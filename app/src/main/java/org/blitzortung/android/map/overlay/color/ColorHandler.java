@@ -34,13 +34,17 @@ public abstract class ColorHandler {
     }
 
     private int getColorSection(long now, long eventTime, int intervalDuration, int intervalOffset) {
-        int minutesPerColor = intervalDuration / getColors().length;
+        int minutesPerColor = getMinutesPerColor(intervalDuration);
         int section = (int) (now + intervalOffset * 60 * 1000 - eventTime) / 1000 / 60 / minutesPerColor;
         section = limitIndexToValidRange(section);
 
         return section;
     }
 
+    public int getMinutesPerColor(int intervalDuration) {
+        return intervalDuration / getColors().length;
+    }
+
     public ColorScheme getColorScheme() {
         return colorScheme;
     }
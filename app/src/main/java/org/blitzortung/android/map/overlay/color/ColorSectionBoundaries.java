@@ -0,0 +1,112 @@
+package org.blitzortung.android.map.overlay.color;
+
+import org.blitzortung.android.data.beans.Strike;
+
+import java.util.List;
+
+public class ColorSectionBoundaries {
+
+    public interface SectionChangeListener {
+        void onSectionChanged(int index, int section);
+    }
+
+    public static final long NO_CROSSING = Long.MAX_VALUE;
+
+    private List<? extends Strike> strikes;
+
+    private int[] boundaries;
+
+    private long sectionDuration;
+
+    private long offset;
+
+    public ColorSectionBoundaries() {
+        boundaries = new int[0];
+    }
+
+    public void update(List<? extends Strike> strikes, long now, int sectionCount, long sectionDuration, long offset) {
+        this.strikes = strikes;
+        this.sectionDuration = sectionDuration;
+        this.offset = offset;
+
+        if (boundaries.length != sectionCount) {
+            boundaries = new int[sectionCount];
+        }
+
+        if (sectionDuration <= 0) {
+            return;
+        }
+
+        for (int section = 1; section < sectionCount; section++) {
+            boundaries[section] = upperBound(getThreshold(now, section), 0, strikes.size());
+        }
+    }
+
+    public int advance(long now, SectionChangeListener listener) {
+        if (strikes == null || sectionDuration <= 0) {
+            return 0;
+        }
+
+        int changed = 0;
+
+        for (int section = 1; section < boundaries.length; section++) {
+            final int oldBoundary = boundaries[section];
+            final int newBoundary = upperBound(getThreshold(now, section), oldBoundary, strikes.size());
+
+            boundaries[section] = newBoundary;
+
+            for (int index = oldBoundary; index < newBoundary; index++) {
+                listener.onSectionChanged(index, getSection(index));
+                changed++;
+            }
+        }
+
+        return changed;
+    }
+
+    public int getSection(int index) {
+        int section = 0;
+        for (int boundary = 1; boundary < boundaries.length; boundary++) {
+            if (index < boundaries[boundary]) {
+                section = boundary;
+            } else {
+                break;
+            }
+        }
+        return section;
+    }
+
+    public long getNextCrossingTime() {
+        if (strikes == null || sectionDuration <= 0) {
+            return NO_CROSSING;
+        }
+
+        long nextCrossingTime = NO_CROSSING;
+
+        for (int section = 1; section < boundaries.length; section++) {
+            final int boundary = boundaries[section];
+            if (boundary < strikes.size()) {
+                final long crossingTime = strikes.get(boundary).getTimestamp() + section * sectionDuration - offset;
+                nextCrossingTime = Math.min(nextCrossingTime, crossingTime);
+            }
+        }
+
+        return nextCrossingTime;
+    }
+
+    private long getThreshold(long now, int section) {
+        return now + offset - section * sectionDuration;
+    }
+
+    private int upperBound(long threshold, int low, int high) {
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (strikes.get(middle).getTimestamp() <= threshold) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
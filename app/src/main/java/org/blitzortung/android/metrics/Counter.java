@@ -0,0 +1,24 @@
+package org.blitzortung.android.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Counter {
+
+    private final AtomicLong value = new AtomicLong();
+
+    public void increment() {
+        value.incrementAndGet();
+    }
+
+    public void add(long delta) {
+        value.addAndGet(delta);
+    }
+
+    public long get() {
+        return value.get();
+    }
+
+    void reset() {
+        value.set(0);
+    }
+}
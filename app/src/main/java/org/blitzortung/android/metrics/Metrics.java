@@ -0,0 +1,144 @@
+package org.blitzortung.android.metrics;
+
+import android.util.Log;
+import org.blitzortung.android.app.Main;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class Metrics {
+
+    public enum Stage {
+        CONNECT("connect"),
+        FIRST_BYTE("first_byte"),
+        DOWNLOAD("download"),
+        DECODE("decode"),
+        FETCH("fetch"),
+        MODEL_BUILD("model_build"),
+        OVERLAY_APPLY("overlay_apply"),
+        ALERT_EVALUATION("alert_evaluation");
+
+        private final String name;
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    public Counter getCounter(String name, String label) {
+        final String key = createKey(name, label);
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            final Counter newCounter = new Counter();
+            counter = counters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    public long getCounterTotal(String name) {
+        final String labelPrefix = name + "{";
+        long total = 0;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (entry.getKey().equals(name) || entry.getKey().startsWith(labelPrefix)) {
+                total += entry.getValue().get();
+            }
+        }
+        return total;
+    }
+
+    public LatencyHistogram getHistogram(Stage stage, String label) {
+        final String key = createKey(stage.getName(), label);
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            final LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(key, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    public void increment(String name, String label) {
+        getCounter(name, label).increment();
+    }
+
+    public void add(String name, String label, long delta) {
+        getCounter(name, label).add(delta);
+    }
+
+    public void recordLatency(Stage stage, String label, long nanos) {
+        getHistogram(stage, label).recordNanos(nanos);
+    }
+
+    public void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    public JSONObject toJson() throws JSONException {
+        final JSONObject counterObject = new JSONObject();
+        for (Map.Entry<String, Counter> entry : new TreeMap<String, Counter>(counters).entrySet()) {
+            counterObject.put(entry.getKey(), entry.getValue().get());
+        }
+
+        final JSONObject latencyObject = new JSONObject();
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<String, LatencyHistogram>(histograms).entrySet()) {
+            final LatencyHistogram histogram = entry.getValue();
+            final JSONObject histogramObject = new JSONObject();
+            histogramObject.put("count", histogram.getCount());
+            histogramObject.put("mean_us", histogram.getMean());
+            histogramObject.put("p50_us", histogram.getPercentile(0.5f));
+            histogramObject.put("p90_us", histogram.getPercentile(0.9f));
+            histogramObject.put("p99_us", histogram.getPercentile(0.99f));
+            histogramObject.put("max_us", histogram.getMax());
+            latencyObject.put(entry.getKey(), histogramObject);
+        }
+
+        final JSONObject result = new JSONObject();
+        result.put("counters", counterObject);
+        result.put("latencies", latencyObject);
+        return result;
+    }
+
+    public String dump() {
+        try {
+            return toJson().toString(2);
+        } catch (JSONException e) {
+            Log.w(Main.LOG_TAG, "Metrics.dump() failed", e);
+            return "{}";
+        }
+    }
+
+    static String createKey(String name, String label) {
+        return label != null ? name + "{" + label + "}" : name;
+    }
+}
@@ -0,0 +1,227 @@
+package org.blitzortung.android.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class WakeAccounting {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private static final long MIN_RATE_WINDOW = 10 * 60 * 1000;
+
+    public static class Cycle {
+
+        private final long startTime;
+
+        private final long holdTime;
+
+        private final boolean success;
+
+        private final long chars;
+
+        private final long alertEvaluationTime;
+
+        private Cycle(long startTime, long holdTime, boolean success, long chars, long alertEvaluationTime) {
+            this.startTime = startTime;
+            this.holdTime = holdTime;
+            this.success = success;
+            this.chars = chars;
+            this.alertEvaluationTime = alertEvaluationTime;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getHoldTime() {
+            return holdTime;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public long getChars() {
+            return chars;
+        }
+
+        public long getAlertEvaluationTime() {
+            return alertEvaluationTime;
+        }
+    }
+
+    public static class Summary {
+
+        private final int numberOfCycles;
+
+        private final long holdTimeMedian;
+
+        private final long holdTime95;
+
+        private final float wakeupsPerHour;
+
+        private final float successRatio;
+
+        private final long charsPerWake;
+
+        private final long alertEvaluationTime;
+
+        private Summary(int numberOfCycles, long holdTimeMedian, long holdTime95, float wakeupsPerHour, float successRatio, long charsPerWake, long alertEvaluationTime) {
+            this.numberOfCycles = numberOfCycles;
+            this.holdTimeMedian = holdTimeMedian;
+            this.holdTime95 = holdTime95;
+            this.wakeupsPerHour = wakeupsPerHour;
+            this.successRatio = successRatio;
+            this.charsPerWake = charsPerWake;
+            this.alertEvaluationTime = alertEvaluationTime;
+        }
+
+        public int getNumberOfCycles() {
+            return numberOfCycles;
+        }
+
+        public long getHoldTimeMedian() {
+            return holdTimeMedian;
+        }
+
+        public long getHoldTime95() {
+            return holdTime95;
+        }
+
+        public float getWakeupsPerHour() {
+            return wakeupsPerHour;
+        }
+
+        public float getSuccessRatio() {
+            return successRatio;
+        }
+
+        public long getCharsPerWake() {
+            return charsPerWake;
+        }
+
+        public long getAlertEvaluationTime() {
+            return alertEvaluationTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d wakeups (%.1f/h), hold p50 %d ms, p95 %d ms, %.0f%% successful, %d chars/wake, alert %d us/wake",
+                    numberOfCycles, wakeupsPerHour, holdTimeMedian, holdTime95, successRatio * 100, charsPerWake, alertEvaluationTime);
+        }
+    }
+
+    private final Cycle[] cycles;
+
+    private int numberOfCycles;
+
+    private int nextIndex;
+
+    private boolean active;
+
+    private long startTime;
+
+    private boolean success;
+
+    private long chars;
+
+    private long alertEvaluationTime;
+
+    public WakeAccounting() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public WakeAccounting(int capacity) {
+        cycles = new Cycle[capacity];
+    }
+
+    public synchronized void startCycle(long now) {
+        if (active) {
+            return;
+        }
+        active = true;
+        startTime = now;
+        success = false;
+        chars = 0;
+        alertEvaluationTime = 0;
+    }
+
+    public synchronized boolean isActive() {
+        return active;
+    }
+
+    public synchronized void recordFetch(boolean success, long chars) {
+        if (active) {
+            this.success |= success;
+            this.chars += chars;
+        }
+    }
+
+    public synchronized void recordAlertEvaluation(long nanos) {
+        if (active) {
+            alertEvaluationTime += nanos / 1000;
+        }
+    }
+
+    public synchronized void endCycle(long now) {
+        if (!active) {
+            return;
+        }
+        active = false;
+
+        cycles[nextIndex] = new Cycle(startTime, Math.max(0, now - startTime), success, chars, alertEvaluationTime);
+        nextIndex = (nextIndex + 1) % cycles.length;
+        numberOfCycles = Math.min(numberOfCycles + 1, cycles.length);
+    }
+
+    public synchronized List<Cycle> getCycles() {
+        final List<Cycle> result = new ArrayList<Cycle>(numberOfCycles);
+        final int firstIndex = (nextIndex - numberOfCycles + cycles.length) % cycles.length;
+        for (int offset = 0; offset < numberOfCycles; offset++) {
+            result.add(cycles[(firstIndex + offset) % cycles.length]);
+        }
+        return result;
+    }
+
+    public Summary getSummary(long now) {
+        final List<Cycle> cycles = getCycles();
+        if (cycles.isEmpty()) {
+            return new Summary(0, 0, 0, 0, 0, 0, 0);
+        }
+
+        final long[] holdTimes = new long[cycles.size()];
+        int successCount = 0;
+        long totalChars = 0;
+        long totalAlertEvaluationTime = 0;
+        for (int index = 0; index < holdTimes.length; index++) {
+            final Cycle cycle = cycles.get(index);
+            holdTimes[index] = cycle.holdTime;
+            successCount += cycle.success ? 1 : 0;
+            totalChars += cycle.chars;
+            totalAlertEvaluationTime += cycle.alertEvaluationTime;
+        }
+        Arrays.sort(holdTimes);
+
+        final long window = Math.max(MIN_RATE_WINDOW, now - cycles.get(0).startTime);
+        final int count = holdTimes.length;
+
+        return new Summary(count, getPercentile(holdTimes, 0.5f), getPercentile(holdTimes, 0.95f),
+                (float) count * HOUR / window, (float) successCount / count,
+                totalChars / count, totalAlertEvaluationTime / count);
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(cycles, null);
+        numberOfCycles = 0;
+        nextIndex = 0;
+        active = false;
+    }
+
+    private static long getPercentile(long[] sortedValues, float percentile) {
+        final int index = Math.max(0, (int) Math.ceil(percentile * sortedValues.length) - 1);
+        return sortedValues[Math.min(index, sortedValues.length - 1)];
+    }
+}
@@ -1,16 +1,21 @@
 package org.blitzortung.android.protocol;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 public abstract class ConsumerContainer<P> {
 
-    private final Set<Consumer<P>> consumers;
+    private final CopyOnWriteArrayList<Consumer<P>> consumers;
 
-    private P currentPayload;
+    private final Map<Consumer<P>, QueuedConsumer<P>> queuedConsumers;
+
+    private volatile P currentPayload;
 
     public ConsumerContainer() {
-        consumers = new HashSet<Consumer<P>>();
+        consumers = new CopyOnWriteArrayList<Consumer<P>>();
+        queuedConsumers = new HashMap<Consumer<P>, QueuedConsumer<P>>();
     }
 
     public void addConsumer(Consumer<P> consumer) {
@@ -18,28 +23,59 @@ public abstract class ConsumerContainer<P> {
             throw new IllegalArgumentException("consumer may not be null");
         }
 
-        if (!consumers.contains(consumer)) {
-            final boolean isFirst = consumers.isEmpty();
-            consumers.add(consumer);
-            if (isFirst) {
-                addedFirstConsumer();
+        register(consumer, consumer);
+    }
+
+    public void addConsumer(Consumer<P> consumer, Executor executor, int capacity) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer may not be null");
+        }
+
+        register(consumer, new QueuedConsumer<P>(consumer, executor, capacity));
+    }
+
+    private void register(Consumer<P> consumer, Consumer<P> registeredConsumer) {
+        final boolean isFirst;
+        synchronized (consumers) {
+            if (consumers.contains(consumer) || queuedConsumers.containsKey(consumer)) {
+                return;
+            }
+            if (registeredConsumer instanceof QueuedConsumer) {
+                queuedConsumers.put(consumer, (QueuedConsumer<P>) registeredConsumer);
             }
-            sendCurrentPayloadTo(consumer);
+            isFirst = consumers.isEmpty();
+            consumers.add(registeredConsumer);
+        }
+
+        // callbacks run outside of the lock, they may add or remove consumers themselves
+        if (isFirst) {
+            addedFirstConsumer();
         }
+        sendCurrentPayloadTo(registeredConsumer);
     }
 
     protected void sendCurrentPayloadTo(Consumer<P> consumer) {
-        if (currentPayload != null) {
-            consumer.consume(currentPayload);
+        final P payload = currentPayload;
+        if (payload != null) {
+            consumer.consume(payload);
         }
     }
 
     public void removeConsumer(Consumer<P> consumer) {
-        if (consumers.contains(consumer)) {
-            consumers.remove(consumer);
-            if (consumers.isEmpty()) {
-                removedLastConsumer();
+        final boolean isLast;
+        synchronized (consumers) {
+            final QueuedConsumer<P> queuedConsumer = queuedConsumers.remove(consumer);
+            if (queuedConsumer != null) {
+                queuedConsumer.close();
+            }
+            if (!consumers.remove(queuedConsumer != null ? queuedConsumer : consumer)) {
+                return;
             }
+            isLast = consumers.isEmpty();
+        }
+
+        if (isLast) {
+            removedLastConsumer();
         }
     }
 
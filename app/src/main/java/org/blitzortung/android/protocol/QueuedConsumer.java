@@ -0,0 +1,95 @@
+package org.blitzortung.android.protocol;
+
+import android.util.Log;
+import org.blitzortung.android.app.Main;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+public class QueuedConsumer<P> implements Consumer<P> {
+
+    private final Consumer<P> consumer;
+
+    private final Executor executor;
+
+    private final int capacity;
+
+    private final ArrayDeque<P> queue;
+
+    private boolean scheduled;
+
+    private boolean closed;
+
+    private int droppedPayloads;
+
+    private final Runnable deliveryTask = new Runnable() {
+        @Override
+        public void run() {
+            deliver();
+        }
+    };
+
+    public QueuedConsumer(Consumer<P> consumer, Executor executor, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.consumer = consumer;
+        this.executor = executor;
+        this.capacity = capacity;
+        queue = new ArrayDeque<P>(capacity);
+    }
+
+    @Override
+    public void consume(P payload) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            if (queue.size() >= capacity) {
+                queue.pollFirst();
+                droppedPayloads++;
+            }
+            queue.addLast(payload);
+
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+
+        executor.execute(deliveryTask);
+    }
+
+    private void deliver() {
+        while (true) {
+            final P payload;
+            synchronized (this) {
+                payload = closed ? null : queue.pollFirst();
+                if (payload == null) {
+                    scheduled = false;
+                    return;
+                }
+            }
+
+            try {
+                consumer.consume(payload);
+            } catch (RuntimeException e) {
+                Log.e(Main.LOG_TAG, "QueuedConsumer.deliver() failed", e);
+            }
+        }
+    }
+
+    public synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    public Consumer<P> getConsumer() {
+        return consumer;
+    }
+
+    public synchronized int getDroppedPayloads() {
+        return droppedPayloads;
+    }
+}
@@ -0,0 +1,109 @@
+package org.blitzortung.android.util;
+
+import org.blitzortung.android.alert.AlertResult;
+
+public class AdaptivePeriod {
+
+    public static final int MIN_PERIOD = 20;
+
+    public static final int MAX_BACKOFF_PERIOD = 30 * 60;
+
+    public static final int MAX_QUIET_FACTOR = 4;
+
+    private static final int MAX_BACKOFF_EXPONENT = 6;
+
+    private static final float CLOSE_DISTANCE_RATIO = 0.2f;
+
+    private static final float RISING_RATE_RATIO = 1.5f;
+
+    private static final int MIN_RISING_STRIKE_COUNT = 10;
+
+    private int failureCount;
+
+    private int quietCount;
+
+    private boolean closeActivity;
+
+    private boolean risingActivity;
+
+    private float lastStrikeRate = -1;
+
+    public void updateActivity(AlertResult alertResult, float maxDistance) {
+        if (alertResult != null) {
+            quietCount = 0;
+            closeActivity = alertResult.getClosestStrikeDistance() <= maxDistance * CLOSE_DISTANCE_RATIO;
+        } else {
+            quietCount = Math.min(quietCount + 1, MAX_QUIET_FACTOR);
+            closeActivity = false;
+        }
+    }
+
+    public void updateStrikeRate(int numberOfStrikes, long seconds) {
+        if (seconds <= 0) {
+            return;
+        }
+
+        final float strikeRate = (float) numberOfStrikes / seconds;
+
+        risingActivity = lastStrikeRate >= 0 && numberOfStrikes >= MIN_RISING_STRIKE_COUNT
+                && strikeRate > lastStrikeRate * RISING_RATE_RATIO;
+        lastStrikeRate = strikeRate;
+    }
+
+    public void resetStrikeRate() {
+        lastStrikeRate = -1;
+        risingActivity = false;
+    }
+
+    public void onSuccess() {
+        failureCount = 0;
+    }
+
+    public void onFailure() {
+        failureCount = Math.min(failureCount + 1, MAX_BACKOFF_EXPONENT);
+    }
+
+    public void restart() {
+        failureCount = 0;
+        quietCount = 0;
+        closeActivity = false;
+        resetStrikeRate();
+    }
+
+    public boolean isActive() {
+        return closeActivity || risingActivity;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public int getForegroundPeriod(int period) {
+        int foregroundPeriod = period;
+
+        if (isActive()) {
+            foregroundPeriod = Math.max(Math.min(period, MIN_PERIOD), period / 2);
+        }
+
+        return applyBackoff(foregroundPeriod);
+    }
+
+    public int getBackgroundPeriod(int backgroundPeriod) {
+        int period = backgroundPeriod;
+
+        if (isActive()) {
+            period = Math.max(Math.min(backgroundPeriod, MIN_PERIOD), backgroundPeriod / 2);
+        } else if (quietCount > 1) {
+            period = backgroundPeriod * Math.min(quietCount, MAX_QUIET_FACTOR);
+        }
+
+        return applyBackoff(period);
+    }
+
+    private int applyBackoff(int period) {
+        if (failureCount == 0) {
+            return period;
+        }
+        return Math.max(period, Math.min(period << failureCount, MAX_BACKOFF_PERIOD));
+    }
+}
@@ -0,0 +1,27 @@
+package org.blitzortung.android.util;
+
+public abstract class Clock {
+
+    public static final Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private static volatile Clock defaultClock = SYSTEM;
+
+    public static Clock getDefault() {
+        return defaultClock;
+    }
+
+    public static void setDefault(Clock clock) {
+        defaultClock = clock != null ? clock : SYSTEM;
+    }
+
+    public static long now() {
+        return defaultClock.currentTimeMillis();
+    }
+
+    public abstract long currentTimeMillis();
+}
@@ -0,0 +1,20 @@
+package org.blitzortung.android.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+public class MainThreadExecutor implements Executor {
+
+    private final Handler handler;
+
+    public MainThreadExecutor() {
+        handler = new Handler(Looper.getMainLooper());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        handler.post(command);
+    }
+}
@@ -3,7 +3,7 @@ package org.blitzortung.android.util;
 public class Period {
 
     public static long getCurrentTime() {
-        return System.currentTimeMillis() / 1000;
+        return Clock.now() / 1000;
     }
     
     private long lastUpdateTime;
@@ -18,7 +18,7 @@ public class TimeFormat {
 		JSON_DATE_TIME_FORMATTER.setTimeZone(TimeZone.getTimeZone("UTC"));
 	}
 
-    public static long parseTimeWithMilliseconds(String timestampString) {
+    public static synchronized long parseTimeWithMilliseconds(String timestampString) {
 		try {
 			return DATE_TIME_MILLISECONDS_FORMATTER.parse(timestampString).getTime();
 		} catch (ParseException e) {
@@ -31,7 +31,7 @@ public class TimeFormat {
         return parseTimeWithMilliseconds(timeString.substring(0, timeString.length() - 6));
     }
 	
-	public static long parseTime(String timestampString) {
+	public static synchronized long parseTime(String timestampString) {
 		try {
 			return JSON_DATE_TIME_FORMATTER.parse(timestampString).getTime();
 		} catch (ParseException e) {
@@ -12,31 +12,59 @@ import org.blitzortung.android.alert.event.AlertEvent;
 import org.blitzortung.android.alert.event.AlertResultEvent;
 import org.blitzortung.android.alert.factory.AlertObjectFactory;
 import org.blitzortung.android.alert.handler.AlertStatusHandler;
+import org.blitzortung.android.alert.handler.StormCellTracker;
+import org.blitzortung.android.alert.handler.StrikeRateTracker;
+import org.blitzortung.android.alert.object.AlertGrid;
 import org.blitzortung.android.alert.object.AlertSector;
 import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.alert.object.AlertTarget;
+import org.blitzortung.android.app.R;
 import org.blitzortung.android.app.controller.NotificationHandler;
 import org.blitzortung.android.app.view.PreferenceKey;
+import org.blitzortung.android.data.Parameters;
 import org.blitzortung.android.data.beans.Strike;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.provider.result.ClearDataEvent;
+import org.blitzortung.android.data.provider.result.ResultEvent;
 import org.blitzortung.android.location.LocationEvent;
 import org.blitzortung.android.location.LocationHandler;
+import org.blitzortung.android.metrics.WakeAccounting;
 import org.blitzortung.android.protocol.Consumer;
 import org.blitzortung.android.util.MeasurementSystem;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
 
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -57,6 +85,12 @@ public class AlertHandlerTest {
     @Mock
     private AlertStatusHandler alertStatusHandler;
 
+    @Mock
+    private StormCellTracker stormCellTracker;
+
+    @Mock
+    private StrikeRateTracker strikeRateTracker;
+
     @Mock
     private AlertObjectFactory alertObjectFactory;
 
@@ -78,7 +112,6 @@ public class AlertHandlerTest {
     @Mock
     private Collection<Strike> strikes;
 
-    @Mock
     private Location location;
 
     @Mock
@@ -88,16 +121,39 @@ public class AlertHandlerTest {
     
     private Resources resources;
 
+    private final Executor directExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final List<Runnable> queuedTasks = Lists.newArrayList();
+
+    private final Executor queueingExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            queuedTasks.add(command);
+        }
+    };
+
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
+        location = new Location("");
+        location.setLatitude(49.0);
+        location.setLongitude(11.0);
+
         resources = RuntimeEnvironment.application.getResources();
 
         long alarmInterval = 600000;
         when(alertParameters.getAlarmInterval()).thenReturn(alarmInterval);
         when(alertObjectFactory.createAlarmStatus(alertParameters)).thenReturn(alertStatus);
         when(alertObjectFactory.createAlarmStatusHandler(alertParameters)).thenReturn(alertStatusHandler);
+        when(alertObjectFactory.createStormCellTracker()).thenReturn(stormCellTracker);
+        when(alertObjectFactory.createStrikeRateTracker()).thenReturn(strikeRateTracker);
+        when(alertParameters.copy()).thenReturn(alertParameters);
         when(sharedPreferences.getBoolean(PreferenceKey.ALERT_ENABLED.toString(), false)).thenReturn(false);
         when(sharedPreferences.getString(PreferenceKey.MEASUREMENT_UNIT.toString(), MeasurementSystem.METRIC.toString())).thenReturn(MeasurementSystem.METRIC.toString());
         when(sharedPreferences.getString(PreferenceKey.ALERT_NOTIFICATION_DISTANCE_LIMIT.toString(), "50")).thenReturn("50");
@@ -106,8 +162,10 @@ public class AlertHandlerTest {
         when(sharedPreferences.getString(PreferenceKey.ALERT_SOUND_SIGNAL.toString(), "")).thenReturn("");
         when(alertStatusHandler.getCurrentActivity(alertStatus)).thenReturn(alertResult);
         when(context.getResources()).thenReturn(resources);
+        when(locationManager.isSignificantLocationChange(any(Location.class), any(Location.class))).thenReturn(true);
         
-        alertHandler = new AlertHandler(locationManager, sharedPreferences, context, vibrator, notificationHandler, alertObjectFactory, alertParameters);
+        alertHandler = new AlertHandler(locationManager, sharedPreferences, context, vibrator, notificationHandler, alertObjectFactory, alertParameters,
+                directExecutor, directExecutor);
         alertHandler.setAlertEventConsumer(alertEventConsumer);
     }
 
@@ -168,7 +226,7 @@ public class AlertHandlerTest {
 
         alertHandler.checkStrikes(strikes);
 
-        verify(alertStatusHandler, times(1)).checkStrikes(alertStatus, strikes, location);
+        verify(alertStatusHandler, times(1)).checkStrikes(eq(alertStatus), eq(strikes), atLocation());
         verify(alertEventConsumer, times(1)).consume(any(AlertResultEvent.class));
         verify(alertEventConsumer, times(0)).consume(AlertHandler.ALERT_CANCEL_EVENT);
     }
@@ -239,6 +297,321 @@ public class AlertHandlerTest {
         
         assertThat(returnedAlertParameters, is(sameInstance(alertParameters)));
     }
-    
-    
+
+    @Test
+    public void testRealtimeResultUpdatesStormCellTracker() {
+        final Parameters parameters = new Parameters();
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+        final ResultEvent resultEvent = new ResultEvent.Builder().strikes(strikes).incrementalData(true)
+                .referenceTime(1000L).parameters(parameters).build();
+
+        alertHandler.getDataEventConsumer().consume(resultEvent);
+
+        verify(stormCellTracker, times(1)).update(resultEvent.getStrikes(), true, 1000L);
+        verify(stormCellTracker, never()).clear();
+    }
+
+    @Test
+    public void testHistoricResultClearsStormCellTracker() {
+        final Parameters parameters = new Parameters();
+        parameters.setIntervalOffset(-30);
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+
+        alertHandler.getDataEventConsumer().consume(new ResultEvent.Builder().strikes(strikes).parameters(parameters).build());
+
+        verify(stormCellTracker, never()).update(anyListOf(StrikeAbstract.class), anyBoolean(), anyLong());
+        verify(stormCellTracker, times(1)).clear();
+    }
+
+    @Test
+    public void testIncrementalResultIsAddedToStrikeRateTracker() {
+        final Parameters parameters = new Parameters();
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+
+        alertHandler.getDataEventConsumer().consume(new ResultEvent.Builder().strikes(strikes).incrementalData(true)
+                .parameters(parameters).build());
+        alertHandler.getDataEventConsumer().consume(new ResultEvent.Builder().strikes(strikes).incrementalData(true)
+                .parameters(parameters).build());
+
+        verify(strikeRateTracker, times(1)).add(strikes, 1);
+        verify(strikeRateTracker, times(1)).add(strikes, 2);
+        verify(strikeRateTracker, never()).clear();
+    }
+
+    @Test
+    public void testFullResultClearsStrikeRateTracker() {
+        alertHandler.getDataEventConsumer().consume(new ResultEvent.Builder().strikes(Lists.<StrikeAbstract>newArrayList())
+                .parameters(new Parameters()).build());
+
+        verify(strikeRateTracker, never()).add(anyListOf(StrikeAbstract.class), anyInt());
+        verify(strikeRateTracker, times(1)).clear();
+    }
+
+    @Test
+    public void testTiledResultIsIgnored() {
+        enableAlarmInPrefs(true);
+        alertHandler.getLocationEventConsumer().consume(new LocationEvent(location));
+
+        alertHandler.getDataEventConsumer().consume(new ResultEvent.Builder().strikes(Lists.<StrikeAbstract>newArrayList())
+                .tiledData(true).parameters(new Parameters()).build());
+
+        verify(stormCellTracker, never()).update(anyListOf(StrikeAbstract.class), anyBoolean(), anyLong());
+        verify(strikeRateTracker, never()).clear();
+        verify(alertStatusHandler, never()).checkStrikes(any(AlertStatus.class), anyListOf(Strike.class), any(Location.class));
+    }
+
+    @Test
+    public void testClearDataEventClearsStormCellTracker() {
+        alertHandler.getDataEventConsumer().consume(new ClearDataEvent());
+
+        verify(stormCellTracker, times(1)).clear();
+    }
+
+    @Test
+    public void testStormCellsAreEmptyWhileAlertIsInvalid() {
+        assertThat(alertHandler.getStormCells().isEmpty(), is(true));
+        assertThat(alertHandler.getApproachingStormCell(), is(nullValue()));
+    }
+
+    @Test
+    public void testAlertTargetsAreParsedFromPreferences() {
+        enableAlertTargets("Home:49.0,11.0; 48.1, 11.6;broken:49.0");
+
+        final List<AlertTarget> alertTargets = alertHandler.getAlertTargets();
+
+        assertThat(alertTargets.size(), is(2));
+        assertThat(alertTargets.get(0).getName(), is("Home"));
+        assertThat(alertTargets.get(0).getLocation().getLatitude(), is(49.0));
+        assertThat(alertTargets.get(0).getLocation().getLongitude(), is(11.0));
+        assertThat(alertTargets.get(1).getName(), is("#2"));
+        assertThat(alertTargets.get(1).getLocation().getLongitude(), is(11.6));
+    }
+
+    @Test
+    public void testAlertTargetsAreEvaluatedInOnePassAndNotifiedPerTarget() {
+        enableAlertTargets("Home:49.0,11.0");
+        final AlertStatus targetStatus = mock(AlertStatus.class);
+        evaluateAlertTargetsWith(targetStatus);
+        final AlertResult targetResult = mock(AlertResult.class);
+        when(targetResult.getClosestStrikeDistance()).thenReturn(10f);
+        when(alertStatusHandler.getCurrentActivity(targetStatus)).thenReturn(targetResult);
+        when(alertStatusHandler.getLatestTimstampWithin(50f, targetStatus)).thenReturn(1000L);
+        when(alertStatusHandler.getTextMessage(targetStatus, 50f)).thenReturn("S 10km");
+        final Resources mockedResources = mock(Resources.class);
+        when(mockedResources.getString(R.string.activity)).thenReturn("activity");
+        when(context.getResources()).thenReturn(mockedResources);
+
+        enableAlarmInPrefs(true);
+        alertHandler.getLocationEventConsumer().consume(new LocationEvent(location));
+        alertHandler.checkStrikes(strikes);
+        alertHandler.checkStrikes(strikes);
+
+        verify(alertStatusHandler, times(2)).checkStrikes(anyListOf(AlertTarget.class), eq(strikes));
+        verify(alertStatusHandler, never()).checkStrikes(eq(alertStatus), eq(strikes), atLocation());
+        verify(notificationHandler, times(1)).sendNotification(eq("Home"), contains("S 10km"));
+
+        when(targetResult.getClosestStrikeDistance()).thenReturn(100f);
+        alertHandler.checkStrikes(strikes);
+
+        verify(notificationHandler, times(1)).clearNotification("Home");
+    }
+
+    @Test
+    public void testAlertTargetsAreEvaluatedWithoutDeviceLocation() {
+        enableAlertTargets("Home:49.0,11.0");
+        final AlertStatus targetStatus = mock(AlertStatus.class);
+        evaluateAlertTargetsWith(targetStatus);
+        final AlertResult targetResult = mock(AlertResult.class);
+        when(targetResult.getClosestStrikeDistance()).thenReturn(10f);
+        when(alertStatusHandler.getCurrentActivity(targetStatus)).thenReturn(targetResult);
+        when(alertStatusHandler.getLatestTimstampWithin(50f, targetStatus)).thenReturn(1000L);
+        final Resources mockedResources = mock(Resources.class);
+        when(mockedResources.getString(R.string.activity)).thenReturn("activity");
+        when(context.getResources()).thenReturn(mockedResources);
+
+        enableAlarmInPrefs(true);
+        alertHandler.getLocationEventConsumer().consume(new LocationEvent(null));
+        alertHandler.checkStrikes(strikes);
+
+        final ArgumentCaptor<List> evaluatedTargets = ArgumentCaptor.forClass(List.class);
+        verify(alertStatusHandler, times(1)).checkStrikes(evaluatedTargets.capture(), eq(strikes));
+        assertThat(evaluatedTargets.getValue().size(), is(1));
+        assertThat(((AlertTarget) evaluatedTargets.getValue().get(0)).getAlertStatus(), is(targetStatus));
+        verify(notificationHandler, times(1)).sendNotification(eq("Home"), contains("activity"));
+        verify(strikeRateTracker, never()).update(any(Location.class), anyListOf(Strike.class), anyInt(), any(AlertGrid.class), any(MeasurementSystem.class), anyLong());
+        verify(alertEventConsumer, never()).consume(isA(AlertResultEvent.class));
+        assertThat(alertHandler.getAlertStatus(), is(nullValue()));
+    }
+
+    @Test
+    public void testInsignificantLocationChangeIsIgnored() {
+        enableAlarmInPrefs(true);
+        alertHandler.getLocationEventConsumer().consume(new LocationEvent(location));
+
+        final Location nearbyLocation = new Location("");
+        nearbyLocation.setLatitude(49.001);
+        nearbyLocation.setLongitude(11.0);
+        when(locationManager.isSignificantLocationChange(any(Location.class), eq(nearbyLocation))).thenReturn(false);
+        alertHandler.getLocationEventConsumer().consume(new LocationEvent(nearbyLocation));
+
+        assertThat(alertHandler.getCurrentLocation().getLatitude(), is(49.0));
+    }
+
+    @Test
+    public void testSignificantLocationChangeIsApplied() {
+        enableAlarmInPrefs(true);
+        alertHandler.getLocationEventConsumer().consume(new LocationEvent(location));
+
+        final Location distantLocation = new Location("");
+        distantLocation.setLatitude(50.0);
+        distantLocation.setLongitude(11.0);
+        alertHandler.getLocationEventConsumer().consume(new LocationEvent(distantLocation));
+
+        assertThat(alertHandler.getCurrentLocation().getLatitude(), is(50.0));
+    }
+
+    @Test
+    public void testEachEvaluationUsesOwnTargetStatuses() {
+        enableAlertTargets("Home:49.0,11.0");
+        final AlertStatus configuredStatus = alertHandler.getAlertTargets().get(0).getAlertStatus();
+
+        enableAlarmInPrefs(true);
+        alertHandler.getLocationEventConsumer().consume(new LocationEvent(location));
+        alertHandler.checkStrikes(strikes);
+        alertHandler.checkStrikes(strikes);
+
+        final ArgumentCaptor<List> evaluatedTargets = ArgumentCaptor.forClass(List.class);
+        verify(alertStatusHandler, times(2)).checkStrikes(evaluatedTargets.capture(), eq(strikes));
+        final AlertStatus firstStatus = ((AlertTarget) evaluatedTargets.getAllValues().get(0).get(1)).getAlertStatus();
+        final AlertStatus secondStatus = ((AlertTarget) evaluatedTargets.getAllValues().get(1).get(1)).getAlertStatus();
+        assertThat(firstStatus, is(not(sameInstance(configuredStatus))));
+        assertThat(secondStatus, is(not(sameInstance(firstStatus))));
+        assertThat(alertHandler.getAlertTargets().get(0).getAlertStatus(), is(sameInstance(configuredStatus)));
+    }
+
+    @Test
+    public void testEvaluationUsesCopyOfLocation() {
+        final AlertHandler queueingAlertHandler = createQueueingAlertHandler();
+
+        queueingAlertHandler.checkStrikes(strikes);
+        location.setLatitude(10.0);
+        runQueuedTasks();
+
+        final ArgumentCaptor<Location> evaluatedLocation = ArgumentCaptor.forClass(Location.class);
+        verify(alertStatusHandler, times(1)).checkStrikes(eq(alertStatus), eq(strikes), evaluatedLocation.capture());
+        assertThat(evaluatedLocation.getValue(), is(not(sameInstance(location))));
+        assertThat(evaluatedLocation.getValue().getLatitude(), is(49.0));
+    }
+
+    @Test
+    public void testPendingEvaluationIsReplacedByNewerInput() {
+        final AlertHandler queueingAlertHandler = createQueueingAlertHandler();
+        final Collection<Strike> newerStrikes = Lists.newArrayList();
+
+        queueingAlertHandler.checkStrikes(strikes);
+        queueingAlertHandler.checkStrikes(newerStrikes);
+
+        verify(alertStatusHandler, never()).checkStrikes(any(AlertStatus.class), anyListOf(Strike.class), any(Location.class));
+        verify(alertEventConsumer, never()).consume(isA(AlertResultEvent.class));
+
+        runQueuedTasks();
+
+        verify(alertStatusHandler, never()).checkStrikes(eq(alertStatus), eq(strikes), atLocation());
+        verify(alertStatusHandler, times(1)).checkStrikes(eq(alertStatus), eq(newerStrikes), atLocation());
+        verify(alertEventConsumer, times(1)).consume(isA(AlertResultEvent.class));
+        assertThat(queueingAlertHandler.getAlertStatus(), is(sameInstance(alertStatus)));
+    }
+
+    @Test
+    public void testResultOfInvalidatedEvaluationIsDropped() {
+        final AlertHandler queueingAlertHandler = createQueueingAlertHandler();
+
+        queueingAlertHandler.checkStrikes(strikes);
+        queuedTasks.remove(0).run();
+        queueingAlertHandler.invalidateAlert();
+        runQueuedTasks();
+
+        verify(alertStatusHandler, times(1)).checkStrikes(eq(alertStatus), eq(strikes), atLocation());
+        verify(alertEventConsumer, never()).consume(isA(AlertResultEvent.class));
+        assertThat(queueingAlertHandler.getAlertStatus(), is(nullValue()));
+    }
+
+    @Test
+    public void testRunAfterEvaluationWaitsForQueuedEvaluation() {
+        final AlertHandler queueingAlertHandler = createQueueingAlertHandler();
+        final Runnable runnable = mock(Runnable.class);
+
+        queueingAlertHandler.checkStrikes(strikes);
+        queueingAlertHandler.runAfterEvaluation(runnable);
+
+        verify(runnable, never()).run();
+
+        runQueuedTasks();
+
+        verify(runnable, times(1)).run();
+        verify(alertEventConsumer, times(1)).consume(isA(AlertResultEvent.class));
+    }
+
+    @Test
+    public void testEvaluationTimeIsRecordedWhenWorkerFinishes() {
+        final AlertHandler queueingAlertHandler = createQueueingAlertHandler();
+        final WakeAccounting wakeAccounting = mock(WakeAccounting.class);
+        queueingAlertHandler.setWakeAccounting(wakeAccounting);
+
+        queueingAlertHandler.checkStrikes(strikes);
+
+        verify(wakeAccounting, never()).recordAlertEvaluation(anyLong());
+
+        runQueuedTasks();
+
+        verify(wakeAccounting, times(1)).recordAlertEvaluation(anyLong());
+    }
+
+    private Location atLocation() {
+        return argThat(new ArgumentMatcher<Location>() {
+            @Override
+            public boolean matches(Object argument) {
+                return argument instanceof Location
+                        && ((Location) argument).getLatitude() == location.getLatitude()
+                        && ((Location) argument).getLongitude() == location.getLongitude();
+            }
+        });
+    }
+
+    private AlertHandler createQueueingAlertHandler() {
+        final AlertHandler queueingAlertHandler = new AlertHandler(locationManager, sharedPreferences, context, vibrator, notificationHandler, alertObjectFactory, alertParameters,
+                queueingExecutor, queueingExecutor);
+        queueingAlertHandler.setAlertEventConsumer(alertEventConsumer);
+        when(sharedPreferences.getBoolean(PreferenceKey.ALERT_ENABLED.toString(), false)).thenReturn(true);
+        queueingAlertHandler.onSharedPreferenceChanged(sharedPreferences, PreferenceKey.ALERT_ENABLED.toString());
+        queueingAlertHandler.getLocationEventConsumer().consume(new LocationEvent(location));
+        runQueuedTasks();
+        return queueingAlertHandler;
+    }
+
+    private void runQueuedTasks() {
+        while (!queuedTasks.isEmpty()) {
+            queuedTasks.remove(0).run();
+        }
+    }
+
+    private void evaluateAlertTargetsWith(final AlertStatus alertStatus) {
+        when(alertObjectFactory.createAlertTarget(eq(alertParameters), anyString(), any(Location.class))).thenAnswer(new Answer<AlertTarget>() {
+            @Override
+            public AlertTarget answer(InvocationOnMock invocation) throws Throwable {
+                return new AlertTarget((String) invocation.getArguments()[1], (Location) invocation.getArguments()[2], alertStatus);
+            }
+        });
+    }
+
+    private void enableAlertTargets(String alertTargets) {
+        when(alertObjectFactory.createAlertTarget(eq(alertParameters), anyString(), any(Location.class))).thenAnswer(new Answer<AlertTarget>() {
+            @Override
+            public AlertTarget answer(InvocationOnMock invocation) throws Throwable {
+                return new AlertTarget((String) invocation.getArguments()[1], (Location) invocation.getArguments()[2], mock(AlertStatus.class));
+            }
+        });
+        when(sharedPreferences.getString(PreferenceKey.ALERT_TARGETS.toString(), "")).thenReturn(alertTargets);
+        alertHandler.onSharedPreferenceChanged(sharedPreferences, PreferenceKey.ALERT_TARGETS.toString());
+    }
 }
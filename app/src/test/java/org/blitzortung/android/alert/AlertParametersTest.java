@@ -11,6 +11,7 @@ import org.robolectric.annotation.Config;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 @RunWith(RobolectricTestRunner.class)
@@ -41,6 +42,35 @@ public class AlertParametersTest {
         assertThat(rangeSteps.length, is(6));
     }
     
+    @Test
+    public void testSetSectorCount() {
+        alertParameters.setSectorCount(32);
+
+        final String[] sectorLabels = alertParameters.getSectorLabels();
+        assertThat(sectorLabels.length, is(32));
+        assertThat(sectorLabels[0], is("S"));
+        assertThat(sectorLabels[1], is("191\u00b0"));
+        assertThat(sectorLabels[16], is("N"));
+
+        alertParameters.setSectorCount(32);
+
+        assertThat(alertParameters.getSectorLabels(), is(sameInstance(sectorLabels)));
+    }
+
+    @Test
+    public void testSetRangeSteps() {
+        final float[] rangeSteps = {5f, 10f, 20f};
+
+        alertParameters.setRangeSteps(rangeSteps);
+
+        assertThat(alertParameters.getRangeSteps(), is(rangeSteps));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetRangeStepsRejectsUnorderedSteps() {
+        alertParameters.setRangeSteps(new float[]{10f, 5f});
+    }
+
     @Test
     public void testGetSetMeasurementSystem() {
         assertThat(alertParameters.getMeasurementSystem(), is(nullValue()));
@@ -49,5 +79,19 @@ public class AlertParametersTest {
 
         assertThat(alertParameters.getMeasurementSystem(), is(MeasurementSystem.METRIC));
     }
+
+    @Test
+    public void testCopy() {
+        alertParameters.setMeasurementSystem(MeasurementSystem.METRIC);
+
+        final AlertParameters copy = alertParameters.copy();
+        alertParameters.setSectorCount(4);
+        alertParameters.setRangeSteps(new float[]{5f, 10f});
+        alertParameters.setMeasurementSystem(MeasurementSystem.IMPERIAL);
+
+        assertThat(copy.getSectorLabels().length, is(8));
+        assertThat(copy.getRangeSteps().length, is(6));
+        assertThat(copy.getMeasurementSystem(), is(MeasurementSystem.METRIC));
+    }
  
 }
@@ -1,10 +1,8 @@
 package org.blitzortung.android.alert.handler;
 
 import android.location.Location;
-import com.google.common.collect.Lists;
 import org.blitzortung.android.alert.AlertParameters;
-import org.blitzortung.android.alert.object.AlertSector;
-import org.blitzortung.android.alert.object.AlertSectorRange;
+import org.blitzortung.android.alert.object.AlertGrid;
 import org.blitzortung.android.data.beans.Strike;
 import org.blitzortung.android.util.MeasurementSystem;
 import org.junit.Before;
@@ -14,16 +12,16 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyFloat;
-import static org.mockito.Mockito.*;
+import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
 public class AlertSectorHandlerTest {
-    
+
     @Mock
     private Strike strike;
-    
+
     @Mock
     private Location location;
 
@@ -34,62 +32,46 @@ public class AlertSectorHandlerTest {
 
     private long thresholdTime;
 
-    @Mock
-    private AlertSector alertSector;
-    
-    @Mock
-    private AlertSectorRange alertSectorRange1;
+    private AlertGrid alertGrid;
 
-    @Mock
-    private AlertSectorRange alertSectorRange2;
-    
     @Mock
     private AlertParameters alertParameters;
-    
+
     private final MeasurementSystem measurementSystem = MeasurementSystem.METRIC;
-    
+
     private AlertSectorHandler alertSectorHandler;
     private long beforeThresholdTime;
 
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
-        
+
         now = System.currentTimeMillis();
         thresholdTime = now - 10 * 60 * 1000;
         beforeThresholdTime = thresholdTime - 1;
-        
+
         alertSectorHandler = new AlertSectorHandler(alertParameters);
         alertSectorHandler.setCheckStrikeParameters(location, thresholdTime);
-        
-        when(alertSector.getRanges()).thenReturn(Lists.newArrayList(alertSectorRange1, alertSectorRange2));
+
+        alertGrid = new AlertGrid(2, new float[]{2.5f, 5f});
         when(alertParameters.getMeasurementSystem()).thenReturn(measurementSystem);
-        when(alertSectorRange1.getRangeMaximum()).thenReturn(2.5f);
-        when(alertSectorRange2.getRangeMaximum()).thenReturn(5f);
-    }
-    
-    @Test
-    public void testCheckWithNullAsSector()
-    {
-        alertSectorHandler.checkStrike(null, strike);
-        
-        verify(location, times(0)).distanceTo(any(Location.class));
-        verify(alertParameters, times(0)).getMeasurementSystem();
+        when(strike.getMultiplicity()).thenReturn(2);
     }
-    
+
     @Test
     public void testCheckWithinThresholdTimeAndRange1()
     {
         when(strike.getTimestamp()).thenReturn(thresholdTime);
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
         when(location.distanceTo(strikeLocation)).thenReturn(2500f);
-        
-        alertSectorHandler.checkStrike(alertSector, strike);
-        
-        verify(alertSector, times(1)).updateClosestStrikeDistance(2.5f);
-        verify(alertSectorRange1, times(1)).getRangeMaximum();
-        verify(alertSectorRange1, times(1)).addStrike(strike);
-        verify(alertSectorRange2, times(0)).getRangeMaximum();
+
+        alertSectorHandler.checkStrike(alertGrid, 1, strike);
+
+        assertThat(alertGrid.getClosestStrikeDistance(1)).isEqualTo(2.5f);
+        assertThat(alertGrid.getStrikeCount(1, 0)).isEqualTo(2);
+        assertThat(alertGrid.getLatestStrikeTimestamp(1, 0)).isEqualTo(thresholdTime);
+        assertThat(alertGrid.getStrikeCount(1, 1)).isEqualTo(0);
+        assertThat(alertGrid.getStrikeCount(0, 0)).isEqualTo(0);
     }
 
     @Test
@@ -99,13 +81,11 @@ public class AlertSectorHandlerTest {
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
         when(location.distanceTo(strikeLocation)).thenReturn(5000.1f);
 
-        alertSectorHandler.checkStrike(alertSector, strike);
+        alertSectorHandler.checkStrike(alertGrid, 1, strike);
 
-        verify(alertSector, times(0)).updateClosestStrikeDistance(anyFloat());
-        verify(alertSectorRange1, times(1)).getRangeMaximum();
-        verify(alertSectorRange1, times(0)).addStrike(any(Strike.class));
-        verify(alertSectorRange2, times(1)).getRangeMaximum();
-        verify(alertSectorRange2, times(0)).addStrike(any(Strike.class));
+        assertThat(alertGrid.getClosestStrikeDistance(1)).isEqualTo(Float.POSITIVE_INFINITY);
+        assertThat(alertGrid.getStrikeCount(1, 0)).isEqualTo(0);
+        assertThat(alertGrid.getStrikeCount(1, 1)).isEqualTo(0);
     }
 
     @Test
@@ -115,13 +95,12 @@ public class AlertSectorHandlerTest {
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
         when(location.distanceTo(strikeLocation)).thenReturn(2500.1f);
 
-        alertSectorHandler.checkStrike(alertSector, strike);
+        alertSectorHandler.checkStrike(alertGrid, 1, strike);
 
-        verify(alertSector, times(0)).updateClosestStrikeDistance(anyFloat());
-        verify(alertSectorRange1, times(1)).getRangeMaximum();
-        verify(alertSectorRange1, times(0)).addStrike(any(Strike.class));
-        verify(alertSectorRange2, times(1)).getRangeMaximum();
-        verify(alertSectorRange2, times(1)).addStrike(strike);
+        assertThat(alertGrid.getClosestStrikeDistance(1)).isEqualTo(Float.POSITIVE_INFINITY);
+        assertThat(alertGrid.getStrikeCount(1, 0)).isEqualTo(0);
+        assertThat(alertGrid.getStrikeCount(1, 1)).isEqualTo(2);
+        assertThat(alertGrid.getLatestStrikeTimestamp(1, 1)).isEqualTo(beforeThresholdTime);
     }
 
     @Test
@@ -131,12 +110,22 @@ public class AlertSectorHandlerTest {
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
         when(location.distanceTo(strikeLocation)).thenReturn(5000.1f);
 
-        alertSectorHandler.checkStrike(alertSector, strike);
+        alertSectorHandler.checkStrike(alertGrid, 1, strike);
+
+        assertThat(alertGrid.getClosestStrikeDistance(1)).isEqualTo(Float.POSITIVE_INFINITY);
+        assertThat(alertGrid.getStrikeCount(1, 0)).isEqualTo(0);
+        assertThat(alertGrid.getStrikeCount(1, 1)).isEqualTo(0);
+    }
+
+    @Test
+    public void testCheckWithGivenDistance()
+    {
+        when(strike.getTimestamp()).thenReturn(now);
+
+        alertSectorHandler.checkStrike(alertGrid, 0, strike, 4f);
 
-        verify(alertSector, times(0)).updateClosestStrikeDistance(anyFloat());
-        verify(alertSectorRange1, times(1)).getRangeMaximum();
-        verify(alertSectorRange1, times(0)).addStrike(any(Strike.class));
-        verify(alertSectorRange2, times(1)).getRangeMaximum();
-        verify(alertSectorRange2, times(0)).addStrike(any(Strike.class));
+        assertThat(alertGrid.getClosestStrikeDistance(0)).isEqualTo(4f);
+        assertThat(alertGrid.getStrikeCount(0, 1)).isEqualTo(2);
+        assertThat(alertGrid.getLatestStrikeTimestamp(0, 1)).isEqualTo(now);
     }
 }
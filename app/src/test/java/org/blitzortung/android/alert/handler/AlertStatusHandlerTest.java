@@ -4,8 +4,13 @@ import android.location.Location;
 import com.google.common.collect.Lists;
 import org.blitzortung.android.alert.AlertParameters;
 import org.blitzortung.android.alert.AlertResult;
+import org.blitzortung.android.alert.factory.AlertObjectFactory;
+import org.blitzortung.android.alert.object.AlertGrid;
 import org.blitzortung.android.alert.object.AlertSector;
+import org.blitzortung.android.alert.object.AlertSectorRange;
 import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.alert.object.AlertTarget;
+import org.blitzortung.android.data.beans.DefaultStrike;
 import org.blitzortung.android.data.beans.Strike;
 import org.blitzortung.android.util.MeasurementSystem;
 import org.junit.Before;
@@ -17,6 +22,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.List;
+
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
@@ -36,8 +43,7 @@ public class AlertStatusHandlerTest {
     @Mock
     private AlertStatus alertStatus;
 
-    @Mock
-    private AlertSector alertSector;
+    private AlertGrid alertGrid;
 
     @Mock
     private Strike strike;
@@ -57,6 +63,9 @@ public class AlertStatusHandlerTest {
 
         when(alertParameters.getAlarmInterval()).thenReturn(10 * 60 * 1000l);
         when(alertParameters.getMeasurementSystem()).thenReturn(measurementSystem);
+
+        alertGrid = new AlertGrid(8, new float[]{10f, 25f});
+        when(alertStatus.getAlertGrid()).thenReturn(alertGrid);
     }
 
     @Test
@@ -64,10 +73,7 @@ public class AlertStatusHandlerTest {
 
         Location strikeLocation = mock(Location.class);
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
-        when(location.bearingTo(strikeLocation)).thenReturn(10.0f);
-        when(alertStatus.getSectors()).thenReturn(Lists.newArrayList(alertSector));
-        when(alertSector.getMinimumSectorBearing()).thenReturn(10.0f);
-        when(alertSector.getMaximumSectorBearing()).thenReturn(15.0f);
+        when(location.bearingTo(strikeLocation)).thenReturn(-22.5f);
 
         final AlertStatus returnedAlertStatus = alertStatusHandler.checkStrikes(alertStatus, Lists.newArrayList(strike), location);
 
@@ -75,7 +81,7 @@ public class AlertStatusHandlerTest {
 
         verify(alertStatus, times(1)).clearResults();
         verify(alertSectorHandler, times(1)).setCheckStrikeParameters(eq(location), anyLong());
-        verify(alertSectorHandler, times(1)).checkStrike(alertSector, strike);
+        verify(alertSectorHandler, times(1)).checkStrike(alertGrid, 4, strike);
     }
 
     @Test
@@ -83,10 +89,7 @@ public class AlertStatusHandlerTest {
 
         Location strikeLocation = mock(Location.class);
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
-        when(location.bearingTo(strikeLocation)).thenReturn(14.999999f);
-        when(alertStatus.getSectors()).thenReturn(Lists.newArrayList(alertSector));
-        when(alertSector.getMinimumSectorBearing()).thenReturn(10.0f);
-        when(alertSector.getMaximumSectorBearing()).thenReturn(15.0f);
+        when(location.bearingTo(strikeLocation)).thenReturn(22.499998f);
 
         final AlertStatus returnedAlertStatus = alertStatusHandler.checkStrikes(alertStatus, Lists.newArrayList(strike), location);
 
@@ -94,22 +97,19 @@ public class AlertStatusHandlerTest {
 
         verify(alertStatus, times(1)).clearResults();
         verify(alertSectorHandler, times(1)).setCheckStrikeParameters(eq(location), anyLong());
-        verify(alertSectorHandler, times(1)).checkStrike(alertSector, strike);
+        verify(alertSectorHandler, times(1)).checkStrike(alertGrid, 4, strike);
     }
 
     @Test
-    public void testCheckStrikesThrowsExceptionWhenNoSectorIfFoundForBearing() {
+    public void testCheckStrikesUsesNextSectorWhenBearingIsMaximumBearingOfSector() {
 
         Location strikeLocation = mock(Location.class);
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
-        when(location.bearingTo(strikeLocation)).thenReturn(15f);
-        when(alertStatus.getSectors()).thenReturn(Lists.newArrayList(alertSector));
-        when(alertSector.getMinimumSectorBearing()).thenReturn(10.0f);
-        when(alertSector.getMaximumSectorBearing()).thenReturn(15.0f);
+        when(location.bearingTo(strikeLocation)).thenReturn(22.5f);
 
         alertStatusHandler.checkStrikes(alertStatus, Lists.newArrayList(strike), location);
 
-        verify(alertSectorHandler, times(1)).checkStrike(null, strike);
+        verify(alertSectorHandler, times(1)).checkStrike(alertGrid, 5, strike);
     }
 
     @Test
@@ -117,10 +117,7 @@ public class AlertStatusHandlerTest {
 
         Location strikeLocation = mock(Location.class);
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
-        when(location.bearingTo(strikeLocation)).thenReturn(170f);
-        when(alertStatus.getSectors()).thenReturn(Lists.newArrayList(alertSector));
-        when(alertSector.getMinimumSectorBearing()).thenReturn(170f);
-        when(alertSector.getMaximumSectorBearing()).thenReturn(-170f);
+        when(location.bearingTo(strikeLocation)).thenReturn(157.5f);
 
         final AlertStatus returnedAlertStatus = alertStatusHandler.checkStrikes(alertStatus, Lists.newArrayList(strike), location);
 
@@ -128,7 +125,7 @@ public class AlertStatusHandlerTest {
 
         verify(alertStatus, times(1)).clearResults();
         verify(alertSectorHandler, times(1)).setCheckStrikeParameters(eq(location), anyLong());
-        verify(alertSectorHandler, times(1)).checkStrike(alertSector, strike);
+        verify(alertSectorHandler, times(1)).checkStrike(alertGrid, 0, strike);
     }
 
     @Test
@@ -136,10 +133,7 @@ public class AlertStatusHandlerTest {
 
         Location strikeLocation = mock(Location.class);
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
-        when(location.bearingTo(strikeLocation)).thenReturn(-170.00001f);
-        when(alertStatus.getSectors()).thenReturn(Lists.newArrayList(alertSector));
-        when(alertSector.getMinimumSectorBearing()).thenReturn(170f);
-        when(alertSector.getMaximumSectorBearing()).thenReturn(-170f);
+        when(location.bearingTo(strikeLocation)).thenReturn(-157.50002f);
 
         final AlertStatus returnedAlertStatus = alertStatusHandler.checkStrikes(alertStatus, Lists.newArrayList(strike), location);
 
@@ -147,22 +141,33 @@ public class AlertStatusHandlerTest {
 
         verify(alertStatus, times(1)).clearResults();
         verify(alertSectorHandler, times(1)).setCheckStrikeParameters(eq(location), anyLong());
-        verify(alertSectorHandler, times(1)).checkStrike(alertSector, strike);
+        verify(alertSectorHandler, times(1)).checkStrike(alertGrid, 0, strike);
+    }
+
+    @Test
+    public void testCheckStrikesUsesNextSectorWhenBearingIsMaximumBearingOfSpecialSector() {
+
+        Location strikeLocation = mock(Location.class);
+        when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
+        when(location.bearingTo(strikeLocation)).thenReturn(-157.5f);
+
+        alertStatusHandler.checkStrikes(alertStatus, Lists.newArrayList(strike), location);
+
+        verify(alertSectorHandler, times(1)).checkStrike(alertGrid, 1, strike);
     }
 
     @Test
-    public void testCheckStrikesThrowsExceptionWhenNoSectorIfFoundForBearingInCaseOfSpecialSector() {
+    public void testCheckStrikesWithFineSectorGrid() {
+        final AlertGrid fineAlertGrid = new AlertGrid(32, new float[]{10f, 25f});
+        when(alertStatus.getAlertGrid()).thenReturn(fineAlertGrid);
 
         Location strikeLocation = mock(Location.class);
         when(strike.getLocation(any(Location.class))).thenReturn(strikeLocation);
-        when(location.bearingTo(strikeLocation)).thenReturn(-170f);
-        when(alertStatus.getSectors()).thenReturn(Lists.newArrayList(alertSector));
-        when(alertSector.getMinimumSectorBearing()).thenReturn(170f);
-        when(alertSector.getMaximumSectorBearing()).thenReturn(-170f);
+        when(location.bearingTo(strikeLocation)).thenReturn(6f);
 
         alertStatusHandler.checkStrikes(alertStatus, Lists.newArrayList(strike), location);
 
-        verify(alertSectorHandler, times(1)).checkStrike(null, strike);
+        verify(alertSectorHandler, times(1)).checkStrike(fineAlertGrid, 17, strike);
     }
 
     @Test
@@ -205,6 +210,74 @@ public class AlertStatusHandlerTest {
         assertThat(alarmText, is("S 10km, NW 30km"));
     }
 
+    @Test
+    public void testTextMessageWithStrikeRates() {
+        AlertSector alertSector1 = mockAlarmSector("N", 20f);
+        when(alertSector1.getStrikeRate()).thenReturn(2.34f);
+        when(alertSector1.isActivityRising()).thenReturn(true);
+        AlertSector alertSector2 = mockAlarmSector("S", 10f);
+        when(alertSector2.getStrikeRate()).thenReturn(0.5f);
+        AlertSector alertSector3 = mockAlarmSector("O", 25f);
+        when(alertSector3.getStrikeRate()).thenReturn(0.01f);
+
+        when(alertStatus.getSectors()).thenReturn(Lists.newArrayList(alertSector1, alertSector2, alertSector3));
+
+        final String alarmText = alertStatusHandler.getTextMessage(alertStatus, 30f);
+
+        assertThat(alarmText, is("S 10km 0.5/min, N 20km 2.3/min \u2191, O 25km"));
+    }
+
+    @Test
+    public void testCheckStrikesForMultipleTargetsMatchesSingleTargetEvaluation() {
+        final AlertObjectFactory alertObjectFactory = new AlertObjectFactory();
+        final AlertParameters realAlertParameters = new AlertParameters();
+        realAlertParameters.setSectorLabels(new String[]{"S", "W", "N", "O"});
+        realAlertParameters.setMeasurementSystem(MeasurementSystem.METRIC);
+        final AlertStatusHandler realAlertStatusHandler = new AlertStatusHandler(alertObjectFactory.createAlarmSectorHandler(realAlertParameters), realAlertParameters);
+
+        final List<AlertTarget> alertTargets = Lists.newArrayList(
+                alertObjectFactory.createAlertTarget(realAlertParameters, "home", createLocation(11.0, 49.0)),
+                alertObjectFactory.createAlertTarget(realAlertParameters, "office", createLocation(11.6, 48.1)),
+                alertObjectFactory.createAlertTarget(realAlertParameters, "field", createLocation(-75.0, 40.0)));
+
+        final List<Strike> strikes = Lists.newArrayList();
+        final long now = System.currentTimeMillis();
+        for (int index = 0; index < 200; index++) {
+            strikes.add(new DefaultStrike(now - index * 10000, 8.0f + 0.03f * index, 47.0f + 0.02f * index, 0, 10f, (short) 5, 100f));
+        }
+
+        realAlertStatusHandler.checkStrikes(alertTargets, strikes);
+
+        for (AlertTarget alertTarget : alertTargets) {
+            final AlertStatus singleAlertStatus = realAlertStatusHandler.checkStrikes(alertObjectFactory.createAlarmStatus(realAlertParameters), strikes, alertTarget.getLocation());
+            assertThat(getStrikeCounts(alertTarget.getAlertStatus()), is(getStrikeCounts(singleAlertStatus)));
+            assertThat(realAlertStatusHandler.getLatestTimstampWithin(50f, alertTarget.getAlertStatus()),
+                    is(realAlertStatusHandler.getLatestTimstampWithin(50f, singleAlertStatus)));
+        }
+        assertThat(getStrikeCounts(alertTargets.get(2).getAlertStatus()), is(new int[24]));
+    }
+
+    private static int[] getStrikeCounts(AlertStatus alertStatus) {
+        final List<Integer> counts = Lists.newArrayList();
+        for (AlertSector sector : alertStatus.getSectors()) {
+            for (AlertSectorRange range : sector.getRanges()) {
+                counts.add(range.getStrikeCount());
+            }
+        }
+        final int[] result = new int[counts.size()];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = counts.get(index);
+        }
+        return result;
+    }
+
+    private static Location createLocation(double longitude, double latitude) {
+        final Location location = new Location("");
+        location.setLongitude(longitude);
+        location.setLatitude(latitude);
+        return location;
+    }
+
     private AlertSector mockAlarmSector(String label, float distance) {
         AlertSector mockedAlertSector = mock(AlertSector.class);
         when(mockedAlertSector.getLabel()).thenReturn(label);
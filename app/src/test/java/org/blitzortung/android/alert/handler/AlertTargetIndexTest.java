@@ -0,0 +1,84 @@
+package org.blitzortung.android.alert.handler;
+
+import android.location.Location;
+import com.google.common.collect.Lists;
+import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.alert.object.AlertTarget;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricTestRunner.class)
+public class AlertTargetIndexTest {
+
+    private AlertTarget home;
+
+    private AlertTarget office;
+
+    private AlertTarget polar;
+
+    private AlertTargetIndex alertTargetIndex;
+
+    @Before
+    public void setUp() {
+        home = createTarget("home", 11.0, 49.0);
+        office = createTarget("office", 11.6, 48.1);
+        polar = createTarget("polar", 0.0, 89.5);
+
+        alertTargetIndex = new AlertTargetIndex(Lists.newArrayList(home, office, polar, new AlertTarget("unset", null, mock(AlertStatus.class))), 50000f);
+    }
+
+    @Test
+    public void testCandidatesContainNearbyTargets() {
+        final List<AlertTarget> targets = getContainingTargets(11.3, 48.55);
+
+        assertThat(targets).containsOnly(home, office);
+    }
+
+    @Test
+    public void testBoundingBoxesRejectDistantTargets() {
+        assertThat(getContainingTargets(11.0, 49.4)).containsOnly(home);
+        assertThat(getContainingTargets(11.0, 49.5)).isEmpty();
+        assertThat(getContainingTargets(-75.0, 40.0)).isEmpty();
+        assertThat(alertTargetIndex.getCandidates(-75.0, 40.0)).isEmpty();
+    }
+
+    @Test
+    public void testBoundingBoxIsConservative() {
+        final float[] results = new float[1];
+        Location.distanceBetween(49.0, 11.0, 49.0 + 0.449, 11.0, results);
+        assertThat(results[0]).isLessThan(50000f);
+
+        assertThat(getContainingTargets(11.0, 49.0 + 0.449)).contains(home);
+        assertThat(getContainingTargets(11.0 + 0.68, 49.0)).contains(home);
+    }
+
+    @Test
+    public void testPolarTargetsCoverAllLongitudes() {
+        assertThat(getContainingTargets(179.0, 89.8)).containsOnly(polar);
+        assertThat(getContainingTargets(-120.0, 89.2)).containsOnly(polar);
+    }
+
+    private List<AlertTarget> getContainingTargets(double longitude, double latitude) {
+        final List<AlertTarget> targets = Lists.newArrayList();
+        for (AlertTargetIndex.Entry entry : alertTargetIndex.getCandidates(longitude, latitude)) {
+            if (entry.contains(longitude, latitude)) {
+                targets.add(entry.getAlertTarget());
+            }
+        }
+        return targets;
+    }
+
+    private static AlertTarget createTarget(String name, double longitude, double latitude) {
+        final Location location = new Location("");
+        location.setLongitude(longitude);
+        location.setLatitude(latitude);
+        return new AlertTarget(name, location, mock(AlertStatus.class));
+    }
+}
@@ -0,0 +1,203 @@
+package org.blitzortung.android.alert.handler;
+
+import android.location.Location;
+import com.google.common.collect.Lists;
+import org.blitzortung.android.alert.object.StormCell;
+import org.blitzortung.android.data.beans.DefaultStrike;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@RunWith(RobolectricTestRunner.class)
+public class StormCellTrackerTest {
+
+    private static final long START_TIME = 1381068000000L;
+
+    private static final long MINUTE = 60 * 1000;
+
+    private static final double KM_PER_DEGREE = 111.195;
+
+    private StormCellTracker stormCellTracker;
+
+    private Random random;
+
+    @Before
+    public void setUp() {
+        stormCellTracker = new StormCellTracker();
+        random = new Random(42);
+    }
+
+    @Test
+    public void testMovingCellIsTrackedWithVelocity() {
+        final int[] ids = new int[20];
+        for (int minute = 1; minute <= 20; minute++) {
+            stormCellTracker.update(createCellStrikes(minute, 10.0, 48.0, 1.0, 0.0), true, START_TIME + minute * MINUTE);
+            final List<StormCell> stormCells = stormCellTracker.getStormCells(null);
+            assertThat(stormCells).hasSize(1);
+            ids[minute - 1] = stormCells.get(0).getId();
+        }
+        assertThat(ids).containsOnly(ids[0]);
+
+        final StormCell stormCell = stormCellTracker.getStormCells(null).get(0);
+        assertThat(stormCell.getNumberOfStrikes()).isEqualTo(20 * 30);
+        assertThat(stormCell.getSpeed()).isCloseTo(1000f / 60f, within(3f));
+        assertThat(stormCell.getDirection()).isCloseTo(90f, within(10f));
+        assertThat(stormCell.getLongitude()).isCloseTo((float) (10.0 + 20.0 / (KM_PER_DEGREE * Math.cos(Math.toRadians(48.0)))), within(0.05f));
+        assertThat(stormCell.getLatitude()).isCloseTo(48.0f, within(0.05f));
+    }
+
+    @Test
+    public void testApproachingCellHasTimeOfArrival() {
+        trackCell(1.0, 0.0);
+
+        final Location location = createLocation(10.0 + 80.0 / (KM_PER_DEGREE * Math.cos(Math.toRadians(48.0))), 48.0);
+        final StormCell stormCell = stormCellTracker.getStormCells(location).get(0);
+
+        assertThat(stormCell.isApproaching()).isTrue();
+        assertThat(stormCell.getDistance()).isCloseTo(60000f, within(5000f));
+        assertThat(stormCell.getBearing()).isCloseTo(270f, within(10f));
+        assertThat(stormCell.getTimeOfArrival()).isBetween(45 * MINUTE, 65 * MINUTE);
+        assertThat(stormCell.getClosestApproach()).isLessThan(stormCell.getRadius());
+    }
+
+    @Test
+    public void testRecedingCellIsNotApproaching() {
+        trackCell(1.0, 0.0);
+
+        final Location location = createLocation(9.5, 48.0);
+        final StormCell stormCell = stormCellTracker.getStormCells(location).get(0);
+
+        assertThat(stormCell.isApproaching()).isFalse();
+        assertThat(stormCell.getTimeOfArrival()).isEqualTo(StormCell.NOT_APPROACHING);
+        assertThat(stormCell.getClosestApproach()).isEqualTo(stormCell.getDistance());
+    }
+
+    @Test
+    public void testPassingCellReportsClosestApproach() {
+        trackCell(1.0, 0.0);
+
+        final Location location = createLocation(10.0 + 80.0 / (KM_PER_DEGREE * Math.cos(Math.toRadians(48.0))), 48.0 + 40.0 / KM_PER_DEGREE);
+        final StormCell stormCell = stormCellTracker.getStormCells(location).get(0);
+
+        assertThat(stormCell.isApproaching()).isFalse();
+        assertThat(stormCell.getClosestApproach()).isCloseTo(40000f, within(8000f));
+    }
+
+    @Test
+    public void testLocationInsideCellArrivesImmediately() {
+        trackCell(1.0, 0.0);
+
+        final StormCell stormCell = stormCellTracker.getStormCells(null).get(0);
+        final StormCell coveredStormCell = stormCellTracker.getStormCells(createLocation(stormCell.getLongitude(), stormCell.getLatitude())).get(0);
+
+        assertThat(coveredStormCell.isApproaching()).isTrue();
+        assertThat(coveredStormCell.getTimeOfArrival()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSeparateCellsAreOrderedByRelevance() {
+        for (int minute = 1; minute <= 10; minute++) {
+            final List<StrikeAbstract> strikes = createCellStrikes(minute, 10.0, 48.0, 0.0, -1.0);
+            strikes.addAll(createCellStrikes(minute, 12.0, 48.0, 0.0, 0.0));
+            stormCellTracker.update(strikes, true, START_TIME + minute * MINUTE);
+        }
+
+        final List<StormCell> stormCells = stormCellTracker.getStormCells(createLocation(10.0, 47.5));
+
+        assertThat(stormCells).hasSize(2);
+        assertThat(stormCells.get(0).getId()).isNotEqualTo(stormCells.get(1).getId());
+        assertThat(stormCells.get(0).isApproaching()).isTrue();
+        assertThat(stormCells.get(0).getLongitude()).isCloseTo(10.0f, within(0.1f));
+        assertThat(stormCells.get(1).isApproaching()).isFalse();
+        assertThat(stormCells.get(1).getSpeed()).isLessThan(3f);
+    }
+
+    @Test
+    public void testSparseStrikesDoNotFormCells() {
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+        for (int index = 0; index < 20; index++) {
+            strikes.add(createStrike(START_TIME + index * 1000, 5.0 + index, 48.0));
+        }
+
+        stormCellTracker.update(strikes, true, START_TIME + MINUTE);
+
+        assertThat(stormCellTracker.getStormCells(null)).isEmpty();
+        assertThat(stormCellTracker.getNumberOfStrikes()).isEqualTo(20);
+    }
+
+    @Test
+    public void testIncrementalAndFullUpdatesBuildTheSameGrid() {
+        final List<StrikeAbstract> allStrikes = Lists.newArrayList();
+        for (int minute = 1; minute <= 10; minute++) {
+            final List<StrikeAbstract> strikes = createCellStrikes(minute, 10.0, 48.0, 1.0, 0.5);
+            allStrikes.addAll(strikes);
+            stormCellTracker.update(strikes, true, START_TIME + minute * MINUTE);
+        }
+
+        final StormCellTracker fullStormCellTracker = new StormCellTracker();
+        fullStormCellTracker.update(allStrikes, false, START_TIME + 10 * MINUTE);
+
+        assertThat(stormCellTracker.getNumberOfGridCells()).isEqualTo(fullStormCellTracker.getNumberOfGridCells());
+        assertThat(stormCellTracker.getStormCells(null).get(0).getNumberOfStrikes())
+                .isEqualTo(fullStormCellTracker.getStormCells(null).get(0).getNumberOfStrikes());
+    }
+
+    @Test
+    public void testStrikesExpireAfterTrackingWindow() {
+        trackCell(1.0, 0.0);
+
+        stormCellTracker.update(Lists.<StrikeAbstract>newArrayList(), true, START_TIME + 20 * MINUTE + StormCellTracker.DEFAULT_TRACKING_WINDOW);
+
+        assertThat(stormCellTracker.getNumberOfStrikes()).isEqualTo(0);
+        assertThat(stormCellTracker.getNumberOfGridCells()).isEqualTo(0);
+        assertThat(stormCellTracker.getStormCells(null)).isEmpty();
+    }
+
+    @Test
+    public void testClear() {
+        trackCell(1.0, 0.0);
+
+        stormCellTracker.clear();
+
+        assertThat(stormCellTracker.getNumberOfStrikes()).isEqualTo(0);
+        assertThat(stormCellTracker.getStormCells(null)).isEmpty();
+    }
+
+    private void trackCell(double eastSpeed, double northSpeed) {
+        for (int minute = 1; minute <= 20; minute++) {
+            stormCellTracker.update(createCellStrikes(minute, 10.0, 48.0, eastSpeed, northSpeed), true, START_TIME + minute * MINUTE);
+        }
+    }
+
+    private List<StrikeAbstract> createCellStrikes(int minute, double longitude, double latitude, double eastSpeed, double northSpeed) {
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+        final double kmPerDegreeLongitude = KM_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        for (int index = 0; index < 30; index++) {
+            final long timestamp = START_TIME + (minute - 1) * MINUTE + index * 2000;
+            final double minutes = (timestamp - START_TIME) / (double) MINUTE;
+            final double x = eastSpeed * minutes + random.nextGaussian() * 3.0;
+            final double y = northSpeed * minutes + random.nextGaussian() * 3.0;
+            strikes.add(createStrike(timestamp, longitude + x / kmPerDegreeLongitude, latitude + y / KM_PER_DEGREE));
+        }
+        return strikes;
+    }
+
+    private static DefaultStrike createStrike(long timestamp, double longitude, double latitude) {
+        return new DefaultStrike(timestamp, (float) longitude, (float) latitude, 0, 10f, (short) 5, 100f);
+    }
+
+    private static Location createLocation(double longitude, double latitude) {
+        final Location location = new Location("");
+        location.setLongitude(longitude);
+        location.setLatitude(latitude);
+        return location;
+    }
+}
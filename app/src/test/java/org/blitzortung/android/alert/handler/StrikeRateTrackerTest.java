@@ -0,0 +1,158 @@
+package org.blitzortung.android.alert.handler;
+
+import android.location.Location;
+import com.google.common.collect.Lists;
+import org.blitzortung.android.alert.AlertParameters;
+import org.blitzortung.android.alert.object.AlertGrid;
+import org.blitzortung.android.data.beans.DefaultStrike;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.util.MeasurementSystem;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@RunWith(RobolectricTestRunner.class)
+public class StrikeRateTrackerTest {
+
+    private static final int NORTH = 2;
+
+    private static final long NOW_BUCKET = 400000;
+
+    private final long now = NOW_BUCKET * StrikeRateTracker.BUCKET_DURATION + 30000;
+
+    private final Location location = createLocation(11.0, 49.0);
+
+    private AlertParameters alertParameters;
+
+    private AlertGrid alertGrid;
+
+    private StrikeRateTracker strikeRateTracker;
+
+    @Before
+    public void setUp() {
+        alertParameters = new AlertParameters();
+        alertParameters.setSectorLabels(new String[]{"S", "W", "N", "O"});
+
+        alertGrid = new AlertGrid(4, alertParameters.getRangeSteps());
+        strikeRateTracker = new StrikeRateTracker();
+    }
+
+    @Test
+    public void testSteadyActivity() {
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+        for (int minute = 0; minute < StrikeRateTracker.BUCKET_COUNT; minute++) {
+            strikes.add(createStrikeNorth(minute));
+        }
+
+        strikeRateTracker.update(location, strikes, 0, alertGrid, MeasurementSystem.METRIC, now);
+
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(30);
+        assertThat(alertGrid.getStrikeRate(NORTH, 1)).isEqualTo(1f);
+        assertThat(alertGrid.getStrikeRateSlope(NORTH, 1)).isEqualTo(0f, within(1e-6f));
+        assertThat(alertGrid.getStrikeRate(NORTH, 0)).isEqualTo(0f);
+        assertThat(alertGrid.isActivityRising(NORTH)).isFalse();
+    }
+
+    @Test
+    public void testRisingActivity() {
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+        for (int bucketIndex = 0; bucketIndex < StrikeRateTracker.BUCKET_COUNT; bucketIndex++) {
+            for (int count = 0; count < bucketIndex; count++) {
+                strikes.add(createStrikeNorth(StrikeRateTracker.BUCKET_COUNT - 1 - bucketIndex));
+            }
+        }
+
+        strikeRateTracker.update(location, strikes, 0, alertGrid, MeasurementSystem.METRIC, now);
+
+        assertThat(alertGrid.getStrikeRate(NORTH, 1)).isEqualTo(14.5f);
+        assertThat(alertGrid.getStrikeRateSlope(NORTH, 1)).isEqualTo(1f, within(1e-4f));
+        assertThat(alertGrid.isActivityRising(NORTH)).isTrue();
+        assertThat(alertGrid.isActivityRising(0)).isFalse();
+    }
+
+    @Test
+    public void testStrikesAgeOut() {
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+        for (int minute = 0; minute < StrikeRateTracker.BUCKET_COUNT; minute++) {
+            strikes.add(createStrikeNorth(minute));
+        }
+        strikeRateTracker.update(location, strikes, 0, alertGrid, MeasurementSystem.METRIC, now);
+
+        strikeRateTracker.update(location, strikes, 0, alertGrid, MeasurementSystem.METRIC, now + 10 * StrikeRateTracker.BUCKET_DURATION);
+
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(20);
+        assertThat(alertGrid.getStrikeRateSlope(NORTH, 1)).isLessThan(0f);
+
+        strikeRateTracker.update(location, strikes, 0, alertGrid, MeasurementSystem.METRIC, now + 100 * StrikeRateTracker.BUCKET_DURATION);
+
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(0);
+        assertThat(alertGrid.getStrikeRate(NORTH, 1)).isEqualTo(0f);
+        assertThat(alertGrid.getStrikeRateSlope(NORTH, 1)).isEqualTo(0f);
+    }
+
+    @Test
+    public void testIncrementalStrikesAreAddedOnce() {
+        strikeRateTracker.update(location, Collections.<StrikeAbstract>emptyList(), 1, alertGrid, MeasurementSystem.METRIC, now);
+
+        final List<StrikeAbstract> strikes = Lists.<StrikeAbstract>newArrayList(createStrikeNorth(0), createStrikeNorth(1));
+        strikeRateTracker.add(strikes, 1);
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(0);
+
+        strikeRateTracker.add(strikes, 2);
+        strikeRateTracker.add(strikes, 2);
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(2);
+    }
+
+    @Test
+    public void testNewerStrikesAdvanceTheWindow() {
+        strikeRateTracker.update(location, Lists.<StrikeAbstract>newArrayList(createStrikeNorth(29)), 0, alertGrid, MeasurementSystem.METRIC, now);
+
+        strikeRateTracker.add(Lists.<StrikeAbstract>newArrayList(createStrikeNorth(-1)), 1);
+
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(1);
+    }
+
+    @Test
+    public void testLocationChangeRebuildsCounters() {
+        final List<StrikeAbstract> strikes = Lists.<StrikeAbstract>newArrayList(createStrikeNorth(0), createStrikeNorth(1));
+        strikeRateTracker.update(location, strikes, 0, alertGrid, MeasurementSystem.METRIC, now);
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(2);
+
+        strikeRateTracker.update(createLocation(11.0, 48.9), strikes, 0, alertGrid, MeasurementSystem.METRIC, now);
+
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(0);
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 2)).isEqualTo(2);
+    }
+
+    @Test
+    public void testClear() {
+        final List<StrikeAbstract> strikes = Lists.<StrikeAbstract>newArrayList(createStrikeNorth(0));
+        strikeRateTracker.update(location, strikes, 0, alertGrid, MeasurementSystem.METRIC, now);
+
+        strikeRateTracker.clear();
+        strikeRateTracker.add(strikes, 1);
+
+        assertThat(strikeRateTracker.getStrikeCount(NORTH, 1)).isEqualTo(0);
+        assertThat(strikeRateTracker.getStrikeRate(NORTH, 1)).isEqualTo(0f);
+        assertThat(strikeRateTracker.getStrikeRateSlope(NORTH, 1)).isEqualTo(0f);
+    }
+
+    private StrikeAbstract createStrikeNorth(int minutesAgo) {
+        final long timestamp = (NOW_BUCKET - minutesAgo) * StrikeRateTracker.BUCKET_DURATION + 1000;
+        return new DefaultStrike(timestamp, 11.0f, 49.15f, 0, 10f, (short) 5, 100f);
+    }
+
+    private static Location createLocation(double longitude, double latitude) {
+        final Location location = new Location("");
+        location.setLongitude(longitude);
+        location.setLatitude(latitude);
+        return location;
+    }
+}
@@ -0,0 +1,123 @@
+package org.blitzortung.android.alert.object;
+
+import org.blitzortung.android.alert.AlertParameters;
+import org.blitzortung.android.alert.factory.AlertObjectFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@RunWith(RobolectricTestRunner.class)
+public class AlertGridTest {
+
+    private final float[] rangeSteps = new float[]{10, 25, 50, 100, 250, 500};
+
+    private AlertGrid alertGrid;
+
+    @Before
+    public void setUp() {
+        alertGrid = new AlertGrid(8, rangeSteps);
+    }
+
+    @Test
+    public void testSectorIndexMatchesSectorBearings() {
+        for (int sectorCount : new int[]{4, 8, 16, 32}) {
+            final AlertParameters alertParameters = new AlertParameters();
+            alertParameters.setSectorLabels(new String[]{"S", "W", "N", "E"});
+            alertParameters.setSectorCount(sectorCount);
+            final AlertStatus alertStatus = new AlertStatus(new AlertObjectFactory(), alertParameters);
+            final AlertGrid grid = alertStatus.getAlertGrid();
+
+            for (AlertSector sector : alertStatus.getSectors()) {
+                final float minimumBearing = sector.getMinimumSectorBearing();
+                final float centerBearing = minimumBearing + 180f / sectorCount;
+                assertThat(grid.getSectorIndex(minimumBearing)).isEqualTo(sector.getSectorIndex());
+                assertThat(grid.getSectorIndex(centerBearing > 180f ? centerBearing - 360f : centerBearing)).isEqualTo(sector.getSectorIndex());
+            }
+        }
+    }
+
+    @Test
+    public void testSectorIndexWrapsAround() {
+        assertThat(alertGrid.getSectorIndex(-180.0)).isEqualTo(0);
+        assertThat(alertGrid.getSectorIndex(180.0)).isEqualTo(0);
+        assertThat(alertGrid.getSectorIndex(0.0)).isEqualTo(4);
+        assertThat(alertGrid.getSectorIndex(-157.5)).isEqualTo(1);
+        assertThat(alertGrid.getSectorIndex(157.4)).isEqualTo(7);
+    }
+
+    @Test
+    public void testRangeIndex() {
+        assertThat(alertGrid.getRangeIndex(0f)).isEqualTo(0);
+        assertThat(alertGrid.getRangeIndex(10f)).isEqualTo(0);
+        assertThat(alertGrid.getRangeIndex(10.01f)).isEqualTo(1);
+        assertThat(alertGrid.getRangeIndex(99f)).isEqualTo(3);
+        assertThat(alertGrid.getRangeIndex(500f)).isEqualTo(5);
+        assertThat(alertGrid.getRangeIndex(500.01f)).isEqualTo(-1);
+        assertThat(alertGrid.getRangeIndex(Float.NaN)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testRangeIndexMatchesLinearSearch() {
+        for (float distance = 0f; distance < 600f; distance += 0.7f) {
+            int expectedIndex = -1;
+            for (int rangeIndex = 0; rangeIndex < rangeSteps.length; rangeIndex++) {
+                if (distance <= rangeSteps[rangeIndex]) {
+                    expectedIndex = rangeIndex;
+                    break;
+                }
+            }
+            assertThat(alertGrid.getRangeIndex(distance)).isEqualTo(expectedIndex);
+        }
+    }
+
+    @Test
+    public void testAddStrikeAndClear() {
+        alertGrid.addStrike(3, 2, 5000l, 2);
+        alertGrid.addStrike(3, 2, 1000l, 1);
+        alertGrid.updateClosestStrikeDistance(3, 40f);
+        alertGrid.updateClosestStrikeDistance(3, 45f);
+
+        assertThat(alertGrid.getStrikeCount(3, 2)).isEqualTo(3);
+        assertThat(alertGrid.getLatestStrikeTimestamp(3, 2)).isEqualTo(5000l);
+        assertThat(alertGrid.getClosestStrikeDistance(3)).isEqualTo(40f);
+        assertThat(alertGrid.getStrikeCount(2, 2)).isEqualTo(0);
+        assertThat(alertGrid.getStrikeCount(3, 3)).isEqualTo(0);
+
+        alertGrid.clear();
+
+        assertThat(alertGrid.getStrikeCount(3, 2)).isEqualTo(0);
+        assertThat(alertGrid.getLatestStrikeTimestamp(3, 2)).isEqualTo(0l);
+        assertThat(alertGrid.getClosestStrikeDistance(3)).isEqualTo(Float.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void testStrikeRates() {
+        alertGrid.setStrikeRate(3, 1, 0.5f, 0.01f);
+        alertGrid.setStrikeRate(3, 2, 1.5f, 0.04f);
+
+        assertThat(alertGrid.getStrikeRate(3, 2)).isEqualTo(1.5f);
+        assertThat(alertGrid.getStrikeRateSlope(3, 2)).isEqualTo(0.04f);
+        assertThat(alertGrid.getSectorStrikeRate(3)).isEqualTo(2f);
+        assertThat(alertGrid.getSectorStrikeRateSlope(3)).isEqualTo(0.05f, within(1e-6f));
+        assertThat(alertGrid.isActivityRising(3)).isFalse();
+
+        alertGrid.setStrikeRate(3, 3, 0f, 0.02f);
+        assertThat(alertGrid.isActivityRising(3)).isTrue();
+
+        alertGrid.clearSector(3);
+
+        assertThat(alertGrid.getSectorStrikeRate(3)).isEqualTo(0f);
+        assertThat(alertGrid.isActivityRising(3)).isFalse();
+    }
+
+    @Test
+    public void testWeakActivityIsNotRising() {
+        alertGrid.setStrikeRate(1, 0, 0.1f, 0.1f);
+
+        assertThat(alertGrid.isActivityRising(1)).isFalse();
+    }
+}
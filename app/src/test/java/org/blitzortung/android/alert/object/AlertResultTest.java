@@ -47,4 +47,10 @@ public class AlertResultTest {
     {
         assertThat(alertResult.getDistanceUnitName(), is("km"));
     }
+
+    @Test
+    public void testIsActivityRising() {
+        when(alertSector.isActivityRising()).thenReturn(true);
+        assertThat(alertResult.isActivityRising(), is(true));
+    }
 }
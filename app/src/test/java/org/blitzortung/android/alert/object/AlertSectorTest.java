@@ -1,6 +1,5 @@
 package org.blitzortung.android.alert.object;
 
-import org.blitzortung.android.alert.AlertParameters;
 import org.blitzortung.android.alert.factory.AlertObjectFactory;
 import org.junit.Before;
 import org.junit.Test;
@@ -12,8 +11,6 @@ import org.robolectric.RobolectricTestRunner;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
@@ -22,8 +19,7 @@ public class AlertSectorTest {
     @Mock
     private AlertObjectFactory alertObjectFactory;
 
-    @Mock
-    private AlertParameters alertParameters;
+    private AlertGrid alertGrid;
 
     private final String sectorLabel = "foo";
 
@@ -43,23 +39,25 @@ public class AlertSectorTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        when(alertParameters.getSectorLabels()).thenReturn(new String[]{"eins", "zwei"});
-        when(alertParameters.getRangeSteps()).thenReturn(new float[]{10f, 20f});
-        when(alertObjectFactory.createAlarmSectorRange(0.0f, 10.0f)).thenReturn(alertSectorRange1);
-        when(alertObjectFactory.createAlarmSectorRange(10.0f, 20.0f)).thenReturn(alertSectorRange2);
+        alertGrid = new AlertGrid(2, new float[]{10f, 20f});
+        when(alertObjectFactory.createAlarmSectorRange(alertGrid, 1, 0)).thenReturn(alertSectorRange1);
+        when(alertObjectFactory.createAlarmSectorRange(alertGrid, 1, 1)).thenReturn(alertSectorRange2);
 
-        alertSector = new AlertSector(alertObjectFactory, alertParameters, sectorLabel, minimumBearing, maximumBearing);
+        alertSector = new AlertSector(alertObjectFactory, alertGrid, 1, sectorLabel, minimumBearing, maximumBearing);
     }
 
     @Test
     public void testClearResults() {
         alertSector.updateClosestStrikeDistance(10.0f);
+        alertGrid.addStrike(1, 1, 1000l, 2);
+        alertGrid.addStrike(0, 1, 1000l, 3);
         
         alertSector.clearResults();
 
-        //assertThat(alertSector.getClosestStrikeDistance()).isEqualTo(Float.POSITIVE_INFINITY);
-        verify(alertSectorRange1, times(1)).clearResults();
-        verify(alertSectorRange2, times(1)).clearResults();
+        assertThat(alertSector.getClosestStrikeDistance()).isEqualTo(Float.POSITIVE_INFINITY);
+        assertThat(alertGrid.getStrikeCount(1, 1)).isEqualTo(0);
+        assertThat(alertGrid.getLatestStrikeTimestamp(1, 1)).isEqualTo(0l);
+        assertThat(alertGrid.getStrikeCount(0, 1)).isEqualTo(3);
     }
 
     @Test
@@ -70,6 +68,11 @@ public class AlertSectorTest {
         assertThat(ranges).contains(alertSectorRange1, alertSectorRange2);
     }
 
+    @Test
+    public void testGetSectorIndex() {
+        assertThat(alertSector.getSectorIndex()).isEqualTo(1);
+    }
+
     @Test
     public void testGetMinimumSectorBearing() {
         assertThat(alertSector.getMinimumSectorBearing()).isEqualTo(minimumBearing);
@@ -36,16 +36,31 @@ public class AlertStatusTest {
         MockitoAnnotations.initMocks(this);
 
         when(alertParameters.getSectorLabels()).thenReturn(new String[]{"foo", "bar"});
-        when(alertObjectFactory.createAlarmSector(alertParameters, "foo", 90f, -90f)).thenReturn(alertSector1);
-        when(alertObjectFactory.createAlarmSector(alertParameters, "bar", -90f, 90f)).thenReturn(alertSector2);
+        when(alertParameters.getRangeSteps()).thenReturn(new float[]{10f, 20f, 50f});
+        when(alertObjectFactory.createAlarmSector(any(AlertGrid.class), eq(0), eq("foo"), eq(90f), eq(-90f))).thenReturn(alertSector1);
+        when(alertObjectFactory.createAlarmSector(any(AlertGrid.class), eq(1), eq("bar"), eq(-90f), eq(90f))).thenReturn(alertSector2);
 
         alertStatus = new AlertStatus(alertObjectFactory, alertParameters);
     }
     
     @Test
     public void testConstruct() {
-        verify(alertObjectFactory, times(1)).createAlarmSector(alertParameters, "foo", 90f, -90f);
-        verify(alertObjectFactory, times(1)).createAlarmSector(alertParameters, "bar", -90f, 90f);
+        verify(alertObjectFactory, times(1)).createAlarmSector(alertStatus.getAlertGrid(), 0, "foo", 90f, -90f);
+        verify(alertObjectFactory, times(1)).createAlarmSector(alertStatus.getAlertGrid(), 1, "bar", -90f, 90f);
+    }
+
+    @Test
+    public void testGetAlertGrid() {
+        final AlertGrid alertGrid = alertStatus.getAlertGrid();
+
+        assertThat(alertGrid.getSectorCount()).isEqualTo(2);
+        assertThat(alertGrid.getRangeCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testGetSector() {
+        assertThat(alertStatus.getSector(0)).isSameAs(alertSector1);
+        assertThat(alertStatus.getSector(1)).isSameAs(alertSector2);
     }
 
     @Test
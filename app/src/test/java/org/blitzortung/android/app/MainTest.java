@@ -51,6 +51,7 @@ public class MainTest {
     public void testCreateStatusTextWithStrikeNumberSet()
     {
         when(strikesOverlay.getTotalNumberOfStrikes()).thenReturn(1234);
+        when(strikesOverlay.getVisibleNumberOfStrikes()).thenReturn(1234);
 
         main.setStatusString("foo");
 
@@ -60,6 +61,20 @@ public class MainTest {
         assertThat(argument.getValue(), is("1234 strikes/0 minutes foo"));
     }
 
+    @Test
+    public void testCreateStatusTextWithVisibleStrikeNumber()
+    {
+        when(strikesOverlay.getTotalNumberOfStrikes()).thenReturn(1234);
+        when(strikesOverlay.getVisibleNumberOfStrikes()).thenReturn(56);
+
+        main.setStatusString("foo");
+
+        ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
+        verify(statusComponent, times(1)).setText(argument.capture());
+
+        assertThat(argument.getValue(), is("56/1234 strikes/0 minutes foo"));
+    }
+
     @Test
     public void testRunWithRasterAndListenerSet()
     {
@@ -0,0 +1,101 @@
+package org.blitzortung.android.app;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.graphics.Canvas;
+import android.widget.RemoteViews;
+import org.blitzortung.android.alert.event.AlertEvent;
+import org.blitzortung.android.app.view.AlertView;
+import org.blitzortung.android.map.overlay.color.ColorHandler;
+import org.blitzortung.android.protocol.Consumer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class WidgetRendererTest {
+
+    @Mock
+    private AppWidgetManager appWidgetManager;
+
+    @Mock
+    private AlertView alertView;
+
+    @Mock
+    private ColorHandler colorHandler;
+
+    @Mock
+    private Consumer<AlertEvent> alertViewConsumer;
+
+    @Mock
+    private AlertEvent alertEvent;
+
+    private WidgetRenderer widgetRenderer;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(alertView.getAlertEventConsumer()).thenReturn(alertViewConsumer);
+
+        widgetRenderer = new WidgetRenderer(RuntimeEnvironment.application, appWidgetManager, alertView, colorHandler);
+        widgetRenderer.setIntervalDuration(60);
+    }
+
+    @Test
+    public void testConsumeWithoutWidgets() {
+        when(appWidgetManager.getAppWidgetIds(any(ComponentName.class))).thenReturn(new int[0]);
+
+        widgetRenderer.consume(alertEvent);
+
+        verify(alertViewConsumer, never()).consume(any(AlertEvent.class));
+        verify(appWidgetManager, never()).updateAppWidget(any(int[].class), any(RemoteViews.class));
+    }
+
+    @Test
+    public void testConsumeRendersAndUpdatesWidgets() {
+        final int[] appWidgetIds = {5};
+        when(appWidgetManager.getAppWidgetIds(any(ComponentName.class))).thenReturn(appWidgetIds);
+
+        widgetRenderer.consume(alertEvent);
+
+        verify(alertView).setColorHandler(colorHandler, 60);
+        verify(alertViewConsumer).consume(alertEvent);
+        verify(alertView).draw(any(Canvas.class));
+        verify(appWidgetManager).updateAppWidget(eq(appWidgetIds), any(RemoteViews.class));
+    }
+
+    @Test
+    public void testConsumeSkipsUnchangedState() {
+        final int[] appWidgetIds = {5};
+        when(appWidgetManager.getAppWidgetIds(any(ComponentName.class))).thenReturn(appWidgetIds);
+        when(alertView.getStateHash()).thenReturn(42);
+
+        widgetRenderer.consume(alertEvent);
+        widgetRenderer.consume(alertEvent);
+
+        verify(alertView, times(1)).draw(any(Canvas.class));
+        verify(appWidgetManager, times(1)).updateAppWidget(eq(appWidgetIds), any(RemoteViews.class));
+    }
+
+    @Test
+    public void testConsumeUpdatesChangedState() {
+        final int[] appWidgetIds = {5};
+        when(appWidgetManager.getAppWidgetIds(any(ComponentName.class))).thenReturn(appWidgetIds);
+        when(alertView.getStateHash()).thenReturn(42, 43);
+
+        widgetRenderer.consume(alertEvent);
+        widgetRenderer.consume(alertEvent);
+
+        verify(alertView, times(2)).draw(any(Canvas.class));
+        verify(appWidgetManager, times(2)).updateAppWidget(eq(appWidgetIds), any(RemoteViews.class));
+    }
+}
@@ -0,0 +1,155 @@
+package org.blitzortung.android.app.view;
+
+import com.google.common.collect.Lists;
+import org.blitzortung.android.alert.AlertParameters;
+import org.blitzortung.android.alert.event.AlertCancelEvent;
+import org.blitzortung.android.alert.event.AlertResultEvent;
+import org.blitzortung.android.alert.object.AlertSector;
+import org.blitzortung.android.alert.object.AlertSectorRange;
+import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.map.overlay.color.ColorHandler;
+import org.blitzortung.android.util.Clock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class AlertViewTest {
+
+    @Mock
+    private ColorHandler colorHandler;
+
+    @Mock
+    private AlertStatus alertStatus;
+
+    @Mock
+    private AlertParameters alertParameters;
+
+    @Mock
+    private AlertSectorRange emptyRange;
+
+    @Mock
+    private AlertSectorRange strikeRange;
+
+    private AlertView alertView;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(alertParameters.getRangeSteps()).thenReturn(new float[]{10, 25});
+        when(alertParameters.getSectorLabels()).thenReturn(new String[]{"N", "S"});
+        when(alertStatus.getAlertParameters()).thenReturn(alertParameters);
+
+        when(strikeRange.getStrikeCount()).thenReturn(3);
+        when(strikeRange.getLatestStrikeTimestamp()).thenReturn(1000L);
+
+        final AlertSector north = mock(AlertSector.class);
+        when(north.getRanges()).thenReturn(Lists.newArrayList(emptyRange, strikeRange));
+        final AlertSector south = mock(AlertSector.class);
+        when(south.getRanges()).thenReturn(Lists.newArrayList(emptyRange, emptyRange));
+        when(alertStatus.getSectors()).thenReturn(Lists.newArrayList(north, south));
+
+        when(colorHandler.getBackgroundColor()).thenReturn(0x00000000);
+        when(colorHandler.getColor(anyLong(), eq(1000L), anyInt())).thenReturn(0xffff0000);
+        when(colorHandler.getMinutesPerColor(60)).thenReturn(10);
+        when(colorHandler.getNumberOfColors()).thenReturn(6);
+
+        alertView = new AlertView(RuntimeEnvironment.application);
+    }
+
+    @After
+    public void tearDown() {
+        Clock.setDefault(null);
+    }
+
+    @Test
+    public void testCellColorsWithoutColorHandler() {
+        alertView.getAlertEventConsumer().consume(new AlertResultEvent(alertStatus, null));
+
+        assertThat(alertView.getCellColors()).isNull();
+    }
+
+    @Test
+    public void testCellColors() {
+        alertView.setColorHandler(colorHandler, 60);
+        alertView.getAlertEventConsumer().consume(new AlertResultEvent(alertStatus, null));
+
+        assertThat(alertView.getCellColors()).containsExactly(0xffb0b0b0, 0xffff0000, 0xffb0b0b0, 0xffb0b0b0);
+    }
+
+    @Test
+    public void testCellColorsAreUpdatedWithColorHandler() {
+        alertView.getAlertEventConsumer().consume(new AlertResultEvent(alertStatus, null));
+        alertView.setColorHandler(colorHandler, 60);
+
+        assertThat(alertView.getCellColors()).containsExactly(0xffb0b0b0, 0xffff0000, 0xffb0b0b0, 0xffb0b0b0);
+    }
+
+    @Test
+    public void testCellColorsAreSnapshotAtEvent() {
+        alertView.setColorHandler(colorHandler, 60);
+        alertView.getAlertEventConsumer().consume(new AlertResultEvent(alertStatus, null));
+
+        when(emptyRange.getStrikeCount()).thenReturn(1);
+
+        assertThat(alertView.getCellColors()).containsExactly(0xffb0b0b0, 0xffff0000, 0xffb0b0b0, 0xffb0b0b0);
+    }
+
+    @Test
+    public void testCellColorsAreClearedWhenAlertIsCancelled() {
+        alertView.setColorHandler(colorHandler, 60);
+        alertView.getAlertEventConsumer().consume(new AlertResultEvent(alertStatus, null));
+        alertView.getAlertEventConsumer().consume(new AlertCancelEvent());
+
+        assertThat(alertView.getCellColors()).isNull();
+    }
+
+    @Test
+    public void testEmptyCellsFollowBackgroundColor() {
+        alertView.setColorHandler(colorHandler, 60);
+        alertView.getAlertEventConsumer().consume(new AlertResultEvent(alertStatus, null));
+        alertView.setBackgroundColor(0x00000000);
+
+        assertThat(alertView.getCellColors()).containsExactly(0x00000000, 0xffff0000, 0x00000000, 0x00000000);
+    }
+
+    @Test
+    public void testNextColorChangeTime() {
+        setTime(1000L + 25 * 60 * 1000L);
+        alertView.setColorHandler(colorHandler, 60);
+        alertView.getAlertEventConsumer().consume(new AlertResultEvent(alertStatus, null));
+
+        assertThat(alertView.getNextColorChangeTime()).isEqualTo(1000L + 30 * 60 * 1000L);
+    }
+
+    @Test
+    public void testNoColorChangeAfterLastSection() {
+        setTime(1000L + 55 * 60 * 1000L);
+        alertView.setColorHandler(colorHandler, 60);
+        alertView.getAlertEventConsumer().consume(new AlertResultEvent(alertStatus, null));
+
+        assertThat(alertView.getNextColorChangeTime()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    private void setTime(final long time) {
+        Clock.setDefault(new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return time;
+            }
+        });
+    }
+}
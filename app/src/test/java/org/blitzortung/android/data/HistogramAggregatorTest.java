@@ -0,0 +1,124 @@
+package org.blitzortung.android.data;
+
+import android.location.Location;
+import org.blitzortung.android.data.beans.Strike;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class HistogramAggregatorTest {
+
+    private static final long MINUTE = 60 * 1000l;
+
+    private final long now = 1000 * MINUTE;
+
+    private HistogramAggregator histogramAggregator;
+
+    @Before
+    public void setUp() {
+        histogramAggregator = new HistogramAggregator();
+        histogramAggregator.setIntervalDuration(30);
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        assertThat(histogramAggregator.getHistogram(now, 30, 0)).containsExactly(0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testAddStrikes() {
+        histogramAggregator.add(createStrike(now - 26 * MINUTE, 1));
+        histogramAggregator.add(createStrike(now - 7 * MINUTE, 2));
+        histogramAggregator.add(createStrike(now - 6 * MINUTE, 1));
+        histogramAggregator.add(createStrike(now - MINUTE, 4));
+
+        assertThat(histogramAggregator.getHistogram(now, 30, 0)).containsExactly(1, 0, 0, 0, 3, 4);
+    }
+
+    @Test
+    public void testRemoveStrikes() {
+        Strike strike = createStrike(now - 7 * MINUTE, 2);
+        histogramAggregator.add(strike);
+        histogramAggregator.add(createStrike(now - MINUTE, 1));
+
+        histogramAggregator.remove(strike);
+
+        assertThat(histogramAggregator.getHistogram(now, 30, 0)).containsExactly(0, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    public void testOldBinsAreDroppedWhenAdvancing() {
+        histogramAggregator.add(createStrike(now - 26 * MINUTE, 1));
+        histogramAggregator.add(createStrike(now + 9 * MINUTE, 1));
+
+        assertThat(histogramAggregator.getHistogram(now + 10 * MINUTE, 30, 0)).containsExactly(0, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    public void testIntervalOffset() {
+        histogramAggregator.add(createStrike(now - 16 * MINUTE, 1));
+        histogramAggregator.add(createStrike(now - MINUTE, 1));
+
+        assertThat(histogramAggregator.getHistogram(now, 30, -10)).containsExactly(0, 0, 0, 0, 1, 0);
+    }
+
+    @Test
+    public void testArea() {
+        histogramAggregator.setArea(10.0, 40.0, 20.0, 50.0);
+
+        histogramAggregator.add(createStrike(now - MINUTE, 1, 11.0, 45.0));
+        histogramAggregator.add(createStrike(now - MINUTE, 1, 21.0, 45.0));
+
+        assertThat(histogramAggregator.getHistogram(now, 30, 0)).containsExactly(0, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    public void testAreaAcrossAntimeridian() {
+        histogramAggregator.setArea(170.0, -10.0, 190.0, 10.0);
+
+        histogramAggregator.add(createStrike(now - MINUTE, 1, 175.0, 0.0));
+        histogramAggregator.add(createStrike(now - MINUTE, 2, -175.0, 0.0));
+        histogramAggregator.add(createStrike(now - MINUTE, 4, -165.0, 0.0));
+
+        assertThat(histogramAggregator.getHistogram(now, 30, 0)).containsExactly(0, 0, 0, 0, 0, 3);
+    }
+
+    @Test
+    public void testHistogramArrayIsReused() {
+        histogramAggregator.add(createStrike(now - MINUTE, 1));
+        final int[] histogram = new int[6];
+
+        assertThat(histogramAggregator.getHistogram(now, 30, 0, histogram)).isSameAs(histogram).containsExactly(0, 0, 0, 0, 0, 1);
+        assertThat(histogramAggregator.getHistogram(now, 60, 0, histogram)).isNotSameAs(histogram).hasSize(12);
+    }
+
+    private Strike createStrike(long timestamp, int multiplicity) {
+        return createStrike(timestamp, multiplicity, 0.0, 0.0);
+    }
+
+    private Strike createStrike(long timestamp, int multiplicity, final double longitude, final double latitude) {
+        Strike strike = mock(Strike.class);
+        when(strike.getTimestamp()).thenReturn(timestamp);
+        when(strike.getMultiplicity()).thenReturn(multiplicity);
+        doAnswer(new Answer<Location>() {
+            @Override
+            public Location answer(InvocationOnMock invocation) throws Throwable {
+                Location location = (Location) invocation.getArguments()[0];
+                location.setLongitude(longitude);
+                location.setLatitude(latitude);
+                return location;
+            }
+        }).when(strike).getLocation(any(Location.class));
+        return strike;
+    }
+}
@@ -0,0 +1,90 @@
+package org.blitzortung.android.data;
+
+import com.google.common.collect.Lists;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class StrikeBufferTest {
+
+    @Test
+    public void testEmpty() {
+        assertThat(StrikeBuffer.empty()).isEmpty();
+        assertThat(StrikeBuffer.empty().expire(1000)).isEmpty();
+    }
+
+    @Test
+    public void testAppendKeepsPreviousSnapshot() {
+        StrikeAbstract strike1 = createStrike(1000);
+        StrikeAbstract strike2 = createStrike(2000);
+        StrikeAbstract strike3 = createStrike(3000);
+
+        StrikeBuffer first = StrikeBuffer.of(Lists.newArrayList(strike1));
+        StrikeBuffer second = first.append(Lists.newArrayList(strike2, strike3));
+
+        assertThat(first).containsExactly(strike1);
+        assertThat(second).containsExactly(strike1, strike2, strike3);
+    }
+
+    @Test
+    public void testAppendToOlderSnapshotCopies() {
+        StrikeAbstract strike1 = createStrike(1000);
+        StrikeAbstract strike2 = createStrike(2000);
+        StrikeAbstract strike3 = createStrike(3000);
+
+        StrikeBuffer first = StrikeBuffer.of(Lists.newArrayList(strike1));
+        StrikeBuffer second = first.append(Lists.newArrayList(strike2));
+        StrikeBuffer branch = first.append(Lists.newArrayList(strike3));
+
+        assertThat(second).containsExactly(strike1, strike2);
+        assertThat(branch).containsExactly(strike1, strike3);
+    }
+
+    @Test
+    public void testExpire() {
+        StrikeAbstract strike1 = createStrike(1000);
+        StrikeAbstract strike2 = createStrike(2000);
+        StrikeAbstract strike3 = createStrike(3000);
+
+        StrikeBuffer buffer = StrikeBuffer.of(Lists.newArrayList(strike1, strike2, strike3));
+
+        assertThat(buffer.expire(500)).isSameAs(buffer);
+        assertThat(buffer.expire(2000)).containsExactly(strike2, strike3);
+        assertThat(buffer.expire(5000)).isEmpty();
+        assertThat(buffer).containsExactly(strike1, strike2, strike3);
+    }
+
+    @Test
+    public void testExpireAndAppend() {
+        List<StrikeAbstract> strikes = Lists.newArrayList();
+        StrikeBuffer buffer = StrikeBuffer.empty();
+
+        for (int i = 0; i < 100; i++) {
+            StrikeAbstract strike = createStrike(i * 1000);
+            strikes.add(strike);
+            buffer = buffer.expire((i - 9) * 1000).append(Lists.newArrayList(strike));
+        }
+
+        assertThat(buffer).hasSize(10);
+        assertThat(buffer).containsExactlyElementsOf(strikes.subList(90, 100));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIsImmutable() {
+        StrikeBuffer.of(Lists.newArrayList(createStrike(1000))).set(0, createStrike(2000));
+    }
+
+    private StrikeAbstract createStrike(long timestamp) {
+        StrikeAbstract strike = mock(StrikeAbstract.class);
+        when(strike.getTimestamp()).thenReturn(timestamp);
+        return strike;
+    }
+}
@@ -0,0 +1,139 @@
+package org.blitzortung.android.data;
+
+import android.location.Location;
+import org.blitzortung.android.data.beans.Strike;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class StrikeDensityGridTest {
+
+    private static final long START_TIME = 1381068000000L;
+
+    private static final long DECAY_TIME = 15 * 60 * 1000;
+
+    private static final float CENTER_WEIGHT = 36f / 256f;
+
+    private StrikeDensityGrid strikeDensityGrid;
+
+    @Before
+    public void setUp() {
+        strikeDensityGrid = new StrikeDensityGrid(DECAY_TIME);
+    }
+
+    @Test
+    public void testKernelIsSplattedAroundStrike() {
+        strikeDensityGrid.add(createStrike(START_TIME, 11.22, 49.32, 1));
+
+        assertThat(strikeDensityGrid.getNumberOfStrikes()).isEqualTo(1);
+        assertThat(strikeDensityGrid.getDensity(11.22, 49.32, START_TIME)).isCloseTo(CENTER_WEIGHT, within(1e-6f));
+        assertThat(strikeDensityGrid.getDensity(11.32, 49.32, START_TIME)).isCloseTo(24f / 256f, within(1e-6f));
+        assertThat(strikeDensityGrid.getDensity(11.42, 49.52, START_TIME)).isCloseTo(1f / 256f, within(1e-6f));
+        assertThat(strikeDensityGrid.getDensity(11.52, 49.32, START_TIME)).isEqualTo(0f);
+    }
+
+    @Test
+    public void testMultiplicityScalesDensity() {
+        strikeDensityGrid.add(createStrike(START_TIME, 11.25, 49.35, 4));
+
+        assertThat(strikeDensityGrid.getDensity(11.25, 49.35, START_TIME)).isCloseTo(4 * CENTER_WEIGHT, within(1e-6f));
+    }
+
+    @Test
+    public void testDensityDecaysWithTime() {
+        strikeDensityGrid.add(createStrike(START_TIME, 11.25, 49.35, 1));
+
+        assertThat(strikeDensityGrid.getDensity(11.25, 49.35, START_TIME + DECAY_TIME))
+                .isCloseTo(CENTER_WEIGHT / (float) Math.E, within(1e-6f));
+    }
+
+    @Test
+    public void testRemoveRestoresEmptyGrid() {
+        final Strike strike1 = createStrike(START_TIME, 11.25, 49.35, 1);
+        final Strike strike2 = createStrike(START_TIME + 60000, 11.35, 49.35, 2);
+        strikeDensityGrid.add(strike1);
+        strikeDensityGrid.add(strike2);
+
+        strikeDensityGrid.remove(strike1);
+
+        assertThat(strikeDensityGrid.getNumberOfStrikes()).isEqualTo(1);
+        assertThat(strikeDensityGrid.getDensity(11.35, 49.35, START_TIME + 60000)).isCloseTo(2 * CENTER_WEIGHT, within(1e-5f));
+
+        strikeDensityGrid.remove(strike2);
+
+        assertThat(strikeDensityGrid.getNumberOfStrikes()).isEqualTo(0);
+        assertThat(strikeDensityGrid.getTiles()).isEmpty();
+    }
+
+    @Test
+    public void testKernelCrossesTileBoundaries() {
+        final double tileEdge = StrikeDensityGrid.TILE_SIZE * StrikeDensityGrid.DEFAULT_CELL_SIZE - 180.0;
+        final Strike strike = createStrike(START_TIME, tileEdge + 0.05, -0.35, 1);
+
+        strikeDensityGrid.add(strike);
+
+        assertThat(strikeDensityGrid.getTiles()).hasSize(4);
+        assertThat(strikeDensityGrid.getDensity(tileEdge - 0.05, -0.35, START_TIME)).isCloseTo(24f / 256f, within(1e-6f));
+
+        strikeDensityGrid.remove(strike);
+
+        assertThat(strikeDensityGrid.getTiles()).isEmpty();
+    }
+
+    @Test
+    public void testRebaseKeepsDensitiesConsistent() {
+        final Strike oldStrike = createStrike(START_TIME, 11.25, 49.35, 1);
+        final long laterTime = START_TIME + 10 * DECAY_TIME;
+        final Strike newStrike = createStrike(laterTime, 12.25, 49.35, 1);
+
+        strikeDensityGrid.add(oldStrike);
+        strikeDensityGrid.add(newStrike);
+
+        assertThat(strikeDensityGrid.getDensity(12.25, 49.35, laterTime)).isCloseTo(CENTER_WEIGHT, within(1e-6f));
+        assertThat(strikeDensityGrid.getDensity(11.25, 49.35, laterTime)).isCloseTo(CENTER_WEIGHT * (float) Math.exp(-10), within(1e-8f));
+
+        strikeDensityGrid.remove(oldStrike);
+        strikeDensityGrid.remove(newStrike);
+
+        assertThat(strikeDensityGrid.getTiles()).isEmpty();
+    }
+
+    @Test
+    public void testChangingDecayTimeClearsGrid() {
+        strikeDensityGrid.add(createStrike(START_TIME, 11.25, 49.35, 1));
+
+        strikeDensityGrid.setDecayTime(DECAY_TIME);
+        assertThat(strikeDensityGrid.getNumberOfStrikes()).isEqualTo(1);
+
+        strikeDensityGrid.setDecayTime(2 * DECAY_TIME);
+        assertThat(strikeDensityGrid.getNumberOfStrikes()).isEqualTo(0);
+        assertThat(strikeDensityGrid.getTiles()).isEmpty();
+    }
+
+    private Strike createStrike(long timestamp, final double longitude, final double latitude, int multiplicity) {
+        Strike strike = mock(Strike.class);
+        when(strike.getTimestamp()).thenReturn(timestamp);
+        when(strike.getMultiplicity()).thenReturn(multiplicity);
+        doAnswer(new Answer<Location>() {
+            @Override
+            public Location answer(InvocationOnMock invocation) throws Throwable {
+                Location location = (Location) invocation.getArguments()[0];
+                location.setLongitude(longitude);
+                location.setLatitude(latitude);
+                return location;
+            }
+        }).when(strike).getLocation(any(Location.class));
+        return strike;
+    }
+}
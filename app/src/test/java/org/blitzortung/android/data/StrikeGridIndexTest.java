@@ -0,0 +1,111 @@
+package org.blitzortung.android.data;
+
+import android.location.Location;
+import org.blitzortung.android.data.beans.Strike;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class StrikeGridIndexTest {
+
+    private StrikeGridIndex strikeGridIndex;
+
+    private Strike strike1;
+
+    private Strike strike2;
+
+    private Strike strike3;
+
+    @Before
+    public void setUp() {
+        strikeGridIndex = new StrikeGridIndex();
+
+        strike1 = createStrike(11.2, 49.3, 1);
+        strike2 = createStrike(11.8, 49.7, 2);
+        strike3 = createStrike(-75.5, 40.1, 4);
+
+        strikeGridIndex.add(strike1);
+        strikeGridIndex.add(strike2);
+        strikeGridIndex.add(strike3);
+    }
+
+    @Test
+    public void testTotalNumberOfStrikes() {
+        assertThat(strikeGridIndex.getTotalNumberOfStrikes()).isEqualTo(7);
+    }
+
+    @Test
+    public void testNumberOfStrikesForWholeCells() {
+        assertThat(strikeGridIndex.getNumberOfStrikes(10.0, 48.0, 13.0, 51.0)).isEqualTo(3);
+        assertThat(strikeGridIndex.getNumberOfStrikes(-180.0, -90.0, 180.0, 90.0)).isEqualTo(7);
+    }
+
+    @Test
+    public void testNumberOfStrikesForPartialCells() {
+        assertThat(strikeGridIndex.getNumberOfStrikes(11.5, 49.5, 12.0, 50.0)).isEqualTo(2);
+        assertThat(strikeGridIndex.getNumberOfStrikes(11.0, 49.0, 11.5, 49.5)).isEqualTo(1);
+        assertThat(strikeGridIndex.getNumberOfStrikes(-76.0, 40.5, -75.0, 41.0)).isEqualTo(0);
+    }
+
+    @Test
+    public void testCollectStrikes() {
+        final List<Strike> strikes = Lists.newArrayList();
+
+        strikeGridIndex.collectStrikes(11.5, 49.5, 12.0, 50.0, strikes);
+
+        assertThat(strikes).containsOnly(strike1, strike2);
+
+        strikes.clear();
+        strikeGridIndex.collectStrikes(-180.0, -90.0, 180.0, 90.0, strikes);
+
+        assertThat(strikes).containsOnly(strike1, strike2, strike3);
+    }
+
+    @Test
+    public void testRemove() {
+        strikeGridIndex.remove(strike2);
+
+        assertThat(strikeGridIndex.getTotalNumberOfStrikes()).isEqualTo(5);
+        assertThat(strikeGridIndex.getNumberOfStrikes(10.0, 48.0, 13.0, 51.0)).isEqualTo(1);
+
+        strikeGridIndex.remove(strike2);
+
+        assertThat(strikeGridIndex.getTotalNumberOfStrikes()).isEqualTo(5);
+    }
+
+    @Test
+    public void testClear() {
+        strikeGridIndex.clear();
+
+        assertThat(strikeGridIndex.getTotalNumberOfStrikes()).isEqualTo(0);
+        assertThat(strikeGridIndex.getNumberOfStrikes(-180.0, -90.0, 180.0, 90.0)).isEqualTo(0);
+    }
+
+    private Strike createStrike(final double longitude, final double latitude, int multiplicity) {
+        Strike strike = mock(Strike.class);
+        when(strike.getMultiplicity()).thenReturn(multiplicity);
+        doAnswer(new Answer<Location>() {
+            @Override
+            public Location answer(InvocationOnMock invocation) throws Throwable {
+                Location location = (Location) invocation.getArguments()[0];
+                location.setLongitude(longitude);
+                location.setLatitude(latitude);
+                return location;
+            }
+        }).when(strike).getLocation(any(Location.class));
+        return strike;
+    }
+}
@@ -0,0 +1,104 @@
+package org.blitzortung.android.data;
+
+import com.google.common.collect.Lists;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.beans.Tile;
+import org.blitzortung.android.data.beans.TileData;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class TileCacheTest {
+
+    private final Tile tile1 = new Tile(6, 32, 6);
+
+    private final Tile tile2 = new Tile(6, 33, 6);
+
+    private final Tile tile3 = new Tile(6, 34, 6);
+
+    private Parameters parameters;
+
+    private TileCache tileCache;
+
+    @Before
+    public void setUp() {
+        parameters = createParameters(120);
+        tileCache = new TileCache(2, 60000);
+    }
+
+    @Test
+    public void testMissingTiles() {
+        final List<Tile> tiles = Lists.newArrayList(tile1, tile2);
+
+        assertThat(tileCache.getMissingTiles(parameters, tiles, 1000)).containsExactly(tile1, tile2);
+
+        tileCache.put(parameters, Lists.newArrayList(createTileData(tile2)), 1000);
+
+        assertThat(tileCache.getMissingTiles(parameters, tiles, 2000)).containsExactly(tile1);
+        assertThat(tileCache.get(parameters, tiles, 2000)).hasSize(1);
+        assertThat(tileCache.get(parameters, tiles, 2000).get(0).getTile()).isEqualTo(tile2);
+    }
+
+    @Test
+    public void testStaleTilesAreEvicted() {
+        tileCache.put(parameters, Lists.newArrayList(createTileData(tile1)), 1000);
+
+        assertThat(tileCache.getMissingTiles(parameters, Lists.newArrayList(tile1), 60999)).isEmpty();
+        assertThat(tileCache.getMissingTiles(parameters, Lists.newArrayList(tile1), 61000)).containsExactly(tile1);
+        assertThat(tileCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTileIsEvicted() {
+        tileCache.put(parameters, Lists.newArrayList(createTileData(tile1), createTileData(tile2)), 1000);
+        tileCache.get(parameters, Lists.newArrayList(tile1), 2000);
+
+        tileCache.put(parameters, Lists.newArrayList(createTileData(tile3)), 3000);
+
+        assertThat(tileCache.size()).isEqualTo(2);
+        assertThat(tileCache.getMissingTiles(parameters, Lists.newArrayList(tile1, tile2, tile3), 4000)).containsExactly(tile2);
+    }
+
+    @Test
+    public void testChangedParametersInvalidateTiles() {
+        tileCache.put(parameters, Lists.newArrayList(createTileData(tile1)), 1000);
+        final Parameters otherParameters = createParameters(60);
+
+        assertThat(tileCache.getMissingTiles(otherParameters, Lists.newArrayList(tile1), 2000)).containsExactly(tile1);
+        assertThat(tileCache.get(otherParameters, Lists.newArrayList(tile1), 2000)).isEmpty();
+        assertThat(tileCache.getMissingTiles(createParameters(120), Lists.newArrayList(tile1), 2000)).isEmpty();
+
+        tileCache.put(otherParameters, Lists.newArrayList(createTileData(tile2)), 2000);
+
+        assertThat(tileCache.size()).isEqualTo(1);
+        assertThat(tileCache.getMissingTiles(parameters, Lists.newArrayList(tile2), 2000)).containsExactly(tile2);
+    }
+
+    @Test
+    public void testClear() {
+        tileCache.put(parameters, Lists.newArrayList(createTileData(tile1)), 1000);
+
+        tileCache.clear();
+
+        assertThat(tileCache.size()).isEqualTo(0);
+        assertThat(tileCache.getMissingTiles(parameters, Lists.newArrayList(tile1), 1000)).containsExactly(tile1);
+    }
+
+    private static Parameters createParameters(int intervalDuration) {
+        final Parameters parameters = new Parameters();
+        parameters.setIntervalDuration(intervalDuration);
+        parameters.setRegion(1);
+        parameters.setRasterBaselength(10000);
+        return parameters;
+    }
+
+    private static TileData createTileData(Tile tile) {
+        return new TileData(tile, Lists.<StrikeAbstract>newArrayList(), null, null);
+    }
+}
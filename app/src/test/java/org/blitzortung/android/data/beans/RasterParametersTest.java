@@ -110,4 +110,19 @@ public class RasterParametersTest {
         assertThat(rasterParameters.getLatitudeIndex(lat_start), is(0));
         assertThat(rasterParameters.getLatitudeIndex(lat_start - lat_delta * lat_count), is(lat_count));
     }
+
+    @Test
+    public void testUnion()
+    {
+        final RasterParameters other = new RasterParameters(25f, 20f, lon_delta, lat_delta, 10, 20);
+
+        final RasterParameters union = rasterParameters.union(other);
+
+        assertThat(union.getLongitudeDelta(), is(lon_delta));
+        assertThat(union.getLatitudeDelta(), is(lat_delta));
+        assertThat(union.getCenterLongitude(0), is(rasterParameters.getCenterLongitude(0)));
+        assertThat(union.getCenterLatitude(0), is(rasterParameters.getCenterLatitude(0)));
+        assertThat(union.getRectLongitudeDelta(), is(45f));
+        assertThat(union.getRectLatitudeDelta(), is(70.5f));
+    }
 }
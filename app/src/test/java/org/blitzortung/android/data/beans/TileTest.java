@@ -0,0 +1,87 @@
+package org.blitzortung.android.data.beans;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class TileTest {
+
+    @Test
+    public void testLevel() {
+        assertThat(Tile.getLevel(360f)).isEqualTo(Tile.MINIMUM_LEVEL);
+        assertThat(Tile.getLevel(10f)).isEqualTo(6);
+        assertThat(Tile.getLevel(0.01f)).isEqualTo(Tile.MAXIMUM_LEVEL);
+        assertThat(Tile.getLevel(0f)).isEqualTo(Tile.MAXIMUM_LEVEL);
+    }
+
+    @Test
+    public void testBounds() {
+        final Tile tile = new Tile(6, 32, 6);
+
+        assertThat(tile.getWest()).isEqualTo(0f);
+        assertThat(tile.getEast()).isEqualTo(5.625f);
+        assertThat(tile.getNorth()).isEqualTo(56.25f);
+        assertThat(tile.getSouth()).isEqualTo(50.625f);
+    }
+
+    @Test
+    public void testCover() {
+        final List<Tile> tiles = Tile.cover(5f, 45f, 15f, 55f);
+
+        assertThat(tiles).containsExactly(
+                new Tile(6, 32, 6), new Tile(6, 33, 6), new Tile(6, 34, 6),
+                new Tile(6, 32, 7), new Tile(6, 33, 7), new Tile(6, 34, 7));
+    }
+
+    @Test
+    public void testCoverContainsVisibleArea() {
+        for (float west = -175f; west < 170f; west += 17.3f) {
+            for (float width = 0.3f; width < 100f; width *= 2.7f) {
+                final float south = 10f;
+                final float north = south + width / 2f;
+                final List<Tile> tiles = Tile.cover(west, south, west + width, north);
+
+                float tilesWest = Float.POSITIVE_INFINITY;
+                float tilesEast = Float.NEGATIVE_INFINITY;
+                float tilesSouth = Float.POSITIVE_INFINITY;
+                float tilesNorth = Float.NEGATIVE_INFINITY;
+                for (Tile tile : tiles) {
+                    tilesWest = Math.min(tilesWest, tile.getWest());
+                    tilesEast = Math.max(tilesEast, tile.getEast());
+                    tilesSouth = Math.min(tilesSouth, tile.getSouth());
+                    tilesNorth = Math.max(tilesNorth, tile.getNorth());
+                }
+
+                if (west + width <= 180f) {
+                    assertThat(tilesWest).isLessThanOrEqualTo(west);
+                    assertThat(tilesEast).isGreaterThanOrEqualTo(west + width);
+                }
+                assertThat(tilesSouth).isLessThanOrEqualTo(south);
+                assertThat(tilesNorth).isGreaterThanOrEqualTo(north);
+                assertThat(tiles.size()).isLessThanOrEqualTo(9);
+            }
+        }
+    }
+
+    @Test
+    public void testCoverAcrossDateLine() {
+        final List<Tile> tiles = Tile.cover(170f, -10f, -170f, 10f);
+
+        assertThat(tiles).containsExactly(
+                new Tile(5, 31, 7), new Tile(5, 0, 7),
+                new Tile(5, 31, 8), new Tile(5, 0, 8));
+    }
+
+    @Test
+    public void testEquality() {
+        assertThat(new Tile(3, 1, 2)).isEqualTo(new Tile(3, 1, 2));
+        assertThat(new Tile(3, 1, 2).hashCode()).isEqualTo(new Tile(3, 1, 2).hashCode());
+        assertThat(new Tile(3, 1, 2)).isNotEqualTo(new Tile(4, 1, 2));
+        assertThat(new Tile(3, 1, 2)).isNotEqualTo(new Tile(3, 2, 1));
+    }
+}
@@ -24,7 +24,7 @@ public class ResultEventTest {
 
     @Before
     public void setUp() {
-        resultEvent = new ResultEvent();
+        resultEvent = new ResultEvent.Builder().build();
     }
 
     @Test
@@ -33,6 +33,21 @@ public class ResultEventTest {
         assertFalse(resultEvent.containsStrikes());
         assertFalse(resultEvent.containsParticipants());
         assertFalse(resultEvent.containsIncrementalData());
+        assertFalse(resultEvent.containsTiledData());
+        assertFalse(resultEvent.containsAlertData());
+    }
+
+    @Test
+    public void testSetTiledAndAlertData() {
+        resultEvent = new ResultEvent.Builder().tiledData(true).build();
+
+        assertTrue(resultEvent.containsTiledData());
+        assertFalse(resultEvent.containsAlertData());
+
+        resultEvent = new ResultEvent.Builder().alertData(true).build();
+
+        assertFalse(resultEvent.containsTiledData());
+        assertTrue(resultEvent.containsAlertData());
     }
 
     @Test
@@ -40,9 +55,10 @@ public class ResultEventTest {
         List<StrikeAbstract> strikes = Lists.newArrayList();
         strikes.add(mock(DefaultStrike.class));
 
-        resultEvent.setStrikes(strikes);
+        resultEvent = new ResultEvent.Builder().strikes(strikes).build();
 
         assertThat(resultEvent.getStrikes(), is(strikes));
+        assertThat(resultEvent.getStrikeBuffer(), is((List<StrikeAbstract>) strikes));
         assertFalse(resultEvent.hasFailed());
         assertTrue(resultEvent.containsStrikes());
         assertFalse(resultEvent.containsParticipants());
@@ -54,7 +70,7 @@ public class ResultEventTest {
         List<Station> stations = Lists.newArrayList();
         stations.add(mock(Station.class));
 
-        resultEvent.setStations(stations);
+        resultEvent = new ResultEvent.Builder().stations(stations).build();
 
         assertThat(resultEvent.getStations(), is(stations));
         assertTrue(resultEvent.hasFailed());
@@ -69,9 +85,32 @@ public class ResultEventTest {
         assertThat(resultEvent.getRasterParameters(), is(nullValue()));
 
         RasterParameters rasterParameters = mock(RasterParameters.class);
-        resultEvent.setRasterParameters(rasterParameters);
+        resultEvent = new ResultEvent.Builder().rasterParameters(rasterParameters).build();
 
         assertTrue(resultEvent.hasRasterParameters());
         assertThat(resultEvent.getRasterParameters(), is(rasterParameters));
     }
+
+    @Test
+    public void testStrikesAreCopied() {
+        List<StrikeAbstract> strikes = Lists.newArrayList();
+        strikes.add(mock(DefaultStrike.class));
+
+        resultEvent = new ResultEvent.Builder().strikes(strikes).build();
+        strikes.add(mock(DefaultStrike.class));
+
+        assertThat(resultEvent.getStrikes().size(), is(1));
+        assertThat(resultEvent.getStrikeBuffer().size(), is(1));
+    }
+
+    @Test
+    public void testHistogramIsCopied() {
+        int[] histogram = new int[]{1, 2, 3};
+
+        resultEvent = new ResultEvent.Builder().histogram(histogram).build();
+        histogram[0] = 4;
+        resultEvent.getHistogram()[1] = 5;
+
+        assertArrayEquals(new int[]{1, 2, 3}, resultEvent.getHistogram());
+    }
 }
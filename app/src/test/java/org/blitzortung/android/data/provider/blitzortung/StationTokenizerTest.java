@@ -0,0 +1,107 @@
+package org.blitzortung.android.data.provider.blitzortung;
+
+import org.blitzortung.android.data.beans.Station;
+import org.blitzortung.android.data.builder.StationBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class StationTokenizerTest {
+
+    private static final String STATION_LINE = "station;10 user;11 city;\"Egaldorf\" country;\"Germany\" pos;43.345542;11.465365;239 board;6.6 firmware;\"WT 5.20.3 / 29A\" status;30 distance;71.474188743479 myblitz;N input_board;5.5;5.5;;;; input_firmware;\"29A\";\"29A\";\"\";\"\";\"\";\"\" input_gain;7.7;7.7;7.7;7.7;7.7;7.7 input_antenna;10;10;;;; last_signal;\"2013-10-06 14:15:55\" signals;217 last_stroke;\"2013-10-06 14:07:26\" strokes;0;0;0;0;1;0;31;504;6.15079";
+
+    private StationTokenizer stationTokenizer;
+
+    @Before
+    public void setUp() {
+        stationTokenizer = new StationTokenizer(new StationBuilder());
+    }
+
+    @Test
+    public void testParseLine() {
+        Station station = stationTokenizer.parseLine(STATION_LINE);
+
+        assertThat(station.getName()).isEqualTo("Egaldorf");
+        assertThat(station.getLatitude()).isEqualTo(43.345542f);
+        assertThat(station.getLongitude()).isEqualTo(11.465365f);
+        assertThat(station.getOfflineSince()).isEqualTo(1381068955000L);
+    }
+
+    @Test
+    public void testParseLineMatchesMapBuilder() {
+        Station expected = new MapBuilderFactory().createStationMapBuilder().buildFromLine(STATION_LINE);
+
+        Station station = stationTokenizer.parseLine(STATION_LINE);
+
+        assertThat(station.getName()).isEqualTo(expected.getName());
+        assertThat(station.getLatitude()).isEqualTo(expected.getLatitude());
+        assertThat(station.getLongitude()).isEqualTo(expected.getLongitude());
+        assertThat(station.getOfflineSince()).isEqualTo(expected.getOfflineSince());
+    }
+
+    @Test
+    public void testParseLineWithQuotedSpacesAndEntities() {
+        Station station = stationTokenizer.parseLine("city;\"Bad M&uuml;nder &amp; Co&#46;\" pos;-12.5;-0.25;0");
+
+        assertThat(station.getName()).isEqualTo("Bad Münder & Co.");
+        assertThat(station.getLatitude()).isEqualTo(-12.5f);
+        assertThat(station.getLongitude()).isEqualTo(-0.25f);
+        assertThat(station.getOfflineSince()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testParseLineWithUtf8Name() {
+        Station station = stationTokenizer.parseLine("city;\"Brno-Žabovřesky\" pos;49.2;16.6");
+
+        assertThat(station.getName()).isEqualTo("Brno-Žabovřesky");
+    }
+
+    @Test
+    public void testDecodeEntitiesKeepsUnknownEntities() {
+        assertThat(StationTokenizer.decodeEntities("a &unknown; b & c &#x41;")).isEqualTo("a &unknown; b & c A");
+    }
+
+    @Test
+    public void testDaysFromCivil() {
+        assertThat(StationTokenizer.daysFromCivil(1970, 1, 1)).isEqualTo(0);
+        assertThat(StationTokenizer.daysFromCivil(2000, 3, 1)).isEqualTo(11017);
+        assertThat(StationTokenizer.daysFromCivil(1969, 12, 31)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        String text = STATION_LINE + "\r\n\ncity;\"Broken\" pos;abc;1.0\ncity;\"Other\" pos;1.5;2.5";
+
+        List<Station> stations = stationTokenizer.read(new ByteArrayInputStream(text.getBytes("UTF-8")), new ArrayList<Station>());
+
+        assertThat(stations).hasSize(2);
+        assertThat(stations.get(0).getName()).isEqualTo("Egaldorf");
+        assertThat(stations.get(1).getName()).isEqualTo("Other");
+        assertThat(stations.get(1).getLatitude()).isEqualTo(1.5f);
+        assertThat(stations.get(1).getLongitude()).isEqualTo(2.5f);
+        assertThat(stationTokenizer.getNumberOfBytes()).isEqualTo(text.getBytes("UTF-8").length);
+    }
+
+    @Test
+    public void testReadLinesSpanningBuffers() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int index = 0; index < 100; index++) {
+            text.append(STATION_LINE).append('\n');
+        }
+
+        List<Station> stations = stationTokenizer.read(new ByteArrayInputStream(text.toString().getBytes("UTF-8")), new ArrayList<Station>());
+
+        assertThat(stations).hasSize(100);
+        for (Station station : stations) {
+            assertThat(station.getOfflineSince()).isEqualTo(1381068955000L);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.blitzortung.android.data.provider.standard;
+
+import com.google.common.collect.Lists;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.beans.Tile;
+import org.blitzortung.android.jsonrpc.ServerSelector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class JsonRpcDataProviderTest {
+
+    private static final String STRIKES = "{\"t\":\"20131006T14:15:55\",\"s\":[[0,11.0,49.0,100,12.5,7]],\"next\":6}";
+
+    private JsonRpcServer firstServer;
+
+    private JsonRpcServer secondServer;
+
+    private JsonRpcDataProvider dataProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        firstServer = new JsonRpcServer();
+        secondServer = new JsonRpcServer();
+        secondServer.setResponse(STRIKES);
+
+        dataProvider = new JsonRpcDataProvider();
+        dataProvider.setServers(Lists.newArrayList(firstServer.getUrl(), secondServer.getUrl()));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dataProvider.setServers(Collections.<String>emptyList());
+        firstServer.shutdown();
+        secondServer.shutdown();
+    }
+
+    @Test
+    public void testSlowServerIsHedged() {
+        firstServer.setResponse(STRIKES);
+        firstServer.setResponseDelay(ServerSelector.DEFAULT_HEDGE_DELAY * 3);
+
+        final long startTime = System.currentTimeMillis();
+        final List<StrikeAbstract> strikes = dataProvider.getStrikes(60, 0, 1);
+
+        assertThat(System.currentTimeMillis() - startTime).isLessThan(ServerSelector.DEFAULT_HEDGE_DELAY * 2);
+        assertThat(strikes).hasSize(1);
+        assertThat(firstServer.getRequestCount()).isEqualTo(1);
+        assertThat(secondServer.getRequestCount()).isEqualTo(1);
+
+        final ServerSelector.ServerStatistics statistics = JsonRpcDataProvider.getServerSelector().getStatistics(firstServer.getUrl());
+        assertThat(statistics.getLatency()).isEqualTo(0f);
+        assertThat(statistics.getConsecutiveFailures()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEmptyBatchResponseKeepsBatchingEnabled() {
+        dataProvider.setStationsRequested(true);
+        secondServer.setResponse("");
+
+        try {
+            dataProvider.getStrikes(60, 0, 1);
+            fail("empty response should fail");
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        final String batchResponse = "[{\"id\":0,\"result\":" + STRIKES + "},{\"id\":1,\"result\":{\"stations\":[]}}]";
+        firstServer.setResponse(batchResponse);
+        secondServer.setResponse(batchResponse);
+
+        assertThat(dataProvider.getStrikes(60, 0, 1)).hasSize(1);
+        final int requestCount = firstServer.getRequestCount() + secondServer.getRequestCount();
+
+        assertThat(dataProvider.getStations(1)).isEmpty();
+        assertThat(firstServer.getRequestCount() + secondServer.getRequestCount()).isEqualTo(requestCount);
+    }
+
+    @Test
+    public void testTransportFailureKeepsTilesEnabled() {
+        secondServer.setResponse("");
+
+        try {
+            dataProvider.getStrikesRasterTiles(60, 0, 10000, createTiles());
+            fail("empty response should fail");
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        assertThat(dataProvider.isCapableOfTiledData()).isTrue();
+    }
+
+    @Test
+    public void testRejectedTileCallDisablesTiles() {
+        final String fault = "{\"fault\":true,\"faultString\":\"no such method\",\"faultCode\":8001}";
+        firstServer.setResponse(fault);
+        secondServer.setResponse(fault);
+
+        try {
+            dataProvider.getStrikesRasterTiles(60, 0, 10000, createTiles());
+            fail("rejected call should fail");
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        assertThat(dataProvider.isCapableOfTiledData()).isFalse();
+        assertThat(secondServer.getRequestCount()).isEqualTo(0);
+        assertThat(JsonRpcDataProvider.getServerSelector().getStatistics(firstServer.getUrl()).getConsecutiveFailures()).isEqualTo(0);
+        assertThat(JsonRpcDataProvider.getServerSelector().getServersByPreference().get(0)).isEqualTo(firstServer.getUrl());
+    }
+
+    @Test
+    public void testFailedServerFailsOver() {
+        firstServer.setResponse("<html>internal error</html>");
+
+        final List<StrikeAbstract> strikes = dataProvider.getStrikes(60, 0, 1);
+
+        assertThat(strikes).hasSize(1);
+        assertThat(firstServer.getRequestCount()).isEqualTo(1);
+        assertThat(secondServer.getRequestCount()).isEqualTo(1);
+        assertThat(JsonRpcDataProvider.getServerSelector().getStatistics(firstServer.getUrl()).getConsecutiveFailures()).isEqualTo(1);
+        assertThat(JsonRpcDataProvider.getServerSelector().getServersByPreference().get(0)).isEqualTo(secondServer.getUrl());
+    }
+
+    private static List<Tile> createTiles() {
+        return Lists.newArrayList(new Tile(4, 8, 3), new Tile(4, 9, 3));
+    }
+}
@@ -0,0 +1,112 @@
+package org.blitzortung.android.data.provider.standard;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JsonRpcServer implements Runnable {
+
+    private final ServerSocket serverSocket;
+
+    private final List<Socket> clients = Collections.synchronizedList(new ArrayList<Socket>());
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private volatile String response = "";
+
+    private volatile long responseDelay;
+
+    public JsonRpcServer() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+        final Thread thread = new Thread(this, "JsonRpcServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    public void setResponseDelay(long responseDelay) {
+        this.responseDelay = responseDelay;
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket socket = serverSocket.accept();
+                clients.add(socket);
+
+                final Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                }, "JsonRpcServer-client");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (IOException e) {
+            // server closed
+        }
+    }
+
+    private void handle(Socket socket) {
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            int contentLength = 0;
+            String line;
+            while ((line = reader.readLine()) != null && line.length() > 0) {
+                if (line.toLowerCase().startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+                }
+            }
+            for (int index = 0; index < contentLength; index++) {
+                reader.read();
+            }
+            requestCount.incrementAndGet();
+
+            Thread.sleep(responseDelay);
+
+            final byte[] body = response.getBytes("UTF-8");
+            final OutputStream output = socket.getOutputStream();
+            output.write(("HTTP/1.1 200 OK\r\n" +
+                    "Content-Type: application/json\r\n" +
+                    "Content-Length: " + body.length + "\r\n" +
+                    "Connection: close\r\n\r\n").getBytes("UTF-8"));
+            output.write(body);
+            output.flush();
+            socket.close();
+        } catch (IOException e) {
+            // client gone
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void shutdown() throws IOException {
+        serverSocket.close();
+        synchronized (clients) {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.blitzortung.android.data.provider.standard;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class StrikeStreamServer implements Runnable {
+
+    public static class Request {
+
+        private final String path;
+
+        private final List<String> headers;
+
+        private Request(String path, List<String> headers) {
+            this.path = path;
+            this.headers = headers;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getHeader(String name) {
+            for (String header : headers) {
+                if (header.toLowerCase().startsWith(name.toLowerCase() + ":")) {
+                    return header.substring(name.length() + 1).trim();
+                }
+            }
+            return null;
+        }
+    }
+
+    private final ServerSocket serverSocket;
+
+    private final BlockingQueue<Request> requests = new LinkedBlockingQueue<Request>();
+
+    private final List<Socket> clients = Collections.synchronizedList(new ArrayList<Socket>());
+
+    private volatile Socket currentClient;
+
+    private final Thread thread;
+
+    public StrikeStreamServer() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+        thread = new Thread(this, "StrikeStreamServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket socket = serverSocket.accept();
+                clients.add(socket);
+
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                final String requestLine = reader.readLine();
+                final List<String> headers = new ArrayList<String>();
+                String line;
+                while ((line = reader.readLine()) != null && line.length() > 0) {
+                    headers.add(line);
+                }
+
+                final OutputStream output = socket.getOutputStream();
+                output.write(("HTTP/1.1 200 OK\r\n" +
+                        "Content-Type: text/event-stream\r\n" +
+                        "Cache-Control: no-cache\r\n" +
+                        "Connection: close\r\n\r\n").getBytes("UTF-8"));
+                output.flush();
+
+                currentClient = socket;
+                requests.add(new Request(requestLine != null ? requestLine.split(" ")[1] : null, headers));
+            }
+        } catch (IOException e) {
+            // server closed
+        }
+    }
+
+    public Request awaitRequest(long timeoutMillis) throws InterruptedException {
+        return requests.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void sendEvent(String data) throws IOException {
+        sendRaw("data: " + data + "\n\n");
+    }
+
+    public void sendRaw(String text) throws IOException {
+        final OutputStream output = currentClient.getOutputStream();
+        output.write(text.getBytes("UTF-8"));
+        output.flush();
+    }
+
+    public void dropConnection() throws IOException {
+        currentClient.close();
+    }
+
+    public void shutdown() throws IOException {
+        serverSocket.close();
+        synchronized (clients) {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.blitzortung.android.data.provider.standard;
+
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class StrikeStreamTest {
+
+    private static final String EVENT = "{\"t\":\"20131006T14:15:55\",\"s\":[[0,11.0,49.0,100,12.5,7],[2,11.5,49.5,100,-8.0,5]],\"next\":6}";
+
+    private StrikeStreamServer server;
+
+    private StrikeStream strikeStream;
+
+    private final Semaphore received = new Semaphore(0);
+
+    private final StrikeStream.Listener listener = new StrikeStream.Listener() {
+        @Override
+        public void onStrikesReceived() {
+            received.release();
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StrikeStreamServer();
+        strikeStream = new StrikeStream(server.getUrl(), "-1", 60, 5, listener);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        strikeStream.stop();
+        server.shutdown();
+    }
+
+    @Test
+    public void testBuildUrl() {
+        assertThat(StrikeStream.buildUrl("http://foo/", 120, 42)).isEqualTo("http://foo/stream?interval=120&next=42");
+        assertThat(StrikeStream.buildUrl("http://foo", 120, 42)).isEqualTo("http://foo/stream?interval=120&next=42");
+    }
+
+    @Test
+    public void testReceiveStrikes() throws Exception {
+        strikeStream.start();
+
+        StrikeStreamServer.Request request = server.awaitRequest(5000);
+        assertThat(request.getPath()).isEqualTo("/stream?interval=60&next=5");
+        assertThat(request.getHeader("Last-Event-ID")).isEqualTo("5");
+
+        server.sendEvent(EVENT);
+
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(strikeStream.isConnected()).isTrue();
+        assertThat(strikeStream.getNextId()).isEqualTo(6);
+
+        List<StrikeAbstract> strikes = strikeStream.drainStrikes();
+        assertThat(strikes).hasSize(2);
+        assertThat(strikes.get(0).getTimestamp()).isEqualTo(1381068955000L);
+        assertThat(strikes.get(0).getLongitude()).isEqualTo(11.0f);
+        assertThat(strikes.get(1).getTimestamp()).isEqualTo(1381068953000L);
+
+        assertThat(strikeStream.drainStrikes()).isEmpty();
+    }
+
+    @Test
+    public void testMultiLineEventsAndComments() throws Exception {
+        strikeStream.start();
+        server.awaitRequest(5000);
+
+        server.sendRaw(": keepalive\n\n");
+        server.sendRaw("id: 6\ndata: {\"t\":\"20131006T14:15:55\",\ndata: \"s\":[[0,11.0,49.0,100,12.5,7]],\"h\":[1,2,3],\"next\":6}\n\n");
+
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(strikeStream.drainStrikes()).hasSize(1);
+        assertThat(strikeStream.getHistogram()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void testInvalidEventIsSkipped() throws Exception {
+        strikeStream.start();
+        server.awaitRequest(5000);
+
+        server.sendEvent("{invalid");
+        server.sendEvent(EVENT);
+
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(strikeStream.drainStrikes()).hasSize(2);
+        assertThat(strikeStream.isConnected()).isTrue();
+    }
+
+    @Test
+    public void testResumeAfterReconnect() throws Exception {
+        strikeStream.start();
+        server.awaitRequest(5000);
+        server.sendEvent(EVENT);
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+
+        server.dropConnection();
+
+        StrikeStreamServer.Request request = server.awaitRequest(StrikeStream.MIN_RECONNECT_DELAY + 5000);
+        assertThat(request).isNotNull();
+        assertThat(request.getPath()).isEqualTo("/stream?interval=60&next=6");
+        assertThat(request.getHeader("Last-Event-ID")).isEqualTo("6");
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        strikeStream.start();
+        server.awaitRequest(5000);
+
+        strikeStream.stop();
+
+        assertThat(strikeStream.isRunning()).isFalse();
+        try {
+            server.sendRaw("data: " + EVENT + "\n\n");
+        } catch (IOException e) {
+            // the client may already have closed the connection
+        }
+        assertThat(received.tryAcquire(500, TimeUnit.MILLISECONDS)).isFalse();
+    }
+}
@@ -3,6 +3,7 @@ package org.blitzortung.android.jsonrpc;
 import com.google.common.collect.Lists;
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -62,4 +63,95 @@ public class JsonRpcClientTest {
 
         assertThat(bufferedReader.readLine(), is("{\"id\":0,\"method\":\"<methodName>\",\"params\":[\"foo\",\"bar\"]}"));
     }
+
+    @Test
+    public void testBuildRequestIncrementsId() throws Exception {
+        JSONObject first = readRequest(jsonRpcClient.buildRequest("foo", new Object[]{})).getJSONObject(0);
+        JSONObject second = readRequest(jsonRpcClient.buildRequest("foo", new Object[]{})).getJSONObject(0);
+
+        assertThat(first.getInt("id"), is(0));
+        assertThat(second.getInt("id"), is(1));
+    }
+
+    @Test
+    public void testBuildBatchRequest() throws Exception {
+        List<JsonRpcClient.Call> calls = Lists.newArrayList(
+                new JsonRpcClient.Call("get_strikes", 60, 0),
+                new JsonRpcClient.Call("get_stations"));
+
+        JSONArray request = readRequest(jsonRpcClient.buildBatchRequest(calls, 5));
+
+        assertThat(request.length(), is(2));
+        assertThat(request.getJSONObject(0).getInt("id"), is(5));
+        assertThat(request.getJSONObject(0).getString("method"), is("get_strikes"));
+        assertThat(request.getJSONObject(0).getJSONArray("params").getInt(0), is(60));
+        assertThat(request.getJSONObject(1).getInt("id"), is(6));
+        assertThat(request.getJSONObject(1).getString("method"), is("get_stations"));
+        assertThat(request.getJSONObject(1).getJSONArray("params").length(), is(0));
+    }
+
+    @Test
+    public void testParseBatchResponseDemultiplexesById() throws Exception {
+        List<JsonRpcClient.Call> calls = Lists.newArrayList(
+                new JsonRpcClient.Call("get_strikes"),
+                new JsonRpcClient.Call("get_stations"));
+
+        List<JSONObject> results = jsonRpcClient.parseBatchResponse(
+                "[{\"id\":4,\"result\":{\"stations\":[]}},{\"id\":3,\"result\":{\"s\":[]}}]", calls, 3);
+
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).has("s"), is(true));
+        assertThat(results.get(1).has("stations"), is(true));
+    }
+
+    @Test(expected = JsonRpcRemoteException.class)
+    public void testParseBatchResponseWithError() throws Exception {
+        List<JsonRpcClient.Call> calls = Lists.newArrayList(
+                new JsonRpcClient.Call("get_strikes"),
+                new JsonRpcClient.Call("get_stations"));
+
+        jsonRpcClient.parseBatchResponse(
+                "[{\"id\":0,\"result\":{\"s\":[]}},{\"id\":1,\"error\":{\"code\":-32601}}]", calls, 0);
+    }
+
+    @Test(expected = JsonRpcException.class)
+    public void testParseBatchResponseWithMissingResponse() throws Exception {
+        List<JsonRpcClient.Call> calls = Lists.newArrayList(
+                new JsonRpcClient.Call("get_strikes"),
+                new JsonRpcClient.Call("get_stations"));
+
+        jsonRpcClient.parseBatchResponse("[{\"id\":0,\"result\":{\"s\":[]}}]", calls, 0);
+    }
+
+    @Test(expected = BatchNotSupportedException.class)
+    public void testParseBatchResponseWithoutBatchSupport() throws Exception {
+        List<JsonRpcClient.Call> calls = Lists.newArrayList(
+                new JsonRpcClient.Call("get_strikes"),
+                new JsonRpcClient.Call("get_stations"));
+
+        jsonRpcClient.parseBatchResponse("{\"s\":[]}", calls, 0);
+    }
+
+    @Test(expected = JSONException.class)
+    public void testParseEmptyBatchResponse() throws Exception {
+        List<JsonRpcClient.Call> calls = Lists.newArrayList(
+                new JsonRpcClient.Call("get_strikes"),
+                new JsonRpcClient.Call("get_stations"));
+
+        jsonRpcClient.parseBatchResponse("", calls, 0);
+    }
+
+    @Test(expected = JSONException.class)
+    public void testParseBatchResponseWithErrorPage() throws Exception {
+        List<JsonRpcClient.Call> calls = Lists.newArrayList(
+                new JsonRpcClient.Call("get_strikes"),
+                new JsonRpcClient.Call("get_stations"));
+
+        jsonRpcClient.parseBatchResponse("<html><body>502 Bad Gateway</body></html>", calls, 0);
+    }
+
+    private JSONArray readRequest(JsonRequestEntity entity) throws Exception {
+        String content = new BufferedReader(new InputStreamReader(entity.getContent())).readLine();
+        return content.startsWith("[") ? new JSONArray(content) : new JSONArray().put(new JSONObject(content));
+    }
 }
@@ -0,0 +1,102 @@
+package org.blitzortung.android.jsonrpc;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServerSelectorTest {
+
+    private static final String SERVER_1 = "http://server1/";
+
+    private static final String SERVER_2 = "http://server2/";
+
+    private final long now = 1000000l;
+
+    private ServerSelector serverSelector;
+
+    @Before
+    public void setUp() {
+        serverSelector = new ServerSelector(SERVER_1, SERVER_2);
+    }
+
+    @Test
+    public void testInitialOrder() {
+        assertThat(serverSelector.getServersByPreference(now)).containsExactly(SERVER_1, SERVER_2);
+    }
+
+    @Test
+    public void testPrefersServerWithLowerLatency() {
+        serverSelector.recordSuccess(SERVER_1, 800);
+        serverSelector.recordSuccess(SERVER_2, 200);
+
+        assertThat(serverSelector.getServersByPreference(now)).containsExactly(SERVER_2, SERVER_1);
+    }
+
+    @Test
+    public void testFailedServerIsAvoidedUntilRetryDelayHasPassed() {
+        serverSelector.recordFailure(SERVER_1, now);
+
+        assertThat(serverSelector.getServersByPreference(now)).containsExactly(SERVER_2, SERVER_1);
+        assertThat(serverSelector.getServersToProbe(now)).isEmpty();
+
+        final long retryTime = now + ServerSelector.BASE_RETRY_DELAY;
+        assertThat(serverSelector.getServersToProbe(retryTime)).containsExactly(SERVER_1);
+        assertThat(serverSelector.getServersToProbe(retryTime)).isEmpty();
+        assertThat(serverSelector.getServersByPreference(retryTime)).containsExactly(SERVER_2, SERVER_1);
+
+        serverSelector.recordSuccess(SERVER_1, 100);
+
+        assertThat(serverSelector.getServersByPreference(retryTime).get(1)).isEqualTo(SERVER_1);
+        assertThat(serverSelector.getStatistics(SERVER_1).getConsecutiveFailures()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRetryDelayGrowsWithConsecutiveFailures() {
+        serverSelector.recordFailure(SERVER_1, now);
+        serverSelector.recordFailure(SERVER_1, now);
+
+        assertThat(serverSelector.getServersToProbe(now + ServerSelector.BASE_RETRY_DELAY)).isEmpty();
+        assertThat(serverSelector.getServersToProbe(now + 2 * ServerSelector.BASE_RETRY_DELAY)).containsExactly(SERVER_1);
+    }
+
+    @Test
+    public void testAllServersFailed() {
+        serverSelector.recordFailure(SERVER_2, now);
+        serverSelector.recordFailure(SERVER_1, now + 1);
+
+        assertThat(serverSelector.getServersByPreference(now + 2)).containsExactly(SERVER_2, SERVER_1);
+    }
+
+    @Test
+    public void testHedgeDelay() {
+        assertThat(serverSelector.getHedgeDelay(SERVER_1)).isEqualTo(ServerSelector.DEFAULT_HEDGE_DELAY);
+
+        for (int i = 1; i <= 10; i++) {
+            serverSelector.recordSuccess(SERVER_1, i * 100);
+        }
+
+        assertThat(serverSelector.getHedgeDelay(SERVER_1)).isEqualTo(1000);
+    }
+
+    @Test
+    public void testMinimumHedgeDelay() {
+        for (int i = 0; i < 10; i++) {
+            serverSelector.recordSuccess(SERVER_1, 10);
+        }
+
+        assertThat(serverSelector.getHedgeDelay(SERVER_1)).isEqualTo(ServerSelector.MIN_HEDGE_DELAY);
+    }
+
+    @Test
+    public void testSetServersKeepsStatistics() {
+        serverSelector.recordFailure(SERVER_2, now);
+
+        serverSelector.setServers(Lists.newArrayList(SERVER_2, "http://server3/"));
+
+        assertThat(serverSelector.getServers()).containsExactly(SERVER_2, "http://server3/");
+        assertThat(serverSelector.getStatistics(SERVER_2).getConsecutiveFailures()).isEqualTo(1);
+        assertThat(serverSelector.getServersByPreference(now)).containsExactly("http://server3/", SERVER_2);
+    }
+}
@@ -0,0 +1,108 @@
+package org.blitzortung.android.location;
+
+import android.location.Location;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class LocationPolicyTest {
+
+    private LocationPolicy locationPolicy;
+
+    @Before
+    public void setUp() {
+        locationPolicy = new LocationPolicy();
+    }
+
+    @Test
+    public void testInactivePolicyUsesDefaults() {
+        assertThat(locationPolicy.isActive()).isFalse();
+        assertThat(locationPolicy.getMinDistance(true)).isEqualTo(200);
+        assertThat(locationPolicy.getMinDistance(false)).isEqualTo(50);
+        assertThat(locationPolicy.getMinTime(LocationHandler.Provider.GPS, false)).isEqualTo(LocationPolicy.FOREGROUND_GPS_MIN_TIME);
+        assertThat(locationPolicy.getProvider(LocationHandler.Provider.GPS, true, true)).isEqualTo(LocationHandler.Provider.GPS);
+        assertThat(locationPolicy.isSignificant(createLocation(49.0, 11.0), createLocation(49.0, 11.0))).isTrue();
+    }
+
+    @Test
+    public void testDistantActivity() {
+        assertThat(locationPolicy.update(400000, 25000)).isTrue();
+
+        assertThat(locationPolicy.getSignificantDistance()).isEqualTo(5000);
+        assertThat(locationPolicy.getMinDistance(true)).isEqualTo(5000);
+        assertThat(locationPolicy.isCloseActivity()).isFalse();
+        assertThat(locationPolicy.getProvider(LocationHandler.Provider.GPS, true, true)).isEqualTo(LocationHandler.Provider.NETWORK);
+        assertThat(locationPolicy.getProvider(LocationHandler.Provider.GPS, false, true)).isEqualTo(LocationHandler.Provider.GPS);
+        assertThat(locationPolicy.getMinTime(LocationHandler.Provider.NETWORK, true)).isEqualTo(LocationPolicy.BACKGROUND_MIN_TIME);
+    }
+
+    @Test
+    public void testForegroundKeepsConfiguredProvider() {
+        locationPolicy.update(400000, 25000);
+
+        assertThat(locationPolicy.getProvider(LocationHandler.Provider.GPS, true, false)).isEqualTo(LocationHandler.Provider.GPS);
+        assertThat(locationPolicy.getMinDistance(false)).isEqualTo(50);
+        assertThat(locationPolicy.getMinTime(LocationHandler.Provider.GPS, false)).isEqualTo(LocationPolicy.FOREGROUND_GPS_MIN_TIME);
+    }
+
+    @Test
+    public void testCloseActivityEscalates() {
+        locationPolicy.update(400000, 25000);
+
+        assertThat(locationPolicy.update(20000, 25000)).isTrue();
+
+        assertThat(locationPolicy.isCloseActivity()).isTrue();
+        assertThat(locationPolicy.getSignificantDistance()).isEqualTo(200);
+        assertThat(locationPolicy.getProvider(LocationHandler.Provider.GPS, true, true)).isEqualTo(LocationHandler.Provider.GPS);
+        assertThat(locationPolicy.getMinTime(LocationHandler.Provider.GPS, true)).isEqualTo(LocationPolicy.BACKGROUND_CLOSE_MIN_TIME);
+    }
+
+    @Test
+    public void testNoActivity() {
+        locationPolicy.update(Float.POSITIVE_INFINITY, 25000);
+
+        assertThat(locationPolicy.isQuiet()).isTrue();
+        assertThat(locationPolicy.getSignificantDistance()).isEqualTo(5000);
+        assertThat(locationPolicy.getMinTime(LocationHandler.Provider.NETWORK, true)).isEqualTo(LocationPolicy.BACKGROUND_QUIET_MIN_TIME);
+    }
+
+    @Test
+    public void testUpdateReportsChangesOnlyForNewLevel() {
+        locationPolicy.update(400000, 25000);
+
+        assertThat(locationPolicy.update(420000, 25000)).isFalse();
+        assertThat(locationPolicy.update(100000, 25000)).isTrue();
+    }
+
+    @Test
+    public void testReset() {
+        assertThat(locationPolicy.reset()).isFalse();
+
+        locationPolicy.update(400000, 25000);
+
+        assertThat(locationPolicy.reset()).isTrue();
+        assertThat(locationPolicy.isActive()).isFalse();
+    }
+
+    @Test
+    public void testIsSignificant() {
+        locationPolicy.update(400000, 25000);
+
+        final Location previous = createLocation(49.0, 11.0);
+
+        assertThat(locationPolicy.isSignificant(previous, createLocation(49.01, 11.0))).isFalse();
+        assertThat(locationPolicy.isSignificant(previous, createLocation(49.1, 11.0))).isTrue();
+        assertThat(locationPolicy.isSignificant(null, createLocation(49.0, 11.0))).isTrue();
+    }
+
+    private Location createLocation(double latitude, double longitude) {
+        final Location location = new Location("network");
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        return location;
+    }
+}
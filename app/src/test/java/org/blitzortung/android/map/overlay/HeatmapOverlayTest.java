@@ -0,0 +1,178 @@
+package org.blitzortung.android.map.overlay;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.Rect;
+import com.google.android.maps.GeoPoint;
+import com.google.android.maps.MapView;
+import com.google.android.maps.Projection;
+import com.google.common.collect.Lists;
+import org.blitzortung.android.data.beans.DefaultStrike;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.map.OwnMapActivity;
+import org.blitzortung.android.map.OwnMapView;
+import org.blitzortung.android.map.overlay.color.StrikeColorHandler;
+import org.blitzortung.android.util.Clock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class HeatmapOverlayTest {
+
+    private static final long START_TIME = 1381068000000L;
+
+    @Mock
+    private StrikeColorHandler colorHandler;
+
+    @Mock
+    private Resources resources;
+
+    @Mock
+    private OwnMapActivity ownMapActivity;
+
+    @Mock
+    private OwnMapView ownMapView;
+
+    private final int[] colors = new int[]{0xffff0000, 0xff00ff00, 0xff0000ff};
+
+    private StrikesOverlay strikesOverlay;
+
+    private HeatmapOverlay heatmapOverlay;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(ownMapActivity.getResources()).thenReturn(resources);
+        when(ownMapActivity.getMapView()).thenReturn(ownMapView);
+        when(colorHandler.getColors()).thenReturn(colors);
+
+        strikesOverlay = spy(new StrikesOverlay(ownMapActivity, colorHandler));
+        doReturn(false).when(strikesOverlay).clearPopup();
+
+        heatmapOverlay = new HeatmapOverlay(ownMapActivity, colorHandler);
+    }
+
+    @After
+    public void tearDown() {
+        Clock.setDefault(null);
+    }
+
+    @Test
+    public void testIncrementalUpdateMatchesFullRebuild() {
+        heatmapOverlay.applyUpdate(strikesOverlay.prepareUpdate(createStrikes(0, 10), false, 0), 60);
+        heatmapOverlay.applyUpdate(strikesOverlay.prepareUpdate(createStrikes(10, 10), true, START_TIME + 5 * 60000), 60);
+
+        final HeatmapOverlay rebuiltOverlay = new HeatmapOverlay(ownMapActivity, colorHandler);
+        rebuiltOverlay.applyUpdate(strikesOverlay.prepareUpdate(createStrikes(5, 15), false, 0), 60);
+
+        assertThat(heatmapOverlay.getDensityGrid().getNumberOfStrikes()).isEqualTo(15);
+        final long time = START_TIME + 20 * 60000;
+        for (double longitude = 10.75; longitude < 12.5; longitude += 0.1) {
+            assertThat(heatmapOverlay.getDensityGrid().getDensity(longitude, 48.05, time))
+                    .isCloseTo(rebuiltOverlay.getDensityGrid().getDensity(longitude, 48.05, time), within(1e-6f));
+        }
+    }
+
+    @Test
+    public void testDecayTimeFollowsIntervalDuration() {
+        heatmapOverlay.applyUpdate(strikesOverlay.prepareUpdate(createStrikes(0, 10), false, 0), 120);
+
+        assertThat(heatmapOverlay.getIntervalDuration()).isEqualTo(120);
+        assertThat(heatmapOverlay.getDensityGrid().getDecayTime()).isEqualTo(HeatmapOverlay.getDecayTime(120));
+
+        heatmapOverlay.applyUpdate(strikesOverlay.prepareUpdate(createStrikes(10, 5), true, 0), 60);
+
+        assertThat(heatmapOverlay.getDensityGrid().getDecayTime()).isEqualTo(HeatmapOverlay.getDecayTime(60));
+        assertThat(heatmapOverlay.getDensityGrid().getNumberOfStrikes()).isEqualTo(15);
+    }
+
+    @Test
+    public void testClear() {
+        heatmapOverlay.applyUpdate(strikesOverlay.prepareUpdate(createStrikes(0, 10), false, 0), 60);
+
+        heatmapOverlay.clear();
+
+        assertThat(heatmapOverlay.getDensityGrid().getNumberOfStrikes()).isEqualTo(0);
+        assertThat(heatmapOverlay.getDensityGrid().getTiles()).isEmpty();
+    }
+
+    @Test
+    public void testColorLevels() {
+        heatmapOverlay.updateLevels();
+
+        assertThat(heatmapOverlay.getColor(0f)).isEqualTo(Color.TRANSPARENT);
+        assertThat(heatmapOverlay.getColor(HeatmapOverlay.MINIMUM_DENSITY * 0.9f)).isEqualTo(Color.TRANSPARENT);
+        assertThat(heatmapOverlay.getColor(HeatmapOverlay.MINIMUM_DENSITY)).isEqualTo(0x600000ff);
+        assertThat(heatmapOverlay.getColor(HeatmapOverlay.MINIMUM_DENSITY * HeatmapOverlay.LEVEL_FACTOR)).isEqualTo(0x9000ff00);
+        assertThat(heatmapOverlay.getColor(1000f)).isEqualTo(0xc0ff0000);
+    }
+
+    @Test
+    public void testLayerComponent() {
+        assertThat(heatmapOverlay.isEnabled()).isTrue();
+
+        heatmapOverlay.setEnabled(false);
+
+        assertThat(heatmapOverlay.isEnabled()).isFalse();
+    }
+
+    @Test
+    public void testDrawRendersVisibleTiles() {
+        Clock.setDefault(new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return START_TIME + 10 * 60000;
+            }
+        });
+        heatmapOverlay.applyUpdate(strikesOverlay.prepareUpdate(createStrikes(0, 10), false, 0), 60);
+
+        final MapView mapView = mock(MapView.class);
+        final Projection projection = mock(Projection.class);
+        when(mapView.getProjection()).thenReturn(projection);
+        when(projection.toPixels(any(GeoPoint.class), any(Point.class))).thenAnswer(new Answer<Point>() {
+            @Override
+            public Point answer(InvocationOnMock invocation) throws Throwable {
+                final GeoPoint geoPoint = (GeoPoint) invocation.getArguments()[0];
+                final Point point = (Point) invocation.getArguments()[1];
+                point.x = (geoPoint.getLongitudeE6() - 10000000) / 10000;
+                point.y = (49000000 - geoPoint.getLatitudeE6()) / 10000;
+                return point;
+            }
+        });
+        final Canvas canvas = mock(Canvas.class);
+        when(canvas.getClipBounds()).thenReturn(new Rect(0, 0, 480, 320));
+
+        heatmapOverlay.draw(canvas, mapView, true);
+        verify(canvas, never()).drawBitmap(any(Bitmap.class), any(Rect.class), any(Rect.class), any(Paint.class));
+
+        heatmapOverlay.draw(canvas, mapView, false);
+        verify(canvas, atLeastOnce()).drawBitmap(any(Bitmap.class), any(Rect.class), any(Rect.class), any(Paint.class));
+    }
+
+    private List<StrikeAbstract> createStrikes(int first, int count) {
+        final List<StrikeAbstract> strikes = Lists.newArrayList();
+        for (int index = first; index < first + count; index++) {
+            strikes.add(new DefaultStrike(START_TIME + index * 60000, 11.0f + 0.05f * (index % 4), 48.0f, 0, 10f, (short) 5, 100f));
+        }
+        return strikes;
+    }
+}
@@ -24,6 +24,8 @@ import org.robolectric.annotation.Implements;
 import java.util.List;
 
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
@@ -92,6 +94,86 @@ public class ParticipantsOverlayTest {
         assertThat(participantsOverlay.size(), is(2));
     }
 
+    @Test
+    public void testPrepareUpdateReusesUnchangedParticipants()
+    {
+        participantsOverlay.setParticipants(Lists.newArrayList(
+                new Station("foo", 11.0f, 49.0f, Station.OFFLINE_SINCE_NOT_SET),
+                new Station("bar", 12.0f, 50.0f, Station.OFFLINE_SINCE_NOT_SET)));
+        ParticipantOverlayItem foo = participantsOverlay.createItem(0);
+        ParticipantOverlayItem bar = participantsOverlay.createItem(1);
+
+        ParticipantsOverlay.Update update = participantsOverlay.prepareUpdate(Lists.newArrayList(
+                new Station("foo", 11.0f, 49.0f, Station.OFFLINE_SINCE_NOT_SET),
+                new Station("bar", 12.0f, 50.0f, 1000L)));
+
+        assertThat(update.hasChanges(), is(true));
+        assertThat(update.size(), is(2));
+
+        participantsOverlay.applyUpdate(update);
+
+        assertThat(participantsOverlay.createItem(0), is(sameInstance(foo)));
+        assertThat(participantsOverlay.createItem(1), is(not(sameInstance(bar))));
+        assertThat(participantsOverlay.createItem(1).getParticipantState(), is(Station.State.OFF));
+    }
+
+    @Test
+    public void testPrepareUpdateWithoutChanges()
+    {
+        participantsOverlay.setParticipants(Lists.newArrayList(
+                new Station("foo", 11.0f, 49.0f, Station.OFFLINE_SINCE_NOT_SET)));
+
+        ParticipantsOverlay.Update update = participantsOverlay.prepareUpdate(Lists.newArrayList(
+                new Station("foo", 11.0f, 49.0f, Station.OFFLINE_SINCE_NOT_SET)));
+
+        assertThat(update.hasChanges(), is(false));
+    }
+
+    @Test
+    public void testPrepareUpdateWithInsertAndRemove()
+    {
+        participantsOverlay.setParticipants(Lists.newArrayList(
+                new Station("foo", 11.0f, 49.0f, Station.OFFLINE_SINCE_NOT_SET),
+                new Station("bar", 12.0f, 50.0f, Station.OFFLINE_SINCE_NOT_SET)));
+        ParticipantOverlayItem bar = participantsOverlay.createItem(1);
+
+        participantsOverlay.setParticipants(Lists.newArrayList(
+                new Station("bar", 12.0f, 50.0f, Station.OFFLINE_SINCE_NOT_SET),
+                new Station("baz", 13.0f, 51.0f, 2000L)));
+
+        assertThat(participantsOverlay.size(), is(2));
+        assertThat(participantsOverlay.createItem(0), is(sameInstance(bar)));
+        assertThat(participantsOverlay.createItem(1).getLastDataTime(), is(2000L));
+    }
+
+    @Test
+    public void testPrepareUpdateWithDuplicateNames()
+    {
+        participantsOverlay.setParticipants(Lists.newArrayList(
+                new Station("foo", 11.0f, 49.0f, Station.OFFLINE_SINCE_NOT_SET),
+                new Station("foo", 12.0f, 50.0f, Station.OFFLINE_SINCE_NOT_SET)));
+
+        ParticipantsOverlay.Update update = participantsOverlay.prepareUpdate(Lists.newArrayList(
+                new Station("foo", 11.0f, 49.0f, Station.OFFLINE_SINCE_NOT_SET),
+                new Station("foo", 12.0f, 50.0f, Station.OFFLINE_SINCE_NOT_SET)));
+
+        assertThat(update.size(), is(2));
+        assertThat(update.hasChanges(), is(false));
+    }
+
+    @Test
+    public void testApplyUpdateAfterClearIsDiscarded()
+    {
+        ParticipantsOverlay.Update update = participantsOverlay.prepareUpdate(Lists.newArrayList(
+                new Station("foo", 11.0f, 49.0f, Station.OFFLINE_SINCE_NOT_SET)));
+        doReturn(false).when(participantsOverlay).clearPopup();
+
+        participantsOverlay.clear();
+        participantsOverlay.applyUpdate(update);
+
+        assertThat(participantsOverlay.size(), is(0));
+    }
+
     @Test
     public void testClear()
     {
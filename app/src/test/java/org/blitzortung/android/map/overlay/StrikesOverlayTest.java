@@ -14,6 +14,7 @@ import com.google.android.maps.MapView;
 import com.google.android.maps.Projection;
 import com.google.common.collect.Lists;
 import org.blitzortung.android.data.TimeIntervalWithOffset;
+import org.blitzortung.android.data.beans.DefaultStrike;
 import org.blitzortung.android.data.beans.StrikeAbstract;
 import org.blitzortung.android.data.beans.RasterParameters;
 import org.blitzortung.android.map.OwnMapActivity;
@@ -103,6 +104,56 @@ public class StrikesOverlayTest {
         assertThat(strikesOverlay.size()).isEqualTo(4);
     }
 
+    @Test
+    public void testHistogramAreaAcrossAntimeridian() {
+        final long referenceTime = 1000 * 60 * 60 * 1000l;
+        strikesOverlay.setIntervalDuration(60);
+        strikesOverlay.setReferenceTime(referenceTime);
+        strikesOverlay.addStrikes(Lists.<StrikeAbstract>newArrayList(
+                new DefaultStrike(referenceTime - 1000, 179.5f, 10f, 0, 10f, (short) 5, 100f),
+                new DefaultStrike(referenceTime - 1000, -179.5f, 10f, 0, 10f, (short) 5, 100f),
+                new DefaultStrike(referenceTime - 1000, 0f, 10f, 0, 10f, (short) 5, 100f)));
+
+        strikesOverlay.setHistogramArea(179.0, 0.0, 181.0, 20.0);
+
+        final int[] histogram = strikesOverlay.getHistogram();
+        assertThat(histogram[histogram.length - 1]).isEqualTo(2);
+    }
+
+    @Test
+    public void testPrepareAndApplyIncrementalUpdate() {
+        doReturn(true).when(strikesOverlay).clearPopup();
+
+        strikesOverlay.applyUpdate(strikesOverlay.prepareUpdate(
+                Lists.newArrayList(createStrike(1000), createStrike(2000)), false, 0));
+
+        StrikesOverlay.Update update = strikesOverlay.prepareUpdate(Lists.newArrayList(createStrike(3000)), true, 1500);
+
+        assertThat(update.size()).isEqualTo(2);
+        assertThat(strikesOverlay.size()).isEqualTo(2);
+        assertThat(strikesOverlay.getTotalNumberOfStrikes()).isEqualTo(2);
+
+        strikesOverlay.applyUpdate(update);
+
+        assertThat(strikesOverlay.size()).isEqualTo(2);
+        assertThat(strikesOverlay.createItem(0).getTimestamp()).isEqualTo(2000);
+        assertThat(strikesOverlay.createItem(1).getTimestamp()).isEqualTo(3000);
+        assertThat(strikesOverlay.getTotalNumberOfStrikes()).isEqualTo(2);
+    }
+
+    @Test
+    public void testUpdatePreparedBeforeClearIsDiscarded() {
+        doReturn(true).when(strikesOverlay).clearPopup();
+
+        StrikesOverlay.Update update = strikesOverlay.prepareUpdate(Lists.newArrayList(createStrike(1000)), false, 0);
+
+        strikesOverlay.clear();
+        strikesOverlay.applyUpdate(update);
+
+        assertThat(strikesOverlay.size()).isEqualTo(0);
+        assertThat(strikesOverlay.getTotalNumberOfStrikes()).isEqualTo(0);
+    }
+
     @Test
     public void testClear() {
         doReturn(true).when(strikesOverlay).clearPopup();
@@ -122,7 +173,8 @@ public class StrikesOverlayTest {
 
     @Test
     public void testRefresh() {
-        doReturn(mock(Drawable.class)).when(strikesOverlay).updateAndReturnDrawable(any(StrikeOverlayItem.class), anyInt(), any(ColorHandler.class));
+        when(colorHandler.getNumberOfColors()).thenReturn(colors.length);
+        when(colorHandler.getColorSection(anyLong(), anyLong(), any(TimeIntervalWithOffset.class))).thenReturn(1);
 
         StrikeOverlayItem strikeOverlayItem = mock(StrikeOverlayItem.class);
 
@@ -134,9 +186,26 @@ public class StrikesOverlayTest {
 
         verify(colorHandler, times(1)).updateTarget();
         verify(colorHandler, times(1)).getColorSection(anyLong(), anyLong(), any(TimeIntervalWithOffset.class));
+        verify(colorHandler, times(1)).getColor(1);
+
+        verify(strikesOverlay, times(0)).updateAndReturnDrawable(any(StrikeOverlayItem.class), anyInt(), any(ColorHandler.class));
+        verify(strikeOverlayItem, times(1)).setShape(any(StrikeShape.class));
+    }
+
+    @Test
+    public void testRefreshWithRasterParameters() {
+        doReturn(mock(Shape.class)).when(strikesOverlay).updateAndReturnDrawable(any(StrikeOverlayItem.class), anyInt(), any(ColorHandler.class));
+        strikesOverlay.setRasterParameters(mock(RasterParameters.class));
+
+        StrikeOverlayItem strikeOverlayItem = mock(StrikeOverlayItem.class);
+
+        strikesOverlay.strikes.add(strikeOverlayItem);
+
+        when(strikeOverlayItem.getTimestamp()).thenReturn(System.currentTimeMillis());
+
+        strikesOverlay.refresh();
 
         verify(strikesOverlay, times(1)).updateAndReturnDrawable(eq(strikeOverlayItem), anyInt(), eq(colorHandler));
-        verify(strikeOverlayItem, times(1)).setMarker(any(Drawable.class));
     }
 
     @Test
@@ -230,4 +299,11 @@ public class StrikesOverlayTest {
 
         verify(strikesOverlay, times(1)).clearPopup();
     }
+
+    private StrikeAbstract createStrike(long timestamp) {
+        StrikeAbstract strike = mock(StrikeAbstract.class);
+        when(strike.getTimestamp()).thenReturn(timestamp);
+        when(strike.getMultiplicity()).thenReturn(1);
+        return strike;
+    }
 }
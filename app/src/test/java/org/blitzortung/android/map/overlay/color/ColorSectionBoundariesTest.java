@@ -0,0 +1,101 @@
+package org.blitzortung.android.map.overlay.color;
+
+import com.google.common.collect.Lists;
+import org.blitzortung.android.data.beans.Strike;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColorSectionBoundariesTest {
+
+    private static final long MINUTE = 60 * 1000l;
+
+    private final long now = 1000 * MINUTE;
+
+    private List<Strike> strikes;
+
+    private ColorSectionBoundaries colorSectionBoundaries;
+
+    @Before
+    public void setUp() {
+        strikes = Lists.newArrayList(
+                createStrike(now - 25 * MINUTE),
+                createStrike(now - 15 * MINUTE),
+                createStrike(now - 12 * MINUTE),
+                createStrike(now - 5 * MINUTE),
+                createStrike(now - MINUTE));
+
+        colorSectionBoundaries = new ColorSectionBoundaries();
+        colorSectionBoundaries.update(strikes, now, 3, 10 * MINUTE, 0);
+    }
+
+    @Test
+    public void testInitialSections() {
+        assertThat(colorSectionBoundaries.getSection(0)).isEqualTo(2);
+        assertThat(colorSectionBoundaries.getSection(1)).isEqualTo(1);
+        assertThat(colorSectionBoundaries.getSection(2)).isEqualTo(1);
+        assertThat(colorSectionBoundaries.getSection(3)).isEqualTo(0);
+        assertThat(colorSectionBoundaries.getSection(4)).isEqualTo(0);
+    }
+
+    @Test
+    public void testNextCrossingTime() {
+        assertThat(colorSectionBoundaries.getNextCrossingTime()).isEqualTo(now + 5 * MINUTE);
+    }
+
+    @Test
+    public void testAdvanceOnlyReportsCrossingStrikes() {
+        ColorSectionBoundaries.SectionChangeListener listener = mock(ColorSectionBoundaries.SectionChangeListener.class);
+
+        int changed = colorSectionBoundaries.advance(now + 5 * MINUTE, listener);
+
+        assertThat(changed).isEqualTo(2);
+        verify(listener, times(1)).onSectionChanged(1, 2);
+        verify(listener, times(1)).onSectionChanged(3, 1);
+        verifyNoMoreInteractions(listener);
+
+        assertThat(colorSectionBoundaries.getNextCrossingTime()).isEqualTo(now + 8 * MINUTE);
+    }
+
+    @Test
+    public void testAdvanceWithoutCrossing() {
+        ColorSectionBoundaries.SectionChangeListener listener = mock(ColorSectionBoundaries.SectionChangeListener.class);
+
+        assertThat(colorSectionBoundaries.advance(now + MINUTE, listener)).isEqualTo(0);
+
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testIntervalOffset() {
+        colorSectionBoundaries.update(strikes, now, 3, 10 * MINUTE, -10 * MINUTE);
+
+        assertThat(colorSectionBoundaries.getSection(0)).isEqualTo(1);
+        assertThat(colorSectionBoundaries.getSection(1)).isEqualTo(0);
+        assertThat(colorSectionBoundaries.getNextCrossingTime()).isEqualTo(now + 5 * MINUTE);
+    }
+
+    @Test
+    public void testWithoutStrikes() {
+        colorSectionBoundaries.update(Lists.<Strike>newArrayList(), now, 3, 10 * MINUTE, 0);
+
+        assertThat(colorSectionBoundaries.getNextCrossingTime()).isEqualTo(ColorSectionBoundaries.NO_CROSSING);
+    }
+
+    private Strike createStrike(long timestamp) {
+        Strike strike = mock(Strike.class);
+        when(strike.getTimestamp()).thenReturn(timestamp);
+        return strike;
+    }
+}
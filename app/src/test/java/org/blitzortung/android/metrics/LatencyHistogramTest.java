@@ -0,0 +1,72 @@
+package org.blitzortung.android.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getMean()).isEqualTo(0);
+        assertThat(histogram.getPercentile(0.5f)).isEqualTo(0);
+    }
+
+    @Test
+    public void testBucketBoundsAreContinuous() {
+        for (int index = 1; index < 300; index++) {
+            assertThat(LatencyHistogram.getLowerBound(index)).isEqualTo(LatencyHistogram.getUpperBound(index - 1) + 1);
+            assertThat(LatencyHistogram.getIndex(LatencyHistogram.getLowerBound(index))).isEqualTo(index);
+        }
+    }
+
+    @Test
+    public void testRelativeBucketWidth() {
+        for (long value = 16; value < 10000000; value = value * 3 / 2) {
+            final int index = LatencyHistogram.getIndex(value);
+            final long lowerBound = LatencyHistogram.getLowerBound(index);
+            final long upperBound = LatencyHistogram.getUpperBound(index);
+            assertThat(value).isBetween(lowerBound, upperBound);
+            assertThat((double) (upperBound - lowerBound + 1) / lowerBound).isLessThanOrEqualTo(0.125);
+        }
+    }
+
+    @Test
+    public void testRecord() {
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100);
+        assertThat(histogram.getMax()).isEqualTo(100000);
+        assertThat(histogram.getMean()).isEqualTo(50500);
+        assertThat(histogram.getPercentile(0.5f)).isBetween(50000L, 50000L * 9 / 8);
+        assertThat(histogram.getPercentile(0.99f)).isBetween(99000L, 100000L);
+        assertThat(histogram.getPercentile(1.0f)).isEqualTo(100000);
+    }
+
+    @Test
+    public void testRecordNanos() {
+        histogram.recordNanos(5000);
+
+        assertThat(histogram.getMax()).isEqualTo(5);
+    }
+
+    @Test
+    public void testReset() {
+        histogram.record(10);
+        histogram.reset();
+
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getMax()).isEqualTo(0);
+    }
+}
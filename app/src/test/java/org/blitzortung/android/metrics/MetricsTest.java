@@ -0,0 +1,66 @@
+package org.blitzortung.android.metrics;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class MetricsTest {
+
+    private Metrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new Metrics();
+    }
+
+    @Test
+    public void testCountersAreLabeled() {
+        metrics.increment("requests", "a");
+        metrics.increment("requests", "a");
+        metrics.add("requests", "b", 5);
+        metrics.increment("requests", null);
+
+        assertThat(metrics.getCounter("requests", "a").get()).isEqualTo(2);
+        assertThat(metrics.getCounter("requests", "b").get()).isEqualTo(5);
+        assertThat(metrics.getCounter("requests", null).get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testHistogramsArePerStageAndLabel() {
+        metrics.recordLatency(Metrics.Stage.DECODE, "server", 2000000);
+
+        assertThat(metrics.getHistogram(Metrics.Stage.DECODE, "server").getCount()).isEqualTo(1);
+        assertThat(metrics.getHistogram(Metrics.Stage.DECODE, null).getCount()).isEqualTo(0);
+        assertThat(metrics.getHistogram(Metrics.Stage.DOWNLOAD, "server").getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testToJson() throws JSONException {
+        metrics.increment("requests", "a");
+        metrics.recordLatency(Metrics.Stage.ALERT_EVALUATION, null, 3000000);
+
+        final JSONObject json = metrics.toJson();
+
+        assertThat(json.getJSONObject("counters").getLong("requests{a}")).isEqualTo(1);
+        final JSONObject latency = json.getJSONObject("latencies").getJSONObject("alert_evaluation");
+        assertThat(latency.getLong("count")).isEqualTo(1);
+        assertThat(latency.getLong("max_us")).isEqualTo(3000);
+    }
+
+    @Test
+    public void testReset() {
+        metrics.increment("requests", "a");
+        metrics.recordLatency(Metrics.Stage.FETCH, "RPC", 1000);
+
+        metrics.reset();
+
+        assertThat(metrics.getCounter("requests", "a").get()).isEqualTo(0);
+        assertThat(metrics.getHistogram(Metrics.Stage.FETCH, "RPC").getCount()).isEqualTo(0);
+    }
+}
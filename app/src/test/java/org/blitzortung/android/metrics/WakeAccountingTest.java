@@ -0,0 +1,104 @@
+package org.blitzortung.android.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WakeAccountingTest {
+
+    private static final long MINUTE = 60 * 1000;
+
+    private WakeAccounting wakeAccounting;
+
+    @Before
+    public void setUp() {
+        wakeAccounting = new WakeAccounting(4);
+    }
+
+    @Test
+    public void testEmptySummary() {
+        final WakeAccounting.Summary summary = wakeAccounting.getSummary(1000);
+
+        assertThat(summary.getNumberOfCycles()).isEqualTo(0);
+        assertThat(summary.getWakeupsPerHour()).isEqualTo(0f);
+    }
+
+    @Test
+    public void testCycle() {
+        wakeAccounting.startCycle(1000);
+        wakeAccounting.recordAlertEvaluation(2000000);
+        wakeAccounting.recordFetch(true, 1234);
+        wakeAccounting.endCycle(1500);
+
+        final List<WakeAccounting.Cycle> cycles = wakeAccounting.getCycles();
+        assertThat(cycles).hasSize(1);
+        final WakeAccounting.Cycle cycle = cycles.get(0);
+        assertThat(cycle.getStartTime()).isEqualTo(1000);
+        assertThat(cycle.getHoldTime()).isEqualTo(500);
+        assertThat(cycle.isSuccess()).isTrue();
+        assertThat(cycle.getChars()).isEqualTo(1234);
+        assertThat(cycle.getAlertEvaluationTime()).isEqualTo(2000);
+    }
+
+    @Test
+    public void testRecordingOutsideOfCycleIsIgnored() {
+        wakeAccounting.recordFetch(true, 1234);
+        wakeAccounting.endCycle(1000);
+
+        assertThat(wakeAccounting.getCycles()).isEmpty();
+    }
+
+    @Test
+    public void testNestedStartKeepsFirstStartTime() {
+        wakeAccounting.startCycle(1000);
+        wakeAccounting.startCycle(2000);
+        wakeAccounting.endCycle(3000);
+
+        assertThat(wakeAccounting.getCycles().get(0).getHoldTime()).isEqualTo(2000);
+    }
+
+    @Test
+    public void testRingBufferKeepsLatestCycles() {
+        for (int index = 0; index < 6; index++) {
+            wakeAccounting.startCycle(index * MINUTE);
+            wakeAccounting.endCycle(index * MINUTE + index);
+        }
+
+        final List<WakeAccounting.Cycle> cycles = wakeAccounting.getCycles();
+        assertThat(cycles).hasSize(4);
+        assertThat(cycles.get(0).getHoldTime()).isEqualTo(2);
+        assertThat(cycles.get(3).getHoldTime()).isEqualTo(5);
+    }
+
+    @Test
+    public void testSummary() {
+        final long[] holdTimes = {100, 200, 300, 4000};
+        for (int index = 0; index < holdTimes.length; index++) {
+            wakeAccounting.startCycle(index * 15 * MINUTE);
+            wakeAccounting.recordFetch(index != 3, 1000);
+            wakeAccounting.endCycle(index * 15 * MINUTE + holdTimes[index]);
+        }
+
+        final WakeAccounting.Summary summary = wakeAccounting.getSummary(60 * MINUTE);
+
+        assertThat(summary.getNumberOfCycles()).isEqualTo(4);
+        assertThat(summary.getHoldTimeMedian()).isEqualTo(200);
+        assertThat(summary.getHoldTime95()).isEqualTo(4000);
+        assertThat(summary.getWakeupsPerHour()).isEqualTo(4f);
+        assertThat(summary.getSuccessRatio()).isEqualTo(0.75f);
+        assertThat(summary.getCharsPerWake()).isEqualTo(1000);
+    }
+
+    @Test
+    public void testClear() {
+        wakeAccounting.startCycle(1000);
+        wakeAccounting.endCycle(2000);
+
+        wakeAccounting.clear();
+
+        assertThat(wakeAccounting.getCycles()).isEmpty();
+    }
+}
@@ -0,0 +1,209 @@
+package org.blitzortung.android.protocol;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConsumerContainerTest {
+
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        public void runAll() {
+            final List<Runnable> pendingTasks = new ArrayList<Runnable>(tasks);
+            tasks.clear();
+            for (Runnable task : pendingTasks) {
+                task.run();
+            }
+        }
+    }
+
+    private int firstConsumerCount;
+
+    private int lastConsumerCount;
+
+    private ConsumerContainer<String> consumerContainer;
+
+    @Before
+    public void setUp() {
+        consumerContainer = new ConsumerContainer<String>() {
+            @Override
+            public void addedFirstConsumer() {
+                firstConsumerCount++;
+            }
+
+            @Override
+            public void removedLastConsumer() {
+                lastConsumerCount++;
+            }
+        };
+    }
+
+    @Test
+    public void testAddAndRemoveConsumers() {
+        Consumer<String> consumer1 = mockConsumer();
+        Consumer<String> consumer2 = mockConsumer();
+
+        consumerContainer.addConsumer(consumer1);
+        consumerContainer.addConsumer(consumer2);
+        consumerContainer.addConsumer(consumer1);
+
+        assertThat(consumerContainer.size()).isEqualTo(2);
+        assertThat(firstConsumerCount).isEqualTo(1);
+
+        consumerContainer.removeConsumer(consumer1);
+        consumerContainer.removeConsumer(consumer1);
+        assertThat(lastConsumerCount).isEqualTo(0);
+
+        consumerContainer.removeConsumer(consumer2);
+        assertThat(lastConsumerCount).isEqualTo(1);
+        assertThat(consumerContainer.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testBroadcastAndCurrentPayload() {
+        Consumer<String> consumer1 = mockConsumer();
+        consumerContainer.addConsumer(consumer1);
+
+        consumerContainer.storeAndBroadcast("foo");
+        consumerContainer.broadcast("bar");
+
+        Consumer<String> consumer2 = mockConsumer();
+        consumerContainer.addConsumer(consumer2);
+
+        verify(consumer1, times(1)).consume("foo");
+        verify(consumer1, times(1)).consume("bar");
+        verify(consumer2, times(1)).consume("foo");
+        verifyNoMoreInteractions(consumer2);
+    }
+
+    @Test
+    public void testConsumerRemovingItselfDuringBroadcast() {
+        final Consumer<String> consumer2 = mockConsumer();
+        Consumer<String> consumer1 = new Consumer<String>() {
+            @Override
+            public void consume(String payload) {
+                consumerContainer.removeConsumer(this);
+            }
+        };
+        consumerContainer.addConsumer(consumer1);
+        consumerContainer.addConsumer(consumer2);
+
+        consumerContainer.broadcast("foo");
+
+        verify(consumer2, times(1)).consume("foo");
+        assertThat(consumerContainer.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testQueuedConsumer() {
+        ManualExecutor executor = new ManualExecutor();
+        Consumer<String> slowConsumer = mockConsumer();
+        Consumer<String> consumer = mockConsumer();
+
+        consumerContainer.addConsumer(slowConsumer, executor, 2);
+        consumerContainer.addConsumer(consumer);
+
+        consumerContainer.broadcast("1");
+        consumerContainer.broadcast("2");
+        consumerContainer.broadcast("3");
+
+        verify(consumer, times(1)).consume("3");
+        verifyNoMoreInteractions(slowConsumer);
+
+        executor.runAll();
+
+        verify(slowConsumer, times(1)).consume("2");
+        verify(slowConsumer, times(1)).consume("3");
+        verifyNoMoreInteractions(slowConsumer);
+    }
+
+    @Test
+    public void testRemoveQueuedConsumerDropsPendingPayloads() {
+        ManualExecutor executor = new ManualExecutor();
+        Consumer<String> slowConsumer = mockConsumer();
+
+        consumerContainer.addConsumer(slowConsumer, executor, 2);
+        consumerContainer.broadcast("1");
+
+        consumerContainer.removeConsumer(slowConsumer);
+        executor.runAll();
+
+        verifyNoMoreInteractions(slowConsumer);
+        assertThat(consumerContainer.isEmpty()).isTrue();
+        assertThat(lastConsumerCount).isEqualTo(1);
+    }
+
+    @Test
+    public void testConsumerIsRegisteredOnlyOnceAcrossModes() {
+        ManualExecutor executor = new ManualExecutor();
+        Consumer<String> directConsumer = mockConsumer();
+        Consumer<String> queuedConsumer = mockConsumer();
+
+        consumerContainer.addConsumer(directConsumer);
+        consumerContainer.addConsumer(directConsumer, executor, 2);
+        consumerContainer.addConsumer(queuedConsumer, executor, 2);
+        consumerContainer.addConsumer(queuedConsumer);
+        assertThat(consumerContainer.size()).isEqualTo(2);
+
+        consumerContainer.broadcast("foo");
+        executor.runAll();
+        verify(directConsumer, times(1)).consume("foo");
+        verify(queuedConsumer, times(1)).consume("foo");
+
+        consumerContainer.removeConsumer(directConsumer);
+        consumerContainer.removeConsumer(queuedConsumer);
+        assertThat(consumerContainer.isEmpty()).isTrue();
+        assertThat(lastConsumerCount).isEqualTo(1);
+    }
+
+    @Test
+    public void testCurrentPayloadIsSentOutsideOfTheLock() throws InterruptedException {
+        consumerContainer.storeAndBroadcast("foo");
+        final Consumer<String> otherConsumer = mockConsumer();
+        final Thread otherThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consumerContainer.addConsumer(otherConsumer);
+            }
+        });
+
+        consumerContainer.addConsumer(new Consumer<String>() {
+            @Override
+            public void consume(String payload) {
+                otherThread.start();
+                try {
+                    otherThread.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        assertThat(otherThread.isAlive()).isFalse();
+        verify(otherConsumer, times(1)).consume("foo");
+        otherThread.join();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String> mockConsumer() {
+        return mock(Consumer.class);
+    }
+}
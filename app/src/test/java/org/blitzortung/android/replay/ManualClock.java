@@ -0,0 +1,25 @@
+package org.blitzortung.android.replay;
+
+import org.blitzortung.android.util.Clock;
+
+public class ManualClock extends Clock {
+
+    private volatile long time;
+
+    public ManualClock(long time) {
+        this.time = time;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public void advance(long millis) {
+        time += millis;
+    }
+}
@@ -0,0 +1,192 @@
+package org.blitzortung.android.replay;
+
+import org.blitzortung.android.data.beans.DefaultStrike;
+import org.blitzortung.android.data.beans.Station;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.builder.StationBuilder;
+import org.blitzortung.android.data.provider.blitzortung.MapBuilder;
+import org.blitzortung.android.data.provider.blitzortung.MapBuilderFactory;
+import org.blitzortung.android.data.provider.blitzortung.StationTokenizer;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class ReplayArchive {
+
+    private static final long MINUTE = 60 * 1000;
+
+    private final List<DefaultStrike> strikes;
+
+    private final List<Station> stations;
+
+    public ReplayArchive(List<DefaultStrike> strikes, List<Station> stations) {
+        this.strikes = new ArrayList<DefaultStrike>(strikes);
+        Collections.sort(this.strikes, new Comparator<DefaultStrike>() {
+            @Override
+            public int compare(DefaultStrike strike1, DefaultStrike strike2) {
+                return strike1.getTimestamp() < strike2.getTimestamp() ? -1 : (strike1.getTimestamp() == strike2.getTimestamp() ? 0 : 1);
+            }
+        });
+        this.stations = new ArrayList<Station>(stations);
+    }
+
+    public static ReplayArchive load(String strikesResource, String stationsResource) throws IOException {
+        final MapBuilder<StrikeAbstract> strikeBuilder = new MapBuilderFactory().createAbstractStrikeMapBuilder();
+        final List<DefaultStrike> strikes = new ArrayList<DefaultStrike>();
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(openResource(strikesResource), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().length() > 0) {
+                    strikes.add((DefaultStrike) strikeBuilder.buildFromLine(line));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        final List<Station> stations = new ArrayList<Station>();
+        final InputStream stationsStream = openResource(stationsResource);
+        try {
+            new StationTokenizer(new StationBuilder()).read(stationsStream, stations);
+        } finally {
+            stationsStream.close();
+        }
+
+        return new ReplayArchive(strikes, stations);
+    }
+
+    public static ReplayArchive synthesize(long startTime, int durationMinutes, int strikesPerMinute, long seed) {
+        final Random random = new Random(seed);
+
+        final int numberOfCells = 3;
+        final double[] cellLongitude = new double[numberOfCells];
+        final double[] cellLatitude = new double[numberOfCells];
+        final double[] cellLongitudeSpeed = new double[numberOfCells];
+        final double[] cellLatitudeSpeed = new double[numberOfCells];
+        for (int cell = 0; cell < numberOfCells; cell++) {
+            cellLongitude[cell] = 10.0 + random.nextDouble() * 2.0;
+            cellLatitude[cell] = 48.0 + random.nextDouble() * 1.5;
+            cellLongitudeSpeed[cell] = 0.005 + random.nextDouble() * 0.01;
+            cellLatitudeSpeed[cell] = (random.nextDouble() - 0.5) * 0.008;
+        }
+
+        final List<DefaultStrike> strikes = new ArrayList<DefaultStrike>();
+        final long endTime = startTime + durationMinutes * MINUTE;
+        final double meanGap = (double) MINUTE / strikesPerMinute;
+
+        long timestamp = startTime;
+        while (true) {
+            timestamp += 1 + (long) (-Math.log(1.0 - random.nextDouble()) * meanGap);
+            if (timestamp >= endTime) {
+                break;
+            }
+
+            final double minutes = (double) (timestamp - startTime) / MINUTE;
+            final int cell = random.nextInt(numberOfCells);
+            final float longitude = round(cellLongitude[cell] + cellLongitudeSpeed[cell] * minutes + random.nextGaussian() * 0.05);
+            final float latitude = round(cellLatitude[cell] + cellLatitudeSpeed[cell] * minutes + random.nextGaussian() * 0.04);
+            final float amplitude = Math.round(random.nextGaussian() * 1200) / 100f;
+            final short stationCount = (short) (4 + random.nextInt(12));
+            final float lateralError = 100 + random.nextInt(4000);
+
+            strikes.add(new DefaultStrike(timestamp, longitude, latitude, 0, amplitude, stationCount, lateralError));
+        }
+
+        final List<Station> stations = new ArrayList<Station>();
+        for (int index = 0; index < 40; index++) {
+            final long offlineSince = index % 10 == 9
+                    ? (startTime - (index + 1) * 3 * MINUTE) / 1000 * 1000
+                    : Station.OFFLINE_SINCE_NOT_SET;
+            stations.add(new Station("Station" + index, round(5.0 + (index % 8) * 2.0), round(44.0 + (index / 8) * 2.5), offlineSince));
+        }
+
+        return new ReplayArchive(strikes, stations);
+    }
+
+    public List<DefaultStrike> getStrikes() {
+        return strikes;
+    }
+
+    public List<Station> getStations() {
+        return stations;
+    }
+
+    public long getStartTime() {
+        return strikes.isEmpty() ? 0 : strikes.get(0).getTimestamp();
+    }
+
+    public long getEndTime() {
+        return strikes.isEmpty() ? 0 : strikes.get(strikes.size() - 1).getTimestamp();
+    }
+
+    public int countUntil(long time) {
+        int low = 0;
+        int high = strikes.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (strikes.get(middle).getTimestamp() <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public static String formatStrikeLine(DefaultStrike strike) {
+        final StringBuilder line = new StringBuilder();
+        line.append(createFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(strike.getTimestamp()))).append("000000");
+        line.append(" pos;").append(strike.getLatitude()).append(';').append(strike.getLongitude()).append(';').append(strike.getAltitude());
+        line.append(" str;").append(strike.getAmplitude());
+        line.append(" typ;0");
+        line.append(" dev;").append((int) strike.getLateralError());
+        line.append(" sta");
+        for (int station = 0; station < strike.getStationCount(); station++) {
+            line.append(';').append(200 + station);
+        }
+        return line.toString();
+    }
+
+    public static String formatStationLine(int id, Station station) {
+        final StringBuilder line = new StringBuilder();
+        line.append("station;").append(id);
+        line.append(" city;\"").append(station.getName()).append('"');
+        line.append(" pos;").append(station.getLatitude()).append(';').append(station.getLongitude()).append(";0");
+        if (station.getOfflineSince() != Station.OFFLINE_SINCE_NOT_SET) {
+            line.append(" last_signal;\"").append(createFormat("yyyy-MM-dd HH:mm:ss").format(new Date(station.getOfflineSince()))).append('"');
+        }
+        return line.toString();
+    }
+
+    static SimpleDateFormat createFormat(String pattern) {
+        final SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+
+    private static InputStream openResource(String name) throws FileNotFoundException {
+        final InputStream inputStream = ReplayArchive.class.getResourceAsStream(name);
+        if (inputStream == null) {
+            throw new FileNotFoundException(name);
+        }
+        return inputStream;
+    }
+
+    private static float round(double value) {
+        return (float) (Math.round(value * 10000) / 10000.0);
+    }
+}
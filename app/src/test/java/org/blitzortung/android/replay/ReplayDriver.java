@@ -0,0 +1,201 @@
+package org.blitzortung.android.replay;
+
+import android.location.Location;
+import android.util.Log;
+import org.blitzortung.android.alert.AlertParameters;
+import org.blitzortung.android.alert.AlertResult;
+import org.blitzortung.android.alert.factory.AlertObjectFactory;
+import org.blitzortung.android.alert.handler.AlertStatusHandler;
+import org.blitzortung.android.alert.object.AlertStatus;
+import org.blitzortung.android.app.Main;
+import org.blitzortung.android.data.StrikeBuffer;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.provider.DataProvider;
+import org.blitzortung.android.map.overlay.StrikesOverlay;
+import org.blitzortung.android.metrics.LatencyHistogram;
+import org.blitzortung.android.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class ReplayDriver {
+
+    public static class Report {
+
+        private final int numberOfSteps;
+
+        private final int numberOfStrikes;
+
+        private final long simulatedTime;
+
+        private final long wallTime;
+
+        private final Map<Metrics.Stage, LatencyHistogram> stageLatencies;
+
+        private final LatencyHistogram staleness;
+
+        private Report(int numberOfSteps, int numberOfStrikes, long simulatedTime, long wallTime,
+                       Map<Metrics.Stage, LatencyHistogram> stageLatencies, LatencyHistogram staleness) {
+            this.numberOfSteps = numberOfSteps;
+            this.numberOfStrikes = numberOfStrikes;
+            this.simulatedTime = simulatedTime;
+            this.wallTime = wallTime;
+            this.stageLatencies = stageLatencies;
+            this.staleness = staleness;
+        }
+
+        public int getNumberOfSteps() {
+            return numberOfSteps;
+        }
+
+        public int getNumberOfStrikes() {
+            return numberOfStrikes;
+        }
+
+        public float getStrikesPerSecond() {
+            return wallTime > 0 ? numberOfStrikes * 1e9f / wallTime : 0f;
+        }
+
+        public float getSpeedup() {
+            return wallTime > 0 ? simulatedTime * 1e6f / wallTime : 0f;
+        }
+
+        public long getLatency(Metrics.Stage stage, float percentile) {
+            return stageLatencies.get(stage).getPercentile(percentile);
+        }
+
+        public long getStaleness(float percentile) {
+            return staleness.getPercentile(percentile);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder report = new StringBuilder();
+            report.append(String.format(Locale.US, "%d steps, %d strikes, %.0f strikes/s, speedup %.0fx, staleness p50 %d ms p95 %d ms",
+                    numberOfSteps, numberOfStrikes, getStrikesPerSecond(), getSpeedup(), getStaleness(0.5f), getStaleness(0.95f)));
+            for (Map.Entry<Metrics.Stage, LatencyHistogram> entry : stageLatencies.entrySet()) {
+                report.append(String.format(Locale.US, ", %s p50 %d us p95 %d us", entry.getKey().getName(),
+                        entry.getValue().getPercentile(0.5f), entry.getValue().getPercentile(0.95f)));
+            }
+            return report.toString();
+        }
+    }
+
+    private static final Metrics.Stage[] STAGES = {
+            Metrics.Stage.FETCH, Metrics.Stage.MODEL_BUILD, Metrics.Stage.ALERT_EVALUATION, Metrics.Stage.OVERLAY_APPLY
+    };
+
+    private final DataProvider dataProvider;
+
+    private final ManualClock clock;
+
+    private final AlertStatusHandler alertStatusHandler;
+
+    private final AlertStatus alertStatus;
+
+    private final Location location;
+
+    private final StrikesOverlay strikesOverlay;
+
+    private int intervalDuration = 60;
+
+    private int region = 1;
+
+    private StrikeBuffer strikeBuffer = StrikeBuffer.empty();
+
+    private final List<StrikeAbstract> deliveredStrikes = new ArrayList<StrikeAbstract>();
+
+    public ReplayDriver(DataProvider dataProvider, ManualClock clock, AlertParameters alertParameters, Location location, StrikesOverlay strikesOverlay) {
+        this.dataProvider = dataProvider;
+        this.clock = clock;
+        this.location = location;
+        this.strikesOverlay = strikesOverlay;
+
+        final AlertObjectFactory alertObjectFactory = new AlertObjectFactory();
+        alertStatus = alertObjectFactory.createAlarmStatus(alertParameters);
+        alertStatusHandler = new AlertStatusHandler(alertObjectFactory.createAlarmSectorHandler(alertParameters), alertParameters, clock);
+    }
+
+    public void setIntervalDuration(int intervalDuration) {
+        this.intervalDuration = intervalDuration;
+    }
+
+    public void setRegion(int region) {
+        this.region = region;
+    }
+
+    public Report run(long endTime, long stepDuration) {
+        final Map<Metrics.Stage, LatencyHistogram> stageLatencies = new EnumMap<Metrics.Stage, LatencyHistogram>(Metrics.Stage.class);
+        for (Metrics.Stage stage : STAGES) {
+            stageLatencies.put(stage, new LatencyHistogram());
+        }
+        final LatencyHistogram staleness = new LatencyHistogram();
+
+        final long simulatedStartTime = clock.currentTimeMillis();
+        final long wallStartTime = System.nanoTime();
+        int numberOfSteps = 0;
+        int numberOfStrikes = 0;
+
+        while (clock.currentTimeMillis() < endTime) {
+            clock.advance(stepDuration);
+            numberOfStrikes += step(stageLatencies, staleness);
+            numberOfSteps++;
+        }
+
+        final Report report = new Report(numberOfSteps, numberOfStrikes, clock.currentTimeMillis() - simulatedStartTime,
+                System.nanoTime() - wallStartTime, stageLatencies, staleness);
+        Log.v(Main.LOG_TAG, "ReplayDriver.run() " + report);
+        return report;
+    }
+
+    private int step(Map<Metrics.Stage, LatencyHistogram> stageLatencies, LatencyHistogram staleness) {
+        final long fetchStartTime = System.nanoTime();
+        final List<StrikeAbstract> strikes = dataProvider.getStrikes(intervalDuration, 0, region);
+        final boolean incremental = dataProvider.returnsIncrementalData();
+
+        final long modelStartTime = System.nanoTime();
+        final long now = clock.currentTimeMillis();
+        final long expireTime = StrikesOverlay.getExpireTime(now, intervalDuration, 0);
+        strikeBuffer = incremental ? strikeBuffer.expire(expireTime).append(strikes) : StrikeBuffer.of(strikes);
+
+        final long alertStartTime = System.nanoTime();
+        alertStatusHandler.checkStrikes(alertStatus, strikeBuffer, location);
+
+        final long overlayStartTime = System.nanoTime();
+        if (strikesOverlay != null) {
+            strikesOverlay.applyUpdate(strikesOverlay.prepareUpdate(strikes, incremental, expireTime));
+        }
+        final long endTime = System.nanoTime();
+
+        stageLatencies.get(Metrics.Stage.FETCH).recordNanos(modelStartTime - fetchStartTime);
+        stageLatencies.get(Metrics.Stage.MODEL_BUILD).recordNanos(alertStartTime - modelStartTime);
+        stageLatencies.get(Metrics.Stage.ALERT_EVALUATION).recordNanos(overlayStartTime - alertStartTime);
+        stageLatencies.get(Metrics.Stage.OVERLAY_APPLY).recordNanos(endTime - overlayStartTime);
+
+        for (StrikeAbstract strike : strikes) {
+            staleness.record(now - strike.getTimestamp());
+        }
+
+        if (!incremental) {
+            deliveredStrikes.clear();
+        }
+        deliveredStrikes.addAll(strikes);
+
+        return strikes.size();
+    }
+
+    public List<StrikeAbstract> getDeliveredStrikes() {
+        return deliveredStrikes;
+    }
+
+    public StrikeBuffer getStrikeBuffer() {
+        return strikeBuffer;
+    }
+
+    public AlertResult getCurrentActivity() {
+        return alertStatusHandler.getCurrentActivity(alertStatus);
+    }
+}
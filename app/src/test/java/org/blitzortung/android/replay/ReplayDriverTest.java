@@ -0,0 +1,222 @@
+package org.blitzortung.android.replay;
+
+import android.content.res.Resources;
+import android.location.Location;
+import org.blitzortung.android.alert.AlertParameters;
+import org.blitzortung.android.data.beans.Station;
+import org.blitzortung.android.data.beans.StrikeAbstract;
+import org.blitzortung.android.data.provider.blitzortung.BlitzortungHttpDataProvider;
+import org.blitzortung.android.data.provider.blitzortung.MapBuilderFactory;
+import org.blitzortung.android.data.provider.blitzortung.UrlFormatter;
+import org.blitzortung.android.data.provider.standard.JsonRpcDataProvider;
+import org.blitzortung.android.map.OwnMapActivity;
+import org.blitzortung.android.map.OwnMapView;
+import org.blitzortung.android.map.overlay.StrikesOverlay;
+import org.blitzortung.android.map.overlay.color.StrikeColorHandler;
+import org.blitzortung.android.metrics.Metrics;
+import org.blitzortung.android.util.Clock;
+import org.blitzortung.android.util.MeasurementSystem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReplayDriverTest {
+
+    private static final long START_TIME = 1381068000000L;
+
+    private static final long STEP_DURATION = 30 * 1000;
+
+    @Mock
+    private StrikeColorHandler colorHandler;
+
+    @Mock
+    private Resources resources;
+
+    @Mock
+    private OwnMapActivity ownMapActivity;
+
+    @Mock
+    private OwnMapView ownMapView;
+
+    private ManualClock clock;
+
+    private ReplayServer server;
+
+    private AlertParameters alertParameters;
+
+    private Location location;
+
+    private StrikesOverlay strikesOverlay;
+
+    private JsonRpcDataProvider jsonRpcDataProvider;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(ownMapActivity.getResources()).thenReturn(resources);
+        when(ownMapActivity.getMapView()).thenReturn(ownMapView);
+        when(colorHandler.getColors()).thenReturn(new int[]{1, 2, 3});
+
+        strikesOverlay = spy(new StrikesOverlay(ownMapActivity, colorHandler));
+        doReturn(false).when(strikesOverlay).clearPopup();
+
+        alertParameters = new AlertParameters();
+        alertParameters.setSectorLabels(new String[]{"S", "W", "N", "O"});
+        alertParameters.setMeasurementSystem(MeasurementSystem.METRIC);
+
+        location = new Location("");
+        location.setLongitude(11.0);
+        location.setLatitude(48.5);
+
+        Metrics.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Clock.setDefault(null);
+        if (jsonRpcDataProvider != null) {
+            jsonRpcDataProvider.setServers(Collections.<String>emptyList());
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testJsonRpcProviderDeliversEachStrikeOnce() throws Exception {
+        final ReplayArchive archive = ReplayArchive.synthesize(START_TIME, 30, 200, 42);
+        startServer(archive, START_TIME);
+
+        final ReplayDriver driver = new ReplayDriver(createJsonRpcDataProvider(), clock, alertParameters, location, strikesOverlay);
+        final ReplayDriver.Report report = driver.run(archive.getEndTime(), STEP_DURATION);
+
+        assertThat(report.getNumberOfSteps()).isEqualTo((int) ((archive.getEndTime() - START_TIME + STEP_DURATION - 1) / STEP_DURATION));
+        assertThat(report.getNumberOfStrikes()).isEqualTo(archive.getStrikes().size());
+        assertThat(keys(driver.getDeliveredStrikes())).isEqualTo(keys(archive.getStrikes()));
+        assertThat(driver.getStrikeBuffer()).hasSize(archive.getStrikes().size());
+        assertThat(strikesOverlay.size()).isEqualTo(archive.getStrikes().size());
+        assertThat(server.getRequestCount()).isGreaterThanOrEqualTo(report.getNumberOfSteps());
+
+        assertThat(report.getStaleness(0.95f)).isLessThanOrEqualTo(STEP_DURATION + 1000);
+        assertThat(driver.getCurrentActivity()).isNotNull();
+    }
+
+    @Test
+    public void testHttpProviderDeliversEachStrikeOnce() throws Exception {
+        final ReplayArchive archive = ReplayArchive.synthesize(START_TIME, 30, 200, 43);
+        startServer(archive, START_TIME);
+
+        final ReplayDriver driver = new ReplayDriver(createHttpDataProvider(), clock, alertParameters, location, strikesOverlay);
+        final ReplayDriver.Report report = driver.run(archive.getEndTime(), STEP_DURATION);
+
+        assertThat(report.getNumberOfStrikes()).isEqualTo(archive.getStrikes().size());
+        assertThat(keys(driver.getDeliveredStrikes())).isEqualTo(keys(archive.getStrikes()));
+        assertThat(strikesOverlay.size()).isEqualTo(archive.getStrikes().size());
+        assertThat(report.getStaleness(0.95f)).isLessThanOrEqualTo(STEP_DURATION);
+        assertThat(report.getLatency(Metrics.Stage.FETCH, 0.5f)).isGreaterThan(0);
+    }
+
+    @Test
+    public void testExpiredStrikesLeaveTheModel() throws Exception {
+        final ReplayArchive archive = ReplayArchive.synthesize(START_TIME, 30, 100, 44);
+        startServer(archive, START_TIME);
+
+        final ReplayDriver driver = new ReplayDriver(createJsonRpcDataProvider(), clock, alertParameters, location, strikesOverlay);
+        driver.setIntervalDuration(10);
+        driver.run(archive.getEndTime(), STEP_DURATION);
+
+        final long expireTime = StrikesOverlay.getExpireTime(clock.currentTimeMillis(), 10, 0);
+        final int expected = archive.getStrikes().size() - archive.countUntil(expireTime - 1);
+        assertThat(driver.getStrikeBuffer()).hasSize(expected);
+        assertThat(strikesOverlay.size()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testReplayFixtureArchive() throws Exception {
+        final ReplayArchive archive = ReplayArchive.load("/replay/strikes.log", "/replay/stations.txt");
+        assertThat(archive.getStrikes()).hasSize(102);
+        assertThat(archive.getStations()).hasSize(9);
+
+        startServer(archive, archive.getStartTime() - 1);
+        location.setLongitude(8.9);
+        location.setLatitude(44.4);
+
+        final ReplayDriver driver = new ReplayDriver(createHttpDataProvider(), clock, alertParameters, location, strikesOverlay);
+        driver.run(archive.getEndTime(), 60 * 1000);
+
+        assertThat(keys(driver.getDeliveredStrikes())).isEqualTo(keys(archive.getStrikes()));
+        assertThat(driver.getCurrentActivity().getClosestStrikeDistance()).isLessThan(50f);
+    }
+
+    @Test
+    public void testStationsAreServedByBothProtocols() throws Exception {
+        final ReplayArchive archive = ReplayArchive.load("/replay/strikes.log", "/replay/stations.txt");
+        startServer(archive, archive.getEndTime());
+
+        final BlitzortungHttpDataProvider httpDataProvider = createHttpDataProvider();
+        assertThat(names(httpDataProvider.getStations(1))).isEqualTo(names(archive.getStations()));
+        assertThat(names(httpDataProvider.getStations(1))).isEqualTo(names(archive.getStations()));
+        assertThat(server.getNotModifiedCount()).isEqualTo(1);
+
+        final List<Station> stations = createJsonRpcDataProvider().getStations(1);
+        assertThat(names(stations)).isEqualTo(names(archive.getStations()));
+        assertThat(stations.get(2).getOfflineSince()).isEqualTo(archive.getStations().get(2).getOfflineSince());
+        assertThat(stations.get(2).getState(archive.getEndTime())).isEqualTo(Station.State.DELAYED);
+    }
+
+    private void startServer(ReplayArchive archive, long startTime) throws Exception {
+        clock = new ManualClock(startTime);
+        Clock.setDefault(clock);
+        server = new ReplayServer(archive, clock);
+    }
+
+    private JsonRpcDataProvider createJsonRpcDataProvider() {
+        jsonRpcDataProvider = new JsonRpcDataProvider();
+        jsonRpcDataProvider.setServers(Collections.singletonList(server.getUrl()));
+        return jsonRpcDataProvider;
+    }
+
+    private BlitzortungHttpDataProvider createHttpDataProvider() {
+        final String url = server.getUrl();
+        final BlitzortungHttpDataProvider dataProvider = new BlitzortungHttpDataProvider(new UrlFormatter() {
+            @Override
+            public String getUrlFor(BlitzortungHttpDataProvider.Type type, int region, Calendar intervalTime, boolean useGzipCompression) {
+                return super.getUrlFor(type, region, intervalTime, useGzipCompression).replace("http://data.blitzortung.org/", url);
+            }
+        }, new MapBuilderFactory());
+        dataProvider.setCredentials("user", "password");
+        return dataProvider;
+    }
+
+    private static List<String> keys(List<? extends StrikeAbstract> strikes) {
+        final List<String> keys = new ArrayList<String>();
+        for (StrikeAbstract strike : strikes) {
+            keys.add(String.format(Locale.US, "%d %s %s", strike.getTimestamp() / 1000, strike.getLongitude(), strike.getLatitude()));
+        }
+        Collections.sort(keys);
+        return keys;
+    }
+
+    private static List<String> names(List<Station> stations) {
+        final List<String> names = new ArrayList<String>();
+        for (Station station : stations) {
+            names.add(station.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,339 @@
+package org.blitzortung.android.replay;
+
+import org.blitzortung.android.data.beans.DefaultStrike;
+import org.blitzortung.android.data.beans.Station;
+import org.blitzortung.android.util.Clock;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+public class ReplayServer implements Runnable {
+
+    private static final Pattern STRIKES_PATH = Pattern.compile("/Data_\\d+/Protected/Strokes/(\\d{4})/(\\d{2})/(\\d{2})/(\\d{2})/(\\d{2})\\.log");
+
+    private static final Pattern STATIONS_PATH = Pattern.compile("/Data_\\d+/Protected/stations\\.txt\\.gz");
+
+    private static final long STRIKES_FILE_DURATION = 10 * 60 * 1000;
+
+    private final ReplayArchive archive;
+
+    private final Clock clock;
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final byte[] stationsFile;
+
+    private final String stationsEntityTag;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    public ReplayServer(ReplayArchive archive, Clock clock) throws IOException {
+        this.archive = archive;
+        this.clock = clock;
+
+        stationsFile = createStationsFile(archive.getStations());
+        stationsEntityTag = "\"" + Integer.toHexString(Arrays.hashCode(stationsFile)) + "\"";
+
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        final Thread thread = new Thread(this, "ReplayServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public int getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public void shutdown() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket socket = serverSocket.accept();
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            // server closed
+        }
+    }
+
+    private void handle(Socket socket) {
+        try {
+            final InputStream input = socket.getInputStream();
+            final OutputStream output = socket.getOutputStream();
+
+            final String requestLine = readLine(input);
+            if (requestLine == null) {
+                return;
+            }
+            final Map<String, String> headers = new HashMap<String, String>();
+            String line;
+            while ((line = readLine(input)) != null && line.length() > 0) {
+                final int separator = line.indexOf(':');
+                if (separator > 0) {
+                    headers.put(line.substring(0, separator).trim().toLowerCase(), line.substring(separator + 1).trim());
+                }
+            }
+            requestCount.incrementAndGet();
+
+            final String[] request = requestLine.split(" ");
+            if ("POST".equals(request[0])) {
+                if ("100-continue".equalsIgnoreCase(headers.get("expect"))) {
+                    output.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes("US-ASCII"));
+                    output.flush();
+                }
+                final byte[] body = readBody(input, headers.get("content-length"));
+                respond(output, "200 OK", "application/json", null, handleRpc(new String(body, "UTF-8")).getBytes("UTF-8"));
+            } else {
+                handleGet(output, request[1], headers);
+            }
+        } catch (IOException | JSONException | RuntimeException e) {
+            // client went away or sent an invalid request
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    private void handleGet(OutputStream output, String path, Map<String, String> headers) throws IOException {
+        final Matcher strikesMatcher = STRIKES_PATH.matcher(path);
+        if (strikesMatcher.matches()) {
+            final Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+            calendar.clear();
+            calendar.set(Integer.parseInt(strikesMatcher.group(1)), Integer.parseInt(strikesMatcher.group(2)) - 1,
+                    Integer.parseInt(strikesMatcher.group(3)), Integer.parseInt(strikesMatcher.group(4)) % 24,
+                    Integer.parseInt(strikesMatcher.group(5)));
+            final byte[] file = createStrikesFile(calendar.getTimeInMillis());
+            if (file == null) {
+                respond(output, "404 Not Found", "text/plain", null, new byte[0]);
+            } else {
+                respond(output, "200 OK", "text/plain", null, file);
+            }
+        } else if (STATIONS_PATH.matcher(path).matches()) {
+            if (stationsEntityTag.equals(headers.get("if-none-match"))) {
+                notModifiedCount.incrementAndGet();
+                respond(output, "304 Not Modified", null, stationsEntityTag, null);
+            } else {
+                respond(output, "200 OK", "application/x-gzip", stationsEntityTag, stationsFile);
+            }
+        } else {
+            respond(output, "404 Not Found", "text/plain", null, new byte[0]);
+        }
+    }
+
+    private byte[] createStrikesFile(long fileStartTime) throws IOException {
+        final long now = clock.currentTimeMillis();
+        if (fileStartTime > now) {
+            return null;
+        }
+
+        final List<DefaultStrike> strikes = archive.getStrikes();
+        final int end = archive.countUntil(Math.min(now, fileStartTime + STRIKES_FILE_DURATION - 1));
+        final StringBuilder file = new StringBuilder();
+        for (int index = archive.countUntil(fileStartTime - 1); index < end; index++) {
+            file.append(ReplayArchive.formatStrikeLine(strikes.get(index))).append('\n');
+        }
+        return file.toString().getBytes("UTF-8");
+    }
+
+    private static byte[] createStationsFile(List<Station> stations) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final GZIPOutputStream output = new GZIPOutputStream(bytes);
+        for (int index = 0; index < stations.size(); index++) {
+            output.write((ReplayArchive.formatStationLine(index + 1, stations.get(index)) + "\n").getBytes("UTF-8"));
+        }
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    String handleRpc(String body) throws JSONException {
+        if (body.trim().startsWith("[")) {
+            final JSONArray requests = new JSONArray(body);
+            final JSONArray responses = new JSONArray();
+            for (int index = 0; index < requests.length(); index++) {
+                final JSONObject request = requests.getJSONObject(index);
+                final JSONObject response = new JSONObject();
+                response.put("id", request.get("id"));
+                try {
+                    response.put("result", invoke(request.getString("method"), request.getJSONArray("params")));
+                } catch (IllegalArgumentException e) {
+                    response.put("error", e.getMessage());
+                }
+                responses.put(response);
+            }
+            return responses.toString();
+        }
+
+        final JSONObject request = new JSONObject(body);
+        try {
+            return invoke(request.getString("method"), request.getJSONArray("params")).toString();
+        } catch (IllegalArgumentException e) {
+            final JSONObject fault = new JSONObject();
+            fault.put("fault", true);
+            fault.put("faultCode", 1);
+            fault.put("faultString", e.getMessage());
+            return fault.toString();
+        }
+    }
+
+    private JSONObject invoke(String method, JSONArray parameters) throws JSONException {
+        if ("get_strikes".equals(method)) {
+            return getStrikes(parameters.getInt(0), parameters.getInt(1));
+        } else if ("get_stations".equals(method)) {
+            return getStations();
+        }
+        throw new IllegalArgumentException("unknown method " + method);
+    }
+
+    private JSONObject getStrikes(int intervalDuration, int nextId) throws JSONException {
+        long now = clock.currentTimeMillis();
+        if (nextId < 0) {
+            now += nextId * 60 * 1000l;
+        }
+        final long referenceTime = now / 1000 * 1000;
+
+        final List<DefaultStrike> strikes = archive.getStrikes();
+        final int end = archive.countUntil(now);
+        final int start = Math.max(archive.countUntil(now - intervalDuration * 60 * 1000l), nextId);
+
+        final JSONArray strikesArray = new JSONArray();
+        for (int index = start; index < end; index++) {
+            final DefaultStrike strike = strikes.get(index);
+            final JSONArray strikeArray = new JSONArray();
+            strikeArray.put((referenceTime - strike.getTimestamp() + 999) / 1000);
+            strikeArray.put((double) strike.getLongitude());
+            strikeArray.put((double) strike.getLatitude());
+            strikeArray.put((double) strike.getLateralError());
+            strikeArray.put((double) strike.getAmplitude());
+            strikeArray.put(strike.getStationCount());
+            strikesArray.put(strikeArray);
+        }
+
+        final JSONObject result = new JSONObject();
+        result.put("t", ReplayArchive.createFormat("yyyyMMdd'T'HH:mm:ss").format(new Date(referenceTime)));
+        result.put("s", strikesArray);
+        result.put("next", end);
+        return result;
+    }
+
+    private JSONObject getStations() throws JSONException {
+        final JSONArray stationsArray = new JSONArray();
+        final List<Station> stations = archive.getStations();
+        for (int index = 0; index < stations.size(); index++) {
+            final Station station = stations.get(index);
+            final JSONArray stationArray = new JSONArray();
+            stationArray.put(index + 1);
+            stationArray.put(station.getName());
+            stationArray.put("");
+            stationArray.put((double) station.getLongitude());
+            stationArray.put((double) station.getLatitude());
+            stationArray.put(station.getOfflineSince() != Station.OFFLINE_SINCE_NOT_SET
+                    ? ReplayArchive.createFormat("yyyyMMdd'T'HH:mm:ss.SSS").format(new Date(station.getOfflineSince()))
+                    : "");
+            stationsArray.put(stationArray);
+        }
+
+        final JSONObject result = new JSONObject();
+        result.put("stations", stationsArray);
+        return result;
+    }
+
+    private void respond(OutputStream output, String status, String contentType, String entityTag, byte[] body) throws IOException {
+        final StringBuilder header = new StringBuilder();
+        header.append("HTTP/1.1 ").append(status).append("\r\n");
+        if (contentType != null) {
+            header.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        if (entityTag != null) {
+            header.append("ETag: ").append(entityTag).append("\r\n");
+        }
+        header.append("Content-Length: ").append(body != null ? body.length : 0).append("\r\n");
+        header.append("Connection: close\r\n\r\n");
+
+        output.write(header.toString().getBytes("US-ASCII"));
+        if (body != null) {
+            output.write(body);
+            bytesSent.addAndGet(body.length);
+        }
+        output.flush();
+    }
+
+    private static byte[] readBody(InputStream input, String contentLength) throws IOException {
+        final byte[] body = new byte[contentLength != null ? Integer.parseInt(contentLength) : 0];
+        int offset = 0;
+        while (offset < body.length) {
+            final int count = input.read(body, offset, body.length - offset);
+            if (count < 0) {
+                throw new IOException("unexpected end of request body");
+            }
+            offset += count;
+        }
+        return body;
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int character;
+        while ((character = input.read()) != -1) {
+            if (character == '\n') {
+                final int length = line.length();
+                return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString();
+            }
+            line.append((char) character);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+}
@@ -0,0 +1,99 @@
+package org.blitzortung.android.util;
+
+import org.blitzortung.android.alert.AlertResult;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdaptivePeriodTest {
+
+    private AdaptivePeriod adaptivePeriod;
+
+    @Before
+    public void setUp() {
+        adaptivePeriod = new AdaptivePeriod();
+    }
+
+    @Test
+    public void testDefaultPeriods() {
+        assertThat(adaptivePeriod.getForegroundPeriod(60)).isEqualTo(60);
+        assertThat(adaptivePeriod.getBackgroundPeriod(300)).isEqualTo(300);
+    }
+
+    @Test
+    public void testCloseActivityShortensPeriods() {
+        adaptivePeriod.updateActivity(createAlertResult(50.0f), 500.0f);
+
+        assertThat(adaptivePeriod.isActive()).isTrue();
+        assertThat(adaptivePeriod.getForegroundPeriod(60)).isEqualTo(30);
+        assertThat(adaptivePeriod.getForegroundPeriod(30)).isEqualTo(20);
+        assertThat(adaptivePeriod.getForegroundPeriod(20)).isEqualTo(20);
+        assertThat(adaptivePeriod.getBackgroundPeriod(300)).isEqualTo(150);
+    }
+
+    @Test
+    public void testDistantActivityKeepsPeriods() {
+        adaptivePeriod.updateActivity(createAlertResult(400.0f), 500.0f);
+
+        assertThat(adaptivePeriod.isActive()).isFalse();
+        assertThat(adaptivePeriod.getBackgroundPeriod(300)).isEqualTo(300);
+    }
+
+    @Test
+    public void testQuietPeriodsLengthenBackgroundPeriod() {
+        adaptivePeriod.updateActivity(null, 500.0f);
+        assertThat(adaptivePeriod.getBackgroundPeriod(300)).isEqualTo(300);
+
+        adaptivePeriod.updateActivity(null, 500.0f);
+        assertThat(adaptivePeriod.getBackgroundPeriod(300)).isEqualTo(600);
+
+        for (int i = 0; i < 10; i++) {
+            adaptivePeriod.updateActivity(null, 500.0f);
+        }
+        assertThat(adaptivePeriod.getBackgroundPeriod(300)).isEqualTo(300 * AdaptivePeriod.MAX_QUIET_FACTOR);
+        assertThat(adaptivePeriod.getForegroundPeriod(60)).isEqualTo(60);
+
+        adaptivePeriod.updateActivity(createAlertResult(400.0f), 500.0f);
+        assertThat(adaptivePeriod.getBackgroundPeriod(300)).isEqualTo(300);
+    }
+
+    @Test
+    public void testRisingStrikeRate() {
+        adaptivePeriod.updateStrikeRate(10, 60);
+        assertThat(adaptivePeriod.isActive()).isFalse();
+
+        adaptivePeriod.updateStrikeRate(40, 60);
+        assertThat(adaptivePeriod.isActive()).isTrue();
+        assertThat(adaptivePeriod.getForegroundPeriod(60)).isEqualTo(30);
+
+        adaptivePeriod.updateStrikeRate(40, 60);
+        assertThat(adaptivePeriod.isActive()).isFalse();
+    }
+
+    @Test
+    public void testExponentialBackoff() {
+        adaptivePeriod.onFailure();
+        assertThat(adaptivePeriod.getForegroundPeriod(60)).isEqualTo(120);
+
+        adaptivePeriod.onFailure();
+        assertThat(adaptivePeriod.getForegroundPeriod(60)).isEqualTo(240);
+
+        for (int i = 0; i < 10; i++) {
+            adaptivePeriod.onFailure();
+        }
+        assertThat(adaptivePeriod.getForegroundPeriod(60)).isEqualTo(AdaptivePeriod.MAX_BACKOFF_PERIOD);
+        assertThat(adaptivePeriod.getBackgroundPeriod(3600)).isEqualTo(3600);
+
+        adaptivePeriod.onSuccess();
+        assertThat(adaptivePeriod.getForegroundPeriod(60)).isEqualTo(60);
+    }
+
+    private AlertResult createAlertResult(float closestStrikeDistance) {
+        AlertResult alertResult = mock(AlertResult.class);
+        when(alertResult.getClosestStrikeDistance()).thenReturn(closestStrikeDistance);
+        return alertResult;
+    }
+}